@@ -0,0 +1,141 @@
+package com.needyou.app;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AppExecutors
+ *
+ * The app's shared threads. Components take their background work from here
+ * instead of creating their own executors:
+ *
+ * <ul>
+ * <li>{@link #io()} — disk, SharedPreferences, SQLite and network. Sized for
+ * blocking work; idle threads time out.</li>
+ * <li>{@link #compute()} — CPU-bound work (image decode/encode, hashing,
+ * parsing), one thread per spare core.</li>
+ * <li>{@link #serial(Executor)} — an ordered lane on top of either pool, for
+ * components that relied on a private single-thread executor for ordering.</li>
+ * <li>{@link #main()} — the UI thread, for view work only.</li>
+ * </ul>
+ *
+ * Work tied to an Activity, Service or receiver goes through a
+ * {@link TaskScope} so it is cancelled with its owner.
+ *
+ * Pure Java apart from {@link MainThreadExecutor}, which is only loaded when
+ * {@link #main()} is first used — JVM tests pass their own main executor.
+ */
+public class AppExecutors {
+
+    private static AppExecutors instance;
+
+    private final ThreadPoolExecutor io;
+    private final ThreadPoolExecutor compute;
+    private volatile Executor main;
+
+    AppExecutors(Executor main) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        // Blocking work: enough threads that a slow request never starves the rest
+        io = new ThreadPoolExecutor(6, 6, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedFactory("NeedYouIO", Thread.NORM_PRIORITY));
+        io.allowCoreThreadTimeOut(true);
+        // CPU work: leave a core for the UI and WebView render threads
+        int computeThreads = Math.max(2, Math.min(4, cores - 1));
+        compute = new ThreadPoolExecutor(computeThreads, computeThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedFactory("NeedYouCompute", Thread.NORM_PRIORITY - 1));
+        compute.allowCoreThreadTimeOut(true);
+        this.main = main;
+    }
+
+    public static synchronized AppExecutors get() {
+        if (instance == null)
+            instance = new AppExecutors(null);
+        return instance;
+    }
+
+    public ExecutorService io() {
+        return io;
+    }
+
+    public ExecutorService compute() {
+        return compute;
+    }
+
+    public Executor main() {
+        Executor m = main;
+        if (m == null) {
+            synchronized (this) {
+                if (main == null)
+                    main = new MainThreadExecutor();
+                m = main;
+            }
+        }
+        return m;
+    }
+
+    /** New ordered lane: tasks run one at a time, in submission order, on {@code pool}. */
+    public static Executor serial(Executor pool) {
+        return new SerialExecutor(pool);
+    }
+
+    /** New scope for work owned by a component with a lifecycle. */
+    public TaskScope newScope() {
+        return new TaskScope(this);
+    }
+
+    // ─── Internals ────────────────────────────────────────────────────────────
+
+    private static final class NamedFactory implements ThreadFactory {
+        private final String prefix;
+        private final int priority;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedFactory(String prefix, int priority) {
+            this.prefix = prefix;
+            this.priority = priority;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(priority);
+            return t;
+        }
+    }
+
+    private static final class SerialExecutor implements Executor {
+        private final Executor pool;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private Runnable active;
+
+        SerialExecutor(Executor pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public synchronized void execute(Runnable r) {
+            tasks.add(() -> {
+                try {
+                    r.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null)
+                scheduleNext();
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active != null)
+                pool.execute(active);
+        }
+    }
+}
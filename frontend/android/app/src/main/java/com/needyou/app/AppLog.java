@@ -0,0 +1,184 @@
+package com.needyou.app;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * AppLog
+ *
+ * The app's logger. Every process (main and ":push") writes structured
+ * records into its own RingLog, mapped from files/logs/<process>.ring, and
+ * forwards them to logcat: everything enabled in debug builds, warnings and
+ * errors only in release builds. The active level is DEBUG in debug builds
+ * and INFO in release builds unless set with NeedYouBridge.setLogLevel().
+ *
+ * <pre>
+ * AppLog.d(TAG, "Posting notification").kv("type", type).kv("body", body).log();
+ * AppLog.e(TAG, "Mirror insert failed").err(e).log();
+ * </pre>
+ * A call below the active level allocates nothing; see RingLog. Export the
+ * rings of all processes with NeedYouBridge.exportLogs().
+ */
+public final class AppLog {
+
+    private static final String TAG = "NeedYouLog";
+    static final String KEY_LEVEL = "logLevel";
+
+    /** Bytes per process ring (about 4,000 typical records). */
+    static final int RING_BYTES = 512 * 1024;
+
+    /** Holds records logged before the file is mapped. */
+    private static final int EARLY_BYTES = 16 * 1024;
+
+    private static final RingLog ring = new RingLog(EARLY_BYTES);
+    private static volatile boolean debuggable;
+
+    private AppLog() {
+    }
+
+    /**
+     * Called first in NeedYouApp.onCreate for every process. Records go to
+     * memory at once; the ring file is mapped on the IO executor (no disk on
+     * the main thread) and takes over the early records.
+     */
+    static void init(Context context, boolean debuggable) {
+        AppLog.debuggable = debuggable;
+        int level = debuggable ? RingLog.DEBUG : RingLog.INFO;
+        ring.setLevel(level);
+        ring.setMirror(AppLog::toLogcat, debuggable ? level : RingLog.WARN);
+        Context app = context.getApplicationContext();
+        AppExecutors.get().io().execute(() -> {
+            String saved = ProcessSafeStore.get(app, KEY_LEVEL, null);
+            if (saved != null) {
+                try {
+                    applyLevel(Integer.parseInt(saved));
+                } catch (NumberFormatException ignored) {
+                    // Keep the build default
+                }
+            }
+            File dir = new File(app.getFilesDir(), "logs");
+            try {
+                if (!dir.exists() && !dir.mkdirs())
+                    throw new IOException("mkdirs failed");
+                ring.attach(new File(dir, processName(app) + ".ring"), RING_BYTES);
+            } catch (IOException e) {
+                Log.e(TAG, "Log ring file unavailable, logging to memory", e);
+            }
+        });
+    }
+
+    // ─── Logging ──────────────────────────────────────────────────────────────
+
+    public static RingLog.Entry v(String tag, String msg) {
+        return ring.at(RingLog.VERBOSE, tag, msg);
+    }
+
+    public static RingLog.Entry d(String tag, String msg) {
+        return ring.at(RingLog.DEBUG, tag, msg);
+    }
+
+    public static RingLog.Entry i(String tag, String msg) {
+        return ring.at(RingLog.INFO, tag, msg);
+    }
+
+    public static RingLog.Entry w(String tag, String msg) {
+        return ring.at(RingLog.WARN, tag, msg);
+    }
+
+    public static RingLog.Entry e(String tag, String msg) {
+        return ring.at(RingLog.ERROR, tag, msg);
+    }
+
+    public static boolean isLoggable(int level) {
+        return ring.isLoggable(level);
+    }
+
+    // ─── Level ────────────────────────────────────────────────────────────────
+
+    /**
+     * Sets the active level for this process and persists it for every
+     * process's next start; a level outside VERBOSE..ERROR restores the build
+     * default. Call off the main thread.
+     */
+    static void setLevel(Context context, int level) {
+        boolean valid = level >= RingLog.VERBOSE && level <= RingLog.ERROR;
+        ProcessSafeStore.put(context, KEY_LEVEL, valid ? Integer.toString(level) : null);
+        applyLevel(valid ? level : debuggable ? RingLog.DEBUG : RingLog.INFO);
+    }
+
+    private static void applyLevel(int level) {
+        ring.setLevel(level);
+        ring.setMirror(AppLog::toLogcat, debuggable ? level : Math.max(level, RingLog.WARN));
+    }
+
+    // ─── Export ───────────────────────────────────────────────────────────────
+
+    /**
+     * Writes the rings of all processes, oldest record first, to
+     * telemetry/log-<ts>.txt next to the perf telemetry export and returns its
+     * path, or "". Redacted values stay redacted.
+     */
+    static String exportToFile(Context context) {
+        File base = context.getExternalFilesDir(null) != null
+                ? context.getExternalFilesDir(null)
+                : context.getFilesDir();
+        File dir = new File(base, "telemetry");
+        if (!dir.exists() && !dir.mkdirs())
+            return "";
+        File out = new File(dir, "log-" + System.currentTimeMillis() + ".txt");
+        String own = processName(context) + ".ring";
+        File[] rings = new File(context.getFilesDir(), "logs").listFiles();
+        try (FileOutputStream fos = new FileOutputStream(out)) {
+            fos.write(("=== " + own + " ===\n").getBytes(StandardCharsets.UTF_8));
+            fos.write(ring.snapshot());
+            if (rings != null) {
+                for (File f : rings) {
+                    if (f.getName().equals(own))
+                        continue;
+                    fos.write(("=== " + f.getName() + " ===\n").getBytes(StandardCharsets.UTF_8));
+                    fos.write(RingLog.read(f));
+                }
+            }
+            return out.getAbsolutePath();
+        } catch (IOException e) {
+            e(TAG, "Log export failed").err(e).log();
+            return "";
+        }
+    }
+
+    // ─── Internals ────────────────────────────────────────────────────────────
+
+    private static void toLogcat(int level, String tag, byte[] buf, int off, int len, Throwable error) {
+        String msg = new String(buf, off, len, StandardCharsets.UTF_8);
+        Log.println(level, tag, error != null ? msg + '\n' + Log.getStackTraceString(error) : msg);
+    }
+
+    /** "main" for the app process, otherwise the name after ':' ("push"). */
+    private static String processName(Context context) {
+        String name = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            name = Application.getProcessName();
+        } else {
+            try (FileInputStream in = new FileInputStream("/proc/self/cmdline")) {
+                byte[] b = new byte[256];
+                int n = in.read(b);
+                int end = 0;
+                while (end < Math.max(n, 0) && b[end] != 0)
+                    end++;
+                name = new String(b, 0, end, StandardCharsets.UTF_8);
+            } catch (IOException ignored) {
+                // Fall through to "main"
+            }
+        }
+        int colon = name != null ? name.indexOf(':') : -1;
+        return colon >= 0 ? name.substring(colon + 1) : "main";
+    }
+}
@@ -0,0 +1,359 @@
+package com.needyou.app;
+
+import android.Manifest;
+import android.annotation.SuppressLint;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.os.Build;
+
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingClient;
+import com.google.android.gms.location.GeofencingRequest;
+import com.google.android.gms.location.LocationServices;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ArrivalGeofences
+ *
+ * Native arrival detection for the worker's active job. The page registers
+ * the job site once (NeedYouBridge.registerArrivalGeofence); Play Services
+ * geofencing then watches it with its low-power proximity engine — no
+ * continuous GPS, and it keeps working with the screen off or the app killed.
+ *
+ * On ENTER — a platform transition from GeofenceReceiver, or a location fix
+ * the app already has ({@link #onFix}) — the {@link ArrivalTracker} fires and
+ * this class performs what jobBilling.ts#notifyArrival does: marks the
+ * application "arrived" (in a transaction, so a concurrent page-side report
+ * is not duplicated), writes the client's notification and sends the push.
+ * Firestore access uses the native session from NativeSession.
+ *
+ * The report is retried until the client has been told: the transaction
+ * also sets arrivalClientNotified=false, which is flipped once the
+ * notification is written (under a fixed id, so a retry overwrites it). A
+ * failed report marks the fence outside again and keeps it registered, and
+ * a process that died in between finds the flag still false on the next
+ * enter.
+ *
+ * Fences are persisted in SharedPreferences "NeedYouGeofences" so they can
+ * be re-registered after a reboot.
+ */
+public class ArrivalGeofences implements ArrivalTracker.Listener {
+
+    private static final String TAG = "NeedYouGeofence";
+    private static final String PREFS = "NeedYouGeofences";
+    private static final String SEND_NOTIFICATION_URL = "https://need-you.xyz/api/send-notification";
+
+    /** Fences expire on their own if the job never reaches the site. */
+    static final long FENCE_TTL_MS = 24L * 60 * 60 * 1000;
+
+    private static ArrivalGeofences instance;
+
+    private final Context appContext;
+    private final SharedPreferences prefs;
+    private final GeofencingClient client;
+    private final ArrivalTracker tracker = new ArrivalTracker(this);
+
+    // Completion hooks for GeofenceReceiver's goAsync(), per fence id.
+    private final Map<String, Runnable> pendingDone = new ConcurrentHashMap<>();
+
+    private ArrivalGeofences(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.prefs = appContext.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.client = LocationServices.getGeofencingClient(appContext);
+        for (Map.Entry<String, ?> e : prefs.getAll().entrySet()) {
+            ArrivalTracker.Fence f = fromJson(e.getKey(), e.getValue());
+            if (f != null)
+                tracker.add(f);
+        }
+    }
+
+    public static synchronized ArrivalGeofences get(Context context) {
+        if (instance == null)
+            instance = new ArrivalGeofences(context);
+        return instance;
+    }
+
+    // ─── Registration ─────────────────────────────────────────────────────────
+
+    /** True when geofences can be registered (fine + background location). */
+    public boolean hasPermissions() {
+        boolean fine = ContextCompat.checkSelfPermission(appContext,
+                Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED;
+        boolean background = Build.VERSION.SDK_INT < Build.VERSION_CODES.Q
+                || ContextCompat.checkSelfPermission(appContext,
+                        Manifest.permission.ACCESS_BACKGROUND_LOCATION) == PackageManager.PERMISSION_GRANTED;
+        return fine && background;
+    }
+
+    /**
+     * Registers the job-site fence described by {"appId","jobId","clientId",
+     * "jobTitle","workerName","lat","lng","radius"}. Returns false if the
+     * input is invalid or location permissions are missing.
+     */
+    public boolean register(JSONObject spec) {
+        String appId = spec.optString("appId", "");
+        if (appId.isEmpty() || !spec.has("lat") || !spec.has("lng") || !hasPermissions())
+            return false;
+        try {
+            spec.put("registeredAt", System.currentTimeMillis());
+        } catch (JSONException e) {
+            return false;
+        }
+        prefs.edit().putString(appId, spec.toString()).apply();
+        ArrivalTracker.Fence f = fromJson(appId, spec.toString());
+        if (f == null)
+            return false;
+        tracker.add(f);
+        addPlatformFence(f);
+        return true;
+    }
+
+    public void unregister(String appId) {
+        if (appId == null)
+            return;
+        tracker.remove(appId);
+        prefs.edit().remove(appId).apply();
+        client.removeGeofences(Collections.singletonList(appId));
+    }
+
+    /** Re-adds persisted fences (the platform forgets them on reboot). */
+    void reregisterAll() {
+        if (!hasPermissions())
+            return;
+        for (ArrivalTracker.Fence f : tracker.all()) {
+            if (expired(f.id))
+                unregister(f.id);
+            else
+                addPlatformFence(f);
+        }
+    }
+
+    @SuppressLint("MissingPermission") // checked by hasPermissions()
+    private void addPlatformFence(ArrivalTracker.Fence f) {
+        Geofence geofence = new Geofence.Builder()
+                .setRequestId(f.id)
+                .setCircularRegion(f.lat, f.lng, f.radiusM)
+                .setExpirationDuration(FENCE_TTL_MS)
+                .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_EXIT)
+                // Responsiveness trades latency for battery; 30 s is plenty for "arrived"
+                .setNotificationResponsiveness(30_000)
+                .build();
+        GeofencingRequest request = new GeofencingRequest.Builder()
+                .setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_ENTER)
+                .addGeofence(geofence)
+                .build();
+        client.addGeofences(request, pendingIntent())
+                .addOnFailureListener(e -> AppLog.e(TAG, "addGeofences failed").kv("fence", f.id).err(e).log());
+    }
+
+    private PendingIntent pendingIntent() {
+        Intent intent = new Intent(appContext, GeofenceReceiver.class)
+                .setAction(GeofenceReceiver.ACTION_TRANSITION);
+        // Geofencing fills in the event extras, so the PendingIntent must be mutable
+        int flags = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_MUTABLE
+                : PendingIntent.FLAG_UPDATE_CURRENT;
+        return PendingIntent.getBroadcast(appContext, 0, intent, flags);
+    }
+
+    private boolean expired(String appId) {
+        try {
+            JSONObject spec = new JSONObject(prefs.getString(appId, "{}"));
+            return System.currentTimeMillis() - spec.optLong("registeredAt") > FENCE_TTL_MS;
+        } catch (JSONException e) {
+            return true;
+        }
+    }
+
+    // ─── Transitions ──────────────────────────────────────────────────────────
+
+    /** Routes a platform transition through the tracker; {@code done} runs when handling finishes. */
+    void onPlatformTransition(String appId, boolean entered, Runnable done) {
+        ArrivalTracker.Fence f = tracker.get(appId);
+        if (f == null || f.isInside() == entered) {
+            done.run();
+            return;
+        }
+        pendingDone.put(appId, done);
+        tracker.onTransition(appId, entered);
+    }
+
+    /**
+     * Feeds a fix the app got anyway (page location, navigation ETA samples)
+     * to the tracker, so arrival is noticed before the platform geofence's
+     * responsiveness delay. Stale fixes are ignored.
+     */
+    public void onFix(LocationFix fix) {
+        if (fix == null || fix.ageMs(System.currentTimeMillis()) > LastLocationCache.FRESH_MS)
+            return;
+        tracker.onFix(fix.lat, fix.lng, fix.accuracy);
+    }
+
+    @Override
+    public void onEnter(ArrivalTracker.Fence fence) {
+        reportArrival(fence, takeDone(fence.id));
+    }
+
+    @Override
+    public void onExit(ArrivalTracker.Fence fence) {
+        AppLog.d(TAG, "Left job site").kv("fence", fence.id).log();
+        takeDone(fence.id).run();
+    }
+
+    private Runnable takeDone(String appId) {
+        Runnable done = pendingDone.remove(appId);
+        return done != null ? done : () -> {
+        };
+    }
+
+    /** Native equivalent of jobBilling.ts#notifyArrival. */
+    private void reportArrival(ArrivalTracker.Fence fence, Runnable done) {
+        JSONObject spec = parse(fence.payload);
+        if (spec == null || NativeSession.get().getUid() == null) {
+            AppLog.w(TAG, "Arrival not reported — no native session").kv("fence", fence.id).log();
+            tracker.reset(fence.id);
+            done.run();
+            return;
+        }
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        DocumentReference appRef = db.collection("job_applications").document(fence.id);
+        db.runTransaction(tx -> {
+            DocumentSnapshot snap = tx.get(appRef);
+            if (!snap.exists())
+                return false;
+            if (Boolean.TRUE.equals(snap.getBoolean("arrivalDetected"))) {
+                // Ours, committed by an earlier attempt that never told the client
+                return "arrived".equals(snap.getString("startJobStatus"))
+                        && Boolean.FALSE.equals(snap.getBoolean("arrivalClientNotified"));
+            }
+            if (!"active".equals(snap.getString("startJobStatus")))
+                return false;
+            Map<String, Object> update = new HashMap<>();
+            update.put("startJobStatus", "arrived");
+            update.put("arrivalDetected", true);
+            update.put("arrivalClientNotified", false);
+            update.put("arrivalNotifiedAt", System.currentTimeMillis());
+            tx.update(appRef, update);
+            return true;
+        }).addOnSuccessListener(notify -> {
+            if (Boolean.TRUE.equals(notify)) {
+                notifyClient(db, appRef, spec, fence.id, done);
+            } else {
+                unregister(fence.id);
+                done.run();
+            }
+        }).addOnFailureListener(e -> {
+            AppLog.e(TAG, "Arrival update failed").kv("fence", fence.id).err(e).log();
+            tracker.reset(fence.id);
+            done.run();
+        });
+    }
+
+    private void notifyClient(FirebaseFirestore db, DocumentReference appRef, JSONObject spec, String appId,
+            Runnable done) {
+        String clientId = spec.optString("clientId");
+        String jobId = spec.optString("jobId");
+        String jobTitle = spec.optString("jobTitle");
+        String title = "📍 Worker Has Arrived!";
+        String message = spec.optString("workerName", "The worker") + " has arrived at your location for \""
+                + jobTitle + "\". Open the app to generate a meeting code.";
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("userId", clientId);
+        notification.put("type", "job_update");
+        notification.put("title", title);
+        notification.put("message", message);
+        notification.put("jobId", jobId);
+        notification.put("jobTitle", jobTitle);
+        notification.put("applicationId", appId);
+        notification.put("createdAt", System.currentTimeMillis());
+        notification.put("read", false);
+        DocumentReference ref = db.collection("notifications").document("arrival_" + appId);
+        ref.set(notification)
+                .continueWithTask(written -> {
+                    if (!written.isSuccessful())
+                        return written;
+                    return appRef.update("arrivalClientNotified", true);
+                })
+                .addOnSuccessListener(ignored -> AppExecutors.get().io().execute(() -> {
+                    unregister(appId);
+                    sendPush(clientId, title, message, jobId, ref.getId());
+                    done.run();
+                }))
+                .addOnFailureListener(e -> {
+                    AppLog.e(TAG, "Arrival notification write failed").err(e).log();
+                    tracker.reset(appId);
+                    done.run();
+                });
+    }
+
+    /** Same request lib/notifications.ts#sendPushNotification makes. */
+    private static void sendPush(String userId, String title, String body, String jobId, String notificationId) {
+        HttpURLConnection conn = null;
+        try {
+            JSONObject data = new JSONObject()
+                    .put("jobId", jobId)
+                    .put("notificationType", "job_update")
+                    .put("notificationId", notificationId);
+            byte[] payload = new JSONObject()
+                    .put("userId", userId)
+                    .put("title", title)
+                    .put("body", body)
+                    .put("data", data)
+                    .toString().getBytes(StandardCharsets.UTF_8);
+            conn = (HttpURLConnection) new URL(SEND_NOTIFICATION_URL).openConnection();
+            conn.setRequestMethod("POST");
+            // Runs inside GeofenceReceiver's budget, after two Firestore round trips
+            conn.setConnectTimeout(3_000);
+            conn.setReadTimeout(3_000);
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(payload);
+            }
+            AppLog.d(TAG, "Arrival push sent").kv("http", conn.getResponseCode()).log();
+        } catch (Exception e) {
+            AppLog.e(TAG, "Arrival push failed").err(e).log();
+        } finally {
+            if (conn != null)
+                conn.disconnect();
+        }
+    }
+
+    // ─── Helpers ──────────────────────────────────────────────────────────────
+
+    private static ArrivalTracker.Fence fromJson(String appId, Object raw) {
+        JSONObject spec = raw instanceof String ? parse((String) raw) : null;
+        if (spec == null)
+            return null;
+        float radius = (float) spec.optDouble("radius", 200);
+        return new ArrivalTracker.Fence(appId, spec.optDouble("lat"), spec.optDouble("lng"),
+                Math.max(100f, radius), spec.toString());
+    }
+
+    private static JSONObject parse(String raw) {
+        try {
+            return new JSONObject(raw);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.needyou.app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ArrivalTracker
+ *
+ * Enter/exit state machine for circular job-site fences. Pure Java: it is fed
+ * both platform geofence transitions ({@link #onTransition}) and location
+ * fixes the app already has ({@link #onFix}, via ArrivalGeofences), so the
+ * logic can be driven by a replayed route on the JVM.
+ *
+ * A fix only counts when its accuracy is no worse than the fence radius.
+ * Once inside, a fence is left only beyond radius × {@link #EXIT_FACTOR}, so
+ * GPS jitter at the boundary does not flap enter/exit.
+ */
+public class ArrivalTracker {
+
+    /** Exit hysteresis: a fence is left only beyond this multiple of its radius. */
+    static final double EXIT_FACTOR = 1.25;
+
+    private static final double EARTH_RADIUS_M = 6_371_000;
+
+    public interface Listener {
+        void onEnter(Fence fence);
+
+        void onExit(Fence fence);
+    }
+
+    public static final class Fence {
+        public final String id;
+        public final double lat;
+        public final double lng;
+        public final float radiusM;
+        /** Opaque data for the listener (job / application details). */
+        public final String payload;
+        volatile boolean inside;
+
+        public Fence(String id, double lat, double lng, float radiusM, String payload) {
+            this.id = id;
+            this.lat = lat;
+            this.lng = lng;
+            this.radiusM = radiusM;
+            this.payload = payload;
+        }
+
+        public boolean isInside() {
+            return inside;
+        }
+    }
+
+    private final Map<String, Fence> fences = new ConcurrentHashMap<>();
+    private final Listener listener;
+
+    public ArrivalTracker(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void add(Fence fence) {
+        fences.put(fence.id, fence);
+    }
+
+    public Fence remove(String id) {
+        return fences.remove(id);
+    }
+
+    public Fence get(String id) {
+        return fences.get(id);
+    }
+
+    public List<Fence> all() {
+        return new ArrayList<>(fences.values());
+    }
+
+    /** Feeds one location fix; fires enter/exit for every fence it crosses. */
+    public void onFix(double lat, double lng, float accuracyM) {
+        for (Fence f : fences.values()) {
+            if (accuracyM > f.radiusM)
+                continue;
+            double d = distanceM(lat, lng, f.lat, f.lng);
+            if (!f.inside && d <= f.radiusM)
+                transition(f, true);
+            else if (f.inside && d > f.radiusM * EXIT_FACTOR)
+                transition(f, false);
+        }
+    }
+
+    /**
+     * Marks fence {@code id} outside again without firing onExit, so the next
+     * fix or transition inside it reports the arrival anew (used when
+     * reporting an enter failed).
+     */
+    public void reset(String id) {
+        Fence f = fences.get(id);
+        if (f != null)
+            f.inside = false;
+    }
+
+    /** Platform geofence transition for fence {@code id}. */
+    public void onTransition(String id, boolean entered) {
+        Fence f = fences.get(id);
+        if (f != null && f.inside != entered)
+            transition(f, entered);
+    }
+
+    private void transition(Fence f, boolean entered) {
+        synchronized (f) {
+            if (f.inside == entered)
+                return;
+            f.inside = entered;
+        }
+        if (entered)
+            listener.onEnter(f);
+        else
+            listener.onExit(f);
+    }
+
+    /** Great-circle distance in metres (same formula as jobBilling.ts#calcDistance). */
+    static double distanceM(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                        * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return EARTH_RADIUS_M * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,402 @@
+package com.needyou.app;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * BundleStore
+ *
+ * Differential over-the-air updater for the exported web bundle. Pure Java
+ * (no Android APIs) so it can be exercised on the JVM against a local HTTP
+ * server.
+ *
+ * The server publishes {@code <baseUrl>/manifest.json}:
+ * {"version":"...","files":{"index.html":"<sha256>", "_next/static/...":"<sha256>"}}
+ * and every file at {@code <baseUrl>/files/<path>}.
+ *
+ * The manifest and files/ are produced from a Next.js build by
+ * frontend/generate-bundle.js ({@code npm run build:bundle}).
+ *
+ * checkForUpdate() downloads only files whose hash is not already present in
+ * the active bundle (unchanged files are copied locally), verifies every
+ * hash and stages the result as "pending". onLaunch() swaps the pending
+ * bundle in. Once the bundle has served a page (markBootAttempted()), the
+ * page must call markBootSuccessful() before the next onLaunch(), or that
+ * launch rolls back to the previous bundle and remembers the version as
+ * failed so checkForUpdate() never stages it again. A launch that never
+ * reaches the bundle (offline start) does not count.
+ *
+ * Layout under root: state.json, versions/<version>/..., versions/<version>.tmp/...
+ */
+public class BundleStore {
+
+    private static final int TIMEOUT_MS = 15_000;
+    /** Rolled-back versions remembered in state.json, newest last. */
+    private static final int MAX_FAILED_VERSIONS = 20;
+
+    private final File root;
+    private final File versionsDir;
+    private final File stateFile;
+    private final String baseUrl;
+
+    // state.json fields
+    private String active = "";
+    private String previous = "";
+    private String pending = "";
+    private boolean bootPending = false;
+    private boolean bootAttempted = false;
+    private final List<String> failedVersions = new ArrayList<>();
+
+    public BundleStore(File root, String baseUrl) {
+        this.root = root;
+        this.versionsDir = new File(root, "versions");
+        this.stateFile = new File(root, "state.json");
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        loadState();
+    }
+
+    // ─── Launch / boot confirmation ──────────────────────────────────────────
+
+    /**
+     * Called once per process start, before the WebView loads. Rolls back a
+     * bundle that served a page but failed to confirm its boot, otherwise
+     * activates a staged bundle.
+     */
+    public synchronized void onLaunch() throws IOException {
+        if (bootPending) {
+            if (!bootAttempted)
+                return; // never reached (offline start) — give it the next launch
+            // The last swap never reported a successful boot — go back.
+            String bad = active;
+            active = previous;
+            previous = "";
+            bootPending = false;
+            bootAttempted = false;
+            failedVersions.remove(bad);
+            failedVersions.add(bad);
+            while (failedVersions.size() > MAX_FAILED_VERSIONS)
+                failedVersions.remove(0);
+            saveState();
+            deleteRecursive(new File(versionsDir, bad));
+            return;
+        }
+        if (!pending.isEmpty() && new File(versionsDir, pending).isDirectory()) {
+            previous = active;
+            active = pending;
+            pending = "";
+            bootPending = true;
+            bootAttempted = false;
+            saveState();
+        }
+    }
+
+    /**
+     * The WebView was handed a page of the active bundle. From now on an
+     * unconfirmed boot rolls back at the next launch.
+     */
+    public synchronized void markBootAttempted() throws IOException {
+        if (!bootPending || bootAttempted)
+            return;
+        bootAttempted = true;
+        saveState();
+    }
+
+    /**
+     * The page rendered with the active bundle — keep it and prune old
+     * versions. Ignored unless the bundle served this boot
+     * (markBootAttempted()); a page from the network proves nothing about it.
+     */
+    public synchronized void markBootSuccessful() throws IOException {
+        if (!bootPending || !bootAttempted)
+            return;
+        bootPending = false;
+        bootAttempted = false;
+        saveState();
+        File[] dirs = versionsDir.listFiles();
+        if (dirs == null)
+            return;
+        for (File d : dirs) {
+            String name = d.getName();
+            if (!name.equals(active) && !name.equals(previous) && !name.equals(pending))
+                deleteRecursive(d);
+        }
+    }
+
+    public synchronized String getActiveVersion() {
+        return active;
+    }
+
+    public synchronized String getPendingVersion() {
+        return pending;
+    }
+
+    public synchronized boolean isBootPending() {
+        return bootPending;
+    }
+
+    /** Versions that were rolled back and will not be staged again. */
+    public synchronized List<String> getFailedVersions() {
+        return new ArrayList<>(failedVersions);
+    }
+
+    /**
+     * Maps a URL path to a file in the active bundle, trying the Next.js
+     * export conventions (/x → x, x.html, x/index.html). Returns null if the
+     * active bundle does not contain it.
+     */
+    public synchronized File resolve(String urlPath) {
+        if (active.isEmpty() || urlPath == null || urlPath.contains(".."))
+            return null;
+        File dir = new File(versionsDir, active);
+        String p = urlPath.startsWith("/") ? urlPath.substring(1) : urlPath;
+        if (p.endsWith("/"))
+            p = p.substring(0, p.length() - 1);
+        String[] candidates = p.isEmpty()
+                ? new String[] { "index.html" }
+                : new String[] { p, p + ".html", p + "/index.html" };
+        for (String c : candidates) {
+            File f = new File(dir, c);
+            if (f.isFile())
+                return f;
+        }
+        return null;
+    }
+
+    // ─── Update ──────────────────────────────────────────────────────────────
+
+    /**
+     * Fetches the manifest and stages a new bundle if its version differs
+     * from the active and pending ones and has not been rolled back before.
+     * Returns true if a bundle was staged.
+     */
+    public boolean checkForUpdate() throws IOException {
+        JSONObject manifest;
+        try {
+            manifest = new JSONObject(new String(fetch(baseUrl + "/manifest.json"), StandardCharsets.UTF_8));
+        } catch (JSONException e) {
+            throw new IOException("Bad bundle manifest", e);
+        }
+        String version = manifest.optString("version", "");
+        JSONObject files = manifest.optJSONObject("files");
+        if (version.isEmpty() || files == null || !version.matches("[A-Za-z0-9._-]+"))
+            throw new IOException("Bundle manifest missing version/files");
+
+        String activeVersion;
+        synchronized (this) {
+            if (version.equals(active) || version.equals(pending) || failedVersions.contains(version))
+                return false;
+            activeVersion = active;
+        }
+
+        // hash → file already on disk in the active bundle (reused instead of downloaded)
+        Map<String, File> local = activeVersion.isEmpty()
+                ? new HashMap<>()
+                : indexByHash(new File(versionsDir, activeVersion));
+
+        File tmp = new File(versionsDir, version + ".tmp");
+        deleteRecursive(tmp);
+        if (!tmp.mkdirs())
+            throw new IOException("Cannot create " + tmp);
+
+        Iterator<String> it = files.keys();
+        while (it.hasNext()) {
+            String path = it.next();
+            String hash = files.optString(path).toLowerCase(Locale.US);
+            if (path.contains("..") || path.startsWith("/"))
+                throw new IOException("Illegal bundle path " + path);
+            File dest = new File(tmp, path);
+            File parent = dest.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs())
+                throw new IOException("Cannot create " + parent);
+
+            File reuse = local.get(hash);
+            if (reuse != null) {
+                copy(reuse, dest);
+            } else {
+                byte[] body = fetch(baseUrl + "/files/" + encodePath(path));
+                try (OutputStream out = new FileOutputStream(dest)) {
+                    out.write(body);
+                }
+            }
+            String actual = sha256(dest);
+            if (!hash.equals(actual)) {
+                deleteRecursive(tmp);
+                throw new IOException("Hash mismatch for " + path);
+            }
+        }
+
+        File finalDir = new File(versionsDir, version);
+        deleteRecursive(finalDir);
+        if (!tmp.renameTo(finalDir))
+            throw new IOException("Cannot finalise bundle " + version);
+
+        synchronized (this) {
+            if (!pending.isEmpty() && !pending.equals(version))
+                deleteRecursive(new File(versionsDir, pending));
+            pending = version;
+            saveState();
+        }
+        return true;
+    }
+
+    // ─── State ───────────────────────────────────────────────────────────────
+
+    private void loadState() {
+        if (!stateFile.isFile())
+            return;
+        try (InputStream in = new FileInputStream(stateFile)) {
+            JSONObject s = new JSONObject(new String(readAll(in), StandardCharsets.UTF_8));
+            active = s.optString("active", "");
+            previous = s.optString("previous", "");
+            pending = s.optString("pending", "");
+            bootPending = s.optBoolean("bootPending", false);
+            // Written before markBootAttempted() existed: every boot counted
+            bootAttempted = s.optBoolean("bootAttempted", true);
+            JSONArray failed = s.optJSONArray("failedVersions");
+            for (int i = 0; failed != null && i < failed.length(); i++)
+                failedVersions.add(failed.optString(i));
+        } catch (IOException | JSONException e) {
+            // Corrupt state: fall back to the remote app until the next update
+            active = previous = pending = "";
+            bootPending = bootAttempted = false;
+            failedVersions.clear();
+        }
+    }
+
+    /** Writes state.json via a temp file + rename so a crash never leaves it half-written. */
+    private void saveState() throws IOException {
+        if (!root.exists() && !root.mkdirs())
+            throw new IOException("Cannot create " + root);
+        String json;
+        try {
+            json = new JSONObject()
+                    .put("active", active)
+                    .put("previous", previous)
+                    .put("pending", pending)
+                    .put("bootPending", bootPending)
+                    .put("bootAttempted", bootAttempted)
+                    .put("failedVersions", new JSONArray(failedVersions))
+                    .toString();
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        File tmp = new File(root, "state.json.tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(stateFile))
+            throw new IOException("Cannot replace " + stateFile);
+    }
+
+    // ─── Helpers ─────────────────────────────────────────────────────────────
+
+    private static Map<String, File> indexByHash(File dir) {
+        Map<String, File> index = new HashMap<>();
+        walk(dir, index);
+        return index;
+    }
+
+    private static void walk(File f, Map<String, File> index) {
+        File[] children = f.listFiles();
+        if (children == null)
+            return;
+        for (File c : children) {
+            if (c.isDirectory())
+                walk(c, index);
+            else
+                index.put(sha256(c), c);
+        }
+    }
+
+    private static byte[] fetch(String url) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        conn.setConnectTimeout(TIMEOUT_MS);
+        conn.setReadTimeout(TIMEOUT_MS);
+        try {
+            int code = conn.getResponseCode();
+            if (code != HttpURLConnection.HTTP_OK)
+                throw new IOException("HTTP " + code + " for " + url);
+            try (InputStream in = conn.getInputStream()) {
+                return readAll(in);
+            }
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static String encodePath(String path) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (String seg : path.split("/")) {
+            if (sb.length() > 0)
+                sb.append('/');
+            sb.append(URLEncoder.encode(seg, "UTF-8").replace("+", "%20"));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        byte[] buf = new byte[16 * 1024];
+        int n;
+        while ((n = in.read(buf)) > 0)
+            out.write(buf, 0, n);
+        return out.toByteArray();
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        try (InputStream in = new FileInputStream(from); OutputStream out = new FileOutputStream(to)) {
+            byte[] buf = new byte[16 * 1024];
+            int n;
+            while ((n = in.read(buf)) > 0)
+                out.write(buf, 0, n);
+        }
+    }
+
+    static String sha256(File file) {
+        try (InputStream in = new FileInputStream(file)) {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] buf = new byte[16 * 1024];
+            int n;
+            while ((n = in.read(buf)) > 0)
+                md.update(buf, 0, n);
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest())
+                sb.append(String.format(Locale.US, "%02x", b));
+            return sb.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return "";
+        }
+    }
+
+    static void deleteRecursive(File f) {
+        if (f == null || !f.exists())
+            return;
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File c : children)
+                deleteRecursive(c);
+        }
+        f.delete();
+    }
+}
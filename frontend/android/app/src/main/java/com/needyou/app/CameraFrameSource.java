@@ -0,0 +1,220 @@
+package com.needyou.app;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.ImageFormat;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraCaptureSession;
+import android.hardware.camera2.CameraCharacteristics;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CameraManager;
+import android.hardware.camera2.CaptureRequest;
+import android.hardware.camera2.params.StreamConfigurationMap;
+import android.media.Image;
+import android.media.ImageReader;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Size;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+
+/**
+ * CameraFrameSource
+ *
+ * LivenessPipeline frame source backed by the front camera through Camera2.
+ * Frames arrive on the "NeedYouLivenessCamera" thread; an Image is only
+ * copied into NV21 when the pipeline wants that timestamp, otherwise it is
+ * closed straight away.
+ */
+public class CameraFrameSource implements LivenessPipeline.FrameSource {
+
+    private static final String TAG = "NeedYouLiveness";
+
+    /** Preferred capture size; the closest supported YUV size is used. */
+    private static final int PREFERRED_WIDTH = 640;
+    private static final int PREFERRED_HEIGHT = 480;
+
+    private final Context appContext;
+
+    private HandlerThread thread;
+    private Handler handler;
+    private CameraDevice camera;
+    private CameraCaptureSession session;
+    private ImageReader reader;
+
+    public CameraFrameSource(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    @SuppressLint("MissingPermission") // caller checks CAMERA before starting the pipeline
+    @Override
+    public synchronized void start(LivenessPipeline.FrameSink sink) throws IOException {
+        CameraManager cm = (CameraManager) appContext.getSystemService(Context.CAMERA_SERVICE);
+        if (cm == null)
+            throw new IOException("No camera service");
+        try {
+            String cameraId = null;
+            CameraCharacteristics chars = null;
+            for (String id : cm.getCameraIdList()) {
+                CameraCharacteristics c = cm.getCameraCharacteristics(id);
+                Integer facing = c.get(CameraCharacteristics.LENS_FACING);
+                if (facing != null && facing == CameraCharacteristics.LENS_FACING_FRONT) {
+                    cameraId = id;
+                    chars = c;
+                    break;
+                }
+            }
+            if (cameraId == null)
+                throw new IOException("No front camera");
+
+            Size size = chooseSize(chars);
+            Integer sensor = chars.get(CameraCharacteristics.SENSOR_ORIENTATION);
+            // The app is portrait-only, so the sensor orientation alone makes frames upright
+            int rotation = sensor != null ? sensor : 270;
+
+            thread = new HandlerThread("NeedYouLivenessCamera");
+            thread.start();
+            handler = new Handler(thread.getLooper());
+            reader = ImageReader.newInstance(size.getWidth(), size.getHeight(), ImageFormat.YUV_420_888, 2);
+            reader.setOnImageAvailableListener(r -> {
+                Image image = r.acquireLatestImage();
+                if (image == null)
+                    return;
+                try {
+                    long ts = image.getTimestamp();
+                    if (sink.wants(ts))
+                        sink.onFrame(new LivenessPipeline.Frame(image.getWidth(), image.getHeight(),
+                                toNv21(image), ts, rotation));
+                } finally {
+                    image.close();
+                }
+            }, handler);
+
+            cm.openCamera(cameraId, new CameraDevice.StateCallback() {
+                @Override
+                public void onOpened(CameraDevice device) {
+                    synchronized (CameraFrameSource.this) {
+                        camera = device;
+                        if (reader == null) {
+                            // stop() ran while the camera was opening
+                            device.close();
+                            return;
+                        }
+                        startSession(device);
+                    }
+                }
+
+                @Override
+                public void onDisconnected(CameraDevice device) {
+                    device.close();
+                }
+
+                @Override
+                public void onError(CameraDevice device, int error) {
+                    AppLog.e(TAG, "Camera error").kv("code", error).log();
+                    device.close();
+                }
+            }, handler);
+        } catch (CameraAccessException | SecurityException e) {
+            stop();
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("deprecation") // createCaptureSession(List, ...) is the API 24-compatible form
+    private void startSession(CameraDevice device) {
+        try {
+            device.createCaptureSession(Collections.singletonList(reader.getSurface()),
+                    new CameraCaptureSession.StateCallback() {
+                        @Override
+                        public void onConfigured(CameraCaptureSession s) {
+                            synchronized (CameraFrameSource.this) {
+                                if (camera == null || reader == null)
+                                    return;
+                                session = s;
+                                try {
+                                    CaptureRequest.Builder req = device.createCaptureRequest(CameraDevice.TEMPLATE_PREVIEW);
+                                    req.addTarget(reader.getSurface());
+                                    s.setRepeatingRequest(req.build(), null, handler);
+                                } catch (CameraAccessException | IllegalStateException e) {
+                                    AppLog.e(TAG, "Capture request failed").err(e).log();
+                                }
+                            }
+                        }
+
+                        @Override
+                        public void onConfigureFailed(CameraCaptureSession s) {
+                            AppLog.e(TAG, "Capture session configuration failed").log();
+                        }
+                    }, handler);
+        } catch (CameraAccessException e) {
+            AppLog.e(TAG, "Capture session failed").err(e).log();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (session != null) {
+            session.close();
+            session = null;
+        }
+        if (camera != null) {
+            camera.close();
+            camera = null;
+        }
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+        if (thread != null) {
+            thread.quitSafely();
+            thread = null;
+        }
+    }
+
+    private static Size chooseSize(CameraCharacteristics chars) {
+        StreamConfigurationMap map = chars.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+        Size best = new Size(PREFERRED_WIDTH, PREFERRED_HEIGHT);
+        if (map == null)
+            return best;
+        long bestDiff = Long.MAX_VALUE;
+        for (Size s : map.getOutputSizes(ImageFormat.YUV_420_888)) {
+            long diff = Math.abs((long) s.getWidth() * s.getHeight() - (long) PREFERRED_WIDTH * PREFERRED_HEIGHT);
+            if (diff < bestDiff) {
+                bestDiff = diff;
+                best = s;
+            }
+        }
+        return best;
+    }
+
+    /** Copies a YUV_420_888 image into an NV21 array, honouring row/pixel strides. */
+    private static byte[] toNv21(Image image) {
+        int w = image.getWidth(), h = image.getHeight();
+        byte[] out = new byte[w * h * 3 / 2];
+        Image.Plane[] planes = image.getPlanes();
+
+        ByteBuffer y = planes[0].getBuffer();
+        int yRowStride = planes[0].getRowStride();
+        for (int row = 0; row < h; row++) {
+            y.position(row * yRowStride);
+            y.get(out, row * w, w);
+        }
+
+        ByteBuffer u = planes[1].getBuffer();
+        ByteBuffer v = planes[2].getBuffer();
+        int uvRowStride = planes[1].getRowStride();
+        int uvPixelStride = planes[1].getPixelStride();
+        int i = w * h;
+        for (int row = 0; row < h / 2; row++) {
+            for (int col = 0; col < w / 2; col++) {
+                int idx = row * uvRowStride + col * uvPixelStride;
+                out[i++] = v.get(idx);
+                out[i++] = u.get(idx);
+            }
+        }
+        return out;
+    }
+}
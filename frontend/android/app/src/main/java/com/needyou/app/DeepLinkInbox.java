@@ -0,0 +1,102 @@
+package com.needyou.app;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.concurrent.Executor;
+
+/**
+ * DeepLinkInbox
+ *
+ * Deep links carried by notification taps (the jobId / notificationType
+ * extras NotificationDispatcher puts on its PendingIntent).
+ *
+ * A tap that launches MainActivity is stored in SharedPreferences until the
+ * page reads it on mount via NeedYouBridge.getPendingDeepLink(); a tap while
+ * the app is already running is stored and also pushed to the page as a
+ * 'needyou_deep_link' event. Stores, clears and event dispatches all go
+ * through one serial lane, so a clear issued from the page's event handler
+ * can never be overtaken by the store that preceded the event.
+ */
+public class DeepLinkInbox {
+
+    private static final String TAG = "NeedYouFCM";
+    static final String KEY_PENDING = "pendingDeepLink";
+
+    /** Hands an event detail JSON object to the page. */
+    public interface Dispatcher {
+        void dispatch(String detailJson);
+    }
+
+    private final Context appContext;
+    private final String prefsName;
+    private final Executor lane;
+
+    public DeepLinkInbox(Context context, String prefsName) {
+        this(context, prefsName, AppExecutors.serial(AppExecutors.get().io()));
+    }
+
+    DeepLinkInbox(Context context, String prefsName, Executor lane) {
+        this.appContext = context.getApplicationContext();
+        this.prefsName = prefsName;
+        this.lane = lane;
+    }
+
+    /**
+     * Returns {"type","jobId"} for a notification-tap intent, or null when the
+     * intent carries no deep link.
+     */
+    static String fromIntent(Intent intent) {
+        if (intent == null)
+            return null;
+        String jobId = intent.getStringExtra("jobId");
+        String notificationType = intent.getStringExtra("notificationType");
+        if (jobId == null || jobId.isEmpty() || notificationType == null || notificationType.isEmpty())
+            return null;
+        try {
+            return new JSONObject().put("type", notificationType).put("jobId", jobId).toString();
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    /** Intent that launched (or re-created) the Activity: store only. */
+    public void onLaunchIntent(Intent intent) {
+        String json = fromIntent(intent);
+        if (json != null)
+            lane.execute(() -> store(json));
+    }
+
+    /** Intent delivered to a running Activity: store, then tell the page. */
+    public void onNewIntent(Intent intent, Dispatcher dispatcher) {
+        String json = fromIntent(intent);
+        if (json == null)
+            return;
+        lane.execute(() -> {
+            store(json);
+            dispatcher.dispatch(json);
+        });
+    }
+
+    /** The stored deep link, or "". */
+    public String pending() {
+        return prefs().getString(KEY_PENDING, "");
+    }
+
+    public void clear() {
+        lane.execute(() -> prefs().edit().remove(KEY_PENDING).apply());
+    }
+
+    private void store(String json) {
+        prefs().edit().putString(KEY_PENDING, json).apply();
+        AppLog.d(TAG, "Deep-link stored").kv("link", json).log();
+    }
+
+    private SharedPreferences prefs() {
+        return appContext.getSharedPreferences(prefsName, Context.MODE_PRIVATE);
+    }
+}
@@ -0,0 +1,179 @@
+package com.needyou.app;
+
+/**
+ * EtaEstimator
+ *
+ * Estimates when a worker on the way will reach the job site from the
+ * location fixes their device already collects for live tracking, so the
+ * customer gets an ETA without a Directions / Distance Matrix call per
+ * update.
+ *
+ * Fixes are smoothed by a constant-velocity Kalman filter (position and
+ * velocity, east and north axes filtered independently in a local metric
+ * plane) weighted by each fix's accuracy. The remaining distance is the
+ * straight line from the smoothed position times {@link #DETOUR}; it is
+ * covered at the worker's cruise speed, an average of the filtered speed
+ * while moving, so stops at lights push the ETA back instead of sending it
+ * to infinity.
+ *
+ * The estimate is an arrival time (epoch ms), which stays constant while the
+ * worker keeps pace. {@link #update} returns it only when it moved by at
+ * least {@link #MIN_CHANGE_MS} or {@link #MIN_CHANGE_FRACTION} of the time
+ * left, so it can ride along with the next location write instead of
+ * causing writes of its own.
+ *
+ * Pure Java so the filter can be unit tested.
+ */
+public final class EtaEstimator {
+
+    /** Road distance over straight-line distance for city trips. */
+    static final double DETOUR = 1.3;
+
+    /** Assumed cruise speed until the worker has been seen moving: 20 km/h. */
+    static final double DEFAULT_CRUISE_MPS = 20 / 3.6;
+    static final double MIN_CRUISE_MPS = 4 / 3.6;
+    static final double MAX_CRUISE_MPS = 80 / 3.6;
+
+    /**
+     * Filtered speeds below this, or below twice the velocity's standard
+     * deviation, are stops and leave the cruise speed alone.
+     */
+    static final double MOVING_MPS = 1.5;
+    /** Time constant of the cruise-speed average. */
+    static final long CRUISE_TAU_MS = 120_000;
+
+    /** Closer than this (straight line) counts as arriving now. */
+    static final double ARRIVING_M = 150;
+
+    static final long MIN_CHANGE_MS = 60_000;
+    static final double MIN_CHANGE_FRACTION = 0.15;
+
+    /** Process noise: unmodelled acceleration, m/s². */
+    static final double ACCEL_NOISE = 0.5;
+    /** Used when a fix reports no accuracy. */
+    static final double DEFAULT_ACCURACY_M = 30;
+    /** After a gap this long the filter starts over from the next fix. */
+    static final long RESET_GAP_MS = 5 * 60_000;
+
+    private static final double M_PER_DEG_LAT = 111_320;
+
+    /** One axis of the filter: state [p, v] and covariance [[a, b], [b, d]]. */
+    private static final class Axis {
+        double p, v, a, b, d;
+
+        void reset(double z, double r) {
+            p = z;
+            v = 0;
+            a = r;
+            b = 0;
+            d = 100; // (10 m/s)²: speed unknown
+        }
+
+        void predict(double dt, double q) {
+            p += v * dt;
+            double dt2 = dt * dt;
+            a += 2 * dt * b + dt2 * d + q * dt2 * dt2 / 4;
+            b += dt * d + q * dt2 * dt / 2;
+            d += q * dt2;
+        }
+
+        void correct(double z, double r) {
+            double s = a + r;
+            double k0 = a / s;
+            double k1 = b / s;
+            double y = z - p;
+            p += k0 * y;
+            v += k1 * y;
+            d -= k1 * b;
+            a -= k0 * a;
+            b -= k0 * b;
+        }
+    }
+
+    public final double destLat;
+    public final double destLng;
+
+    private final Axis east = new Axis();
+    private final Axis north = new Axis();
+    private double lat0, lng0, mPerDegLng;
+    private long lastTime;
+    private boolean started;
+
+    private double cruiseMps = DEFAULT_CRUISE_MPS;
+    private long etaAt;
+    private long publishedEtaAt;
+
+    public EtaEstimator(double destLat, double destLng) {
+        this.destLat = destLat;
+        this.destLng = destLng;
+    }
+
+    /**
+     * Adds a fix. Returns the new arrival time (epoch ms) if it differs
+     * meaningfully from the last one returned, else 0. Fixes older than the
+     * previous one are ignored.
+     */
+    public long update(double lat, double lng, double accuracyM, long timeMs) {
+        if (started && timeMs <= lastTime)
+            return 0;
+        double r = accuracyM > 0 && !Double.isNaN(accuracyM) ? accuracyM : DEFAULT_ACCURACY_M;
+        r *= r;
+        if (!started || timeMs - lastTime > RESET_GAP_MS) {
+            lat0 = lat;
+            lng0 = lng;
+            mPerDegLng = M_PER_DEG_LAT * Math.cos(Math.toRadians(lat));
+            east.reset(0, r);
+            north.reset(0, r);
+            started = true;
+        } else {
+            double dt = (timeMs - lastTime) / 1000.0;
+            double q = ACCEL_NOISE * ACCEL_NOISE;
+            east.predict(dt, q);
+            north.predict(dt, q);
+            east.correct((lng - lng0) * mPerDegLng, r);
+            north.correct((lat - lat0) * M_PER_DEG_LAT, r);
+
+            // Moving only if faster than GPS jitter alone could make it look
+            double speed = speedMps();
+            double sigma = Math.sqrt(Math.max(east.d, north.d));
+            if (speed >= Math.max(MOVING_MPS, 2 * sigma)) {
+                double alpha = 1 - Math.exp(-(timeMs - lastTime) / (double) CRUISE_TAU_MS);
+                cruiseMps += alpha * (speed - cruiseMps);
+                cruiseMps = Math.max(MIN_CRUISE_MPS, Math.min(MAX_CRUISE_MPS, cruiseMps));
+            }
+        }
+        lastTime = timeMs;
+
+        double straight = ArrivalTracker.distanceM(latitude(), longitude(), destLat, destLng);
+        etaAt = straight <= ARRIVING_M ? timeMs : timeMs + Math.round(straight * DETOUR / cruiseMps * 1000);
+
+        long threshold = Math.max(MIN_CHANGE_MS, Math.round(MIN_CHANGE_FRACTION * (etaAt - timeMs)));
+        if (publishedEtaAt != 0 && Math.abs(etaAt - publishedEtaAt) < threshold)
+            return 0;
+        publishedEtaAt = etaAt;
+        return etaAt;
+    }
+
+    /** Latest arrival estimate (epoch ms), 0 before the first fix. */
+    public long etaAt() {
+        return etaAt;
+    }
+
+    /** Smoothed position. */
+    public double latitude() {
+        return lat0 + north.p / M_PER_DEG_LAT;
+    }
+
+    public double longitude() {
+        return lng0 + east.p / mPerDegLng;
+    }
+
+    /** Smoothed ground speed, m/s. */
+    public double speedMps() {
+        return Math.hypot(east.v, north.v);
+    }
+
+    public double cruiseMps() {
+        return cruiseMps;
+    }
+}
@@ -0,0 +1,293 @@
+package com.needyou.app;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * FirestoreWriteQueue
+ *
+ * Write-behind queue for frequent field updates: live tracking pings
+ * (liveTracking.ts through NeedYouBridge.enqueueWrite), notification read
+ * flags (NotificationActions) and the device's area topics
+ * (JobAlertTopics). enqueue() returns at once; updates wait
+ * {@link #FLUSH_DELAY_MS} so rapid writes to the same document and field
+ * coalesce (last write wins, see WriteBehindQueue), then go out as
+ * WriteBatch commits of up to {@link #MAX_BATCH_DOCS} documents through the
+ * native session (NativeSession).
+ *
+ * Queued updates belong to the user whose native session queued them: they
+ * are only committed under that session, an update queued by another user
+ * discards them, and sign-out ({@link #clear()}) drops them. A batch the
+ * server refuses for good (see {@link #isPermanent(Exception)}) is retried
+ * one document per batch, so a single deleted or forbidden document is
+ * dropped without holding back the rest.
+ *
+ * The queue is persisted to filesDir/{@value #FILE_NAME} after every change,
+ * so updates survive process death; it is flushed again on start-up, when
+ * connectivity returns and after a transient failure ({@link #RETRY_MS}).
+ * All state changes run on one serial IO lane.
+ */
+public class FirestoreWriteQueue {
+
+    private static final String TAG = "NeedYouWrites";
+    private static final String FILE_NAME = "write_queue.json";
+
+    /** Coalescing window between the first queued update and the flush. */
+    static final long FLUSH_DELAY_MS = 750;
+
+    /** Documents per WriteBatch (Firestore allows 500 writes per batch). */
+    static final int MAX_BATCH_DOCS = 100;
+
+    /** Retry delay after a failed commit or while no native session exists. */
+    static final long RETRY_MS = 30 * 1000;
+
+    private static FirestoreWriteQueue instance;
+
+    private final File file;
+    private final Executor lane = AppExecutors.serial(AppExecutors.get().io());
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushTask = () -> lane.execute(this::flushNow);
+
+    // Touched only on the lane
+    private WriteBehindQueue queue = new WriteBehindQueue();
+    /** Uid the queued updates belong to; null before the first update and after clear(). */
+    private String uid;
+    /** Documents still to be committed one per batch after a permanent failure. */
+    private int isolate;
+    private boolean flushScheduled;
+
+    // Read by getStats() from the bridge thread
+    private volatile String statsJson = "{}";
+
+    private FirestoreWriteQueue(Context context) {
+        this.file = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+        lane.execute(() -> {
+            load();
+            publishStats();
+            if (queue.hasPending())
+                scheduleFlush(FLUSH_DELAY_MS);
+        });
+    }
+
+    public static synchronized FirestoreWriteQueue get(Context context) {
+        if (instance == null)
+            instance = new FirestoreWriteQueue(context);
+        return instance;
+    }
+
+    static boolean isDocumentPath(String path) {
+        if (path == null || path.isEmpty() || path.startsWith("/") || path.endsWith("/"))
+            return false;
+        String[] parts = path.split("/");
+        if (parts.length % 2 != 0)
+            return false;
+        for (String p : parts) {
+            if (p.isEmpty())
+                return false;
+        }
+        return true;
+    }
+
+    // ─── Public API ───────────────────────────────────────────────────────────
+
+    /**
+     * Queues a field update for the document at {@code path} ("collection/id")
+     * on behalf of the signed-in native user. Returns false, queuing nothing,
+     * when there is no native session.
+     */
+    public boolean enqueue(String path, Map<String, Object> fields) {
+        String owner = NativeSession.get().getUid();
+        if (owner == null)
+            return false;
+        lane.execute(() -> {
+            if (!owner.equals(uid)) {
+                if (queue.depth() > 0)
+                    AppLog.w(TAG, "Discarding another user's writes").kv("documents", queue.depth()).log();
+                queue.discard();
+                isolate = 0;
+                uid = owner;
+            }
+            queue.enqueue(path, fields);
+            persist();
+            publishStats();
+            scheduleFlush(FLUSH_DELAY_MS);
+        });
+        return true;
+    }
+
+    /** Drops every queued update (sign-out). A commit already sent still completes. */
+    public void clear() {
+        handler.removeCallbacks(flushTask);
+        lane.execute(() -> {
+            flushScheduled = false;
+            queue.discard();
+            uid = null;
+            isolate = 0;
+            persist();
+            publishStats();
+        });
+    }
+
+    /** Commits whatever is pending now (e.g. connectivity came back). */
+    public void flush() {
+        handler.removeCallbacks(flushTask);
+        lane.execute(() -> {
+            flushScheduled = false;
+            flushNow();
+        });
+    }
+
+    /**
+     * {"depth","updatesEnqueued","fieldsEnqueued","fieldsCoalesced",
+     * "documentsCommitted","fieldsCommitted","batchesCommitted","batchesFailed",
+     * "documentsDropped"}.
+     */
+    public String getStats() {
+        return statsJson;
+    }
+
+    // ─── Flushing (on the lane) ───────────────────────────────────────────────
+
+    private void scheduleFlush(long delayMs) {
+        if (flushScheduled)
+            return;
+        flushScheduled = true;
+        handler.postDelayed(flushTask, delayMs);
+    }
+
+    private void flushNow() {
+        flushScheduled = false;
+        // One commit at a time keeps updates to a document in order
+        if (queue.hasInFlight() || !queue.hasPending())
+            return;
+        String session = NativeSession.get().getUid();
+        if (session == null) {
+            AppLog.d(TAG, "Flush deferred — no native session").log();
+            scheduleFlush(RETRY_MS);
+            return;
+        }
+        if (!session.equals(uid)) {
+            AppLog.w(TAG, "Discarding another user's writes").kv("documents", queue.depth()).log();
+            queue.discard();
+            uid = null;
+            isolate = 0;
+            persist();
+            publishStats();
+            return;
+        }
+        WriteBehindQueue.Batch batch = queue.take(isolate > 0 ? 1 : MAX_BATCH_DOCS);
+        if (isolate > 0)
+            isolate--;
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        WriteBatch writes = db.batch();
+        for (Map.Entry<String, Map<String, Object>> e : batch.updates.entrySet())
+            writes.update(db.document(e.getKey()), e.getValue());
+        writes.commit()
+                .addOnSuccessListener(lane, ignored -> {
+                    queue.ack(batch);
+                    persist();
+                    publishStats();
+                    if (queue.hasPending())
+                        flushNow();
+                })
+                .addOnFailureListener(lane, e -> {
+                    if (!isPermanent(e)) {
+                        AppLog.w(TAG, "Batch failed").kv("documents", batch.documents()).err(e).log();
+                        queue.requeue(batch);
+                        persist();
+                        publishStats();
+                        scheduleFlush(RETRY_MS);
+                        return;
+                    }
+                    if (batch.documents() > 1) {
+                        // Some document in it is refused: find it by committing one at a time
+                        AppLog.w(TAG, "Batch refused, isolating").kv("documents", batch.documents()).err(e).log();
+                        queue.requeue(batch);
+                        isolate = batch.documents();
+                    } else {
+                        AppLog.e(TAG, "Write refused, dropped")
+                                .kv("path", batch.updates.keySet().iterator().next()).err(e).log();
+                        queue.drop(batch);
+                    }
+                    persist();
+                    publishStats();
+                    if (queue.hasPending())
+                        flushNow();
+                });
+    }
+
+    /** Failures retrying cannot fix: the document is gone, forbidden or the update invalid. */
+    static boolean isPermanent(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException))
+            return false;
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case NOT_FOUND:
+            case PERMISSION_DENIED:
+            case INVALID_ARGUMENT:
+            case FAILED_PRECONDITION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void publishStats() {
+        try {
+            statsJson = queue.stats().toString();
+        } catch (JSONException e) {
+            AppLog.w(TAG, "Stats failed").err(e).log();
+        }
+    }
+
+    // ─── Persistence (on the lane) ────────────────────────────────────────────
+
+    private void persist() {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(queue.toJson().put("uid", uid).toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            AppLog.e(TAG, "Persist failed").err(e).log();
+            return;
+        }
+        if (!tmp.renameTo(file))
+            AppLog.e(TAG, "Persist rename failed").log();
+    }
+
+    private void load() {
+        if (!file.exists())
+            return;
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buf = new byte[(int) file.length()];
+            int off = 0;
+            while (off < buf.length) {
+                int n = in.read(buf, off, buf.length - off);
+                if (n < 0)
+                    break;
+                off += n;
+            }
+            JSONObject json = new JSONObject(new String(buf, 0, off, StandardCharsets.UTF_8));
+            queue = WriteBehindQueue.fromJson(json);
+            uid = json.optString("uid", null);
+        } catch (IOException | JSONException e) {
+            AppLog.e(TAG, "Queue file unreadable, starting empty").err(e).log();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.needyou.app;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * GeoTopics
+ *
+ * Which FCM topics the device listens on for new-job alerts. The server sends
+ * one message per new job to the topic of the job's geohash cell
+ * ("jobs_" + precision-{@value #PRECISION} geohash, about 39 × 19.5 km); the
+ * device subscribes to every cell within {@link #RADIUS_KM} of its centre
+ * cell (15–20 topics), so every job that near reaches it with no per-user
+ * fan-out.
+ *
+ * The centre cell only moves once a fix is {@link #HYSTERESIS} of a cell
+ * beyond its edge, so a worker living or working on a cell boundary does not
+ * churn subscriptions; the radius is measured from that widened cell, so
+ * coverage holds anywhere in it. Moving by one cell swaps one row or column
+ * of topics; new topics are to be subscribed before old ones are dropped so
+ * there is no gap in coverage. A failed call leaves its topic in the diff and
+ * is retried on the next fix.
+ *
+ * Pure Java and free of FCM calls: {@link #follow} and {@link #clear} return
+ * a {@link Plan} for the caller to carry out (JobAlertTopics chains the FCM
+ * tasks), and {@link #applied} records which calls succeeded, so the diffing
+ * can be driven by an in-memory stand-in on the JVM.
+ */
+public class GeoTopics {
+
+    static final int PRECISION = 4;
+    static final String PREFIX = "jobs_";
+
+    /** How far (fraction of the cell size) a fix must be outside the centre cell to move it. */
+    static final double HYSTERESIS = 0.25;
+
+    /** Alerts for jobs farther than this from the device's last fix are dropped. */
+    static final double RADIUS_KM = 20;
+
+    private static final double KM_PER_DEG_LAT = 111.32;
+
+    /** Calls to make for one move: every subscribe first, then the unsubscribes. */
+    public static final class Plan {
+        public final List<String> subscribe;
+        public final List<String> unsubscribe;
+
+        Plan(List<String> subscribe, List<String> unsubscribe) {
+            this.subscribe = subscribe;
+            this.unsubscribe = unsubscribe;
+        }
+
+        public boolean isEmpty() {
+            return subscribe.isEmpty() && unsubscribe.isEmpty();
+        }
+    }
+
+    private final Set<String> subscribed = new TreeSet<>();
+    private String center;
+
+    /** Starts from a previously saved centre cell (or null) and subscribed topics. */
+    public GeoTopics(String center, Collection<String> subscribed) {
+        this.center = center;
+        this.subscribed.addAll(subscribed);
+    }
+
+    /** Moves the centre cell to follow a fix and returns the calls that bring the topics along. */
+    public synchronized Plan follow(double lat, double lng) {
+        center = centerFor(lat, lng, center);
+        return diff(topicsAround(center));
+    }
+
+    /** Forgets the centre cell and returns the calls that drop every topic (sign-out). */
+    public synchronized Plan clear() {
+        center = null;
+        return diff(new TreeSet<>());
+    }
+
+    /**
+     * Records the calls of a plan that succeeded. Returns true if the
+     * subscribed set changed.
+     */
+    public synchronized boolean applied(Collection<String> subscribedOk, Collection<String> unsubscribedOk) {
+        boolean changed = subscribed.addAll(subscribedOk);
+        return subscribed.removeAll(unsubscribedOk) || changed;
+    }
+
+    public synchronized String center() {
+        return center;
+    }
+
+    /** The topics subscribed right now, sorted. */
+    public synchronized List<String> subscribed() {
+        return new ArrayList<>(subscribed);
+    }
+
+    private Plan diff(Set<String> wanted) {
+        List<String> add = new ArrayList<>();
+        for (String t : wanted) {
+            if (!subscribed.contains(t))
+                add.add(t);
+        }
+        List<String> drop = new ArrayList<>();
+        for (String t : subscribed) {
+            if (!wanted.contains(t))
+                drop.add(t);
+        }
+        return new Plan(add, drop);
+    }
+
+    // ─── Cells ────────────────────────────────────────────────────────────────
+
+    /**
+     * The centre cell for a fix: {@code current} while the fix is inside it
+     * or within {@link #HYSTERESIS} of a cell beyond its edge, else the fix's
+     * own cell.
+     */
+    static String centerFor(double lat, double lng, String current) {
+        double[] b = current != null && current.length() == PRECISION ? Geohash.bounds(current) : null;
+        if (b != null) {
+            double mLat = (b[1] - b[0]) * HYSTERESIS;
+            double mLng = (b[3] - b[2]) * HYSTERESIS;
+            if (lat >= b[0] - mLat && lat <= b[1] + mLat && lng >= b[2] - mLng && lng <= b[3] + mLng)
+                return current;
+        }
+        return Geohash.encode(lat, lng, PRECISION);
+    }
+
+    /**
+     * Topics for every cell within {@link #RADIUS_KM} of {@code center}
+     * widened by {@link #HYSTERESIS}: sampled at cell-size steps across that
+     * box, so no row or column of cells is skipped.
+     */
+    static Set<String> topicsAround(String center) {
+        Set<String> out = new TreeSet<>();
+        double[] b = Geohash.bounds(center);
+        if (b == null)
+            return out;
+        double h = b[1] - b[0], w = b[3] - b[2];
+        double latLo = Math.max(-90, b[0] - h * HYSTERESIS - RADIUS_KM / KM_PER_DEG_LAT);
+        double latHi = Math.min(90, b[1] + h * HYSTERESIS + RADIUS_KM / KM_PER_DEG_LAT);
+        double cos = Math.max(0.01, Math.cos(Math.toRadians(Math.max(Math.abs(latLo), Math.abs(latHi)))));
+        double mLng = Math.min(180, w * HYSTERESIS + RADIUS_KM / (KM_PER_DEG_LAT * cos));
+        double lngLo = b[2] - mLng, lngHi = b[3] + mLng;
+        for (double y = latLo;; y = Math.min(latHi, y + h)) {
+            for (double x = lngLo;; x = Math.min(lngHi, x + w)) {
+                double wrapped = x >= 180 ? x - 360 : x < -180 ? x + 360 : x;
+                out.add(topic(Geohash.encode(y, wrapped, center.length())));
+                if (x >= lngHi)
+                    break;
+            }
+            if (y >= latHi)
+                break;
+        }
+        return out;
+    }
+
+    static String topic(String cell) {
+        return PREFIX + cell;
+    }
+
+    /**
+     * Whether an area alert for a job at jobLat/jobLng is for a device last
+     * seen at lat/lng. Topics are whole cells and reach past the radius, so
+     * this trims the alerts back to {@link #RADIUS_KM}.
+     */
+    static boolean isNearby(double jobLat, double jobLng, double lat, double lng) {
+        return ArrivalTracker.distanceM(jobLat, jobLng, lat, lng) <= RADIUS_KM * 1000;
+    }
+}
@@ -0,0 +1,149 @@
+package com.needyou.app;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.Locale;
+
+/**
+ * GeocodeCache
+ *
+ * On-disk cache of Google geocoding results so location screens do not call
+ * the (billable) Maps API for places that were already resolved.
+ *
+ * Reverse lookups are keyed by the geohash of the coordinates at a
+ * caller-chosen precision ("r:<precision>:<geohash>"), so every point in the
+ * same cell shares one entry; forward lookups are keyed by the normalised
+ * address ("f:<address>"). Entries expire after {@link #TTL_MS} and the
+ * least-recently-used ones are evicted beyond {@link #MAX_ENTRIES}.
+ * Values are opaque JSON strings owned by the page (lib/location.ts).
+ */
+public class GeocodeCache extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "geocode_cache.db";
+    private static final int DB_VERSION = 1;
+    private static final String TABLE = "geocode";
+
+    /** Entry lifetime. Area/city names change rarely. */
+    static final long TTL_MS = 30L * 24 * 60 * 60 * 1000;
+
+    /** Max rows kept; the least recently used beyond this are evicted. */
+    static final int MAX_ENTRIES = 2_000;
+
+    /** Precision used when the caller passes 0 (≈ 1.2 × 0.6 km cells). */
+    static final int DEFAULT_PRECISION = 6;
+
+    private static GeocodeCache instance;
+
+    private GeocodeCache(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+    }
+
+    public static synchronized GeocodeCache get(Context context) {
+        if (instance == null)
+            instance = new GeocodeCache(context);
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "key TEXT PRIMARY KEY,"
+                + "value TEXT NOT NULL,"
+                + "created_at INTEGER NOT NULL,"
+                + "used_at INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_geocode_used ON " + TABLE + " (used_at)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        onCreate(db);
+    }
+
+    // ─── Keys ─────────────────────────────────────────────────────────────────
+
+    static String reverseKey(double lat, double lng, int precision) {
+        int p = precision > 0 ? precision : DEFAULT_PRECISION;
+        return "r:" + p + ":" + Geohash.encode(lat, lng, p);
+    }
+
+    /** Lower-cases and collapses whitespace/punctuation runs so trivially different spellings share a key. */
+    static String forwardKey(String address) {
+        String norm = address.toLowerCase(Locale.ROOT)
+                .replaceAll("[\\s,.;]+", " ")
+                .trim();
+        return "f:" + norm;
+    }
+
+    // ─── Public API ───────────────────────────────────────────────────────────
+
+    public String getReverse(double lat, double lng, int precision) {
+        return lookup(reverseKey(lat, lng, precision));
+    }
+
+    public void putReverse(double lat, double lng, int precision, String json) {
+        store(reverseKey(lat, lng, precision), json);
+    }
+
+    public String getForward(String address) {
+        return address == null || address.trim().isEmpty() ? null : lookup(forwardKey(address));
+    }
+
+    public void putForward(String address, String json) {
+        if (address != null && !address.trim().isEmpty())
+            store(forwardKey(address), json);
+    }
+
+    // ─── Storage ──────────────────────────────────────────────────────────────
+
+    /** Returns the cached value (touching its LRU time), or null if absent/expired. */
+    private String lookup(String key) {
+        SQLiteDatabase db = getWritableDatabase();
+        long now = System.currentTimeMillis();
+        String value = null;
+        long createdAt = 0;
+        try (Cursor c = db.query(TABLE, new String[] { "value", "created_at" }, "key = ?",
+                new String[] { key }, null, null, null)) {
+            if (c.moveToFirst()) {
+                value = c.getString(0);
+                createdAt = c.getLong(1);
+            }
+        }
+        if (value == null)
+            return null;
+        if (now - createdAt > TTL_MS) {
+            db.delete(TABLE, "key = ?", new String[] { key });
+            return null;
+        }
+        ContentValues cv = new ContentValues();
+        cv.put("used_at", now);
+        db.update(TABLE, cv, "key = ?", new String[] { key });
+        return value;
+    }
+
+    private void store(String key, String json) {
+        if (json == null || json.isEmpty())
+            return;
+        long now = System.currentTimeMillis();
+        ContentValues cv = new ContentValues();
+        cv.put("key", key);
+        cv.put("value", json);
+        cv.put("created_at", now);
+        cv.put("used_at", now);
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.insertWithOnConflict(TABLE, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+            db.delete(TABLE, "created_at < ?", new String[] { Long.toString(now - TTL_MS) });
+            db.execSQL("DELETE FROM " + TABLE + " WHERE key IN (SELECT key FROM " + TABLE
+                    + " ORDER BY used_at DESC LIMIT -1 OFFSET " + MAX_ENTRIES + ")");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.needyou.app;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingEvent;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GeofenceReceiver
+ *
+ * Receives Play Services geofence transitions for ArrivalGeofences, and
+ * re-registers persisted fences after a reboot or app update. Work runs on
+ * the IO pool under goAsync(), so the process stays alive while the arrival
+ * is written to Firestore — for at most {@link ReceiverBudget#DEFAULT_MS}.
+ * A report that fails or is cut short leaves its fence registered and
+ * outside, and the arrival transaction is idempotent, so the next enter
+ * (a transition, an app fix, or the initial trigger when fences are
+ * re-registered) reports it again.
+ */
+public class GeofenceReceiver extends BroadcastReceiver {
+
+    static final String ACTION_TRANSITION = "com.needyou.app.GEOFENCE_TRANSITION";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (Intent.ACTION_BOOT_COMPLETED.equals(action) || Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
+            Runnable finish = ReceiverBudget.finishWithin(goAsync(), ReceiverBudget.DEFAULT_MS, "NeedYouGeofence");
+            AppExecutors.get().io().execute(() -> {
+                try {
+                    ArrivalGeofences.get(context).reregisterAll();
+                } finally {
+                    finish.run();
+                }
+            });
+            return;
+        }
+        if (!ACTION_TRANSITION.equals(action))
+            return;
+
+        GeofencingEvent event = GeofencingEvent.fromIntent(intent);
+        if (event == null || event.hasError()) {
+            AppLog.e("NeedYouGeofence", "Geofence error").kv("code", event != null ? event.getErrorCode() : -1).log();
+            return;
+        }
+        int transition = event.getGeofenceTransition();
+        if (transition != Geofence.GEOFENCE_TRANSITION_ENTER && transition != Geofence.GEOFENCE_TRANSITION_EXIT)
+            return;
+        List<Geofence> triggered = event.getTriggeringGeofences();
+        if (triggered == null || triggered.isEmpty())
+            return;
+
+        Runnable finish = ReceiverBudget.finishWithin(goAsync(), ReceiverBudget.DEFAULT_MS, "NeedYouGeofence");
+        AtomicInteger remaining = new AtomicInteger(triggered.size());
+        Runnable done = () -> {
+            if (remaining.decrementAndGet() == 0)
+                finish.run();
+        };
+        AppExecutors.get().io().execute(() -> {
+            ArrivalGeofences fences = ArrivalGeofences.get(context);
+            for (Geofence g : triggered)
+                fences.onPlatformTransition(g.getRequestId(), transition == Geofence.GEOFENCE_TRANSITION_ENTER, done);
+        });
+    }
+}
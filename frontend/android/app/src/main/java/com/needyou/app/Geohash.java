@@ -0,0 +1,98 @@
+package com.needyou.app;
+
+/**
+ * Geohash
+ *
+ * Standard base-32 geohash encoding. Pure Java so anything built on it
+ * (geocode cache keys, geofences, topic cells) can be tested on the JVM.
+ *
+ * Cell size by precision: 4 ≈ 39 × 19.5 km, 5 ≈ 4.9 km, 6 ≈ 1.2 × 0.6 km,
+ * 7 ≈ 153 m, 8 ≈ 38 m.
+ */
+public final class Geohash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    public static final int MIN_PRECISION = 1;
+    public static final int MAX_PRECISION = 12;
+
+    private Geohash() {
+    }
+
+    /** Encodes lat/lng into a geohash of {@code precision} characters (clamped to 1..12). */
+    public static String encode(double lat, double lng, int precision) {
+        precision = Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, precision));
+        double latLo = -90, latHi = 90, lngLo = -180, lngHi = 180;
+        char[] out = new char[precision];
+        boolean evenBit = true; // bits alternate lng, lat, lng, ...
+        int bit = 0, ch = 0, i = 0;
+        while (i < precision) {
+            if (evenBit) {
+                double mid = (lngLo + lngHi) / 2;
+                if (lng >= mid) {
+                    ch = (ch << 1) | 1;
+                    lngLo = mid;
+                } else {
+                    ch <<= 1;
+                    lngHi = mid;
+                }
+            } else {
+                double mid = (latLo + latHi) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    latLo = mid;
+                } else {
+                    ch <<= 1;
+                    latHi = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                out[i++] = BASE32[ch];
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return new String(out);
+    }
+
+    /**
+     * The cell {@code hash} covers, as {latLo, latHi, lngLo, lngHi}; null if
+     * it contains a character outside the geohash alphabet.
+     */
+    public static double[] bounds(String hash) {
+        double latLo = -90, latHi = 90, lngLo = -180, lngHi = 180;
+        boolean evenBit = true;
+        for (int i = 0; i < hash.length(); i++) {
+            int ch = indexOf(hash.charAt(i));
+            if (ch < 0)
+                return null;
+            for (int bit = 4; bit >= 0; bit--) {
+                boolean one = ((ch >> bit) & 1) != 0;
+                if (evenBit) {
+                    double mid = (lngLo + lngHi) / 2;
+                    if (one)
+                        lngLo = mid;
+                    else
+                        lngHi = mid;
+                } else {
+                    double mid = (latLo + latHi) / 2;
+                    if (one)
+                        latLo = mid;
+                    else
+                        latHi = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[] { latLo, latHi, lngLo, lngHi };
+    }
+
+    private static int indexOf(char c) {
+        for (int i = 0; i < BASE32.length; i++) {
+            if (BASE32[i] == c)
+                return i;
+        }
+        return -1;
+    }
+}
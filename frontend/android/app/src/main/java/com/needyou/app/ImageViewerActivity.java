@@ -0,0 +1,240 @@
+package com.needyou.app;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Color;
+import android.net.Uri;
+import android.os.Bundle;
+import android.view.Gravity;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * ImageViewerActivity
+ *
+ * Full-screen native viewer for job photos and KYC documents, opened with
+ * NeedYouBridge.openImageViewer(). Replaces the WebView pinch-zoom in
+ * ImageViewerModal, which decodes the full-resolution image in the renderer.
+ * Images are downloaded to cacheDir/viewer and shown by TiledImageView, so
+ * memory stays flat however large the photo or scan is.
+ */
+public class ImageViewerActivity extends Activity {
+
+    private static final String TAG = "NeedYouViewer";
+    static final String EXTRA_URLS = "urls";
+    static final String EXTRA_INDEX = "index";
+
+    /** Downloaded originals kept for re-opening; oldest are deleted first. */
+    private static final int MAX_CACHED_FILES = 20;
+
+    private final TaskScope tasks = AppExecutors.get().newScope();
+
+    private String[] urls;
+    private int index;
+    private TiledImageView imageView;
+    private ProgressBar progress;
+    private TextView counter;
+
+    public static Intent intent(Context context, String[] urls, int index) {
+        return new Intent(context, ImageViewerActivity.class)
+                .putExtra(EXTRA_URLS, urls)
+                .putExtra(EXTRA_INDEX, index);
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        urls = getIntent().getStringArrayExtra(EXTRA_URLS);
+        if (urls == null || urls.length == 0) {
+            finish();
+            return;
+        }
+        index = savedInstanceState != null
+                ? savedInstanceState.getInt(EXTRA_INDEX)
+                : getIntent().getIntExtra(EXTRA_INDEX, 0);
+        index = Math.max(0, Math.min(urls.length - 1, index));
+
+        FrameLayout root = new FrameLayout(this);
+        root.setBackgroundColor(Color.BLACK);
+
+        imageView = new TiledImageView(this);
+        imageView.setListener(new TiledImageView.Listener() {
+            @Override
+            public void onLoaded(boolean ok) {
+                progress.setVisibility(ProgressBar.GONE);
+                if (!ok)
+                    showMessage("Could not open this image");
+            }
+
+            @Override
+            public void onSwipe(int direction) {
+                if (urls.length > 1)
+                    show((index + direction + urls.length) % urls.length);
+            }
+        });
+        root.addView(imageView, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+
+        progress = new ProgressBar(this);
+        root.addView(progress, new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.CENTER));
+
+        int pad = dp(12);
+        TextView close = new TextView(this);
+        close.setText("✕");
+        close.setTextColor(Color.WHITE);
+        close.setTextSize(22);
+        close.setPadding(pad, pad, pad, pad);
+        close.setContentDescription("Close");
+        close.setOnClickListener(v -> finish());
+        FrameLayout.LayoutParams closeLp = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT, Gravity.TOP | Gravity.END);
+        closeLp.topMargin = dp(24);
+        root.addView(close, closeLp);
+
+        counter = new TextView(this);
+        counter.setTextColor(Color.WHITE);
+        counter.setTextSize(14);
+        counter.setPadding(pad, dp(6), pad, dp(6));
+        counter.setBackgroundColor(0x80000000);
+        FrameLayout.LayoutParams counterLp = new FrameLayout.LayoutParams(
+                ViewGroup.LayoutParams.WRAP_CONTENT, ViewGroup.LayoutParams.WRAP_CONTENT,
+                Gravity.BOTTOM | Gravity.CENTER_HORIZONTAL);
+        counterLp.bottomMargin = dp(24);
+        root.addView(counter, counterLp);
+
+        setContentView(root);
+        show(index);
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(EXTRA_INDEX, index);
+    }
+
+    @Override
+    protected void onDestroy() {
+        tasks.cancel();
+        if (imageView != null)
+            imageView.release();
+        super.onDestroy();
+    }
+
+    private void show(int i) {
+        index = i;
+        counter.setVisibility(urls.length > 1 ? TextView.VISIBLE : TextView.GONE);
+        counter.setText((i + 1) + " / " + urls.length);
+        progress.setVisibility(ProgressBar.VISIBLE);
+        String url = urls[i];
+        tasks.ioThenMain(() -> fetch(url), file -> {
+            if (index != i)
+                return; // swiped on while downloading
+            if (file == null) {
+                progress.setVisibility(ProgressBar.GONE);
+                showMessage("Could not load image");
+                return;
+            }
+            imageView.setImage(file);
+        });
+    }
+
+    private void showMessage(String message) {
+        android.widget.Toast.makeText(this, message, android.widget.Toast.LENGTH_SHORT).show();
+    }
+
+    private int dp(int v) {
+        return Math.round(v * getResources().getDisplayMetrics().density);
+    }
+
+    // ─── Download cache ───────────────────────────────────────────────────────
+
+    /** Returns a local copy of {@code url} (http(s), content:// or file://), or null. */
+    private File fetch(String url) {
+        File dir = new File(getCacheDir(), "viewer");
+        if (!dir.isDirectory() && !dir.mkdirs())
+            return null;
+        File file = new File(dir, sha1(url));
+        if (file.length() > 0) {
+            file.setLastModified(System.currentTimeMillis());
+            return file;
+        }
+        File tmp = new File(dir, file.getName() + ".part");
+        Uri uri = Uri.parse(url);
+        String scheme = uri.getScheme() != null ? uri.getScheme() : "";
+        HttpURLConnection conn = null;
+        try {
+            InputStream in;
+            if (scheme.equals("http") || scheme.equals("https")) {
+                conn = (HttpURLConnection) new URL(url).openConnection();
+                conn.setConnectTimeout(15_000);
+                conn.setReadTimeout(30_000);
+                if (conn.getResponseCode() >= 400)
+                    throw new IOException("HTTP " + conn.getResponseCode());
+                in = conn.getInputStream();
+            } else if (scheme.equals("content") || scheme.equals("file")) {
+                in = getContentResolver().openInputStream(uri);
+                if (in == null)
+                    throw new IOException("No stream for " + url);
+            } else {
+                throw new IOException("Unsupported URL scheme: " + scheme);
+            }
+            try (InputStream is = in; OutputStream out = new FileOutputStream(tmp)) {
+                byte[] buf = new byte[64 * 1024];
+                int n;
+                while ((n = is.read(buf)) > 0) {
+                    if (Thread.interrupted())
+                        throw new IOException("Cancelled");
+                    out.write(buf, 0, n);
+                }
+            }
+            if (!tmp.renameTo(file))
+                throw new IOException("Rename failed");
+            trimCache(dir);
+            return file;
+        } catch (IOException e) {
+            AppLog.w(TAG, "Image download failed").err(e).log();
+            tmp.delete();
+            return null;
+        } finally {
+            if (conn != null)
+                conn.disconnect();
+        }
+    }
+
+    private static void trimCache(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null || files.length <= MAX_CACHED_FILES)
+            return;
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; i < files.length - MAX_CACHED_FILES; i++)
+            files[i].delete();
+    }
+
+    private static String sha1(String s) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-1").digest(s.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (byte b : d)
+                sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(s.hashCode());
+        }
+    }
+}
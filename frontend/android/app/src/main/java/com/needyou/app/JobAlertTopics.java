@@ -0,0 +1,236 @@
+package com.needyou.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.messaging.FirebaseMessaging;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * JobAlertTopics
+ *
+ * Keeps the device subscribed to the FCM topics of the area around it (see
+ * GeoTopics), so a new job is announced with one topic send instead of a
+ * push per nearby worker. Fed from LastLocationCache fixes; the subscribed
+ * set and centre cell persist in SharedPreferences "NeedYouJobAlerts" so a
+ * restart only sends the diff.
+ *
+ * After a change the topics are written to users/{uid}.areaTopics (with the
+ * FCM token they belong to, areaTopicsToken) through FirestoreWriteQueue,
+ * and again whenever the signed-in user or the token differs from the one
+ * last written; notifyNearbyUsersOnNewJob skips the per-user push for a
+ * user whose device already gets the job's topic. Sign-out ({@link
+ * #signOut}) first empties users/{uid}.areaTopics while the session can
+ * still write it, then ends the session and unsubscribes everything.
+ *
+ * Never blocks the caller: work runs on a serial IO lane, one move at a
+ * time, with the FCM calls of a move chained as tasks (every subscribe, then
+ * the unsubscribes). Fixes arriving while a move is in flight are coalesced
+ * to the newest, which runs when it completes. FCM holds topic calls until
+ * it is online, so an offline move only delays the next one.
+ */
+public class JobAlertTopics {
+
+    private static final String TAG = "NeedYouTopics";
+    private static final String PREFS = "NeedYouJobAlerts";
+    private static final String KEY_CENTER = "center";
+    private static final String KEY_TOPICS = "topics";
+    /** Uid the current topics were written to, "" when not yet. */
+    private static final String KEY_PUBLISHED_UID = "publishedUid";
+    /** FCM token written with them. */
+    private static final String KEY_PUBLISHED_TOKEN = "publishedToken";
+
+    /** How long sign-out waits for the server to take the emptied topics. */
+    static final long WITHDRAW_BUDGET_MS = 3_000;
+
+    /** Queued by {@link #signOut} in place of a fix. */
+    private static final Object CLEAR = new Object();
+
+    private static JobAlertTopics instance;
+
+    private final Context appContext;
+    private final SharedPreferences prefs;
+    private final GeoTopics topics;
+    private final Executor lane = AppExecutors.serial(AppExecutors.get().io());
+    /** Newest fix (or CLEAR) not yet started; older ones are dropped. */
+    private final AtomicReference<Object> next = new AtomicReference<>();
+
+    // Touched only on the lane
+    private boolean moving;
+
+    private JobAlertTopics(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.prefs = appContext.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        String saved = prefs.getString(KEY_TOPICS, "");
+        List<String> subscribed = saved.isEmpty() ? Collections.emptyList() : Arrays.asList(saved.split(","));
+        this.topics = new GeoTopics(prefs.getString(KEY_CENTER, null), subscribed);
+    }
+
+    public static synchronized JobAlertTopics get(Context context) {
+        if (instance == null)
+            instance = new JobAlertTopics(context);
+        return instance;
+    }
+
+    /** Follows a new fix; a null fix is ignored. */
+    public void onFix(LocationFix fix) {
+        if (fix != null)
+            submit(fix);
+    }
+
+    /**
+     * Sign-out: drops every area subscription and, on the lane, writes
+     * areaTopics [] (deleting areaTopicsToken) to the signed-in user's
+     * document, waiting up to {@link #WITHDRAW_BUDGET_MS} for the server,
+     * before running {@code endSession}. Firestore only sends a user's
+     * writes while that user is signed in, and any publish still queued
+     * runs before it, so the server never keeps routing area alerts for
+     * this device to the departing user.
+     */
+    public void signOut(Runnable endSession) {
+        submit(CLEAR);
+        lane.execute(() -> {
+            try {
+                withdraw();
+            } finally {
+                endSession.run();
+            }
+        });
+    }
+
+    /** Writes the topics again if the FCM token changed (e.g. after a token refresh). */
+    public void republish() {
+        lane.execute(this::publish);
+    }
+
+    // ─── Moves (on the lane) ──────────────────────────────────────────────────
+
+    private void submit(Object request) {
+        if (next.getAndSet(request) == null)
+            lane.execute(this::startNext);
+    }
+
+    private void startNext() {
+        if (moving)
+            return; // picked up when the current move completes
+        Object request = next.getAndSet(null);
+        if (request == null)
+            return;
+        boolean clearing = request == CLEAR;
+        GeoTopics.Plan plan;
+        if (clearing) {
+            plan = topics.clear();
+        } else {
+            LocationFix fix = (LocationFix) request;
+            plan = topics.follow(fix.lat, fix.lng);
+        }
+        if (plan.isEmpty()) {
+            if (clearing)
+                save();
+            else
+                publish();
+            return;
+        }
+        moving = true;
+        List<String> subscribed = new ArrayList<>();
+        calls(plan.subscribe, true)
+                .continueWithTask(lane, subs -> {
+                    subscribed.addAll(subs.getResult());
+                    return calls(plan.unsubscribe, false);
+                })
+                .addOnCompleteListener(lane, done -> {
+                    List<String> unsubscribed = done.isSuccessful() ? done.getResult() : Collections.emptyList();
+                    if (topics.applied(subscribed, unsubscribed) || clearing) {
+                        AppLog.i(TAG, "Area topics moved").kv("center", topics.center())
+                                .kv("topics", topics.subscribed().size()).log();
+                        save();
+                    }
+                    if (!clearing)
+                        publish();
+                    moving = false;
+                    startNext();
+                });
+    }
+
+    /** Starts one call per topic at once; completes when all have, with the topics that succeeded. */
+    private Task<List<String>> calls(List<String> list, boolean subscribe) {
+        if (list.isEmpty())
+            return Tasks.forResult(Collections.emptyList());
+        FirebaseMessaging fcm = FirebaseMessaging.getInstance();
+        List<Task<Void>> tasks = new ArrayList<>(list.size());
+        for (String topic : list)
+            tasks.add(subscribe ? fcm.subscribeToTopic(topic) : fcm.unsubscribeFromTopic(topic));
+        return Tasks.whenAllComplete(tasks).continueWith(lane, ignored -> {
+            List<String> ok = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (tasks.get(i).isSuccessful())
+                    ok.add(list.get(i));
+                else
+                    AppLog.w(TAG, subscribe ? "Subscribe failed" : "Unsubscribe failed").kv("topic", list.get(i))
+                            .err(tasks.get(i).getException()).log();
+            }
+            return ok;
+        });
+    }
+
+    // ─── Internals (on the lane) ──────────────────────────────────────────────
+
+    /** Tells the server which topics this device is on, once per change, user and token. */
+    private void publish() {
+        String uid = NativeSession.get().getUid();
+        String token = ProcessSafeStore.get(appContext, ProcessSafeStore.KEY_FCM_TOKEN, "");
+        if (uid == null || token.isEmpty() || topics.center() == null)
+            return;
+        if (uid.equals(prefs.getString(KEY_PUBLISHED_UID, ""))
+                && token.equals(prefs.getString(KEY_PUBLISHED_TOKEN, "")))
+            return;
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("areaTopics", topics.subscribed());
+        fields.put("areaTopicsToken", token);
+        if (FirestoreWriteQueue.get(appContext).enqueue("users/" + uid, fields))
+            prefs.edit().putString(KEY_PUBLISHED_UID, uid).putString(KEY_PUBLISHED_TOKEN, token).apply();
+    }
+
+    private void withdraw() {
+        String uid = NativeSession.get().getUid();
+        if (uid == null)
+            return;
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("areaTopics", Collections.emptyList());
+        fields.put("areaTopicsToken", FieldValue.delete());
+        try {
+            Tasks.await(FirebaseFirestore.getInstance().collection("users").document(uid).update(fields),
+                    WITHDRAW_BUDGET_MS, TimeUnit.MILLISECONDS);
+            prefs.edit().remove(KEY_PUBLISHED_UID).remove(KEY_PUBLISHED_TOKEN).apply();
+        } catch (ExecutionException | TimeoutException e) {
+            AppLog.w(TAG, "Area topics not withdrawn").err(e).log();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Persists the subscriptions; the server has not seen them yet. */
+    private void save() {
+        prefs.edit()
+                .putString(KEY_CENTER, topics.center())
+                .putString(KEY_TOPICS, String.join(",", topics.subscribed()))
+                .remove(KEY_PUBLISHED_UID)
+                .remove(KEY_PUBLISHED_TOKEN)
+                .apply();
+    }
+}
@@ -0,0 +1,122 @@
+package com.needyou.app;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JobSearch
+ *
+ * Process-wide {@link JobSearchIndex} behind NeedYouBridge.indexJobs /
+ * removeJobs / searchJobs. The page feeds it the jobs it loads; updates
+ * are applied on a serial compute lane in chunks of {@link #CHUNK}, so a
+ * large batch never holds the index lock long enough to stall typeahead.
+ * Until every queued update has been applied {@link #search} returns null:
+ * the index would answer for a mix of old and new jobs.
+ */
+public class JobSearch {
+
+    private static final int CHUNK = 500;
+
+    private static JobSearch instance;
+
+    private final JobSearchIndex index = new JobSearchIndex();
+    private final Executor lane = AppExecutors.serial(AppExecutors.get().compute());
+    /** Updates handed to the lane and not yet applied. */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private JobSearch() {
+    }
+
+    public static synchronized JobSearch get() {
+        if (instance == null)
+            instance = new JobSearch();
+        return instance;
+    }
+
+    /**
+     * Adds or replaces jobs given as [{"id","caption","category","area",
+     * "city","state","lat","lng"}]; returns how many were accepted.
+     */
+    public int put(JSONArray jobs) {
+        List<JobSearchIndex.Job> parsed = new ArrayList<>(jobs.length());
+        for (int i = 0; i < jobs.length(); i++) {
+            JSONObject o = jobs.optJSONObject(i);
+            if (o == null || o.optString("id", "").isEmpty())
+                continue;
+            String place = o.optString("area", "") + " " + o.optString("city", "") + " " + o.optString("state", "");
+            parsed.add(new JobSearchIndex.Job(o.optString("id"), o.optString("caption", ""),
+                    o.optString("category", ""), place,
+                    o.optDouble("lat", Double.NaN), o.optDouble("lng", Double.NaN)));
+        }
+        apply(() -> {
+            for (int from = 0; from < parsed.size(); from += CHUNK) {
+                synchronized (index) {
+                    for (JobSearchIndex.Job job : parsed.subList(from, Math.min(parsed.size(), from + CHUNK)))
+                        index.put(job);
+                }
+            }
+        });
+        return parsed.size();
+    }
+
+    public void remove(JSONArray ids) {
+        List<String> list = new ArrayList<>(ids.length());
+        for (int i = 0; i < ids.length(); i++)
+            list.add(ids.optString(i));
+        apply(() -> {
+            synchronized (index) {
+                for (String id : list)
+                    index.remove(id);
+            }
+        });
+    }
+
+    /** True while updates are queued or being applied. */
+    public boolean isIndexing() {
+        return pending.get() > 0;
+    }
+
+    /**
+     * [{"id","score","distanceKm"}] best first; distanceKm is omitted without
+     * an origin. Null while {@link #isIndexing()}.
+     */
+    public String search(String query, double lat, double lng, int limit) {
+        if (isIndexing())
+            return null;
+        boolean hasOrigin = Double.isFinite(lat) && Double.isFinite(lng);
+        List<JobSearchIndex.Hit> hits;
+        synchronized (index) {
+            hits = index.search(query != null ? query : "", hasOrigin ? lat : Double.NaN,
+                    hasOrigin ? lng : Double.NaN, limit > 0 ? limit : 50);
+        }
+        JSONArray out = new JSONArray();
+        try {
+            for (JobSearchIndex.Hit h : hits) {
+                JSONObject o = new JSONObject().put("id", h.id).put("score", (double) h.score);
+                if (!Double.isNaN(h.distanceKm))
+                    o.put("distanceKm", Math.round(h.distanceKm * 100) / 100.0);
+                out.put(o);
+            }
+        } catch (JSONException e) {
+            return "[]";
+        }
+        return out.toString();
+    }
+
+    private void apply(Runnable update) {
+        pending.incrementAndGet();
+        lane.execute(() -> {
+            try {
+                update.run();
+            } finally {
+                pending.decrementAndGet();
+            }
+        });
+    }
+}
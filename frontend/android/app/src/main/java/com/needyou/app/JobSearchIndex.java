@@ -0,0 +1,305 @@
+package com.needyou.app;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * JobSearchIndex
+ *
+ * In-memory inverted index over the jobs the page has loaded, for
+ * typeahead search without substring scans in JS.
+ *
+ * Captions, categories and place names are tokenised (lower-cased, accents
+ * folded, split on anything that is not a letter or digit) into a sorted
+ * term dictionary, so the word being typed is matched as a prefix with one
+ * range lookup. Every other query word must match a term exactly; a job has
+ * to match all words. Scores are field weight × idf summed over the words,
+ * and divided by (1 + km / {@link #DISTANCE_HALF_KM}) when an origin is given.
+ *
+ * Updates are incremental: a re-indexed or removed job's slot is marked dead
+ * and skipped, and the postings are compacted once dead slots outnumber live
+ * ones. Not thread-safe; callers synchronise.
+ * Pure Java so relevance and speed can be tested on the JVM.
+ */
+public final class JobSearchIndex {
+
+    /** Field weights: category matches beat caption matches beat place names. */
+    static final int WEIGHT_CATEGORY = 3;
+    static final int WEIGHT_CAPTION = 2;
+    static final int WEIGHT_PLACE = 1;
+
+    /** Distance at which a job's text score is halved. */
+    static final double DISTANCE_HALF_KM = 5;
+
+    /** One indexed job. */
+    public static final class Job {
+        public final String id;
+        public final String caption;
+        public final String category;
+        public final String place;
+        public final double lat;
+        public final double lng;
+
+        public Job(String id, String caption, String category, String place, double lat, double lng) {
+            this.id = id;
+            this.caption = caption != null ? caption : "";
+            this.category = category != null ? category : "";
+            this.place = place != null ? place : "";
+            this.lat = lat;
+            this.lng = lng;
+        }
+    }
+
+    /** One search result. */
+    public static final class Hit {
+        public final String id;
+        public final float score;
+        /** Distance from the query origin in km, or NaN without an origin. */
+        public final double distanceKm;
+
+        Hit(String id, float score, double distanceKm) {
+            this.id = id;
+            this.score = score;
+            this.distanceKm = distanceKm;
+        }
+    }
+
+    /** Growable (slot, weight) list for one term. */
+    private static final class Postings {
+        int[] slots = new int[4];
+        byte[] weights = new byte[4];
+        int size;
+
+        void add(int slot, int weight) {
+            if (size == slots.length) {
+                slots = java.util.Arrays.copyOf(slots, size * 2);
+                weights = java.util.Arrays.copyOf(weights, size * 2);
+            }
+            slots[size] = slot;
+            weights[size] = (byte) weight;
+            size++;
+        }
+    }
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final List<Job> jobs = new ArrayList<>(); // by slot; null = dead
+    private int live;
+
+    // Per-query scratch, indexed by slot and reused across queries; a slot's
+    // entries are valid only when stamp[slot] == generation.
+    private int[] stamp = new int[0];
+    private int[] matched = new int[0];
+    private float[] scores = new float[0];
+    private int[] candidates = new int[0];
+    private int generation;
+
+    public int size() {
+        return live;
+    }
+
+    public int termCount() {
+        return terms.size();
+    }
+
+    // ─── Updates ──────────────────────────────────────────────────────────────
+
+    /** Adds or replaces a job. */
+    public void put(Job job) {
+        kill(job.id);
+        int slot = jobs.size();
+        jobs.add(job);
+        slotById.put(job.id, slot);
+        live++;
+        // Max weight per term, so a word in both caption and category counts once
+        Map<String, Integer> weights = new HashMap<>();
+        collect(job.caption, WEIGHT_CAPTION, weights);
+        collect(job.category, WEIGHT_CATEGORY, weights);
+        collect(job.place, WEIGHT_PLACE, weights);
+        for (Map.Entry<String, Integer> e : weights.entrySet()) {
+            Postings p = terms.get(e.getKey());
+            if (p == null) {
+                p = new Postings();
+                terms.put(e.getKey(), p);
+            }
+            p.add(slot, e.getValue());
+        }
+        maybeCompact();
+    }
+
+    public void remove(String id) {
+        kill(id);
+        maybeCompact();
+    }
+
+    public void clear() {
+        terms.clear();
+        slotById.clear();
+        jobs.clear();
+        live = 0;
+    }
+
+    private void kill(String id) {
+        Integer slot = slotById.remove(id);
+        if (slot != null) {
+            jobs.set(slot, null);
+            live--;
+        }
+    }
+
+    /** Rebuilds without dead slots once they outnumber live ones. */
+    private void maybeCompact() {
+        if (jobs.size() - live <= Math.max(1024, live))
+            return;
+        List<Job> alive = new ArrayList<>(live);
+        for (Job j : jobs) {
+            if (j != null)
+                alive.add(j);
+        }
+        clear();
+        for (Job j : alive)
+            put(j);
+    }
+
+    private static void collect(String text, int weight, Map<String, Integer> out) {
+        for (String t : tokenize(text)) {
+            Integer w = out.get(t);
+            if (w == null || w < weight)
+                out.put(t, weight);
+        }
+    }
+
+    // ─── Tokenising ───────────────────────────────────────────────────────────
+
+    static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null || text.isEmpty())
+            return out;
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK && isLatin(sb))
+                continue; // é → e, but keep Indic vowel signs
+            if (Character.isLetterOrDigit(c) || Character.getType(c) == Character.NON_SPACING_MARK
+                    || Character.getType(c) == Character.COMBINING_SPACING_MARK) {
+                sb.append(c);
+            } else if (sb.length() > 0) {
+                out.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+        if (sb.length() > 0)
+            out.add(sb.toString());
+        return out;
+    }
+
+    private static boolean isLatin(StringBuilder sb) {
+        return sb.length() == 0 || sb.charAt(sb.length() - 1) < 0x0250;
+    }
+
+    // ─── Search ───────────────────────────────────────────────────────────────
+
+    /**
+     * Top {@code limit} jobs matching every word of {@code query} (the last
+     * word as a prefix unless the query ends in a space), best first. Pass
+     * NaN coordinates for text-only ranking.
+     */
+    public List<Hit> search(String query, double originLat, double originLng, int limit) {
+        List<Hit> out = new ArrayList<>();
+        List<String> words = tokenize(query);
+        if (words.isEmpty() || live == 0 || limit <= 0)
+            return out;
+        boolean lastIsPrefix = !Character.isWhitespace(query.charAt(query.length() - 1));
+
+        int n = jobs.size();
+        if (stamp.length < n) {
+            int cap = Math.max(n, stamp.length * 2);
+            stamp = new int[cap];
+            matched = new int[cap];
+            scores = new float[cap];
+            candidates = new int[cap];
+            generation = 0;
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            java.util.Arrays.fill(stamp, 0);
+            generation = 1;
+        }
+        int gen = generation;
+        int candidateCount = 0;
+
+        for (int w = 0; w < words.size(); w++) {
+            String word = words.get(w);
+            boolean prefix = lastIsPrefix && w == words.size() - 1;
+            NavigableMap<String, Postings> expansions = prefix
+                    ? terms.subMap(word, true, word + Character.MAX_VALUE, false)
+                    : terms.subMap(word, true, word, true);
+            if (expansions.isEmpty())
+                return out;
+            for (Map.Entry<String, Postings> e : expansions.entrySet()) {
+                Postings p = e.getValue();
+                float idf = (float) Math.log(1 + (double) live / p.size);
+                for (int i = 0; i < p.size; i++) {
+                    int slot = p.slots[i];
+                    if (stamp[slot] != gen) {
+                        // First sighting this query: only the first word can admit a job
+                        if (w != 0 || jobs.get(slot) == null)
+                            continue;
+                        stamp[slot] = gen;
+                        matched[slot] = 0;
+                        scores[slot] = 0;
+                        candidates[candidateCount++] = slot;
+                    }
+                    if (matched[slot] != w)
+                        continue; // missed an earlier word, or already counted for this one
+                    matched[slot] = w + 1;
+                    scores[slot] += p.weights[i] * idf;
+                }
+            }
+        }
+
+        boolean hasOrigin = !Double.isNaN(originLat) && !Double.isNaN(originLng);
+        double cosLat = hasOrigin ? Math.cos(Math.toRadians(originLat)) : 0;
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, (a, b) -> Float.compare(a.score, b.score));
+        for (int c = 0; c < candidateCount; c++) {
+            int slot = candidates[c];
+            if (matched[slot] != words.size())
+                continue;
+            Job job = jobs.get(slot);
+            float score = scores[slot];
+            double km = Double.NaN;
+            if (hasOrigin) {
+                km = approxKm(originLat, originLng, cosLat, job.lat, job.lng);
+                // A job without coordinates ranks as if DISTANCE_HALF_KM away
+                score = (float) (score / (Double.isNaN(km) ? 2 : 1 + km / DISTANCE_HALF_KM));
+            }
+            if (top.size() < limit) {
+                top.add(new Hit(job.id, score, km));
+            } else if (score > top.peek().score) {
+                top.poll();
+                top.add(new Hit(job.id, score, km));
+            }
+        }
+        while (!top.isEmpty())
+            out.add(top.poll());
+        java.util.Collections.reverse(out);
+        return out;
+    }
+
+    /**
+     * Equirectangular distance: no trig per job, within 1% of haversine at
+     * city scale, which is all the ranking needs.
+     */
+    static double approxKm(double lat1, double lng1, double cosLat1, double lat2, double lng2) {
+        double x = Math.toRadians(lng2 - lng1) * cosLat1;
+        double y = Math.toRadians(lat2 - lat1);
+        return 6371 * Math.sqrt(x * x + y * y);
+    }
+}
@@ -0,0 +1,239 @@
+package com.needyou.app;
+
+import android.Manifest;
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.location.LocationManager;
+
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.location.CurrentLocationRequest;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.function.Consumer;
+
+/**
+ * LastLocationCache
+ *
+ * Instant "where is the user" answer for job discovery. A WebView
+ * navigator.geolocation call waits for a fresh fix, which indoors can take
+ * 5–20 s; the page instead reads the best fix already on the device through
+ * NeedYouBridge.getLastKnownLocation() and refines when the refresh lands.
+ *
+ * The best fix is chosen ({@link LocationFix#isBetter}) among the fused
+ * provider's last location, the platform providers' last known locations
+ * and the fix persisted from the previous launch (SharedPreferences
+ * "NeedYouLocation"). A refresh asks for a single balanced-power update —
+ * never continuous GPS — and is skipped while the best fix is still fresh.
+ *
+ * Main process only: the prefs are not multi-process safe and best() asks
+ * the location providers. Each new best fix is also copied to
+ * ProcessSafeStore, which the ":push" process reads through {@link #shared}.
+ */
+public class LastLocationCache {
+
+    private static final String TAG = "NeedYouLocation";
+    private static final String PREFS = "NeedYouLocation";
+    /** ProcessSafeStore key of the copy: "lat,lng,accuracy,time". */
+    private static final String KEY_SHARED = "lastFix";
+
+    /** A fix younger than this is not refreshed. */
+    static final long FRESH_MS = 2 * 60 * 1000;
+
+    /** Upper bound for the single refresh request. */
+    private static final long REFRESH_TIMEOUT_MS = 30_000;
+
+    private static LastLocationCache instance;
+
+    private final Context appContext;
+    private final SharedPreferences prefs;
+    private final FusedLocationProviderClient fused;
+
+    private LocationFix best;
+    private boolean refreshing;
+
+    private LastLocationCache(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.prefs = appContext.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.fused = LocationServices.getFusedLocationProviderClient(appContext);
+        this.best = loadStored();
+    }
+
+    public static synchronized LastLocationCache get(Context context) {
+        if (instance == null)
+            instance = new LastLocationCache(context);
+        return instance;
+    }
+
+    public boolean hasPermission() {
+        return ContextCompat.checkSelfPermission(appContext,
+                Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED
+                || ContextCompat.checkSelfPermission(appContext,
+                        Manifest.permission.ACCESS_COARSE_LOCATION) == PackageManager.PERMISSION_GRANTED;
+    }
+
+    /**
+     * The best fix known right now, folding in the platform providers' last
+     * known locations; null when the device has never had one.
+     */
+    @SuppressLint("MissingPermission")
+    public LocationFix best() {
+        if (hasPermission()) {
+            LocationManager lm = (LocationManager) appContext.getSystemService(Context.LOCATION_SERVICE);
+            if (lm != null) {
+                for (String provider : lm.getProviders(true)) {
+                    try {
+                        offer(lm.getLastKnownLocation(provider), provider);
+                    } catch (SecurityException | IllegalArgumentException ignored) {
+                        // Provider went away or permission was revoked in between
+                    }
+                }
+            }
+        }
+        synchronized (this) {
+            return best;
+        }
+    }
+
+    /**
+     * Folds in the fused last location and, if the best fix is older than
+     * {@link #FRESH_MS}, requests one balanced-power update. {@code onUpdated}
+     * is called (on an IO thread) only when a refresh replaced the best fix.
+     */
+    @SuppressLint("MissingPermission")
+    public void refresh(Consumer<LocationFix> onUpdated) {
+        if (!hasPermission())
+            return;
+        synchronized (this) {
+            if (refreshing)
+                return;
+            refreshing = true;
+        }
+        fused.getLastLocation()
+                .addOnSuccessListener(AppExecutors.get().io(), loc -> {
+                    boolean changed = offer(loc, "fused");
+                    LocationFix current;
+                    synchronized (this) {
+                        current = best;
+                    }
+                    if (current != null && current.ageMs(System.currentTimeMillis()) < FRESH_MS) {
+                        finishRefresh(changed ? current : null, onUpdated);
+                        return;
+                    }
+                    requestSingleUpdate(onUpdated);
+                })
+                .addOnFailureListener(AppExecutors.get().io(), e -> requestSingleUpdate(onUpdated));
+    }
+
+    @SuppressLint("MissingPermission")
+    private void requestSingleUpdate(Consumer<LocationFix> onUpdated) {
+        CurrentLocationRequest request = new CurrentLocationRequest.Builder()
+                .setPriority(Priority.PRIORITY_BALANCED_POWER_ACCURACY)
+                .setMaxUpdateAgeMillis(FRESH_MS)
+                .setDurationMillis(REFRESH_TIMEOUT_MS)
+                .build();
+        try {
+            fused.getCurrentLocation(request, null)
+                    .addOnSuccessListener(AppExecutors.get().io(),
+                            loc -> finishRefresh(offer(loc, "fused") ? best() : null, onUpdated))
+                    .addOnFailureListener(AppExecutors.get().io(), e -> {
+                        AppLog.w(TAG, "Location refresh failed").err(e).log();
+                        finishRefresh(null, onUpdated);
+                    });
+        } catch (SecurityException e) {
+            finishRefresh(null, onUpdated);
+        }
+    }
+
+    private void finishRefresh(LocationFix updated, Consumer<LocationFix> onUpdated) {
+        synchronized (this) {
+            refreshing = false;
+        }
+        if (updated != null && onUpdated != null)
+            onUpdated.accept(updated);
+    }
+
+    /** Keeps {@code loc} if it beats the current best; returns true when it did. */
+    private boolean offer(Location loc, String source) {
+        if (loc == null)
+            return false;
+        LocationFix fix = new LocationFix(loc.getLatitude(), loc.getLongitude(),
+                loc.hasAccuracy() ? loc.getAccuracy() : Float.MAX_VALUE, loc.getTime(), source);
+        synchronized (this) {
+            if (!LocationFix.isBetter(fix, best))
+                return false;
+            best = fix;
+        }
+        store(fix);
+        return true;
+    }
+
+    // ─── Persistence ──────────────────────────────────────────────────────────
+
+    private void store(LocationFix fix) {
+        prefs.edit()
+                .putLong("lat", Double.doubleToRawLongBits(fix.lat))
+                .putLong("lng", Double.doubleToRawLongBits(fix.lng))
+                .putFloat("accuracy", fix.accuracy)
+                .putLong("time", fix.time)
+                .apply();
+        String shared = fix.lat + "," + fix.lng + "," + fix.accuracy + "," + fix.time;
+        AppExecutors.get().io().execute(() -> ProcessSafeStore.put(appContext, KEY_SHARED, shared));
+    }
+
+    /**
+     * The last best fix the main process stored, for other processes; null
+     * if there is none. Reads the file only — no location provider calls.
+     */
+    static LocationFix shared(Context context) {
+        String raw = ProcessSafeStore.get(context, KEY_SHARED, "");
+        String[] parts = raw.split(",");
+        if (parts.length != 4)
+            return null;
+        try {
+            return new LocationFix(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]),
+                    Float.parseFloat(parts[2]), Long.parseLong(parts[3]), "stored");
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private LocationFix loadStored() {
+        if (!prefs.contains("time"))
+            return null;
+        return new LocationFix(
+                Double.longBitsToDouble(prefs.getLong("lat", 0)),
+                Double.longBitsToDouble(prefs.getLong("lng", 0)),
+                prefs.getFloat("accuracy", Float.MAX_VALUE),
+                prefs.getLong("time", 0),
+                "stored");
+    }
+
+    // ─── JSON ─────────────────────────────────────────────────────────────────
+
+    /** {"lat","lng","accuracy","time","ageMs","source"} for the page, or "" for null. */
+    static String toJson(LocationFix fix) {
+        if (fix == null)
+            return "";
+        try {
+            return new JSONObject()
+                    .put("lat", fix.lat)
+                    .put("lng", fix.lng)
+                    .put("accuracy", fix.accuracy == Float.MAX_VALUE ? JSONObject.NULL : (double) fix.accuracy)
+                    .put("time", fix.time)
+                    .put("ageMs", fix.ageMs(System.currentTimeMillis()))
+                    .put("source", fix.source)
+                    .toString();
+        } catch (JSONException e) {
+            return "";
+        }
+    }
+}
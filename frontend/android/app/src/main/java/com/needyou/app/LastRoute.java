@@ -0,0 +1,71 @@
+package com.needyou.app;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * LastRoute
+ *
+ * The page route MainActivity was showing when it last navigated, and the
+ * rule for whether a relaunch may go straight back to it instead of playing
+ * the splash intro and opening the dashboard.
+ *
+ * A route is resumable when it was recorded within the resume window, is on
+ * the app host over https, and is not part of a flow that must start over
+ * (sign-in, onboarding, verification, the landing page, API calls).
+ *
+ * Pure Java so the rule can be unit tested.
+ */
+public final class LastRoute {
+
+    /** Default resume window: long enough for a call or a trip to another app. */
+    static final long DEFAULT_WINDOW_MS = 30 * 60 * 1000;
+
+    /** Upper bound for a window set from the page. */
+    static final long MAX_WINDOW_MS = 24 * 60 * 60 * 1000;
+
+    /** Path prefixes that always relaunch through the normal start-up. */
+    private static final String[] RESTART_PREFIXES = {
+            "/signin", "/signup", "/onboarding", "/verify-email", "/verify-kyc", "/api/" };
+
+    public final String url;
+    /** Wall-clock time the route was recorded, ms since epoch. */
+    public final long savedAt;
+
+    public LastRoute(String url, long savedAt) {
+        this.url = url;
+        this.savedAt = savedAt;
+    }
+
+    /** True if a launch at {@code now} may load {@link #url} directly. */
+    public boolean isResumable(long now, long windowMs, String appHost) {
+        if (windowMs <= 0 || now < savedAt || now - savedAt > windowMs)
+            return false;
+        return isResumableUrl(url, appHost);
+    }
+
+    static boolean isResumableUrl(String url, String appHost) {
+        if (url == null || url.isEmpty())
+            return false;
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            return false;
+        }
+        if (!"https".equals(uri.getScheme()) || !appHost.equals(uri.getHost()))
+            return false;
+        String path = uri.getPath();
+        if (path == null || path.isEmpty() || path.equals("/"))
+            return false;
+        for (String prefix : RESTART_PREFIXES) {
+            if (path.startsWith(prefix))
+                return false;
+        }
+        return true;
+    }
+
+    static long clampWindow(long windowMs) {
+        return Math.max(0, Math.min(MAX_WINDOW_MS, windowMs));
+    }
+}
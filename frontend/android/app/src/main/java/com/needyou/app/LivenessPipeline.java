@@ -0,0 +1,233 @@
+package com.needyou.app;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LivenessPipeline
+ *
+ * Native frame pipeline for the KYC liveness check. A {@link FrameSource}
+ * (the camera on device, a synthetic source in tests) offers frames; the
+ * pipeline samples them at a fixed rate, converts the sampled NV21 frames to
+ * small upright JPEGs on the compute pool and uploads them in batches to the
+ * liveness endpoint.
+ *
+ * The source asks {@link FrameSink#wants(long)} before doing any per-frame
+ * work, so frames between samples cost nothing, and a sample is also skipped
+ * while a previous one is still being encoded — a slow phone simply samples
+ * less often instead of queueing frames.
+ *
+ * Pure Java: Android specifics (Camera2, Bitmap JPEG encoding, HTTP) live
+ * behind the FrameSource / JpegEncoder / BatchUploader interfaces.
+ */
+public class LivenessPipeline {
+
+    // ─── Plug-in points ───────────────────────────────────────────────────────
+
+    /** One camera frame in NV21 layout (Y plane, then interleaved V/U at half resolution). */
+    public static final class Frame {
+        public final int width;
+        public final int height;
+        public final byte[] nv21;
+        public final long timestampNanos;
+        /** Clockwise rotation needed to make the frame upright (0/90/180/270). */
+        public final int rotationDegrees;
+
+        public Frame(int width, int height, byte[] nv21, long timestampNanos, int rotationDegrees) {
+            this.width = width;
+            this.height = height;
+            this.nv21 = nv21;
+            this.timestampNanos = timestampNanos;
+            this.rotationDegrees = rotationDegrees;
+        }
+    }
+
+    public interface FrameSink {
+        /** Cheap check, called before the source builds a Frame for this timestamp. */
+        boolean wants(long timestampNanos);
+
+        /** Takes ownership of the frame's buffer. */
+        void onFrame(Frame frame);
+    }
+
+    public interface FrameSource {
+        void start(FrameSink sink) throws IOException;
+
+        void stop();
+    }
+
+    public interface JpegEncoder {
+        byte[] encode(int[] argb, int width, int height, int quality) throws IOException;
+    }
+
+    public interface BatchUploader {
+        /** Uploads one batch of JPEGs and returns the endpoint's JSON response. */
+        String upload(List<byte[]> jpegs) throws IOException;
+    }
+
+    public interface Listener {
+        void onBatchResult(int batchIndex, String responseJson);
+
+        void onError(String message);
+
+        /** Always called exactly once, after the last upload (or on stop/error). */
+        void onFinished(int framesSampled, int framesSkipped);
+    }
+
+    public static final class Config {
+        public final int fps;
+        public final int targetWidth;
+        public final int quality;
+        public final int batchSize;
+        public final int maxBatches;
+
+        public Config(int fps, int targetWidth, int quality, int batchSize, int maxBatches) {
+            this.fps = clamp(fps, 1, 15);
+            this.targetWidth = clamp(targetWidth, 64, 1280);
+            this.quality = clamp(quality, 30, 95);
+            this.batchSize = clamp(batchSize, 1, 10);
+            this.maxBatches = clamp(maxBatches, 1, 20);
+        }
+
+        private static int clamp(int v, int lo, int hi) {
+            return Math.max(lo, Math.min(hi, v));
+        }
+    }
+
+    // ─── Pipeline ─────────────────────────────────────────────────────────────
+
+    private final Config config;
+    private final FrameSource source;
+    private final JpegEncoder encoder;
+    private final BatchUploader uploader;
+    private final Listener listener;
+    private final long intervalNanos;
+
+    // Ordered lanes on the shared pools: one encode and one upload at a time
+    private final Executor encodeExecutor = AppExecutors.serial(AppExecutors.get().compute());
+    private final Executor uploadExecutor = AppExecutors.serial(AppExecutors.get().io());
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private final AtomicBoolean encoding = new AtomicBoolean();
+    private final AtomicInteger sampled = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    private volatile long lastSampleNanos = Long.MIN_VALUE;
+
+    // Touched only on the encode thread
+    private List<byte[]> batch = new ArrayList<>();
+    private int batchesQueued = 0;
+
+    public LivenessPipeline(Config config, FrameSource source, JpegEncoder encoder,
+            BatchUploader uploader, Listener listener) {
+        this.config = config;
+        this.source = source;
+        this.encoder = encoder;
+        this.uploader = uploader;
+        this.listener = listener;
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.fps;
+    }
+
+    public void start() {
+        if (!running.compareAndSet(false, true))
+            return;
+        try {
+            source.start(sink);
+        } catch (IOException | RuntimeException e) {
+            listener.onError("Camera unavailable: " + e.getMessage());
+            finish();
+        }
+    }
+
+    /** Stops sampling; batches already queued are still uploaded. */
+    public void stop() {
+        if (!running.compareAndSet(true, false))
+            return;
+        source.stop();
+        encodeExecutor.execute(() -> {
+            // Partial last batch is discarded — the endpoint wants full batches
+            batch = new ArrayList<>();
+            uploadExecutor.execute(this::finish);
+        });
+    }
+
+    /** Blocks until every queued encode/upload has run (tests, shutdown). */
+    public boolean awaitFinished(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!finished.get()) {
+            if (System.nanoTime() > deadline)
+                return false;
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    private final FrameSink sink = new FrameSink() {
+        @Override
+        public boolean wants(long timestampNanos) {
+            if (!running.get())
+                return false;
+            if (lastSampleNanos != Long.MIN_VALUE && timestampNanos - lastSampleNanos < intervalNanos)
+                return false;
+            if (encoding.get()) {
+                skipped.incrementAndGet();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void onFrame(Frame frame) {
+            if (!running.get() || !encoding.compareAndSet(false, true))
+                return;
+            lastSampleNanos = frame.timestampNanos;
+            sampled.incrementAndGet();
+            encodeExecutor.execute(() -> encode(frame));
+        }
+    };
+
+    private void encode(Frame frame) {
+        try {
+            int[] size = YuvScaler.outputSize(frame.width, frame.height, frame.rotationDegrees, config.targetWidth);
+            int[] argb = YuvScaler.nv21ToArgb(frame.nv21, frame.width, frame.height,
+                    frame.rotationDegrees, size[0], size[1]);
+            byte[] jpeg = encoder.encode(argb, size[0], size[1], config.quality);
+            if (!running.get())
+                return;
+            batch.add(jpeg);
+            if (batch.size() >= config.batchSize) {
+                List<byte[]> full = batch;
+                batch = new ArrayList<>();
+                int index = batchesQueued++;
+                uploadExecutor.execute(() -> upload(index, full));
+                if (batchesQueued >= config.maxBatches)
+                    stop();
+            }
+        } catch (IOException | RuntimeException e) {
+            listener.onError("Frame encode failed: " + e.getMessage());
+        } finally {
+            encoding.set(false);
+        }
+    }
+
+    private void upload(int index, List<byte[]> jpegs) {
+        try {
+            listener.onBatchResult(index, uploader.upload(jpegs));
+        } catch (IOException e) {
+            listener.onError("Upload failed: " + e.getMessage());
+        }
+    }
+
+    private void finish() {
+        if (!finished.compareAndSet(false, true))
+            return;
+        running.set(false);
+        listener.onFinished(sampled.get(), skipped.get());
+    }
+}
@@ -0,0 +1,64 @@
+package com.needyou.app;
+
+/**
+ * LocationFix
+ *
+ * One position fix as kept by LastLocationCache, plus the rule for picking
+ * the better of two fixes from different sources (fused provider, the
+ * platform providers, the fix persisted from the previous launch).
+ *
+ * Pure Java so the selection rule can be unit tested.
+ */
+public final class LocationFix {
+
+    /** A fix this much newer wins regardless of accuracy: the user has likely moved. */
+    static final long SIGNIFICANTLY_NEWER_MS = 2 * 60 * 1000;
+
+    /** A newer fix may be this much less accurate (metres) and still replace an older one. */
+    static final float ACCURACY_SLACK_M = 200f;
+
+    public final double lat;
+    public final double lng;
+    /** Horizontal accuracy radius in metres (68% confidence). */
+    public final float accuracy;
+    /** Wall-clock time of the fix, ms since epoch. */
+    public final long time;
+    /** Where the fix came from: "fused", "gps", "network", "passive" or "stored". */
+    public final String source;
+
+    public LocationFix(double lat, double lng, float accuracy, long time, String source) {
+        this.lat = lat;
+        this.lng = lng;
+        this.accuracy = accuracy;
+        this.time = time;
+        this.source = source;
+    }
+
+    public long ageMs(long now) {
+        return Math.max(0, now - time);
+    }
+
+    /**
+     * True when {@code candidate} should replace {@code current}: a much newer
+     * fix always wins and a much older one always loses; otherwise the more
+     * accurate one wins, and a newer fix is still taken if it is only
+     * slightly less accurate.
+     */
+    public static boolean isBetter(LocationFix candidate, LocationFix current) {
+        if (candidate == null)
+            return false;
+        if (current == null)
+            return true;
+        long delta = candidate.time - current.time;
+        if (delta > SIGNIFICANTLY_NEWER_MS)
+            return true;
+        if (delta < -SIGNIFICANTLY_NEWER_MS)
+            return false;
+        float accuracyDelta = candidate.accuracy - current.accuracy;
+        if (accuracyDelta < 0)
+            return true;
+        if (delta > 0 && accuracyDelta == 0)
+            return true;
+        return delta > 0 && accuracyDelta <= ACCURACY_SLACK_M && candidate.source.equals(current.source);
+    }
+}
@@ -3,11 +3,9 @@ package com.needyou.app;
 import android.Manifest;
 import android.app.Activity;
 import android.app.AlertDialog;
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.content.ActivityNotFoundException;
 import android.content.ClipData;
+import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
@@ -38,21 +36,16 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Button;
 import android.widget.Toast;
-import android.util.Log;
 import android.provider.MediaStore;
 import java.io.File;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
 import java.util.Arrays;
-import java.util.Date;
-import java.util.Locale;
 
 import androidx.core.view.WindowCompat;
 import androidx.core.view.WindowInsetsCompat;
 import androidx.core.view.WindowInsetsControllerCompat;
 
 import androidx.core.app.ActivityCompat;
-import androidx.core.app.NotificationCompat;
 import androidx.core.content.ContextCompat;
 import androidx.core.splashscreen.SplashScreen;
 
@@ -66,13 +59,47 @@ public class MainActivity extends BridgeActivity {
     private static final String APP_URL = "https://need-you.xyz/dashboard";
     private static final String OFFLINE_URL = "file:///android_asset/offline.html";
     private static final String SPLASH_INTRO_URL = "file:///android_asset/splash_intro.html";
-    private static final String CHANNEL_ID = "needyou_notifications";
-    private static final String CHANNEL_NAME = "NeedYou Notifications";
     private static final String PREFS_NAME = "NeedYouPrefs";
+    private static final String APP_HOST = "need-you.xyz";
+    // OTA web bundle: <base>/manifest.json + <base>/files/<path> (see BundleStore)
+    private static final String BUNDLE_BASE_URL = "https://need-you.xyz/bundle";
+
+    // Active local web bundle; null until BundleStore.onLaunch() has run, or
+    // when the bundle directory cannot be opened — requests then go to network.
+    private volatile BundleStore bundleStore = null;
+
+    // Host of the page currently in the main frame; bridge calls that hand
+    // over credentials are only accepted from APP_HOST.
+    private volatile String mainFrameHost = null;
+
+    // Background and main-thread work owned by this Activity (see AppExecutors);
+    // cancelled in onDestroy so nothing runs against a destroyed Activity.
+    private final TaskScope tasks = AppExecutors.get().newScope();
+
+    // Notification-tap deep links; created in onCreate
+    private DeepLinkInbox deepLinks;
+
+
+    // Worker ETA per job application while on the way (see EtaEstimator)
+    private final java.util.Map<String, EtaEstimator> etaEstimators = new java.util.concurrent.ConcurrentHashMap<>();
 
     private ConnectivityManager.NetworkCallback networkCallback;
     private boolean isShowingOfflinePage = false;
     private volatile boolean splashReady = false;
+
+    // Resume-to-last-route (see LastRoute): how this launch started ("splash",
+    // "resume" or "restore") and when, until its first page has loaded.
+    private static final String STATE_WEBVIEW = "needyou.webview";
+    private String launchMode = null;
+    private long launchStartNanos = 0;
+    // NeedYouPrefs reads and writes from the UI thread (routes, one-time asks), in order
+    private final java.util.concurrent.Executor prefsLane = AppExecutors.serial(AppExecutors.get().io());
+    // Chat on screen (NeedYouBridge.setOpenConversation) while resumed; published
+    // for ":push" as ProcessSafeStore.KEY_FOREGROUND_CONVERSATION, in order
+    private volatile String openConversation = null;
+    private volatile boolean resumed = false;
+    private final java.util.concurrent.Executor conversationLane = AppExecutors.serial(AppExecutors.get().io());
+    private String publishedConversation = null; // touched only on conversationLane
     private int notificationIdCounter = 1000;
     private long lastBackPressed = 0;
     private ValueCallback<Uri[]> fileUploadCallback = null;
@@ -83,9 +110,13 @@ public class MainActivity extends BridgeActivity {
     private static final int CAMERA_CAPTURE_REQUEST_CODE = 5000; // photo capture via ACTION_IMAGE_CAPTURE
     private static final int VIDEO_CAPTURE_REQUEST_CODE = 6000; // video capture via ACTION_VIDEO_CAPTURE
     private static final int MIC_PERMISSION_CODE = 7000; // microphone for chat voice recording
+    private static final int BACKGROUND_LOCATION_PERMISSION_CODE = 8000; // geofenced arrival detection
 
-    // URI for the temp file created for ACTION_IMAGE_CAPTURE
+    // URI + staged file created for ACTION_IMAGE_CAPTURE / ACTION_VIDEO_CAPTURE
     private Uri cameraImageUri = null;
+    private File cameraImageFile = null;
+    private Uri cameraVideoUri = null;
+    private File cameraVideoFile = null;
 
     // Held while we ask the user for CAMERA runtime permission during getUserMedia
     private PermissionRequest pendingCameraPermissionRequest = null;
@@ -103,15 +134,19 @@ public class MainActivity extends BridgeActivity {
     // ─── Native bridge exposed to the WebView ────────────────────────────────
     public class NeedYouBridge {
 
+        // Every method records its latency into PerfTelemetry
+        private final PerfTelemetry perf = PerfTelemetry.get(MainActivity.this);
+
         /** Retry button in offline.html: NeedYouBridge.retry() */
         @JavascriptInterface
         public void retry() {
-            runOnUiThread(() -> {
-                if (isNetworkAvailable())
+            boolean online = isNetworkAvailable();
+            tasks.main(perf.timedUi("retry", () -> {
+                if (online)
                     loadApp();
                 else
                     loadOffline();
-            });
+            }));
         }
 
         /**
@@ -120,14 +155,15 @@ public class MainActivity extends BridgeActivity {
          */
         @JavascriptInterface
         public void splashDone() {
-            runOnUiThread(() -> {
-                if (isNetworkAvailable())
+            boolean online = isNetworkAvailable();
+            tasks.main(perf.timedUi("splashDone", () -> {
+                if (online)
                     loadApp();
                 else
                     loadOffline();
                 splashReady = true; // release native splash screen
                 registerNetworkCallback();
-            });
+            }));
         }
 
         /**
@@ -136,7 +172,7 @@ public class MainActivity extends BridgeActivity {
          */
         @JavascriptInterface
         public void showNotification(String title, String body) {
-            postSystemNotification(title, body);
+            perf.timedRun("showNotification", () -> postSystemNotification(title, body));
         }
 
         /**
@@ -145,18 +181,17 @@ public class MainActivity extends BridgeActivity {
          */
         @JavascriptInterface
         public void requestLocationPermission() {
-            runOnUiThread(() -> {
-                if (ContextCompat.checkSelfPermission(MainActivity.this,
-                        Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
-                    ActivityCompat.requestPermissions(
-                            MainActivity.this,
-                            new String[] {
-                                    Manifest.permission.ACCESS_FINE_LOCATION,
-                                    Manifest.permission.ACCESS_COARSE_LOCATION
-                            },
-                            LOCATION_PERMISSION_CODE);
-                }
-            });
+            // Checked here on the bridge thread; only the dialog needs the UI thread
+            if (ContextCompat.checkSelfPermission(MainActivity.this,
+                    Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED)
+                return;
+            tasks.main(perf.timedUi("requestLocationPermission", () -> ActivityCompat.requestPermissions(
+                    MainActivity.this,
+                    new String[] {
+                            Manifest.permission.ACCESS_FINE_LOCATION,
+                            Manifest.permission.ACCESS_COARSE_LOCATION
+                    },
+                    LOCATION_PERMISSION_CODE)));
         }
 
         /**
@@ -165,10 +200,10 @@ public class MainActivity extends BridgeActivity {
          */
         @JavascriptInterface
         public void openLocationSettings() {
-            runOnUiThread(() -> {
+            tasks.main(perf.timedUi("openLocationSettings", () -> {
                 Intent intent = new Intent(Settings.ACTION_LOCATION_SOURCE_SETTINGS);
                 startActivity(intent);
-            });
+            }));
         }
 
         /**
@@ -177,14 +212,14 @@ public class MainActivity extends BridgeActivity {
          */
         @JavascriptInterface
         public void openBatterySettings() {
-            runOnUiThread(() -> {
+            tasks.main(perf.timedUi("openBatterySettings", () -> {
                 if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
                     Intent intent = new Intent(
                             Settings.ACTION_REQUEST_IGNORE_BATTERY_OPTIMIZATIONS,
                             Uri.parse("package:" + getPackageName()));
                     startActivity(intent);
                 }
-            });
+            }));
         }
 
         /**
@@ -193,11 +228,13 @@ public class MainActivity extends BridgeActivity {
          */
         @JavascriptInterface
         public boolean isBatteryOptimizationEnabled() {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                PowerManager pm = (PowerManager) getSystemService(POWER_SERVICE);
-                return pm != null && !pm.isIgnoringBatteryOptimizations(getPackageName());
-            }
-            return false;
+            return perf.timed("isBatteryOptimizationEnabled", () -> {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                    PowerManager pm = (PowerManager) getSystemService(POWER_SERVICE);
+                    return pm != null && !pm.isIgnoringBatteryOptimizations(getPackageName());
+                }
+                return false;
+            });
         }
 
         /**
@@ -208,8 +245,14 @@ public class MainActivity extends BridgeActivity {
          */
         @JavascriptInterface
         public String getFcmToken() {
-            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-            return prefs.getString("fcmToken", "");
+            return perf.timed("getFcmToken", () -> {
+                // Written by MyFirebaseMessagingService in the ":push" process too, so
+                // it lives in ProcessSafeStore; older installs still have it in prefs.
+                String token = ProcessSafeStore.get(MainActivity.this, ProcessSafeStore.KEY_FCM_TOKEN, "");
+                if (token.isEmpty())
+                    token = getSharedPreferences(PREFS_NAME, MODE_PRIVATE).getString("fcmToken", "");
+                return token;
+            });
         }
 
         /**
@@ -219,8 +262,7 @@ public class MainActivity extends BridgeActivity {
          */
         @JavascriptInterface
         public String getPendingDeepLink() {
-            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
-            return prefs.getString("pendingDeepLink", "");
+            return perf.timed("getPendingDeepLink", () -> deepLinks.pending());
         }
 
         /**
@@ -229,8 +271,7 @@ public class MainActivity extends BridgeActivity {
          */
         @JavascriptInterface
         public void clearPendingDeepLink() {
-            getSharedPreferences(PREFS_NAME, MODE_PRIVATE)
-                    .edit().remove("pendingDeepLink").apply();
+            perf.timedRun("clearPendingDeepLink", () -> deepLinks.clear());
         }
 
         /**
@@ -242,16 +283,828 @@ public class MainActivity extends BridgeActivity {
          */
         @JavascriptInterface
         public void requestMicPermission() {
-            runOnUiThread(() -> {
-                if (ContextCompat.checkSelfPermission(MainActivity.this,
-                        Manifest.permission.RECORD_AUDIO) != PackageManager.PERMISSION_GRANTED) {
-                    ActivityCompat.requestPermissions(
-                            MainActivity.this,
-                            new String[] { Manifest.permission.RECORD_AUDIO },
-                            MIC_PERMISSION_CODE);
+            if (ContextCompat.checkSelfPermission(MainActivity.this,
+                    Manifest.permission.RECORD_AUDIO) == PackageManager.PERMISSION_GRANTED)
+                return;
+            tasks.main(perf.timedUi("requestMicPermission", () -> ActivityCompat.requestPermissions(
+                    MainActivity.this,
+                    new String[] { Manifest.permission.RECORD_AUDIO },
+                    MIC_PERMISSION_CODE)));
+        }
+
+        /**
+         * Returns the cached list of installed UPI apps as a JSON array like
+         * [{"packageName":"com.phonepe.app","label":"PhonePe"}], or "" if the
+         * first background scan has not finished yet.
+         * Call from JS before opening Razorpay:
+         * window.NeedYouBridge?.getInstalledUpiApps?.()
+         */
+        @JavascriptInterface
+        public String getInstalledUpiApps() {
+            return perf.timed("getInstalledUpiApps", () -> {
+                UpiAppCache cache = UpiAppCache.get(MainActivity.this);
+                return cache.isReady() ? cache.toJson() : "";
+            });
+        }
+
+        /**
+         * Returns the cached Cloudinary upload response JSON for a SHA-256 content
+         * hash, or "" if this content has never been uploaded.
+         * Call from JS before uploading: window.NeedYouBridge?.lookupUpload?.(hash)
+         */
+        @JavascriptInterface
+        public String lookupUpload(String sha256) {
+            return perf.timed("lookupUpload", () -> MediaStagingArea.get(MainActivity.this).lookupUpload(sha256));
+        }
+
+        /**
+         * Records a successful Cloudinary upload so identical content is never
+         * uploaded again, and deletes the matching staged capture file.
+         * Call from JS after uploading: window.NeedYouBridge?.recordUpload?.(hash, json)
+         */
+        @JavascriptInterface
+        public void recordUpload(String sha256, String responseJson) {
+            perf.timedRun("recordUpload", () -> {
+                MediaStagingArea.get(MainActivity.this).recordUpload(sha256, responseJson);
+            });
+        }
+
+        /**
+         * Returns staging disk usage (captures and processed files such as
+         * thumbnails) and upload dedupe hit/miss counts as JSON.
+         * Call from JS: window.NeedYouBridge?.getMediaStats?.()
+         */
+        @JavascriptInterface
+        public String getMediaStats() {
+            return perf.timed("getMediaStats", () -> MediaStagingArea.get(MainActivity.this).statsJson());
+        }
+
+        /**
+         * Returns [{"name","size","mimeType","thumbUrl"}] for the media returned by
+         * the last file-chooser / camera result. thumbUrl is a small native JPEG the
+         * page can use as a preview or video poster instead of decoding the original.
+         * Call from JS after an input change:
+         * window.NeedYouBridge?.getPickedMediaThumbnails?.()
+         */
+        @JavascriptInterface
+        public String getPickedMediaThumbnails() {
+            return perf.timed("getPickedMediaThumbnails", () -> {
+                return ThumbnailStore.get(MainActivity.this).getLastPickedJson();
+            });
+        }
+
+        /**
+         * Forwards Firestore notification listener changes into the native mirror.
+         * changesJson: [{"op":"upsert","doc":{...}} | {"op":"remove","id":"..."}]
+         * seeded: true when this batch came from an unbounded (full-history) query.
+         * Call from JS: window.NeedYouBridge?.syncNotifications?.(uid, json, seeded)
+         */
+        @JavascriptInterface
+        public void syncNotifications(String userId, String changesJson, boolean seeded) {
+            perf.timedRun("syncNotifications", () -> {
+                if (userId == null || userId.isEmpty())
+                    return;
+                NotificationMirror mirror = NotificationMirror.get(MainActivity.this);
+                String known = ProcessSafeStore.get(MainActivity.this, ProcessSafeStore.KEY_NOTIF_USER_ID, "");
+                if (!userId.equals(known)) {
+                    // Different account signed in — never show the previous user's history
+                    mirror.retainOnly(userId);
+                    ProcessSafeStore.put(MainActivity.this, ProcessSafeStore.KEY_NOTIF_USER_ID, userId);
+                }
+                mirror.applyChanges(userId, changesJson, seeded);
+            });
+        }
+
+        /**
+         * True once the full notification history for userId has been mirrored, so
+         * the page can switch its listener to a bounded (newest-only) query.
+         * Call from JS: window.NeedYouBridge?.isNotificationMirrorSeeded?.(uid)
+         */
+        @JavascriptInterface
+        public boolean isNotificationMirrorSeeded(String userId) {
+            return perf.timed("isNotificationMirrorSeeded", () -> {
+                return userId != null && NotificationMirror.get(MainActivity.this).isSeeded(userId);
+            });
+        }
+
+        /**
+         * Unread notification count from the native mirror.
+         * Call from JS: window.NeedYouBridge?.getNotificationUnreadCount?.(uid)
+         */
+        @JavascriptInterface
+        public int getNotificationUnreadCount(String userId) {
+            return perf.timed("getNotificationUnreadCount", () -> {
+                return userId == null ? 0 : NotificationMirror.get(MainActivity.this).unreadCount(userId);
+            });
+        }
+
+        /**
+         * Keyset-paged notifications, newest first. Pass cursorCreatedAt = 0 for
+         * the first page, then the nextCursor fields of the previous result.
+         * Returns {"items":[...],"nextCursor":{"createdAt":..,"id":".."}|null}.
+         * Call from JS: window.NeedYouBridge?.getNotificationsPage?.(uid, 0, '', 20)
+         */
+        @JavascriptInterface
+        public String getNotificationsPage(String userId, long cursorCreatedAt, String cursorId, int limit) {
+            return perf.timed("getNotificationsPage", () -> {
+                if (userId == null)
+                    return "{\"items\":[],\"nextCursor\":null}";
+                return NotificationMirror.get(MainActivity.this).page(userId, cursorCreatedAt, cursorId, limit);
+            });
+        }
+
+        /**
+         * Marks notifications read in the mirror. idsJson is a JSON array of ids,
+         * or "" to mark all of the user's notifications read.
+         * Call from JS: window.NeedYouBridge?.markNotificationsReadLocal?.(uid, '["id"]')
+         */
+        @JavascriptInterface
+        public void markNotificationsReadLocal(String userId, String idsJson) {
+            perf.timedRun("markNotificationsReadLocal", () -> {
+                if (userId == null)
+                    return;
+                String[] ids = null;
+                if (idsJson != null && !idsJson.isEmpty()) {
+                    try {
+                        org.json.JSONArray arr = new org.json.JSONArray(idsJson);
+                        ids = new String[arr.length()];
+                        for (int i = 0; i < arr.length(); i++)
+                            ids[i] = arr.getString(i);
+                    } catch (org.json.JSONException e) {
+                        return;
+                    }
+                }
+                NotificationMirror.get(MainActivity.this).markRead(userId, ids);
+            });
+        }
+
+        /**
+         * Returns frame-duration, per-bridge-method latency and memory histograms
+         * as JSON (latencies in microseconds, memory in MB).
+         * Call from JS: window.NeedYouBridge?.getPerfTelemetry?.()
+         */
+        @JavascriptInterface
+        public String getPerfTelemetry() {
+            return perf.toJson();
+        }
+
+        /**
+         * Writes the telemetry snapshot to a JSON file for bug reports and returns
+         * its absolute path ("" on failure).
+         * Call from JS: window.NeedYouBridge?.exportPerfTelemetry?.()
+         */
+        @JavascriptInterface
+        public String exportPerfTelemetry() {
+            return perf.exportToFile();
+        }
+
+        /**
+         * Confirms the page booted from the active OTA bundle. Without this call
+         * the next launch rolls back to the previous bundle.
+         * Call from JS once the app shell has mounted:
+         * window.NeedYouBridge?.bundleBootOk?.()
+         */
+        @JavascriptInterface
+        public void bundleBootOk() {
+            perf.timedRun("bundleBootOk", () -> {
+                try {
+                    BundleStore store = bundleStore;
+                    if (store != null)
+                        store.markBootSuccessful();
+                } catch (IOException e) {
+                    AppLog.e("NeedYouBundle", "Boot confirmation failed").err(e).log();
                 }
             });
         }
+
+        /**
+         * Schedules a local reminder that fires even if the app is closed or the
+         * device reboots; an existing reminder with the same id is replaced.
+         * reminderJson: {"id","at"(epoch ms),"title","body","jobId"?,
+         * "notificationType"?,"exact"?}. Returns false if rejected.
+         * Call from JS: window.NeedYouBridge?.scheduleReminder?.(json)
+         */
+        @JavascriptInterface
+        public boolean scheduleReminder(String reminderJson) {
+            return perf.timed("scheduleReminder", () -> {
+                try {
+                    return ReminderScheduler.get(MainActivity.this).schedule(new org.json.JSONObject(reminderJson));
+                } catch (org.json.JSONException e) {
+                    AppLog.e("NeedYouReminders", "Bad reminder JSON").err(e).log();
+                    return false;
+                }
+            });
+        }
+
+        /**
+         * Cancels a reminder scheduled with scheduleReminder (no-op if unknown).
+         * Call from JS: window.NeedYouBridge?.cancelReminder?.(id)
+         */
+        @JavascriptInterface
+        public void cancelReminder(String id) {
+            perf.timedRun("cancelReminder", () -> ReminderScheduler.get(MainActivity.this).cancel(id));
+        }
+
+        /**
+         * Returns the pending reminders as a JSON array, soonest first.
+         * Call from JS: window.NeedYouBridge?.getScheduledReminders?.()
+         */
+        @JavascriptInterface
+        public String getScheduledReminders() {
+            return perf.timed("getScheduledReminders", () -> ReminderScheduler.get(MainActivity.this).listJson());
+        }
+
+        /**
+         * Feeds a worker location fix to the ETA estimator for application
+         * {@code appId} heading to destLat/destLng. Returns the estimated
+         * arrival time (epoch ms) when it changed meaningfully since the last
+         * one returned — write it as workerEtaAt with this fix — else 0. The fix
+         * also feeds native arrival detection (ArrivalGeofences).
+         * Call from JS: window.NeedYouBridge?.etaSample?.(appId, lat, lng, accuracy, timeMs, destLat, destLng)
+         */
+        @JavascriptInterface
+        public long etaSample(String appId, double lat, double lng, double accuracy, long timeMs,
+                double destLat, double destLng) {
+            return perf.timed("etaSample", () -> {
+                if (appId == null)
+                    return 0L;
+                LocationFix fix = new LocationFix(lat, lng, (float) accuracy, timeMs, "page");
+                AppExecutors.get().io().execute(() -> ArrivalGeofences.get(MainActivity.this).onFix(fix));
+                EtaEstimator eta = etaEstimators.get(appId);
+                if (eta == null || eta.destLat != destLat || eta.destLng != destLng) {
+                    eta = new EtaEstimator(destLat, destLng);
+                    etaEstimators.put(appId, eta);
+                }
+                synchronized (eta) {
+                    return eta.update(lat, lng, accuracy, timeMs);
+                }
+            });
+        }
+
+        /**
+         * Writes the native log rings of all processes (oldest record first,
+         * tokens and message bodies redacted) to a text file for bug reports
+         * and returns its absolute path ("" on failure).
+         * Call from JS: window.NeedYouBridge?.exportLogs?.()
+         */
+        @JavascriptInterface
+        public String exportLogs() {
+            return perf.timed("exportLogs", () -> AppLog.exportToFile(MainActivity.this));
+        }
+
+        /**
+         * Sets the native log level (2 VERBOSE … 6 ERROR, as android.util.Log)
+         * for field debugging; kept across restarts, applies to the ":push"
+         * process from its next start. Any other value restores the build
+         * default. Call from JS: window.NeedYouBridge?.setLogLevel?.(3)
+         */
+        @JavascriptInterface
+        public void setLogLevel(int level) {
+            perf.timedRun("setLogLevel", () -> AppLog.setLevel(MainActivity.this, level));
+        }
+
+        /**
+         * The chat conversation on screen, or null/"" when none is. While the
+         * app is resumed, pushes for that conversation post no banner.
+         * Call from JS: window.NeedYouBridge?.setOpenConversation?.(conversationId)
+         */
+        @JavascriptInterface
+        public void setOpenConversation(String conversationId) {
+            perf.timedRun("setOpenConversation", () -> {
+                openConversation = conversationId == null || conversationId.isEmpty()
+                        || conversationId.contains(",") ? null : conversationId;
+                publishOpenConversation();
+            });
+        }
+
+        /**
+         * Updates the home-screen widget from what the page knows. json:
+         * {"nearbySeen": true} once the home feed is shown, and/or
+         * {"job": {"id","title","startJobStatus"}} for the worker's hired job
+         * ({"job": null} when there is none). Applied in the background.
+         * Call from JS: window.NeedYouBridge?.updateWidget?.(json)
+         */
+        @JavascriptInterface
+        public void updateWidget(String json) {
+            perf.timedRun("updateWidget", () -> {
+                try {
+                    org.json.JSONObject o = new org.json.JSONObject(json);
+                    boolean nearbySeen = o.optBoolean("nearbySeen");
+                    boolean hasJob = o.has("job");
+                    org.json.JSONObject job = o.optJSONObject("job");
+                    Context app = getApplicationContext();
+                    AppExecutors.get().io().execute(() -> NeedYouWidget.update(app, s -> {
+                        long now = System.currentTimeMillis();
+                        boolean changed = nearbySeen && s.markNearbySeen(now);
+                        if (hasJob) {
+                            String id = job != null ? job.optString("id", null) : null;
+                            String title = job != null ? job.optString("title", null) : null;
+                            String status = job != null
+                                    ? WidgetSnapshot.statusLabel(job.optString("startJobStatus", null))
+                                    : null;
+                            changed |= !java.util.Objects.equals(id, s.jobId)
+                                    || !java.util.Objects.equals(title, s.jobTitle)
+                                    || !java.util.Objects.equals(status, s.jobStatus);
+                            s.setJob(id, title, status, "job_hired", now);
+                        }
+                        return changed;
+                    }));
+                } catch (org.json.JSONException ignored) {
+                    // Malformed update; the widget keeps its snapshot
+                }
+            });
+        }
+
+        /**
+         * How long after the last navigation a relaunch goes straight back to
+         * that route instead of through the splash intro; 0 disables resuming.
+         * Capped at 24 h. Call from JS: window.NeedYouBridge?.setRouteResumeWindow?.(ms)
+         */
+        @JavascriptInterface
+        public void setRouteResumeWindow(long windowMs) {
+            perf.timedRun("setRouteResumeWindow", () -> {
+                getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit()
+                        .putLong("resumeWindowMs", LastRoute.clampWindow(windowMs)).apply();
+            });
+        }
+
+        /**
+         * Adds or replaces jobs in the on-device search index. json:
+         * [{"id","caption","category","area","city","state","lat","lng"}].
+         * Indexing runs in the background; returns the number of jobs accepted.
+         * Call from JS: window.NeedYouBridge?.indexJobs?.(json)
+         */
+        @JavascriptInterface
+        public int indexJobs(String json) {
+            return perf.timed("indexJobs", () -> {
+                try {
+                    return JobSearch.get().put(new org.json.JSONArray(json));
+                } catch (org.json.JSONException e) {
+                    return 0;
+                }
+            });
+        }
+
+        /**
+         * Removes jobs (closed, filled, deleted) from the search index.
+         * Call from JS: window.NeedYouBridge?.removeJobs?.(JSON.stringify(ids))
+         */
+        @JavascriptInterface
+        public void removeJobs(String idsJson) {
+            perf.timedRun("removeJobs", () -> {
+                try {
+                    JobSearch.get().remove(new org.json.JSONArray(idsJson));
+                } catch (org.json.JSONException ignored) {
+                    // Nothing to remove
+                }
+            });
+        }
+
+        /**
+         * Typeahead search over the indexed jobs: every word must match, the
+         * last one as a prefix. Ranked by text relevance and, when lat/lng are
+         * finite, distance. Returns [{"id","score","distanceKm"}] best first, or
+         * "" while indexJobs / removeJobs updates are still being applied (the
+         * page then filters in JS).
+         * Call from JS: window.NeedYouBridge?.searchJobs?.(query, lat, lng, limit)
+         */
+        @JavascriptInterface
+        public String searchJobs(String query, double lat, double lng, int limit) {
+            return perf.timed("searchJobs", () -> {
+                String hits = JobSearch.get().search(query, lat, lng, limit);
+                return hits != null ? hits : "";
+            });
+        }
+
+        /**
+         * Queues a Firestore field update for the document at {@code path}
+         * ("job_applications/<id>") and returns at once. Updates to the same
+         * document and field are coalesced (last write wins) and committed in
+         * batches through the native session; the queue survives process death
+         * and is flushed when connectivity returns. Only plain JSON values —
+         * no sentinels such as increment() or serverTimestamp(). Returns false
+         * for a bad path or JSON, or without a native session; the page should
+         * then write directly.
+         * Call from JS: window.NeedYouBridge?.enqueueWrite?.(path, fieldsJson)
+         */
+        @JavascriptInterface
+        public boolean enqueueWrite(String path, String fieldsJson) {
+            return perf.timed("enqueueWrite", () -> {
+                try {
+                    if (!FirestoreWriteQueue.isDocumentPath(path))
+                        return false;
+                    java.util.Map<String, Object> fields = WriteBehindQueue.fromJsonObject(
+                            new org.json.JSONObject(fieldsJson));
+                    if (fields.isEmpty())
+                        return false;
+                    return FirestoreWriteQueue.get(MainActivity.this).enqueue(path, fields);
+                } catch (org.json.JSONException e) {
+                    return false;
+                }
+            });
+        }
+
+        /**
+         * Returns write-queue counters as JSON: {"depth","updatesEnqueued",
+         * "fieldsEnqueued","fieldsCoalesced","documentsCommitted",
+         * "fieldsCommitted","batchesCommitted","batchesFailed","documentsDropped"}.
+         * Call from JS: window.NeedYouBridge?.getWriteQueueStats?.()
+         */
+        @JavascriptInterface
+        public String getWriteQueueStats() {
+            return perf.timed("getWriteQueueStats", () -> FirestoreWriteQueue.get(MainActivity.this).getStats());
+        }
+
+        /**
+         * Commits queued writes now instead of after the coalescing window
+         * (e.g. before navigating away from a job).
+         * Call from JS: window.NeedYouBridge?.flushWrites?.()
+         */
+        @JavascriptInterface
+        public void flushWrites() {
+            perf.timedRun("flushWrites", () -> FirestoreWriteQueue.get(MainActivity.this).flush());
+        }
+
+        /**
+         * Returns the waveform of a chat voice note as a JSON array of
+         * {@code buckets} bar heights (0..255; 0 = default of 64), or "" if it
+         * has not been computed yet. On a miss the audio is decoded natively in
+         * the background and the result arrives as a 'needyou_waveform' event:
+         * {url, buckets, peaks}. Only http(s) URLs are accepted.
+         * Call from JS: window.NeedYouBridge?.getVoiceWaveform?.(url, buckets)
+         */
+        @JavascriptInterface
+        public String getVoiceWaveform(String url, int buckets) {
+            return perf.timed("getVoiceWaveform", () -> {
+                if (url == null || !(url.startsWith("https://") || url.startsWith("http://")))
+                    return "";
+                WaveformStore store = WaveformStore.get(MainActivity.this);
+                int n = WaveformStore.clampBuckets(buckets);
+                int[] peaks = store.getCached(url, n);
+                if (peaks != null)
+                    return WaveformStore.toJson(peaks).toString();
+                store.request(url, n, ready -> dispatchWaveformEvent(url, n, ready));
+                return "";
+            });
+        }
+
+        /**
+         * Returns the best location fix already on the device, without waiting
+         * for GPS: {"lat","lng","accuracy","time","ageMs","source"}, or "" when
+         * there is none or no location permission. If the fix is older than two
+         * minutes, one low-power update is requested in the background and, if
+         * it improves on the fix, delivered as a 'needyou_location' event with
+         * the same shape. Fixes also move the job-alert topic subscriptions
+         * (JobAlertTopics) and feed native arrival detection (ArrivalGeofences).
+         * Call from JS: window.NeedYouBridge?.getLastKnownLocation?.()
+         */
+        @JavascriptInterface
+        public String getLastKnownLocation() {
+            return perf.timed("getLastKnownLocation", () -> {
+                LastLocationCache cache = LastLocationCache.get(MainActivity.this);
+                if (!cache.hasPermission())
+                    return "";
+                LocationFix fix = cache.best();
+                JobAlertTopics topics = JobAlertTopics.get(MainActivity.this);
+                AppExecutors.get().io().execute(() -> {
+                    topics.onFix(fix);
+                    ArrivalGeofences.get(MainActivity.this).onFix(fix);
+                });
+                cache.refresh(updated -> {
+                    dispatchLocationEvent(updated);
+                    topics.onFix(updated);
+                    ArrivalGeofences.get(MainActivity.this).onFix(updated);
+                });
+                return LastLocationCache.toJson(fix);
+            });
+        }
+
+        /**
+         * Opens the native tiled image viewer. json: {"urls":[...],"index":n};
+         * only http(s) URLs are accepted. Large photos and KYC scans are
+         * region-decoded for the visible area, so memory stays flat at any zoom.
+         * Returns false when no usable URL was given.
+         * Call from JS: window.NeedYouBridge?.openImageViewer?.(json)
+         */
+        @JavascriptInterface
+        public boolean openImageViewer(String json) {
+            return perf.timed("openImageViewer", () -> {
+                try {
+                    org.json.JSONObject o = new org.json.JSONObject(json);
+                    org.json.JSONArray arr = o.optJSONArray("urls");
+                    if (arr == null)
+                        return false;
+                    java.util.List<String> urls = new java.util.ArrayList<>();
+                    for (int i = 0; i < arr.length(); i++) {
+                        String url = arr.optString(i, "");
+                        if (url.startsWith("https://") || url.startsWith("http://"))
+                            urls.add(url);
+                    }
+                    if (urls.isEmpty())
+                        return false;
+                    int index = Math.max(0, Math.min(urls.size() - 1, o.optInt("index", 0)));
+                    String[] list = urls.toArray(new String[0]);
+                    tasks.main(perf.timedUi("openImageViewer", () -> startActivity(
+                            ImageViewerActivity.intent(MainActivity.this, list, index))));
+                    return true;
+                } catch (org.json.JSONException e) {
+                    AppLog.w("NeedYouViewer", "openImageViewer: bad json").err(e).log();
+                    return false;
+                }
+            });
+        }
+
+        /**
+         * Starts the native liveness capture (front camera → small JPEG batches →
+         * /api/kyc-liveness). optsJson: {"fps","width","quality","batchSize",
+         * "maxBatches"}, all optional. Progress arrives as 'needyou_liveness'
+         * events: {type:"batch",index,result} | {type:"error",message} |
+         * {type:"finished",sampled,skipped}. Returns false without camera
+         * permission. The page must have released its own camera stream first.
+         * Call from JS: window.NeedYouBridge?.startNativeLiveness?.(json)
+         */
+        @JavascriptInterface
+        public boolean startNativeLiveness(String optsJson) {
+            return perf.timed("startNativeLiveness", () -> {
+                try {
+                    if (ContextCompat.checkSelfPermission(MainActivity.this,
+                            Manifest.permission.CAMERA) != PackageManager.PERMISSION_GRANTED)
+                        return false;
+                    org.json.JSONObject opts = optsJson == null || optsJson.isEmpty()
+                            ? new org.json.JSONObject()
+                            : new org.json.JSONObject(optsJson);
+                    NativeLiveness.start(MainActivity.this, opts, new LivenessPipeline.Listener() {
+                        @Override
+                        public void onBatchResult(int batchIndex, String responseJson) {
+                            // The server body goes into evaluateJavascript, so only
+                            // a parsed JSON object is passed on
+                            org.json.JSONObject result;
+                            try {
+                                result = new org.json.JSONObject(responseJson);
+                            } catch (org.json.JSONException e) {
+                                onError("Bad liveness response");
+                                return;
+                            }
+                            dispatchLivenessEvent("batch", "index", batchIndex, "result", result);
+                        }
+
+                        @Override
+                        public void onError(String message) {
+                            dispatchLivenessEvent("error", "message", message);
+                        }
+
+                        @Override
+                        public void onFinished(int framesSampled, int framesSkipped) {
+                            dispatchLivenessEvent("finished", "sampled", framesSampled, "skipped", framesSkipped);
+                        }
+                    });
+                    return true;
+                } catch (org.json.JSONException e) {
+                    AppLog.e("NeedYouLiveness", "Bad liveness options").err(e).log();
+                    return false;
+                }
+            });
+        }
+
+        /**
+         * Stops the native liveness capture and releases the camera.
+         * Call from JS: window.NeedYouBridge?.stopNativeLiveness?.()
+         */
+        @JavascriptInterface
+        public void stopNativeLiveness() {
+            perf.timedRun("stopNativeLiveness", () -> NativeLiveness.stop());
+        }
+
+        /**
+         * Registers a native geofence around the job site so arrival is detected
+         * (and reported to Firestore + the client) without the page polling GPS.
+         * specJson: {"appId","jobId","clientId","jobTitle","workerName","lat","lng","radius"}.
+         * Returns false without a native session (nothing could report the
+         * arrival) or if location permission — including "Allow all the time",
+         * which is requested here on Android 10+ — is not yet granted; the page
+         * then keeps its own watchPosition check.
+         * Call from JS: window.NeedYouBridge?.registerArrivalGeofence?.(json)
+         */
+        @JavascriptInterface
+        public boolean registerArrivalGeofence(String specJson) {
+            return perf.timed("registerArrivalGeofence", () -> {
+                try {
+                    // Without a native session the arrival could not be reported;
+                    // false keeps the page's own foreground check running
+                    if (NativeSession.get().getUid() == null)
+                        return false;
+                    ArrivalGeofences fences = ArrivalGeofences.get(MainActivity.this);
+                    if (!fences.hasPermissions()) {
+                        requestBackgroundLocation();
+                        return false;
+                    }
+                    return fences.register(new org.json.JSONObject(specJson));
+                } catch (org.json.JSONException e) {
+                    AppLog.e("NeedYouGeofence", "Bad geofence JSON").err(e).log();
+                    return false;
+                }
+            });
+        }
+
+        /**
+         * Removes the arrival geofence for an application (job moved past "active").
+         * Call from JS: window.NeedYouBridge?.unregisterArrivalGeofence?.(appId)
+         */
+        @JavascriptInterface
+        public void unregisterArrivalGeofence(String appId) {
+            perf.timedRun("unregisterArrivalGeofence", () -> ArrivalGeofences.get(MainActivity.this).unregister(appId));
+        }
+
+        /**
+         * Returns the cached reverse-geocode JSON for the geohash cell containing
+         * lat/lng at {@code precision} characters (0 = default), or "" on a miss.
+         * Call from JS: window.NeedYouBridge?.getCachedReverseGeocode?.(lat, lng, precision)
+         */
+        @JavascriptInterface
+        public String getCachedReverseGeocode(double lat, double lng, int precision) {
+            return perf.timed("getCachedReverseGeocode", () -> {
+                String hit = GeocodeCache.get(MainActivity.this).getReverse(lat, lng, precision);
+                return hit != null ? hit : "";
+            });
+        }
+
+        /**
+         * Caches a reverse-geocode result for the geohash cell containing lat/lng.
+         * Call from JS: window.NeedYouBridge?.putReverseGeocode?.(lat, lng, precision, json)
+         */
+        @JavascriptInterface
+        public void putReverseGeocode(double lat, double lng, int precision, String json) {
+            perf.timedRun("putReverseGeocode", () -> {
+                GeocodeCache.get(MainActivity.this).putReverse(lat, lng, precision, json);
+            });
+        }
+
+        /**
+         * Returns the cached forward-geocode JSON for an address, or "" on a miss.
+         * Call from JS: window.NeedYouBridge?.getCachedGeocode?.(address)
+         */
+        @JavascriptInterface
+        public String getCachedGeocode(String address) {
+            return perf.timed("getCachedGeocode", () -> {
+                String hit = GeocodeCache.get(MainActivity.this).getForward(address);
+                return hit != null ? hit : "";
+            });
+        }
+
+        /**
+         * Caches a forward-geocode result for an address.
+         * Call from JS: window.NeedYouBridge?.putGeocode?.(address, json)
+         */
+        @JavascriptInterface
+        public void putGeocode(String address, String json) {
+            perf.timedRun("putGeocode", () -> GeocodeCache.get(MainActivity.this).putForward(address, json));
+        }
+
+        /**
+         * True if native code is not yet signed in to Firebase as {@code uid}; the
+         * page then fetches a custom token from /api/native-session and calls
+         * startNativeSession.
+         * Call from JS: window.NeedYouBridge?.needsNativeSession?.(uid)
+         */
+        @JavascriptInterface
+        public boolean needsNativeSession(String uid) {
+            return perf.timed("needsNativeSession", () -> NativeSession.get().needsSignIn(uid));
+        }
+
+        /**
+         * Signs native Firebase Auth in with a custom token minted for the web
+         * user. Ignored unless the main frame is on APP_HOST.
+         * Call from JS: window.NeedYouBridge?.startNativeSession?.(customToken, uid)
+         */
+        @JavascriptInterface
+        public void startNativeSession(String customToken, String uid) {
+            perf.timedRun("startNativeSession", () -> {
+                if (!APP_HOST.equals(mainFrameHost)) {
+                    AppLog.w("NeedYouSession", "Session handover refused").kv("host", mainFrameHost).log();
+                    return;
+                }
+                NativeSession.get().signIn(customToken, uid);
+            });
+        }
+
+        /**
+         * Signs native Firebase Auth out (web sign-out), drops queued writes
+         * and scheduled reminders, forgets the notification user, clears the
+         * widget and withdraws from the job-alert topics; the
+         * native sign-out itself waits (up to 3 s) for the topics to be
+         * removed from the user's document.
+         * Call from JS: window.NeedYouBridge?.endNativeSession?.()
+         */
+        @JavascriptInterface
+        public void endNativeSession() {
+            perf.timedRun("endNativeSession", () -> {
+                Context app = getApplicationContext();
+                FirestoreWriteQueue.get(app).clear();
+                ReminderScheduler.get(app).cancelAll();
+                // The session ends once the user's area topics are withdrawn; a
+                // different user signed in by then keeps theirs
+                String departing = NativeSession.get().getUid();
+                JobAlertTopics.get(app).signOut(() -> {
+                    if (java.util.Objects.equals(departing, NativeSession.get().getUid()))
+                        NativeSession.get().signOut();
+                });
+                AppExecutors.get().io().execute(() -> {
+                    // ":push" mirrors and filters pushes for this user until it is gone
+                    ProcessSafeStore.put(app, ProcessSafeStore.KEY_NOTIF_USER_ID, null);
+                    NeedYouWidget.clear(app);
+                });
+            });
+        }
+
+        /**
+         * Returns {"coldStartMs":..,"pssKb":..} measured by the ":push" process for
+         * the first push it handled after a cold start (null before any push).
+         * Call from JS: window.NeedYouBridge?.getPushProcessStats?.()
+         */
+        @JavascriptInterface
+        public String getPushProcessStats() {
+            return perf.timed("getPushProcessStats", () -> {
+                return "{\"coldStartMs\":" + ProcessSafeStore.get(MainActivity.this, "pushColdStartMs", "null")
+                        + ",\"pssKb\":" + ProcessSafeStore.get(MainActivity.this, "pushColdStartPssKb", "null") + "}";
+            });
+        }
+
+        /**
+         * Returns {"active":"<version>","pending":"<version>"} for the OTA bundle
+         * ("" when serving from network).
+         * Call from JS: window.NeedYouBridge?.getBundleInfo?.()
+         */
+        @JavascriptInterface
+        public String getBundleInfo() {
+            return perf.timed("getBundleInfo", () -> {
+                BundleStore store = bundleStore;
+                String active = store != null ? store.getActiveVersion() : "";
+                String pending = store != null ? store.getPendingVersion() : "";
+                return "{\"active\":\"" + active + "\",\"pending\":\"" + pending + "\"}";
+            });
+        }
+    }
+
+    private void dispatchWaveformEvent(String url, int buckets, int[] peaks) {
+        String detailJson;
+        try {
+            detailJson = new org.json.JSONObject()
+                    .put("url", url)
+                    .put("buckets", buckets)
+                    .put("peaks", WaveformStore.toJson(peaks))
+                    .toString();
+        } catch (org.json.JSONException e) {
+            return;
+        }
+        tasks.main(() -> getBridge().getWebView().evaluateJavascript(
+                "window.dispatchEvent(new CustomEvent('needyou_waveform',{detail:" + detailJson + "}))",
+                null));
+    }
+
+    private void dispatchLocationEvent(LocationFix fix) {
+        String detailJson = LastLocationCache.toJson(fix);
+        tasks.main(() -> getBridge().getWebView().evaluateJavascript(
+                "window.dispatchEvent(new CustomEvent('needyou_location',{detail:" + detailJson + "}))",
+                null));
+    }
+
+    /** Dispatches a 'needyou_liveness' event; {@code fields} are key, value pairs. */
+    private void dispatchLivenessEvent(String type, Object... fields) {
+        String detailJson;
+        try {
+            org.json.JSONObject detail = new org.json.JSONObject().put("type", type);
+            for (int i = 0; i + 1 < fields.length; i += 2)
+                detail.put((String) fields[i], fields[i + 1]);
+            detailJson = detail.toString();
+        } catch (org.json.JSONException e) {
+            return;
+        }
+        WebView webView = getBridge().getWebView();
+        webView.post(() -> webView.evaluateJavascript(
+                "window.dispatchEvent(new CustomEvent('needyou_liveness',{detail:" + detailJson + "}))",
+                null));
+    }
+
+    /**
+     * Background location is a separate, second request on Android 10+ (on 11+
+     * the system sends the user to Settings for "Allow all the time"). Asked
+     * once per install, and only after foreground location was granted.
+     */
+    private void requestBackgroundLocation() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q)
+            return;
+        if (ContextCompat.checkSelfPermission(this,
+                Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED)
+            return;
+        prefsLane.execute(() -> {
+            SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+            if (prefs.getBoolean("bgLocationAsked", false))
+                return;
+            prefs.edit().putBoolean("bgLocationAsked", true).apply();
+            tasks.main(() -> ActivityCompat.requestPermissions(this,
+                    new String[] { Manifest.permission.ACCESS_BACKGROUND_LOCATION },
+                    BACKGROUND_LOCATION_PERMISSION_CODE));
+        });
     }
 
     /**
@@ -296,12 +1149,52 @@ public class MainActivity extends BridgeActivity {
     @Override
     public void onResume() {
         super.onResume();
+        resumed = true;
+        publishOpenConversation();
         // Re-show battery dialog on every resume until exemption is granted.
         // This ensures users on Xiaomi, Realme, Vivo etc. who dismissed the
         // first-launch dialog are reminded again until they actually allow it.
         showBatteryOptimizationDialog();
     }
 
+    @Override
+    public void onPause() {
+        resumed = false;
+        publishOpenConversation();
+        super.onPause();
+    }
+
+    /**
+     * Writes the chat the user is looking at (null when paused or none) for
+     * ":push", which skips that conversation's banners. Reads the state when
+     * it runs, so the last write always matches the latest state.
+     */
+    private void publishOpenConversation() {
+        Context app = getApplicationContext();
+        conversationLane.execute(() -> {
+            String id = resumed ? openConversation : null;
+            String value = id != null ? android.os.Process.myPid() + "," + id : null;
+            if (java.util.Objects.equals(value, publishedConversation))
+                return;
+            publishedConversation = value;
+            ProcessSafeStore.put(app, ProcessSafeStore.KEY_FOREGROUND_CONVERSATION, value);
+        });
+    }
+
+    @Override
+    public void onDestroy() {
+        tasks.cancel();
+        if (networkCallback != null) {
+            ConnectivityManager cm = (ConnectivityManager) getSystemService(CONNECTIVITY_SERVICE);
+            if (cm != null)
+                cm.unregisterNetworkCallback(networkCallback);
+            networkCallback = null;
+        }
+        PerfTelemetry.get(this).detachFrom(this);
+        NativeLiveness.stop();
+        super.onDestroy();
+    }
+
     @Override
     public void onWindowFocusChanged(boolean hasFocus) {
         super.onWindowFocusChanged(hasFocus);
@@ -309,31 +1202,61 @@ public class MainActivity extends BridgeActivity {
             hideSystemUI();
     }
 
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        // Back/forward history for a relaunch after process death. Dropped when
+        // large, since an oversized saved state crashes the app on Android 7+.
+        WebView webView = getBridge() != null ? getBridge().getWebView() : null;
+        if (webView == null || isShowingOfflinePage)
+            return;
+        Bundle state = new Bundle();
+        if (webView.saveState(state) != null && bundleSize(state) <= 100 * 1024)
+            outState.putBundle(STATE_WEBVIEW, state);
+    }
+
     @Override
     public void onCreate(Bundle savedInstanceState) {
         // Show native splash.png while activity initialises
         SplashScreen.installSplashScreen(this);
         super.onCreate(savedInstanceState);
         hideSystemUI();
+        deepLinks = new DeepLinkInbox(this, PREFS_NAME);
+
+        // 0. Runtime telemetry: frame durations, bridge latency, memory snapshots
+        PerfTelemetry.get(this).attachTo(this);
+
+        // 0b. OTA web bundle: activate a staged bundle (or roll back a bundle whose
+        // last boot never confirmed), then look for the next one in the background.
+        // The splash intro runs ~2.7 s, so this finishes long before loadApp().
+        startBundleUpdater();
+
+        // 0c. Native Firebase session (see NativeSession): resume ID-token refresh
+        // for a session the SDK restored from the previous launch.
+        NativeSession.get();
 
         // 1. Notification channel (Android 8+)
-        createNotificationChannel();
+        NotificationDispatcher.ensureChannel(this);
 
         // 2. Request notification permission (Android 13+) — ask only once ever.
-        // We track whether the user has already responded using SharedPreferences.
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-            boolean alreadyAsked = getSharedPreferences(PREFS_NAME, MODE_PRIVATE)
-                    .getBoolean("notifPermissionAsked", false);
-            if (!alreadyAsked &&
-                    ContextCompat.checkSelfPermission(this,
-                            Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
-                getSharedPreferences(PREFS_NAME, MODE_PRIVATE)
-                        .edit().putBoolean("notifPermissionAsked", true).apply();
-                ActivityCompat.requestPermissions(
-                        this,
-                        new String[] { Manifest.permission.POST_NOTIFICATIONS },
-                        NOTIFICATION_PERMISSION_CODE);
-            }
+        // We track whether the user has already responded using SharedPreferences,
+        // read on the IO pool; only the dialog itself runs on the main thread.
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ContextCompat.checkSelfPermission(this,
+                        Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+            tasks.ioThenMain(() -> {
+                SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+                if (prefs.getBoolean("notifPermissionAsked", false))
+                    return false;
+                prefs.edit().putBoolean("notifPermissionAsked", true).apply();
+                return true;
+            }, ask -> {
+                if (ask)
+                    ActivityCompat.requestPermissions(
+                            this,
+                            new String[] { Manifest.permission.POST_NOTIFICATIONS },
+                            NOTIFICATION_PERMISSION_CODE);
+            });
         }
 
         // 3. Battery optimisation dialog is shown in onResume so it re-appears
@@ -343,15 +1266,23 @@ public class MainActivity extends BridgeActivity {
         WebView webView = getBridge().getWebView();
         webView.addJavascriptInterface(new NeedYouBridge(), "NeedYouBridge");
 
-        // 5. Eagerly fetch the current FCM token and cache it in SharedPreferences.
+        // 4b. Enumerate installed UPI apps in the background so the checkout can
+        // offer only apps that exist; it reads the list when it opens, and the
+        // cache re-enumerates when a package is installed or removed.
+        UpiAppCache.get(this).start();
+
+        // 5. Eagerly fetch the current FCM token and cache it in ProcessSafeStore.
         // This guarantees the token exists even before onNewToken() fires (e.g. on
         // reinstall). The JS push-notifications.ts reads it via
-        // NeedYouBridge.getFcmToken().
-        FirebaseMessaging.getInstance().getToken().addOnSuccessListener(token -> {
+        // NeedYouBridge.getFcmToken(). The store is a locked file, so the
+        // listener runs on the IO pool rather than the main thread. A token
+        // rotated by onNewToken (":push") is also re-written with the area topics.
+        FirebaseMessaging.getInstance().getToken().addOnSuccessListener(AppExecutors.get().io(), token -> {
             if (token != null && !token.isEmpty()) {
-                Log.d("NeedYouFCM", "FCM token fetched natively: " + token);
-                getSharedPreferences(PREFS_NAME, MODE_PRIVATE)
-                        .edit().putString("fcmToken", token).apply();
+                AppLog.i("NeedYouFCM", "FCM token fetched natively").kv("token", token).log();
+                // Shared with the ":push" process, which cannot see our prefs
+                ProcessSafeStore.put(this, ProcessSafeStore.KEY_FCM_TOKEN, token);
+                JobAlertTopics.get(this).republish();
             }
         });
 
@@ -718,6 +1649,40 @@ public class MainActivity extends BridgeActivity {
         // silently swallowed by the WebView and no UPI app ever opens.
         // webview_intent:true must also be set in the JS checkout options.
         getBridge().getWebView().setWebViewClient(new WebViewClient() {
+            // Native thumbnails for picked media (see ThumbnailStore), then files of
+            // the active OTA bundle; everything else goes to the network.
+            @Override
+            public android.webkit.WebResourceResponse shouldInterceptRequest(WebView view,
+                    android.webkit.WebResourceRequest request) {
+                android.webkit.WebResourceResponse thumb = ThumbnailStore.get(MainActivity.this)
+                        .intercept(request.getUrl());
+                if (thumb != null)
+                    return thumb;
+                android.webkit.WebResourceResponse local = serveFromBundle(request);
+                return local != null ? local : super.shouldInterceptRequest(view, request);
+            }
+
+            @Override
+            public void onPageStarted(WebView view, String url, android.graphics.Bitmap favicon) {
+                super.onPageStarted(view, url, favicon);
+                mainFrameHost = Uri.parse(url).getHost();
+            }
+
+            // Fires for full loads and for client-side (pushState) navigations
+            @Override
+            public void doUpdateVisitedHistory(WebView view, String url, boolean isReload) {
+                super.doUpdateVisitedHistory(view, url, isReload);
+                if (!isReload)
+                    rememberRoute(url);
+            }
+
+            @Override
+            public void onPageFinished(WebView view, String url) {
+                super.onPageFinished(view, url);
+                if (url != null && APP_HOST.equals(Uri.parse(url).getHost()))
+                    recordLaunch();
+            }
+
             @Override
             public boolean shouldOverrideUrlLoading(WebView view,
                     android.webkit.WebResourceRequest request) {
@@ -725,13 +1690,19 @@ public class MainActivity extends BridgeActivity {
 
                 // UPI scheme: direct deep link (e.g. upi://pay?...)
                 if (url.startsWith("upi://")) {
+                    UpiAppCache upi = UpiAppCache.get(MainActivity.this);
+                    if (upi.isReady() && upi.getApps().isEmpty()) {
+                        Toast.makeText(MainActivity.this,
+                                "No UPI app installed", Toast.LENGTH_SHORT).show();
+                        return true;
+                    }
                     try {
                         Intent intent = new Intent(Intent.ACTION_VIEW,
                                 android.net.Uri.parse(url));
                         intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
                         startActivity(intent);
                     } catch (ActivityNotFoundException e) {
-                        Log.e("NeedYouUPI", "No UPI app found for: " + url, e);
+                        AppLog.e("NeedYouUPI", "No UPI app found").kv("scheme", "upi").err(e).log();
                         Toast.makeText(MainActivity.this,
                                 "No UPI app installed", Toast.LENGTH_SHORT).show();
                     }
@@ -742,7 +1713,13 @@ public class MainActivity extends BridgeActivity {
                 if (url.startsWith("intent://")) {
                     try {
                         Intent intent = Intent.parseUri(url, Intent.URI_INTENT_SCHEME);
-                        if (intent.resolveActivity(getPackageManager()) != null) {
+                        // An intent for a cached UPI app skips the PackageManager; any
+                        // other target (or a UPI app the cache does not list) is resolved.
+                        UpiAppCache upi = UpiAppCache.get(MainActivity.this);
+                        String pkg = intent.getPackage();
+                        boolean installed = pkg != null && upi.isReady() && upi.isInstalled(pkg)
+                                || intent.resolveActivity(getPackageManager()) != null;
+                        if (installed) {
                             startActivity(intent);
                         } else {
                             // App not installed — try Play Store fallback
@@ -755,7 +1732,7 @@ public class MainActivity extends BridgeActivity {
                             }
                         }
                     } catch (Exception e) {
-                        Log.e("NeedYouUPI", "Failed to parse intent URL: " + url, e);
+                        AppLog.e("NeedYouUPI", "Failed to parse intent URL").kv("scheme", "intent").err(e).log();
                     }
                     return true;
                 }
@@ -765,30 +1742,26 @@ public class MainActivity extends BridgeActivity {
             }
         });
 
-        // 6. Load bundled splash intro — works offline, runs 2.7 s animation,
-        // then calls NeedYouBridge.splashDone() to go to app or offline page
-        getBridge().getWebView().loadUrl(SPLASH_INTRO_URL);
+        // 6. Relaunch straight into the route the user was on when the process was
+        // killed (see LastRoute); otherwise load the bundled splash intro — works
+        // offline, runs 2.7 s animation, then calls NeedYouBridge.splashDone() to
+        // go to app or offline page. Notification taps keep the normal start-up,
+        // since the dashboard is what handles their deep link. The saved route
+        // is read on the IO pool; the native splash covers the wait.
+        launchStartNanos = System.nanoTime();
+        boolean fromNotification = DeepLinkInbox.fromIntent(getIntent()) != null;
+        tasks.ioThenMain(this::readLastRoute, lastRoute -> {
+            if (lastRoute != null && !fromNotification && isNetworkAvailable()) {
+                resumeApp(lastRoute, savedInstanceState);
+            } else {
+                launchMode = "splash";
+                getBridge().getWebView().loadUrl(SPLASH_INTRO_URL);
+            }
+        });
 
         // 7. Store any deep-link from the notification that launched this Activity
-        handleDeepLinkIntent(getIntent());
-    }
-
-    /**
-     * Parses jobId + notificationType from a notification-tap intent and persists
-     * them in SharedPreferences so the React app can read them on mount via
-     * NeedYouBridge.getPendingDeepLink().
-     */
-    private void handleDeepLinkIntent(Intent intent) {
-        if (intent == null)
-            return;
-        String jobId = intent.getStringExtra("jobId");
-        String notificationType = intent.getStringExtra("notificationType");
-        if (jobId != null && !jobId.isEmpty() && notificationType != null && !notificationType.isEmpty()) {
-            String json = "{\"type\":\"" + notificationType + "\",\"jobId\":\"" + jobId + "\"}";
-            getSharedPreferences(PREFS_NAME, MODE_PRIVATE)
-                    .edit().putString("pendingDeepLink", json).apply();
-            Log.d("NeedYouFCM", "Deep-link stored: " + json);
-        }
+        // (read by the page on mount via NeedYouBridge.getPendingDeepLink())
+        deepLinks.onLaunchIntent(getIntent());
     }
 
     /**
@@ -800,18 +1773,12 @@ public class MainActivity extends BridgeActivity {
     protected void onNewIntent(Intent intent) {
         super.onNewIntent(intent);
         setIntent(intent);
-        handleDeepLinkIntent(intent);
-
-        final String jobId = intent.getStringExtra("jobId");
-        final String notificationType = intent.getStringExtra("notificationType");
-        if (jobId != null && !jobId.isEmpty() && notificationType != null && !notificationType.isEmpty()) {
+        deepLinks.onNewIntent(intent, detail -> tasks.main(() -> {
             WebView wv = getBridge().getWebView();
-            if (wv != null) {
-                String js = "window.dispatchEvent(new CustomEvent('needyou_deep_link'," +
-                        "{detail:{type:'" + notificationType + "',jobId:'" + jobId + "'}}))";
-                wv.post(() -> wv.evaluateJavascript(js, null));
-            }
-        }
+            if (wv != null)
+                wv.evaluateJavascript(
+                        "window.dispatchEvent(new CustomEvent('needyou_deep_link',{detail:" + detail + "}))", null);
+        }));
     }
 
     // ─── File chooser result ─────────────────────────────────────────────────
@@ -820,17 +1787,17 @@ public class MainActivity extends BridgeActivity {
     private void launchCameraForPhoto() {
         File photoFile = null;
         try {
-            String ts = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date());
-            File dir = getExternalFilesDir(android.os.Environment.DIRECTORY_PICTURES);
-            photoFile = File.createTempFile("IMG_" + ts, ".jpg", dir);
+            // Staged so it counts against the media quota and is purged after upload
+            photoFile = MediaStagingArea.get(this).newCaptureFile("IMG_", ".jpg");
         } catch (IOException e) {
-            Log.e("NeedYou", "Camera temp file error", e);
+            AppLog.e("NeedYou", "Camera temp file error").err(e).log();
             if (fileUploadCallback != null) {
                 fileUploadCallback.onReceiveValue(null);
                 fileUploadCallback = null;
             }
             return;
         }
+        cameraImageFile = photoFile;
         cameraImageUri = androidx.core.content.FileProvider.getUriForFile(
                 this, getPackageName() + ".fileprovider", photoFile);
         Intent intent = new Intent(MediaStore.ACTION_IMAGE_CAPTURE);
@@ -839,7 +1806,10 @@ public class MainActivity extends BridgeActivity {
         try {
             startActivityForResult(intent, CAMERA_CAPTURE_REQUEST_CODE);
         } catch (ActivityNotFoundException e) {
-            Log.e("NeedYou", "No camera app", e);
+            AppLog.e("NeedYou", "No camera app").err(e).log();
+            MediaStagingArea.get(this).release(cameraImageFile);
+            cameraImageFile = null;
+            cameraImageUri = null;
             if (fileUploadCallback != null) {
                 fileUploadCallback.onReceiveValue(null);
                 fileUploadCallback = null;
@@ -851,10 +1821,26 @@ public class MainActivity extends BridgeActivity {
     private void launchCameraForVideo() {
         Intent intent = new Intent(MediaStore.ACTION_VIDEO_CAPTURE);
         intent.putExtra(MediaStore.EXTRA_VIDEO_QUALITY, 1); // high quality
+        // Record into the staging area when possible so the video is quota-managed;
+        // camera apps that ignore EXTRA_OUTPUT still return their own URI in data.
+        try {
+            cameraVideoFile = MediaStagingArea.get(this).newCaptureFile("VID_", ".mp4");
+            cameraVideoUri = androidx.core.content.FileProvider.getUriForFile(
+                    this, getPackageName() + ".fileprovider", cameraVideoFile);
+            intent.putExtra(MediaStore.EXTRA_OUTPUT, cameraVideoUri);
+            intent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION | Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
+        } catch (IOException e) {
+            AppLog.e("NeedYou", "Video staging file error").err(e).log();
+            cameraVideoFile = null;
+            cameraVideoUri = null;
+        }
         try {
             startActivityForResult(intent, VIDEO_CAPTURE_REQUEST_CODE);
         } catch (ActivityNotFoundException e) {
-            Log.e("NeedYou", "No camera app for video", e);
+            AppLog.e("NeedYou", "No camera app for video").err(e).log();
+            MediaStagingArea.get(this).release(cameraVideoFile);
+            cameraVideoFile = null;
+            cameraVideoUri = null;
             if (fileUploadCallback != null) {
                 fileUploadCallback.onReceiveValue(null);
                 fileUploadCallback = null;
@@ -888,7 +1874,10 @@ public class MainActivity extends BridgeActivity {
             if (resultCode == Activity.RESULT_OK && cameraImageUri != null) {
                 results = new Uri[] { cameraImageUri };
             }
+            MediaStagingArea.get(this).release(cameraImageFile);
+            cameraImageFile = null;
             cameraImageUri = null;
+            ThumbnailStore.get(this).onMediaPicked(results);
             if (fileUploadCallback != null) {
                 fileUploadCallback.onReceiveValue(results);
                 fileUploadCallback = null;
@@ -899,9 +1888,17 @@ public class MainActivity extends BridgeActivity {
         // ── Video captured via ACTION_VIDEO_CAPTURE ──────────────────────────
         if (requestCode == VIDEO_CAPTURE_REQUEST_CODE) {
             Uri[] results = null;
-            if (resultCode == Activity.RESULT_OK && data != null && data.getData() != null) {
-                results = new Uri[] { data.getData() };
+            if (resultCode == Activity.RESULT_OK) {
+                if (data != null && data.getData() != null) {
+                    results = new Uri[] { data.getData() };
+                } else if (cameraVideoFile != null && cameraVideoFile.length() > 0) {
+                    results = new Uri[] { cameraVideoUri };
+                }
             }
+            MediaStagingArea.get(this).release(cameraVideoFile);
+            cameraVideoFile = null;
+            cameraVideoUri = null;
+            ThumbnailStore.get(this).onMediaPicked(results);
             if (fileUploadCallback != null) {
                 fileUploadCallback.onReceiveValue(results);
                 fileUploadCallback = null;
@@ -928,6 +1925,7 @@ public class MainActivity extends BridgeActivity {
                     results = WebChromeClient.FileChooserParams.parseResult(resultCode, data);
                 }
             }
+            ThumbnailStore.get(this).onMediaPicked(results);
             if (fileUploadCallback != null) {
                 fileUploadCallback.onReceiveValue(results);
                 fileUploadCallback = null;
@@ -1006,6 +2004,7 @@ public class MainActivity extends BridgeActivity {
         } else {
             long now = System.currentTimeMillis();
             if (now - lastBackPressed < 2000) {
+                forgetRoute(); // deliberate exit: next launch starts fresh
                 super.onBackPressed(); // exit
             } else {
                 lastBackPressed = now;
@@ -1072,41 +2071,8 @@ public class MainActivity extends BridgeActivity {
 
     // ─── System Notification ─────────────────────────────────────────────────
 
-    private void createNotificationChannel() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationChannel channel = new NotificationChannel(
-                    CHANNEL_ID, CHANNEL_NAME, NotificationManager.IMPORTANCE_HIGH);
-            channel.setDescription("Job and application alerts from NeedYou");
-            channel.enableVibration(true);
-            NotificationManager nm = getSystemService(NotificationManager.class);
-            if (nm != null)
-                nm.createNotificationChannel(channel);
-        }
-    }
-
     private void postSystemNotification(String title, String body) {
-        Intent intent = new Intent(this, MainActivity.class);
-        intent.setFlags(Intent.FLAG_ACTIVITY_SINGLE_TOP | Intent.FLAG_ACTIVITY_CLEAR_TOP);
-
-        int flags = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
-                ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                : PendingIntent.FLAG_UPDATE_CURRENT;
-
-        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, intent, flags);
-
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
-                .setSmallIcon(R.drawable.ic_stat_notification)
-                .setColor(0xFF1E5EFF)
-                .setContentTitle(title != null ? title : "NeedYou")
-                .setContentText(body != null ? body : "")
-                .setStyle(new NotificationCompat.BigTextStyle().bigText(body != null ? body : ""))
-                .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .setAutoCancel(true)
-                .setContentIntent(pendingIntent);
-
-        NotificationManager nm = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
-        if (nm != null)
-            nm.notify(notificationIdCounter++, builder.build());
+        NotificationDispatcher.post(this, notificationIdCounter++, title, body, null, null);
     }
 
     // ─── Helpers ─────────────────────────────────────────────────────────────
@@ -1130,17 +2096,23 @@ public class MainActivity extends BridgeActivity {
 
     private void loadOffline() {
         isShowingOfflinePage = true;
+        launchStartNanos = 0; // an offline start is not a launch time worth recording
         getBridge().getWebView().loadUrl(OFFLINE_URL);
     }
 
     private void loadApp() {
         isShowingOfflinePage = false;
 
+        // When an OTA bundle is active, APP_URL is answered from it by
+        // serveFromBundle() — same origin, so cookies and /api calls still work.
+
         // ── Always load the dashboard URL directly ──────────────────────────────
         // The native Firebase Android SDK uses a SEPARATE session store from the
-        // React Web SDK (which persists in IndexedDB). Calling getCurrentUser()
-        // here always returns null for web-authenticated users, causing an
-        // incorrect redirect to /signin that the user sees as a 2-second flash.
+        // React Web SDK (which persists in IndexedDB). The page hands native code
+        // its own session via startNativeSession() (see NativeSession), but only
+        // after React has restored the web session — so getCurrentUser() here can
+        // still be null or stale for web-authenticated users, and must not drive
+        // routing (it would cause a /signin redirect seen as a 2-second flash).
         //
         // All routing is handled correctly by React:
         // • AuthContext.onAuthStateChanged restores the Web SDK session from IndexedDB
@@ -1151,6 +2123,151 @@ public class MainActivity extends BridgeActivity {
         getBridge().getWebView().loadUrl(APP_URL);
     }
 
+    // ─── Resume to last route ────────────────────────────────────────────────
+
+    /**
+     * Skips the splash intro: restores the WebView's back/forward history when
+     * the system kept it (task restored after process death), else loads the
+     * last route. Auth and routing guards still run in React as on a normal load.
+     */
+    private void resumeApp(LastRoute route, Bundle savedInstanceState) {
+        isShowingOfflinePage = false;
+        Bundle state = savedInstanceState != null ? savedInstanceState.getBundle(STATE_WEBVIEW) : null;
+        WebView webView = getBridge().getWebView();
+        if (state != null && webView.restoreState(state) != null) {
+            launchMode = "restore";
+        } else {
+            launchMode = "resume";
+            webView.loadUrl(route.url);
+        }
+        AppLog.d("NeedYouResume", "Resuming").kv("mode", launchMode).kv("path", Uri.parse(route.url).getPath()).log();
+        splashReady = true; // release native splash screen
+        registerNetworkCallback();
+    }
+
+    /** The resumable last route, or null. Reads NeedYouPrefs; call on the IO pool. */
+    private LastRoute readLastRoute() {
+        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        LastRoute route = new LastRoute(prefs.getString("lastRoute", null), prefs.getLong("lastRouteAt", 0));
+        long window = prefs.getLong("resumeWindowMs", LastRoute.DEFAULT_WINDOW_MS);
+        return route.isResumable(System.currentTimeMillis(), window, APP_HOST) ? route : null;
+    }
+
+    /**
+     * Saves a main-frame app URL for the next launch. Reaching a page that
+     * must not be resumed (sign-in, onboarding, verification, home) drops
+     * the saved one, so a later launch does not jump back past it; off-host
+     * pages (OAuth, payments) leave it alone.
+     */
+    private void rememberRoute(String url) {
+        if (!LastRoute.isResumableUrl(url, APP_HOST)) {
+            if (url != null && APP_HOST.equals(Uri.parse(url).getHost()))
+                forgetRoute();
+            return;
+        }
+        long now = System.currentTimeMillis();
+        prefsLane.execute(() -> getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit()
+                .putString("lastRoute", url)
+                .putLong("lastRouteAt", now)
+                .apply());
+    }
+
+    private void forgetRoute() {
+        prefsLane.execute(() -> getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit()
+                .remove("lastRoute").remove("lastRouteAt").apply());
+    }
+
+    /** Launch-to-first-app-page time, once per launch, by launch mode. */
+    private void recordLaunch() {
+        if (launchStartNanos == 0 || launchMode == null)
+            return;
+        long t0 = launchStartNanos;
+        launchStartNanos = 0;
+        PerfTelemetry.get(this).recordLaunch(launchMode, t0);
+        AppLog.d("NeedYouResume", "Launch to first page").kv("mode", launchMode)
+                .kv("ms", (System.nanoTime() - t0) / 1_000_000).log();
+    }
+
+    private static int bundleSize(Bundle bundle) {
+        android.os.Parcel parcel = android.os.Parcel.obtain();
+        try {
+            parcel.writeBundle(bundle);
+            return parcel.dataSize();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    // ─── OTA web bundle ──────────────────────────────────────────────────────
+
+    private void startBundleUpdater() {
+        tasks.io(() -> {
+            try {
+                BundleStore store = new BundleStore(new File(getFilesDir(), "web-bundle"), BUNDLE_BASE_URL);
+                store.onLaunch();
+                bundleStore = store;
+                AppLog.d("NeedYouBundle", "Active web bundle").kv("version",
+                        store.getActiveVersion().isEmpty() ? "(network)" : store.getActiveVersion()).log();
+                if (store.checkForUpdate())
+                    AppLog.d("NeedYouBundle", "Staged web bundle for next launch").kv("version", store.getPendingVersion()).log();
+            } catch (IOException e) {
+                AppLog.w("NeedYouBundle", "Bundle update skipped").err(e).log();
+            }
+        });
+    }
+
+    /** Answers GET requests for the app origin from the active OTA bundle, if it has the file. */
+    private android.webkit.WebResourceResponse serveFromBundle(android.webkit.WebResourceRequest request) {
+        BundleStore store = bundleStore;
+        Uri url = request.getUrl();
+        if (store == null || !"GET".equals(request.getMethod()) || !APP_HOST.equals(url.getHost()))
+            return null;
+        String path = url.getPath();
+        if (path == null || path.startsWith("/api/") || isFlightRequest(request))
+            return null;
+        File f = store.resolve(path);
+        if (f == null)
+            return null;
+        if (request.isForMainFrame()) {
+            // From here an unconfirmed boot is the bundle's fault; an offline
+            // start never gets this far and so never rolls it back.
+            try {
+                store.markBootAttempted();
+            } catch (IOException e) {
+                AppLog.w("NeedYouBundle", "Boot attempt not recorded").err(e).log();
+            }
+        }
+        String ext = android.webkit.MimeTypeMap.getFileExtensionFromUrl(f.getName());
+        String mime = ext != null ? android.webkit.MimeTypeMap.getSingleton().getMimeTypeFromExtension(ext) : null;
+        if (f.getName().endsWith(".js"))
+            mime = "application/javascript";
+        try {
+            return new android.webkit.WebResourceResponse(
+                    mime != null ? mime : "application/octet-stream", "UTF-8",
+                    new java.io.FileInputStream(f));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * App Router client navigation fetches the route's RSC payload from the
+     * same path ("?_rsc=…", "RSC: 1"); the bundle only has the HTML documents,
+     * so those go to the network.
+     */
+    private static boolean isFlightRequest(android.webkit.WebResourceRequest request) {
+        if (request.getUrl().getQueryParameter("_rsc") != null)
+            return true;
+        java.util.Map<String, String> headers = request.getRequestHeaders();
+        if (headers == null)
+            return false;
+        for (java.util.Map.Entry<String, String> h : headers.entrySet()) {
+            if ("RSC".equalsIgnoreCase(h.getKey()) || "Next-Router-State-Tree".equalsIgnoreCase(h.getKey()))
+                return true;
+        }
+        return false;
+    }
+
     private void registerNetworkCallback() {
         ConnectivityManager cm = (ConnectivityManager) getSystemService(CONNECTIVITY_SERVICE);
         if (cm == null)
@@ -1159,14 +2276,15 @@ public class MainActivity extends BridgeActivity {
         networkCallback = new ConnectivityManager.NetworkCallback() {
             @Override
             public void onAvailable(Network network) {
+                FirestoreWriteQueue.get(MainActivity.this).flush();
                 if (isShowingOfflinePage)
-                    runOnUiThread(() -> loadApp());
+                    tasks.main(() -> loadApp());
             }
 
             @Override
             public void onLost(Network network) {
                 if (!isShowingOfflinePage)
-                    runOnUiThread(() -> loadOffline());
+                    tasks.main(() -> loadOffline());
             }
         };
 
@@ -0,0 +1,342 @@
+package com.needyou.app;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Environment;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MediaStagingArea
+ *
+ * Owns every file the app creates for camera capture, and the files derived
+ * from picked media (thumbnails, see ThumbnailStore) under
+ * staging/processed/. Both count against one {@link #QUOTA_BYTES} budget;
+ * when a new file is needed the least-recently-used files are purged first.
+ * A capture is hashed once when the camera returns it, so the page reporting
+ * a successful Cloudinary upload of the same content deletes it by hash
+ * without reading any other staged file.
+ *
+ * Also keeps a persistent SHA-256 → Cloudinary response index so the page
+ * can skip re-uploading media it has already uploaded. The page hashes the
+ * File with crypto.subtle and calls NeedYouBridge.lookupUpload(hash) before
+ * uploading and NeedYouBridge.recordUpload(hash, json) after.
+ */
+public class MediaStagingArea {
+
+    private static final String TAG = "NeedYouMedia";
+    private static final String INDEX_PREFS = "NeedYouMediaIndex";
+    private static final String STATS_PREFS = "NeedYouMediaStats";
+    /** SHA-256 → absolute path of the staged capture with that content. */
+    private static final String STAGED_PREFS = "NeedYouMediaStaged";
+    private static final String PROCESSED_DIR = "processed";
+
+    /** Total size the staging directory is allowed to grow to. */
+    static final long QUOTA_BYTES = 150L * 1024 * 1024;
+
+    /** Max number of hash → URL entries kept in the upload index. */
+    static final int MAX_INDEX_ENTRIES = 500;
+
+    private static MediaStagingArea instance;
+
+    private final Context appContext;
+    private final File dir;
+    private final Executor executor = AppExecutors.serial(AppExecutors.get().io());
+
+    // Files handed to a camera app whose result has not come back yet — never evicted.
+    private final Set<String> pinned = new HashSet<>();
+
+    private final AtomicLong dedupeHits = new AtomicLong();
+    private final AtomicLong dedupeMisses = new AtomicLong();
+    private final AtomicLong evictedFiles = new AtomicLong();
+
+    private MediaStagingArea(Context context) {
+        this.appContext = context.getApplicationContext();
+        File base = appContext.getExternalFilesDir(Environment.DIRECTORY_PICTURES);
+        if (base == null)
+            base = appContext.getCacheDir();
+        this.dir = new File(base, "staging");
+        SharedPreferences stats = appContext.getSharedPreferences(STATS_PREFS, Context.MODE_PRIVATE);
+        dedupeHits.set(stats.getLong("hits", 0));
+        dedupeMisses.set(stats.getLong("misses", 0));
+        evictedFiles.set(stats.getLong("evicted", 0));
+    }
+
+    public static synchronized MediaStagingArea get(Context context) {
+        if (instance == null)
+            instance = new MediaStagingArea(context);
+        return instance;
+    }
+
+    // ─── Staged files ─────────────────────────────────────────────────────────
+
+    /**
+     * Creates a new empty file for a camera app to write into, purging old
+     * files first if the quota is exceeded. The file stays pinned (exempt from
+     * eviction) until {@link #release(File)} is called.
+     */
+    public synchronized File newCaptureFile(String prefix, String suffix) throws IOException {
+        if (!dir.exists() && !dir.mkdirs())
+            throw new IOException("Cannot create staging dir " + dir);
+        trimToQuota(QUOTA_BYTES);
+        String ts = new SimpleDateFormat("yyyyMMdd_HHmmss", Locale.US).format(new Date());
+        File f = File.createTempFile(prefix + ts, suffix, dir);
+        pinned.add(f.getAbsolutePath());
+        return f;
+    }
+
+    /**
+     * Unpins a capture file once the camera app has returned and indexes its
+     * content hash on the staging lane.
+     */
+    public synchronized void release(File file) {
+        if (file == null)
+            return;
+        pinned.remove(file.getAbsolutePath());
+        // Empty files are left behind when the user cancels the camera.
+        if (file.exists() && file.length() == 0) {
+            file.delete();
+            return;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        executor.execute(() -> indexStaged(file));
+    }
+
+    /**
+     * A directory for derived files (e.g. "thumbs") whose contents count
+     * against the staging quota; call {@link #onProcessedWritten()} after
+     * adding to it.
+     */
+    public synchronized File processedDir(String name) {
+        File d = new File(new File(dir, PROCESSED_DIR), name);
+        if (!d.exists() && !d.mkdirs())
+            AppLog.w(TAG, "Cannot create processed dir").kv("dir", name).log();
+        return d;
+    }
+
+    /** Re-checks the quota on the staging lane after a derived file was written. */
+    public void onProcessedWritten() {
+        executor.execute(() -> trimToQuota(QUOTA_BYTES));
+    }
+
+    /**
+     * Deletes least-recently-used unpinned files, captures and processed
+     * alike, until the staging area is at or below {@code limit} bytes.
+     */
+    synchronized void trimToQuota(long limit) {
+        List<File> files = new ArrayList<>();
+        collectFiles(dir, files);
+        long total = 0;
+        for (File f : files)
+            total += f.length();
+        if (total <= limit)
+            return;
+
+        files.sort((a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File f : files) {
+            if (total <= limit)
+                break;
+            if (pinned.contains(f.getAbsolutePath()))
+                continue;
+            long len = f.length();
+            if (f.delete()) {
+                total -= len;
+                evictedFiles.incrementAndGet();
+            }
+        }
+        persistStats();
+    }
+
+    private static void collectFiles(File d, List<File> out) {
+        File[] children = d.listFiles();
+        if (children == null)
+            return;
+        for (File f : children) {
+            if (f.isDirectory())
+                collectFiles(f, out);
+            else
+                out.add(f);
+        }
+    }
+
+    /** Hashes one capture (off the main thread) and drops entries for files gone since. */
+    private void indexStaged(File file) {
+        String hash = sha256Of(file);
+        if (hash.isEmpty())
+            return;
+        SharedPreferences staged = appContext.getSharedPreferences(STAGED_PREFS, Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = staged.edit();
+        for (Map.Entry<String, ?> e : staged.getAll().entrySet()) {
+            if (!new File(String.valueOf(e.getValue())).exists())
+                editor.remove(e.getKey());
+        }
+        editor.putString(hash, file.getAbsolutePath()).apply();
+    }
+
+    // ─── Upload dedupe index ──────────────────────────────────────────────────
+
+    /**
+     * Returns the cached Cloudinary response JSON for {@code sha256}, or "" on a
+     * miss. Hits refresh the entry's last-used time.
+     */
+    public String lookupUpload(String sha256) {
+        if (sha256 == null || sha256.isEmpty())
+            return "";
+        SharedPreferences index = appContext.getSharedPreferences(INDEX_PREFS, Context.MODE_PRIVATE);
+        String raw = index.getString(sha256, null);
+        if (raw == null) {
+            dedupeMisses.incrementAndGet();
+            persistStats();
+            return "";
+        }
+        dedupeHits.incrementAndGet();
+        persistStats();
+        try {
+            JSONObject entry = new JSONObject(raw);
+            entry.put("usedAt", System.currentTimeMillis());
+            index.edit().putString(sha256, entry.toString()).apply();
+            return entry.getJSONObject("response").toString();
+        } catch (JSONException e) {
+            index.edit().remove(sha256).apply();
+            return "";
+        }
+    }
+
+    /**
+     * Records a successful upload and deletes the staged capture with the same
+     * content, found through the hash index built in {@link #release(File)}.
+     */
+    public void recordUpload(String sha256, String responseJson) {
+        if (sha256 == null || sha256.isEmpty() || responseJson == null)
+            return;
+        executor.execute(() -> {
+            SharedPreferences index = appContext.getSharedPreferences(INDEX_PREFS, Context.MODE_PRIVATE);
+            try {
+                JSONObject entry = new JSONObject()
+                        .put("response", new JSONObject(responseJson))
+                        .put("usedAt", System.currentTimeMillis());
+                index.edit().putString(sha256, entry.toString()).apply();
+            } catch (JSONException e) {
+                AppLog.e(TAG, "Bad upload response JSON").err(e).log();
+                return;
+            }
+            trimIndex(index);
+            deleteStagedWithHash(sha256);
+        });
+    }
+
+    private void trimIndex(SharedPreferences index) {
+        Map<String, ?> all = index.getAll();
+        if (all.size() <= MAX_INDEX_ENTRIES)
+            return;
+        List<Map.Entry<String, Long>> byAge = new ArrayList<>();
+        for (Map.Entry<String, ?> e : all.entrySet()) {
+            long usedAt = 0;
+            try {
+                usedAt = new JSONObject(String.valueOf(e.getValue())).optLong("usedAt", 0);
+            } catch (JSONException ignored) {
+            }
+            byAge.add(new java.util.AbstractMap.SimpleEntry<>(e.getKey(), usedAt));
+        }
+        byAge.sort((a, b) -> Long.compare(a.getValue(), b.getValue()));
+        SharedPreferences.Editor editor = index.edit();
+        for (int i = 0; i < byAge.size() - MAX_INDEX_ENTRIES; i++)
+            editor.remove(byAge.get(i).getKey());
+        editor.apply();
+    }
+
+    private void deleteStagedWithHash(String sha256) {
+        SharedPreferences staged = appContext.getSharedPreferences(STAGED_PREFS, Context.MODE_PRIVATE);
+        String key = sha256.toLowerCase(Locale.US);
+        String path = staged.getString(key, null);
+        if (path == null)
+            return;
+        staged.edit().remove(key).apply();
+        File f = new File(path);
+        synchronized (this) {
+            if (pinned.contains(path))
+                return;
+        }
+        if (f.delete())
+            AppLog.d(TAG, "Deleted uploaded staged file").kv("file", f.getName()).log();
+    }
+
+    static String sha256Of(File file) {
+        try (InputStream in = new FileInputStream(file)) {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buf)) > 0)
+                md.update(buf, 0, n);
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest())
+                sb.append(String.format(Locale.US, "%02x", b));
+            return sb.toString();
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return "";
+        }
+    }
+
+    // ─── Stats ────────────────────────────────────────────────────────────────
+
+    /**
+     * Returns {"bytesUsed":..,"processedBytes":..,"fileCount":..,"quotaBytes":..,
+     * "evictedFiles":..,"indexEntries":..,"dedupeHits":..,"dedupeMisses":..};
+     * bytesUsed includes processedBytes.
+     */
+    public String statsJson() {
+        List<File> files = new ArrayList<>();
+        List<File> processed = new ArrayList<>();
+        synchronized (this) {
+            collectFiles(dir, files);
+            collectFiles(new File(dir, PROCESSED_DIR), processed);
+        }
+        long bytes = 0, processedBytes = 0;
+        for (File f : files)
+            bytes += f.length();
+        for (File f : processed)
+            processedBytes += f.length();
+        int count = files.size();
+        int entries = appContext.getSharedPreferences(INDEX_PREFS, Context.MODE_PRIVATE).getAll().size();
+        try {
+            return new JSONObject()
+                    .put("bytesUsed", bytes)
+                    .put("processedBytes", processedBytes)
+                    .put("fileCount", count)
+                    .put("quotaBytes", QUOTA_BYTES)
+                    .put("evictedFiles", evictedFiles.get())
+                    .put("indexEntries", entries)
+                    .put("dedupeHits", dedupeHits.get())
+                    .put("dedupeMisses", dedupeMisses.get())
+                    .toString();
+        } catch (JSONException e) {
+            return "{}";
+        }
+    }
+
+    private void persistStats() {
+        appContext.getSharedPreferences(STATS_PREFS, Context.MODE_PRIVATE).edit()
+                .putLong("hits", dedupeHits.get())
+                .putLong("misses", dedupeMisses.get())
+                .putLong("evicted", evictedFiles.get())
+                .apply();
+    }
+}
@@ -1,19 +1,16 @@
 package com.needyou.app;
 
-import android.app.NotificationChannel;
-import android.app.NotificationManager;
-import android.app.PendingIntent;
-import android.content.Context;
-import android.content.Intent;
-import android.content.SharedPreferences;
+import android.app.ActivityManager;
 import android.os.Build;
-import android.util.Log;
-
-import androidx.core.app.NotificationCompat;
+import android.os.Debug;
+import android.os.Process;
+import android.os.SystemClock;
 
+import com.google.firebase.FirebaseApp;
 import com.google.firebase.messaging.FirebaseMessagingService;
 import com.google.firebase.messaging.RemoteMessage;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -26,32 +23,53 @@ import java.util.concurrent.atomic.AtomicInteger;
  * NeedYouBridge.showNotification() instead.
  *
  * This service is also responsible for persisting updated FCM tokens to
- * SharedPreferences so the app can re-upload them to Firestore on next launch.
+ * ProcessSafeStore so the app can re-upload them to Firestore on next launch.
+ *
+ * Runs in its own ":push" process (see AndroidManifest) so a push that
+ * arrives while the app is killed does not boot Capacitor, the WebView or
+ * any of MainActivity's subsystems. What it shares with the main process
+ * must be multi-process safe: NotificationDispatcher, NotificationMirror
+ * (SQLite) and ProcessSafeStore, plus code that only reads or writes
+ * through them — NeedYouWidget (its snapshot lives in ProcessSafeStore),
+ * LastLocationCache.shared() (the main process's copy of the last fix) and
+ * the pure helpers GeoTopics and NotificationActionSet.
  */
 public class MyFirebaseMessagingService extends FirebaseMessagingService {
 
     private static final String TAG = "NeedYouFCM";
-    private static final String CHANNEL_ID = "needyou_notifications";
-    private static final String CHANNEL_NAME = "NeedYou Notifications";
-    private static final String PREFS_NAME = "NeedYouPrefs";
-    private static final String KEY_FCM_TOKEN = "fcmToken";
 
     // Thread-safe notification ID counter shared within the service process
     private static final AtomicInteger notifIdCounter = new AtomicInteger(2000);
 
+    // True until the first message of this process has been posted (cold-start timing)
+    private static volatile boolean firstMessage = true;
+
+    // ─── Process start ────────────────────────────────────────────────────────
+
+    /**
+     * FirebaseInitProvider only runs in the main process, so the ":push"
+     * process has to initialise the default FirebaseApp itself.
+     */
+    @Override
+    public void onCreate() {
+        if (FirebaseApp.getApps(this).isEmpty())
+            FirebaseApp.initializeApp(this);
+        super.onCreate();
+    }
+
     // ─── Token refresh ────────────────────────────────────────────────────────
 
     /**
      * Called when a new FCM token is generated (first install or token rotation).
-     * Persist it in SharedPreferences; MainActivity/WebView will pick it up on
-     * next launch and save it to Firestore.
+     * Persist it in ProcessSafeStore; MainActivity/WebView will pick it up on
+     * next launch and save it to Firestore, and JobAlertTopics re-writes its
+     * areaTopicsToken then or on the next location fix.
      */
     @Override
     public void onNewToken(String token) {
         super.onNewToken(token);
-        Log.d(TAG, "FCM token refreshed: " + token);
-        SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        prefs.edit().putString(KEY_FCM_TOKEN, token).apply();
+        AppLog.i(TAG, "FCM token refreshed").kv("token", token).log();
+        ProcessSafeStore.put(this, ProcessSafeStore.KEY_FCM_TOKEN, token);
     }
 
     // ─── Message received ─────────────────────────────────────────────────────
@@ -73,7 +91,7 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
     public void onMessageReceived(RemoteMessage remoteMessage) {
         super.onMessageReceived(remoteMessage);
 
-        Log.d(TAG, "FCM message from: " + remoteMessage.getFrom());
+        AppLog.d(TAG, "FCM message").kv("from", remoteMessage.getFrom()).log();
 
         // Extract title / body from notification payload (if present)
         String title = "NeedYou";
@@ -97,63 +115,122 @@ public class MyFirebaseMessagingService extends FirebaseMessagingService {
 
         // Extract deep-link fields if present
         String jobId = data.containsKey("jobId") ? data.get("jobId") : null;
-        String notificationType = data.containsKey("notificationType") ? data.get("notificationType") : null;
-
-        Log.d(TAG, "Posting notification — title: " + title + " | body: " + body + " | type: " + notificationType);
-        postNotification(title, body, jobId, notificationType);
-    }
-
-    // ─── Post system notification ─────────────────────────────────────────────
+        String notificationType = NotificationActionSet.type(data);
 
-    private void postNotification(String title, String body, String jobId, String notificationType) {
-        ensureChannelExists();
+        // Area alerts (JobAlertTopics) reach everyone on the job's topic cells
+        String from = remoteMessage.getFrom();
+        if (from != null && from.startsWith("/topics/") && !isAreaAlertForThisUser(data)) {
+            AppLog.d(TAG, "Area alert dropped").kv("jobId", jobId).log();
+            return;
+        }
 
-        // Build an intent that re-opens MainActivity and passes deep-link extras
-        Intent intent = new Intent(this, MainActivity.class);
-        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
-        if (jobId != null && !jobId.isEmpty()) {
-            intent.putExtra("jobId", jobId);
+        AppLog.d(TAG, "Posting notification").kv("type", notificationType).kv("jobId", jobId).log();
+        // A redelivered push (same notificationId) replaces its own banner.
+        // Action buttons (see NotificationActions) are handled by a main-process receiver.
+        String notificationId = NotificationActionSet.notificationId(data);
+        int bannerId = notificationId != null
+                ? NotificationDispatcher.bannerId(notificationId)
+                : notifIdCounter.getAndIncrement();
+        if (isConversationOnScreen(notificationType, data))
+            AppLog.d(TAG, "Banner skipped — conversation on screen").log();
+        else
+            NotificationDispatcher.post(this, bannerId, title, body, jobId, notificationType, data);
+        if (firstMessage) {
+            firstMessage = false;
+            recordColdStart();
         }
-        if (notificationType != null && !notificationType.isEmpty()) {
-            intent.putExtra("notificationType", notificationType);
+        mirrorNotification(data, title, body, jobId, notificationType);
+        NeedYouWidget.onPush(this, notificationType, jobId, data.get("jobTitle"), title);
+    }
+
+    /**
+     * An area alert is for this device unless no user has signed in here, the
+     * user posted the job themselves or the job lies beyond the alert radius
+     * of the last known fix (topics are whole cells and reach past it).
+     */
+    private boolean isAreaAlertForThisUser(Map<String, String> data) {
+        String userId = ProcessSafeStore.get(this, ProcessSafeStore.KEY_NOTIF_USER_ID, "");
+        if (userId.isEmpty() || userId.equals(data.get("posterId")))
+            return false;
+        // The main process's last fix; LastLocationCache itself is main-process only
+        LocationFix fix = LastLocationCache.shared(this);
+        if (fix == null)
+            return true;
+        try {
+            return GeoTopics.isNearby(Double.parseDouble(data.get("jobLat")), Double.parseDouble(data.get("jobLng")),
+                    fix.lat, fix.lng);
+        } catch (NullPointerException | NumberFormatException e) {
+            return true;
         }
+    }
 
-        int piFlags = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
-                ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                : PendingIntent.FLAG_UPDATE_CURRENT;
-
-        PendingIntent pendingIntent = PendingIntent.getActivity(
-                this, notifIdCounter.get(), intent, piFlags);
-
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
-                .setSmallIcon(R.drawable.ic_stat_notification)
-                .setColor(0xFF1E5EFF)
-                .setContentTitle(title)
-                .setContentText(body)
-                .setStyle(new NotificationCompat.BigTextStyle().bigText(body))
-                .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .setAutoCancel(true)
-                .setContentIntent(pendingIntent);
-
-        NotificationManager nm = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        if (nm != null) {
-            nm.notify(notifIdCounter.getAndIncrement(), builder.build());
+    /**
+     * True for a chat push whose conversation is open in the resumed app
+     * (MainActivity publishes it). The main process's pid is checked too, so
+     * a value left behind by a crash does not silence the chat.
+     */
+    private boolean isConversationOnScreen(String notificationType, Map<String, String> data) {
+        String conversationId = data.get("conversationId");
+        if (!NotificationActionSet.TYPE_CHAT_MESSAGE.equals(notificationType) || conversationId == null)
+            return false;
+        String[] open = ProcessSafeStore.get(this, ProcessSafeStore.KEY_FOREGROUND_CONVERSATION, "").split(",", 2);
+        if (open.length != 2 || !conversationId.equals(open[1]))
+            return false;
+        ActivityManager am = (ActivityManager) getSystemService(ACTIVITY_SERVICE);
+        List<ActivityManager.RunningAppProcessInfo> running = am != null ? am.getRunningAppProcesses() : null;
+        if (running == null)
+            return false;
+        for (ActivityManager.RunningAppProcessInfo p : running) {
+            if (open[0].equals(Integer.toString(p.pid)))
+                return true;
         }
+        return false;
+    }
+
+    /**
+     * Records process-start → banner-posted time and PSS for the first push
+     * handled by this process. Read in the app via
+     * NeedYouBridge.getPushProcessStats(); for a before/after comparison with
+     * builds that have no ":push" process use scripts/measure-push-cold-start.sh,
+     * which measures the same thing from system logs.
+     */
+    private void recordColdStart() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N)
+            return;
+        long ms = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+        long pssKb = Debug.getPss();
+        AppLog.i(TAG, "Push process cold start → banner").kv("ms", ms).kv("pssKb", pssKb).log();
+        ProcessSafeStore.put(this, "pushColdStartMs", Long.toString(ms));
+        ProcessSafeStore.put(this, "pushColdStartPssKb", Long.toString(pssKb));
     }
 
+    // ─── Native notifications mirror ──────────────────────────────────────────
+
     /**
-     * Creates the notification channel on Android 8+ (safe to call multiple times).
+     * Inserts the pushed notification into NotificationMirror so the bell's
+     * unread count is already correct when the app next opens. The page's
+     * Firestore listener later overwrites the row with the full document.
      */
-    private void ensureChannelExists() {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-            NotificationManager nm = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-            if (nm != null && nm.getNotificationChannel(CHANNEL_ID) == null) {
-                NotificationChannel channel = new NotificationChannel(
-                        CHANNEL_ID, CHANNEL_NAME, NotificationManager.IMPORTANCE_HIGH);
-                channel.setDescription("Job and application alerts from NeedYou");
-                channel.enableVibration(true);
-                nm.createNotificationChannel(channel);
-            }
+    private void mirrorNotification(Map<String, String> data, String title, String body,
+            String jobId, String notificationType) {
+        String notificationId = NotificationActionSet.notificationId(data);
+        String userId = ProcessSafeStore.get(this, ProcessSafeStore.KEY_NOTIF_USER_ID, "");
+        if (notificationId == null || notificationId.isEmpty() || userId.isEmpty())
+            return;
+        try {
+            org.json.JSONObject doc = new org.json.JSONObject()
+                    .put("id", notificationId)
+                    .put("userId", userId)
+                    .put("type", notificationType != null ? notificationType : "")
+                    .put("title", title)
+                    .put("message", body)
+                    .put("jobId", jobId != null ? jobId : "")
+                    .put("jobTitle", data.containsKey("jobTitle") ? data.get("jobTitle") : "")
+                    .put("createdAt", System.currentTimeMillis())
+                    .put("read", false);
+            NotificationMirror.get(this).insertIfAbsent(userId, doc);
+        } catch (org.json.JSONException e) {
+            AppLog.e(TAG, "Mirror insert failed").err(e).log();
         }
     }
 }
@@ -0,0 +1,114 @@
+package com.needyou.app;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Base64;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * NativeLiveness
+ *
+ * Wires LivenessPipeline to the device: CameraFrameSource for frames,
+ * Bitmap for JPEG encoding and /api/kyc-liveness for uploads. At most one
+ * capture runs at a time.
+ */
+public class NativeLiveness {
+
+    private static final String LIVENESS_URL = "https://need-you.xyz/api/kyc-liveness";
+    private static final int TIMEOUT_MS = 20_000;
+
+    private static LivenessPipeline current;
+
+    private NativeLiveness() {
+    }
+
+    /**
+     * Starts a capture with options {"fps","width","quality","batchSize","maxBatches"}
+     * (all optional). Stops any capture already running.
+     */
+    public static synchronized void start(Context context, JSONObject opts, LivenessPipeline.Listener listener) {
+        stop();
+        LivenessPipeline.Config config = new LivenessPipeline.Config(
+                opts.optInt("fps", 4),
+                opts.optInt("width", 320),
+                opts.optInt("quality", 80),
+                opts.optInt("batchSize", 3),
+                opts.optInt("maxBatches", 1));
+        current = new LivenessPipeline(config, new CameraFrameSource(context),
+                NativeLiveness::encodeJpeg, NativeLiveness::upload, listener);
+        current.start();
+    }
+
+    public static synchronized void stop() {
+        if (current != null) {
+            current.stop();
+            current = null;
+        }
+    }
+
+    private static byte[] encodeJpeg(int[] argb, int width, int height, int quality) {
+        Bitmap bmp = Bitmap.createBitmap(argb, width, height, Bitmap.Config.ARGB_8888);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+            bmp.compress(Bitmap.CompressFormat.JPEG, quality, out);
+            return out.toByteArray();
+        } finally {
+            bmp.recycle();
+        }
+    }
+
+    /** POSTs {"images":["data:image/jpeg;base64,...", ...]} and returns the JSON response. */
+    private static String upload(List<byte[]> jpegs) throws IOException {
+        JSONArray images = new JSONArray();
+        for (byte[] jpeg : jpegs)
+            images.put("data:image/jpeg;base64," + Base64.encodeToString(jpeg, Base64.NO_WRAP));
+        byte[] body;
+        try {
+            body = new JSONObject().put("images", images).toString().getBytes(StandardCharsets.UTF_8);
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+
+        HttpURLConnection conn = (HttpURLConnection) new URL(LIVENESS_URL).openConnection();
+        try {
+            conn.setRequestMethod("POST");
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", "application/json");
+            String idToken = NativeSession.get().getCachedIdToken();
+            if (idToken != null)
+                conn.setRequestProperty("Authorization", "Bearer " + idToken);
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(body);
+            }
+            int code = conn.getResponseCode();
+            InputStream in = code < 400 ? conn.getInputStream() : conn.getErrorStream();
+            ByteArrayOutputStream resp = new ByteArrayOutputStream();
+            if (in != null) {
+                try (InputStream is = in) {
+                    byte[] buf = new byte[4096];
+                    int n;
+                    while ((n = is.read(buf)) > 0)
+                        resp.write(buf, 0, n);
+                }
+            }
+            String json = resp.toString("UTF-8");
+            return json.isEmpty() ? "{\"error\":\"HTTP " + code + "\"}" : json;
+        } finally {
+            conn.disconnect();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.needyou.app;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.auth.GetTokenResult;
+
+/**
+ * NativeSession
+ *
+ * Gives native code its own Firebase Auth session for the user signed in to
+ * the web app. The Android SDK keeps its session separately from the Web
+ * SDK's IndexedDB, so the page hands over a custom token minted by
+ * /api/native-session (which checks the caller's web ID token first) and we
+ * sign in with it. The native SDK then persists that session across
+ * launches on its own.
+ *
+ * The ID token is cached and refreshed {@link #REFRESH_AHEAD_MS} before it
+ * expires, so native subsystems (Firestore writes, uploads, prefetch) can
+ * read a valid token via {@link #getCachedIdToken()} without a network round
+ * trip and without waking the WebView.
+ */
+public class NativeSession {
+
+    private static final String TAG = "NeedYouSession";
+
+    /** How long before expiry the ID token is refreshed. */
+    static final long REFRESH_AHEAD_MS = 5 * 60 * 1000;
+
+    /** Retry delay when a refresh fails (offline, etc.). */
+    private static final long RETRY_MS = 60 * 1000;
+
+    private static NativeSession instance;
+
+    private final FirebaseAuth auth = FirebaseAuth.getInstance();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable refreshTask = () -> refresh(true);
+
+    private volatile String idToken;
+    private volatile long idTokenExpiresAt;
+
+    private NativeSession() {
+        // Session restored by the SDK from a previous launch
+        if (auth.getCurrentUser() != null)
+            refresh(false);
+    }
+
+    public static synchronized NativeSession get() {
+        if (instance == null)
+            instance = new NativeSession();
+        return instance;
+    }
+
+    // ─── Handshake ────────────────────────────────────────────────────────────
+
+    /** True unless native code is already signed in as {@code uid}. */
+    public boolean needsSignIn(String uid) {
+        FirebaseUser user = auth.getCurrentUser();
+        return user == null || !user.getUid().equals(uid);
+    }
+
+    /**
+     * Signs in with a custom token from /api/native-session. The sign-in is
+     * dropped if the token belongs to a different user than {@code expectedUid}.
+     */
+    public void signIn(String customToken, String expectedUid) {
+        auth.signInWithCustomToken(customToken)
+                .addOnSuccessListener(result -> {
+                    FirebaseUser user = result.getUser();
+                    if (user == null || !user.getUid().equals(expectedUid)) {
+                        AppLog.w(TAG, "Custom token user mismatch — signing out").log();
+                        signOut();
+                        return;
+                    }
+                    AppLog.i(TAG, "Native session started").log();
+                    refresh(false);
+                })
+                .addOnFailureListener(e -> AppLog.e(TAG, "Custom token sign-in failed").err(e).log());
+    }
+
+    public void signOut() {
+        handler.removeCallbacks(refreshTask);
+        idToken = null;
+        idTokenExpiresAt = 0;
+        auth.signOut();
+    }
+
+    // ─── Token access ─────────────────────────────────────────────────────────
+
+    public String getUid() {
+        FirebaseUser user = auth.getCurrentUser();
+        return user != null ? user.getUid() : null;
+    }
+
+    /** The cached ID token if it is valid for at least another minute, else null. */
+    public String getCachedIdToken() {
+        String token = idToken;
+        return token != null && idTokenExpiresAt - System.currentTimeMillis() > 60_000 ? token : null;
+    }
+
+    public long getIdTokenExpiresAt() {
+        return idTokenExpiresAt;
+    }
+
+    // ─── Refresh ──────────────────────────────────────────────────────────────
+
+    private void refresh(boolean force) {
+        handler.removeCallbacks(refreshTask);
+        FirebaseUser user = auth.getCurrentUser();
+        if (user == null)
+            return;
+        user.getIdToken(force)
+                .addOnSuccessListener(this::onToken)
+                .addOnFailureListener(e -> {
+                    AppLog.w(TAG, "ID token refresh failed, retrying").err(e).log();
+                    handler.postDelayed(refreshTask, RETRY_MS);
+                });
+    }
+
+    private void onToken(GetTokenResult result) {
+        idToken = result.getToken();
+        // getExpirationTimestamp() is in seconds
+        idTokenExpiresAt = result.getExpirationTimestamp() * 1000;
+        long delay = Math.max(RETRY_MS, idTokenExpiresAt - REFRESH_AHEAD_MS - System.currentTimeMillis());
+        handler.postDelayed(refreshTask, delay);
+    }
+}
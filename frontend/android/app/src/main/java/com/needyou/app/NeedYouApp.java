@@ -0,0 +1,65 @@
+package com.needyou.app;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+import android.os.Build;
+import android.os.StrictMode;
+
+/**
+ * NeedYouApp
+ *
+ * Process start-up for every process (main and ":push"). Starts AppLog
+ * before anything else can log. Debug builds get a StrictMode policy so disk
+ * or network access on the main thread shows up immediately; violations
+ * raised from our own code are logged as errors under "NeedYouStrictMode" so
+ * they stand out from WebView/SDK noise.
+ */
+public class NeedYouApp extends Application {
+
+    private static final String TAG = "NeedYouStrictMode";
+
+    @Override
+    public void onCreate() {
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        AppLog.init(this, debuggable);
+        if (debuggable)
+            enableStrictMode();
+        super.onCreate();
+
+        // Load the main prefs file off the main thread, so the first
+        // getSharedPreferences() call on it does not block on disk
+        AppExecutors.get().io().execute(() -> getSharedPreferences("NeedYouPrefs", MODE_PRIVATE));
+    }
+
+    private static void enableStrictMode() {
+        StrictMode.ThreadPolicy.Builder thread = new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectNetwork()
+                .penaltyLog()
+                .penaltyDeathOnNetwork();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            thread.penaltyListener(AppExecutors.get().io(), v -> {
+                if (isOwnCode(v))
+                    AppLog.e(TAG, "Main-thread violation in app code").err(v).log();
+            });
+        }
+        StrictMode.setThreadPolicy(thread.build());
+
+        StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                .detectLeakedClosableObjects()
+                .detectLeakedSqlLiteObjects()
+                .detectLeakedRegistrationObjects()
+                .detectActivityLeaks()
+                .penaltyLog()
+                .build());
+    }
+
+    private static boolean isOwnCode(Throwable violation) {
+        for (StackTraceElement e : violation.getStackTrace()) {
+            if (e.getClassName().startsWith("com.needyou.app.") && !e.getClassName().startsWith(NeedYouApp.class.getName()))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,253 @@
+package com.needyou.app;
+
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.location.Location;
+import android.os.SystemClock;
+import android.view.View;
+import android.widget.RemoteViews;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import org.json.JSONException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+
+/**
+ * NeedYouWidget
+ *
+ * Home-screen widget showing the current job's status and new nearby jobs,
+ * rendered from the WidgetSnapshot in ProcessSafeStore — never from the
+ * WebView, and without starting MainActivity. The snapshot is updated by:
+ * <ul>
+ * <li>MyFirebaseMessagingService, from every data push (":push" process);</li>
+ * <li>the page, through NeedYouBridge.updateWidget();</li>
+ * <li>a background refresh on each widget update ({@code updatePeriodMillis},
+ * 30 min), which reads the user's hired application and recent nearby jobs
+ * from Firestore through the native session, within
+ * {@link #REFRESH_BUDGET_MS} so it ends inside the goAsync() budget.</li>
+ * </ul>
+ * Tapping a card opens MainActivity with the same jobId / notificationType
+ * extras a notification tap carries, so the dashboard routes to that screen.
+ */
+public class NeedYouWidget extends AppWidgetProvider {
+
+    private static final String TAG = "NeedYouWidget";
+    static final String KEY_SNAPSHOT = "widgetSnapshot";
+
+    /** Radius for "nearby", same as the nearby-job notifier in functions/index.js. */
+    static final float NEARBY_RADIUS_KM = 20;
+
+    /** Nearby jobs older than this are never counted, however long ago the feed was seen. */
+    static final long NEARBY_WINDOW_MS = 24 * 60 * 60 * 1000;
+
+    /** Time a refresh may wait on Firestore in total; under ReceiverBudget.DEFAULT_MS. */
+    static final long REFRESH_BUDGET_MS = 6_000;
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager manager, int[] appWidgetIds) {
+        Runnable finish = ReceiverBudget.finishWithin(goAsync(), ReceiverBudget.DEFAULT_MS, TAG);
+        Context app = context.getApplicationContext();
+        AppExecutors.get().io().execute(() -> {
+            try {
+                render(app);
+                refresh(app);
+            } finally {
+                finish.run();
+            }
+        });
+    }
+
+    // ─── Snapshot ─────────────────────────────────────────────────────────────
+
+    public static WidgetSnapshot read(Context context) {
+        return WidgetSnapshot.fromJson(ProcessSafeStore.get(context, KEY_SNAPSHOT, ""));
+    }
+
+    /**
+     * Applies {@code change} to the stored snapshot atomically (both processes
+     * write it) and re-renders if it reports a change. Call off the main thread.
+     */
+    public static void update(Context context, Predicate<WidgetSnapshot> change) {
+        boolean[] changed = { false };
+        ProcessSafeStore.update(context, KEY_SNAPSHOT, current -> {
+            WidgetSnapshot s = WidgetSnapshot.fromJson(current);
+            changed[0] = change.test(s);
+            try {
+                return s.toJson().toString();
+            } catch (JSONException e) {
+                return current;
+            }
+        });
+        if (changed[0])
+            render(context);
+    }
+
+    /** A data push arrived (":push" process). */
+    public static void onPush(Context context, String type, String jobId, String jobTitle, String title) {
+        update(context, s -> s.applyPush(type, jobId, jobTitle, title, System.currentTimeMillis()));
+    }
+
+    /** Signed out: nothing of the previous user may stay on the home screen. */
+    public static void clear(Context context) {
+        ProcessSafeStore.put(context, KEY_SNAPSHOT, null);
+        render(context);
+    }
+
+    // ─── Rendering ────────────────────────────────────────────────────────────
+
+    static void render(Context context) {
+        AppWidgetManager manager = AppWidgetManager.getInstance(context);
+        int[] ids = manager.getAppWidgetIds(new ComponentName(context, NeedYouWidget.class));
+        if (ids.length == 0)
+            return;
+        WidgetSnapshot s = read(context);
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_needyou);
+
+        if (s.jobId != null) {
+            views.setTextViewText(R.id.widget_job_title, s.jobTitle != null ? s.jobTitle : "Your job");
+            views.setTextViewText(R.id.widget_job_status, s.jobStatus != null ? s.jobStatus : "");
+            views.setViewVisibility(R.id.widget_job_status, s.jobStatus != null ? View.VISIBLE : View.GONE);
+        } else {
+            views.setTextViewText(R.id.widget_job_title, "No active job");
+            views.setViewVisibility(R.id.widget_job_status, View.GONE);
+        }
+        views.setOnClickPendingIntent(R.id.widget_job, launch(context, 1, s.jobDeepLink()));
+
+        if (s.nearbyCount > 0) {
+            views.setTextViewText(R.id.widget_nearby_count, s.nearbyCount == 1
+                    ? "1 new job nearby"
+                    : s.nearbyCount + " new jobs nearby");
+            views.setTextViewText(R.id.widget_nearby_title, s.nearbyTitle != null ? s.nearbyTitle : "");
+            views.setViewVisibility(R.id.widget_nearby_title, s.nearbyTitle != null ? View.VISIBLE : View.GONE);
+        } else {
+            views.setTextViewText(R.id.widget_nearby_count, "No new jobs nearby");
+            views.setViewVisibility(R.id.widget_nearby_title, View.GONE);
+        }
+        views.setOnClickPendingIntent(R.id.widget_nearby, launch(context, 2,
+                s.nearbyCount > 0 ? s.nearbyDeepLink() : null));
+
+        manager.updateAppWidget(ids, views);
+    }
+
+    /** Opens MainActivity with notification-style deep-link extras (see DeepLinkInbox). */
+    private static PendingIntent launch(Context context, int requestCode, String[] deepLink) {
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP
+                | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        if (deepLink != null) {
+            intent.putExtra("notificationType", deepLink[0]);
+            intent.putExtra("jobId", deepLink[1]);
+        }
+        return PendingIntent.getActivity(context, requestCode, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    // ─── Background refresh (IO thread) ───────────────────────────────────────
+
+    /**
+     * Re-reads the worker's hired application and recent open jobs near the
+     * last known location; both queries run at once and everything must
+     * arrive within {@link #REFRESH_BUDGET_MS}. Skipped without a native
+     * session; failures and timeouts keep the current snapshot.
+     */
+    static void refresh(Context context) {
+        String uid = NativeSession.get().getUid();
+        if (uid == null)
+            return;
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        long now = System.currentTimeMillis();
+        long deadline = SystemClock.elapsedRealtime() + REFRESH_BUDGET_MS;
+        try {
+            Task<QuerySnapshot> hiredQuery = db.collection("job_applications")
+                    .whereEqualTo("userId", uid).whereEqualTo("status", "hired").get();
+            LocationFix fix = LastLocationCache.get(context).best();
+            WidgetSnapshot current = read(context);
+            long since = Math.max(current.nearbySeenAt, now - NEARBY_WINDOW_MS);
+            Task<QuerySnapshot> recentQuery = fix == null ? null
+                    : db.collection("jobs").whereGreaterThan("createdAt", since)
+                            .orderBy("createdAt", Query.Direction.DESCENDING).limit(100).get();
+
+            // Current job (worker side): the newest hired application not yet completed
+            DocumentSnapshot hired = null;
+            for (QueryDocumentSnapshot app : await(hiredQuery, deadline)) {
+                if ("completed".equals(app.getString("startJobStatus")))
+                    continue;
+                Long at = app.getLong("appliedAt");
+                Long best = hired != null ? hired.getLong("appliedAt") : null;
+                if (hired == null || (at != null && (best == null || at > best)))
+                    hired = app;
+            }
+            String jobId = hired != null ? hired.getString("jobId") : null;
+            String jobTitle = null;
+            if (jobId != null)
+                jobTitle = await(db.collection("jobs").document(jobId).get(), deadline).getString("caption");
+            String status = hired != null ? WidgetSnapshot.statusLabel(hired.getString("startJobStatus")) : null;
+
+            // Nearby: open jobs created since the feed was last seen, within the radius
+            int nearby = -1;
+            String nearbyJobId = null;
+            String nearbyTitle = null;
+            if (recentQuery != null) {
+                nearby = 0;
+                QuerySnapshot recent = await(recentQuery, deadline);
+                float[] dist = new float[1];
+                for (QueryDocumentSnapshot job : recent) {
+                    Double lat = job.getDouble("location.latitude");
+                    Double lng = job.getDouble("location.longitude");
+                    if (!"open".equals(job.getString("status")) || uid.equals(job.getString("userId"))
+                            || lat == null || lng == null)
+                        continue;
+                    Location.distanceBetween(fix.lat, fix.lng, lat, lng, dist);
+                    if (dist[0] > NEARBY_RADIUS_KM * 1000)
+                        continue;
+                    if (nearby++ == 0) {
+                        nearbyJobId = job.getId();
+                        nearbyTitle = job.getString("caption");
+                    }
+                }
+            }
+
+            String fJobId = jobId, fTitle = jobTitle, fStatus = status, fNearbyJobId = nearbyJobId,
+                    fNearbyTitle = nearbyTitle;
+            int fNearby = nearby;
+            update(context, s -> {
+                if (fJobId != null)
+                    s.setJob(fJobId, fTitle, fStatus, "job_hired", now);
+                else if ("job_hired".equals(s.jobType))
+                    s.setJob(null, null, null, null, now); // the hired job has finished
+                if (fNearby >= 0) {
+                    s.nearbyCount = fNearby;
+                    if (fNearbyJobId != null) {
+                        s.nearbyJobId = fNearbyJobId;
+                        s.nearbyTitle = fNearbyTitle;
+                    }
+                }
+                s.refreshedAt = now;
+                return true;
+            });
+        } catch (Exception e) {
+            AppLog.w(TAG, "Widget refresh failed").err(e).log();
+        }
+    }
+
+    /** Waits for {@code task} until {@code deadline} (elapsedRealtime). */
+    private static <T> T await(Task<T> task, long deadline) throws Exception {
+        long timeoutMs = deadline - SystemClock.elapsedRealtime();
+        if (timeoutMs <= 0)
+            throw new TimeoutException("Refresh budget used up");
+        return Tasks.await(task, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,29 @@
+package com.needyou.app;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * NotificationActionReceiver
+ *
+ * Receives taps on notification action buttons (see NotificationActions).
+ * Runs in the main process but starts neither MainActivity nor the WebView.
+ */
+public class NotificationActionReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        // Firestore round trips stay off the main thread; goAsync() keeps the
+        // process alive until the action has finished or given up, which
+        // NotificationActionSet.ACTION_BUDGET_MS keeps inside the receiver budget
+        Runnable finish = ReceiverBudget.finishWithin(goAsync(), ReceiverBudget.DEFAULT_MS, "NeedYouNotifAction");
+        AppExecutors.get().io().execute(() -> {
+            try {
+                NotificationActions.handle(context.getApplicationContext(), intent);
+            } finally {
+                finish.run();
+            }
+        });
+    }
+}
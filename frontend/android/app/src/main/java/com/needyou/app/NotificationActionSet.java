@@ -0,0 +1,125 @@
+package com.needyou.app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * NotificationActionSet
+ *
+ * Which action buttons a pushed notification gets, the texts shown while an
+ * action runs and after it fails, and the retry schedule used by
+ * NotificationActions. Push payloads come from two senders with different
+ * key names (the Cloud Function sends "type"/"notifId", /api/send-notification
+ * sends "notificationType"/"notificationId"); {@link #type} and
+ * {@link #notificationId} read either.
+ *
+ * Pure Java so the rules can be unit tested.
+ */
+public final class NotificationActionSet {
+
+    public static final String ACCEPT = "accept";
+    public static final String REJECT = "reject";
+    public static final String REPLY = "reply";
+    public static final String MARK_READ = "mark_read";
+
+    public static final String TYPE_NEW_APPLICATION = "new_application";
+    public static final String TYPE_CHAT_MESSAGE = "chat_message";
+
+    /** Android shows at most three action buttons. */
+    static final int MAX_ACTIONS = 3;
+
+    /** Pause before each attempt; the first runs at once. */
+    static final long[] RETRY_DELAYS_MS = { 0, 750, 1_500 };
+
+    /** How long each round trip of an attempt may wait for the server. */
+    static final long ATTEMPT_TIMEOUT_MS = 2_000;
+
+    /**
+     * Time an action may take, attempts and pauses included; no attempt starts
+     * that could not get one full round trip. Under the receiver's goAsync()
+     * budget (ReceiverBudget.DEFAULT_MS).
+     */
+    static final long ACTION_BUDGET_MS = 7_000;
+
+    private NotificationActionSet() {
+    }
+
+    public static String type(Map<String, String> data) {
+        return firstNonEmpty(data.get("notificationType"), data.get("type"));
+    }
+
+    public static String notificationId(Map<String, String> data) {
+        return firstNonEmpty(data.get("notificationId"), data.get("notifId"));
+    }
+
+    /** Action ids for a push, in button order. */
+    public static List<String> forPush(Map<String, String> data) {
+        if (data == null)
+            return Collections.emptyList();
+        List<String> out = new ArrayList<>(MAX_ACTIONS);
+        String type = type(data);
+        if (TYPE_NEW_APPLICATION.equals(type) && notEmpty(data.get("applicationId")) && notEmpty(data.get("jobId"))) {
+            out.add(ACCEPT);
+            out.add(REJECT);
+        } else if (TYPE_CHAT_MESSAGE.equals(type) && notEmpty(data.get("conversationId"))) {
+            out.add(REPLY);
+        }
+        // Chat messages are not bell notifications, so they never carry an id
+        if (notificationId(data) != null && out.size() < MAX_ACTIONS)
+            out.add(MARK_READ);
+        return out;
+    }
+
+    public static String label(String action) {
+        switch (action) {
+            case ACCEPT:
+                return "Hire";
+            case REJECT:
+                return "Decline";
+            case REPLY:
+                return "Reply";
+            case MARK_READ:
+                return "Mark as read";
+            default:
+                return action;
+        }
+    }
+
+    /** Shown on the notification while the action is in flight. */
+    public static String progressText(String action) {
+        switch (action) {
+            case ACCEPT:
+                return "Hiring…";
+            case REJECT:
+                return "Declining…";
+            case REPLY:
+                return "Sending…";
+            default:
+                return "Updating…";
+        }
+    }
+
+    /** Shown with a Retry button once every attempt has failed. */
+    public static String failureText(String action) {
+        switch (action) {
+            case ACCEPT:
+                return "Couldn't hire — check your connection and retry.";
+            case REJECT:
+                return "Couldn't decline — check your connection and retry.";
+            case REPLY:
+                return "Message not sent — check your connection and retry.";
+            default:
+                return "Couldn't update — check your connection and retry.";
+        }
+    }
+
+    private static String firstNonEmpty(String a, String b) {
+        return notEmpty(a) ? a : notEmpty(b) ? b : null;
+    }
+
+    private static boolean notEmpty(String s) {
+        return s != null && !s.isEmpty();
+    }
+}
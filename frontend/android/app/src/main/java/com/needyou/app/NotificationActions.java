@@ -0,0 +1,516 @@
+package com.needyou.app;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.SystemClock;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.RemoteInput;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.json.JSONObject;
+
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.text.NumberFormat;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * NotificationActions
+ *
+ * Action buttons on pushed notifications — hire/decline an applicant, inline
+ * chat reply, mark as read — handled by NotificationActionReceiver in the
+ * main process without starting MainActivity or the WebView. Writes go
+ * straight to Firestore through the native session (NativeSession), the
+ * same documents the page writes for these actions.
+ *
+ * The notification is updated at once to show the action in progress, then
+ * cancelled (or replaced by a short confirmation) when the server has
+ * acknowledged. Attempts follow NotificationActionSet.RETRY_DELAYS_MS within
+ * NotificationActionSet.ACTION_BUDGET_MS; if none succeeds in time the
+ * notification offers a Retry button that replays the same action.
+ * Every write is idempotent — documents created by an action get their id
+ * up front and carry it into the retry, and the hire is a transaction on the
+ * application's current status — so a slow first attempt that still lands
+ * is never applied twice. Mark as read goes through
+ * FirestoreWriteQueue, which persists and retries on its own.
+ */
+public final class NotificationActions {
+
+    private static final String TAG = "NeedYouNotifAction";
+    private static final String SEND_NOTIFICATION_URL = "https://need-you.xyz/api/send-notification";
+
+    static final String ACTION_PREFIX = "com.needyou.app.NOTIFICATION_ACTION.";
+    static final String EXTRA_ACTION = "action";
+    static final String EXTRA_NOTIFICATION_ID = "androidNotificationId";
+    static final String EXTRA_TITLE = "title";
+    static final String EXTRA_BODY = "body";
+    static final String EXTRA_DATA = "data";
+    static final String EXTRA_WRITE_ID = "writeId";
+    static final String EXTRA_REPLY_TEXT = "replyText";
+    static final String REMOTE_INPUT_KEY = "needyou_reply";
+
+    /** How long the "Hired" confirmation stays before it dismisses itself. */
+    private static final long CONFIRMATION_MS = 5_000;
+
+    private NotificationActions() {
+    }
+
+    /** Refusal the user cannot fix by retrying (already filled, no session, ...). */
+    private static final class Refused extends Exception {
+        Refused(String message) {
+            super(message);
+        }
+    }
+
+    // ─── Building ─────────────────────────────────────────────────────────────
+
+    /** Adds the buttons NotificationActionSet picks for {@code data}. */
+    static void addTo(NotificationCompat.Builder builder, Context context, int notificationId,
+            String title, String body, Map<String, String> data) {
+        List<String> actions = NotificationActionSet.forPush(data);
+        for (int i = 0; i < actions.size(); i++) {
+            String action = actions.get(i);
+            Intent intent = intent(context, action, notificationId, title, body, toBundle(data));
+            NotificationCompat.Action.Builder button = new NotificationCompat.Action.Builder(
+                    0, NotificationActionSet.label(action), pendingIntent(context, notificationId, i, intent,
+                            NotificationActionSet.REPLY.equals(action)));
+            if (NotificationActionSet.REPLY.equals(action)) {
+                button.addRemoteInput(new RemoteInput.Builder(REMOTE_INPUT_KEY).setLabel("Reply").build())
+                        .setSemanticAction(NotificationCompat.Action.SEMANTIC_ACTION_REPLY)
+                        .setShowsUserInterface(false);
+            } else if (NotificationActionSet.MARK_READ.equals(action)) {
+                button.setSemanticAction(NotificationCompat.Action.SEMANTIC_ACTION_MARK_AS_READ)
+                        .setShowsUserInterface(false);
+            }
+            builder.addAction(button.build());
+        }
+    }
+
+    private static Intent intent(Context context, String action, int notificationId, String title, String body,
+            Bundle data) {
+        return new Intent(context, NotificationActionReceiver.class)
+                // Distinct actions, so PendingIntents of different buttons never collapse
+                .setAction(ACTION_PREFIX + action)
+                .putExtra(EXTRA_ACTION, action)
+                .putExtra(EXTRA_NOTIFICATION_ID, notificationId)
+                .putExtra(EXTRA_TITLE, title)
+                .putExtra(EXTRA_BODY, body)
+                .putExtra(EXTRA_DATA, data);
+    }
+
+    private static PendingIntent pendingIntent(Context context, int notificationId, int slot, Intent intent,
+            boolean mutable) {
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S)
+            flags |= mutable ? PendingIntent.FLAG_MUTABLE : PendingIntent.FLAG_IMMUTABLE;
+        else if (!mutable && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M)
+            flags |= PendingIntent.FLAG_IMMUTABLE;
+        // Up to MAX_ACTIONS buttons plus a Retry button per notification
+        int requestCode = notificationId * (NotificationActionSet.MAX_ACTIONS + 1) + slot;
+        return PendingIntent.getBroadcast(context, requestCode, intent, flags);
+    }
+
+    // ─── Handling (IO thread, from NotificationActionReceiver) ────────────────
+
+    static void handle(Context context, Intent intent) {
+        String action = intent.getStringExtra(EXTRA_ACTION);
+        int notificationId = intent.getIntExtra(EXTRA_NOTIFICATION_ID, 0);
+        String title = intent.getStringExtra(EXTRA_TITLE);
+        String body = intent.getStringExtra(EXTRA_BODY);
+        Map<String, String> data = fromBundle(intent.getBundleExtra(EXTRA_DATA));
+        if (action == null)
+            return;
+
+        String uid = NativeSession.get().getUid();
+        if (uid == null) {
+            showRefused(context, notificationId, title, data, "Open NeedYou to finish this.");
+            return;
+        }
+
+        if (NotificationActionSet.MARK_READ.equals(action)) {
+            markRead(context, uid, data);
+            NotificationDispatcher.cancel(context, notificationId);
+            return;
+        }
+
+        String reply = replyText(intent);
+        if (NotificationActionSet.REPLY.equals(action) && reply.isEmpty())
+            return;
+
+        // Ids for documents this action creates, fixed before the first attempt
+        String writeId = intent.getStringExtra(EXTRA_WRITE_ID);
+        if (writeId == null)
+            writeId = FirebaseFirestore.getInstance().collection("notifications").document().getId();
+
+        showProgress(context, notificationId, title, body, data, action, reply);
+        long deadline = SystemClock.elapsedRealtime() + NotificationActionSet.ACTION_BUDGET_MS;
+        long[] delays = NotificationActionSet.RETRY_DELAYS_MS;
+        for (int attempt = 0; attempt < delays.length; attempt++) {
+            if (SystemClock.elapsedRealtime() + delays[attempt] + NotificationActionSet.ATTEMPT_TIMEOUT_MS > deadline)
+                break;
+            if (delays[attempt] > 0)
+                SystemClock.sleep(delays[attempt]);
+            try {
+                String confirmation = perform(action, uid, data, reply, writeId, deadline);
+                if (confirmation != null) {
+                    NotificationDispatcher.notify(context, notificationId,
+                            base(context, notificationId, title, confirmation, data)
+                                    .setOnlyAlertOnce(true)
+                                    .setTimeoutAfter(CONFIRMATION_MS));
+                } else {
+                    NotificationDispatcher.cancel(context, notificationId);
+                }
+                return;
+            } catch (Refused e) {
+                showRefused(context, notificationId, title, data, e.getMessage());
+                return;
+            } catch (Exception e) {
+                if (isPermanent(e)) {
+                    AppLog.w(TAG, "Action refused by server").kv("action", action).err(e).log();
+                    showRefused(context, notificationId, title, data, "Open NeedYou to finish this.");
+                    return;
+                }
+                AppLog.w(TAG, "Action attempt failed").kv("action", action).kv("attempt", attempt + 1).err(e).log();
+            }
+        }
+        showRetry(context, notificationId, title, body, data, action, reply, writeId);
+    }
+
+    /** Runs one attempt; returns a confirmation to show, or null to cancel the notification. */
+    private static String perform(String action, String uid, Map<String, String> data, String reply,
+            String writeId, long deadline) throws Exception {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        switch (action) {
+            case NotificationActionSet.ACCEPT:
+                return hire(db, uid, data.get("jobId"), data.get("applicationId"), writeId, deadline);
+            case NotificationActionSet.REJECT:
+                decline(db, uid, data.get("jobId"), data.get("applicationId"), deadline);
+                return null;
+            case NotificationActionSet.REPLY:
+                sendReply(db, uid, data.get("conversationId"), reply, writeId, deadline);
+                return null;
+            default:
+                throw new Refused("Open NeedYou to finish this.");
+        }
+    }
+
+    // ─── Writes ───────────────────────────────────────────────────────────────
+
+    /**
+     * Same writes as JobApplicationsModal#handleHire: the application is hired,
+     * the job filled, every other application closed and the applicant notified.
+     * One transaction that re-reads the job and application, so an attempt
+     * that lands after an earlier one (or after a hire from the page) changes
+     * nothing. Like the page, it only hires once the price is agreed
+     * (budgetSatisfied or negotiationStatus "accepted"), at currentOffer.
+     */
+    private static String hire(FirebaseFirestore db, String uid, String jobId, String appId, String writeId,
+            long deadline) throws Exception {
+        DocumentReference jobRef = db.collection("jobs").document(jobId);
+        DocumentReference appRef = db.collection("job_applications").document(appId);
+        // Queries cannot run inside a transaction: list the other applications first
+        QuerySnapshot others = await(db.collection("job_applications").whereEqualTo("jobId", jobId).get(),
+                deadline);
+        String[] applicant = { "Applicant" };
+        String refusal = await(db.runTransaction(tx -> {
+            DocumentSnapshot job = tx.get(jobRef);
+            DocumentSnapshot app = tx.get(appRef);
+            if (!job.exists() || !app.exists() || !uid.equals(job.getString("userId")))
+                return "This application is no longer available.";
+            if (app.getString("userName") != null)
+                applicant[0] = app.getString("userName");
+            String status = app.getString("status");
+            if ("hired".equals(status))
+                return null; // an earlier attempt landed
+            if ("filled".equals(job.getString("status")) || "closed".equals(status))
+                return "This job already has someone hired.";
+            // Same gate as the page's Hire button: only at an agreed price
+            if (!Boolean.TRUE.equals(app.getBoolean("budgetSatisfied"))
+                    && !"accepted".equals(app.getString("negotiationStatus")))
+                return "Open NeedYou to negotiate.";
+            hireWrites(tx, db, job, app, others, writeId);
+            return null;
+        }), deadline);
+        if (refusal != null)
+            throw new Refused(refusal);
+        return applicant[0] + " is hired";
+    }
+
+    /** The hire's writes, staged on {@code tx} after its status checks passed. */
+    private static void hireWrites(Transaction tx, FirebaseFirestore db,
+            DocumentSnapshot job, DocumentSnapshot app, QuerySnapshot others, String writeId) {
+        String jobId = job.getId();
+        String appId = app.getId();
+
+        // The page's Hire button order; renegotiation keeps the agreed price in currentOffer
+        Object amount = firstNonNull(app.get("currentOffer"), app.get("counterOffer"), job.get("budget"));
+        String jobTitle = job.getString("caption") != null ? job.getString("caption") : "";
+        String poster = job.getString("userName") != null ? job.getString("userName") : "the job poster";
+
+        Map<String, Object> hired = new HashMap<>();
+        hired.put("negotiationStatus", "accepted");
+        hired.put("budgetSatisfied", true);
+        hired.put("status", "hired");
+        hired.put("currentOffer", amount);
+
+        String price = amount instanceof Number && ((Number) amount).doubleValue() > 0
+                ? " at ₹" + NumberFormat.getInstance(new Locale("en", "IN")).format(amount)
+                : "";
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("userId", app.getString("userId"));
+        notification.put("type", "job_hired");
+        notification.put("title", "You have been hired!");
+        notification.put("message", "You were hired by " + poster + " for \"" + jobTitle + "\"" + price
+                + ". Tap to view your application.");
+        notification.put("jobId", jobId);
+        notification.put("jobTitle", jobTitle);
+        notification.put("applicationId", appId);
+        notification.put("amount", amount instanceof Number ? amount : 0);
+        notification.put("createdAt", System.currentTimeMillis());
+        notification.put("read", false);
+
+        tx.update(app.getReference(), hired);
+        tx.update(job.getReference(), "status", "filled");
+        for (QueryDocumentSnapshot other : others) {
+            if (!other.getId().equals(appId))
+                tx.update(other.getReference(), "status", "closed");
+        }
+        // The notifications trigger (functions/index.js) sends the push
+        tx.set(db.collection("notifications").document(writeId), notification);
+    }
+
+    /** Closes one application, as the page does for applicants not hired. */
+    private static void decline(FirebaseFirestore db, String uid, String jobId, String appId, long deadline)
+            throws Exception {
+        DocumentSnapshot job = await(db.collection("jobs").document(jobId).get(), deadline);
+        DocumentSnapshot app = await(db.collection("job_applications").document(appId).get(), deadline);
+        if (!job.exists() || !app.exists() || !uid.equals(job.getString("userId")))
+            throw new Refused("This application is no longer available.");
+        if ("hired".equals(app.getString("status")))
+            throw new Refused("This applicant is already hired.");
+        if ("closed".equals(app.getString("status")))
+            return;
+        await(app.getReference().update("status", "closed"), deadline);
+    }
+
+    /** Same writes as lib/auth.ts#sendMessage, plus the chat push it sends. */
+    private static void sendReply(FirebaseFirestore db, String uid, String conversationId, String text,
+            String writeId, long deadline) throws Exception {
+        DocumentReference conversation = db.collection("conversations").document(conversationId);
+        DocumentReference message = conversation.collection("messages").document(writeId);
+        if (await(message.get(), deadline).exists())
+            return; // an earlier attempt landed
+        DocumentSnapshot c = await(conversation.get(), deadline);
+        Object participants = c.get("participants");
+        if (!c.exists() || !(participants instanceof List) || !((List<?>) participants).contains(uid))
+            throw new Refused("This conversation is no longer available.");
+        String receiver = null;
+        for (Object p : (List<?>) participants) {
+            if (!uid.equals(p))
+                receiver = String.valueOf(p);
+        }
+        String senderName = c.getString("participantDetails." + uid + ".name");
+        if (senderName == null)
+            senderName = "User";
+
+        long now = System.currentTimeMillis();
+        Map<String, Object> msg = new HashMap<>();
+        msg.put("senderId", uid);
+        msg.put("senderName", senderName);
+        msg.put("text", text);
+        msg.put("timestamp", now);
+        msg.put("read", false);
+
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("lastMessage", text.length() > 100 ? text.substring(0, 100) : text);
+        meta.put("lastMessageTime", now);
+        meta.put("updatedAt", now);
+        // Replying from the shade means the sender has read the thread
+        meta.put("unreadCount." + uid, 0);
+        if (receiver != null)
+            meta.put("unreadCount." + receiver, FieldValue.increment(1));
+
+        WriteBatch batch = db.batch();
+        batch.set(message, msg);
+        batch.update(conversation, meta);
+        await(batch.commit(), deadline);
+        if (receiver != null)
+            sendChatPush(receiver, senderName, text, conversationId, c.getString("jobId"), deadline);
+    }
+
+    private static void markRead(Context context, String uid, Map<String, String> data) {
+        String id = NotificationActionSet.notificationId(data);
+        if (id == null)
+            return;
+        FirestoreWriteQueue.get(context).enqueue("notifications/" + id,
+                Collections.<String, Object>singletonMap("read", true));
+        NotificationMirror.get(context).markRead(uid, new String[] { id });
+    }
+
+    /** Same request lib/notifications.ts#notifyChatMessage makes, best effort in the time left. */
+    private static void sendChatPush(String userId, String senderName, String text, String conversationId,
+            String jobId, long deadline) {
+        int timeoutMs = (int) Math.min(5_000, (deadline - SystemClock.elapsedRealtime()) / 2);
+        if (timeoutMs <= 0) {
+            AppLog.w(TAG, "Chat push skipped — action budget used up").log();
+            return;
+        }
+        HttpURLConnection conn = null;
+        try {
+            JSONObject data = new JSONObject()
+                    .put("notificationType", NotificationActionSet.TYPE_CHAT_MESSAGE)
+                    .put("conversationId", conversationId)
+                    .put("jobId", jobId != null ? jobId : "");
+            byte[] payload = new JSONObject()
+                    .put("userId", userId)
+                    .put("title", senderName)
+                    .put("body", text.length() > 200 ? text.substring(0, 200) : text)
+                    .put("data", data)
+                    .put("dataOnly", true)
+                    .toString().getBytes(StandardCharsets.UTF_8);
+            conn = (HttpURLConnection) new URL(SEND_NOTIFICATION_URL).openConnection();
+            conn.setRequestMethod("POST");
+            conn.setConnectTimeout(timeoutMs);
+            conn.setReadTimeout(timeoutMs);
+            conn.setDoOutput(true);
+            conn.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = conn.getOutputStream()) {
+                out.write(payload);
+            }
+            AppLog.d(TAG, "Chat push sent").kv("http", conn.getResponseCode()).log();
+        } catch (Exception e) {
+            AppLog.w(TAG, "Chat push failed").err(e).log();
+        } finally {
+            if (conn != null)
+                conn.disconnect();
+        }
+    }
+
+    // ─── Notification states ──────────────────────────────────────────────────
+
+    private static NotificationCompat.Builder base(Context context, int notificationId, String title, String body,
+            Map<String, String> data) {
+        return NotificationDispatcher.builder(context, notificationId, title, body, data.get("jobId"),
+                NotificationActionSet.type(data));
+    }
+
+    /** Optimistic state: the action is shown as done-in-progress, buttons removed. */
+    private static void showProgress(Context context, int notificationId, String title, String body,
+            Map<String, String> data, String action, String reply) {
+        NotificationCompat.Builder b = base(context, notificationId, title, body, data)
+                .setSubText(NotificationActionSet.progressText(action))
+                .setProgress(0, 0, true)
+                .setOnlyAlertOnce(true);
+        if (!reply.isEmpty())
+            b.setRemoteInputHistory(new CharSequence[] { reply });
+        NotificationDispatcher.notify(context, notificationId, b);
+    }
+
+    private static void showRetry(Context context, int notificationId, String title, String body,
+            Map<String, String> data, String action, String reply, String writeId) {
+        Intent retry = intent(context, action, notificationId, title, body, toBundle(data))
+                .putExtra(EXTRA_WRITE_ID, writeId)
+                .putExtra(EXTRA_REPLY_TEXT, reply);
+        String text = NotificationActionSet.failureText(action);
+        NotificationDispatcher.notify(context, notificationId, base(context, notificationId, title, text, data)
+                .setOnlyAlertOnce(true)
+                .addAction(0, "Retry", pendingIntent(context, notificationId,
+                        NotificationActionSet.MAX_ACTIONS, retry, false)));
+    }
+
+    private static void showRefused(Context context, int notificationId, String title, Map<String, String> data,
+            String reason) {
+        NotificationDispatcher.notify(context, notificationId, base(context, notificationId, title, reason, data)
+                .setOnlyAlertOnce(true));
+    }
+
+    // ─── Helpers ──────────────────────────────────────────────────────────────
+
+    /** Waits up to ATTEMPT_TIMEOUT_MS, and never past {@code deadline} (elapsedRealtime). */
+    private static <T> T await(Task<T> task, long deadline) throws Exception {
+        long timeoutMs = Math.min(NotificationActionSet.ATTEMPT_TIMEOUT_MS, deadline - SystemClock.elapsedRealtime());
+        if (timeoutMs <= 0)
+            throw new TimeoutException("Action budget used up");
+        try {
+            return Tasks.await(task, timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } catch (TimeoutException e) {
+            throw new TimeoutException("No server acknowledgement within " + timeoutMs + " ms");
+        }
+    }
+
+    private static boolean isPermanent(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException))
+            return false;
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case PERMISSION_DENIED:
+            case NOT_FOUND:
+            case FAILED_PRECONDITION:
+            case INVALID_ARGUMENT:
+            case UNAUTHENTICATED:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String replyText(Intent intent) {
+        Bundle results = RemoteInput.getResultsFromIntent(intent);
+        CharSequence typed = results != null ? results.getCharSequence(REMOTE_INPUT_KEY) : null;
+        if (typed == null)
+            typed = intent.getStringExtra(EXTRA_REPLY_TEXT);
+        return typed != null ? typed.toString().trim() : "";
+    }
+
+    private static Object firstNonNull(Object... values) {
+        for (Object v : values) {
+            if (v != null)
+                return v;
+        }
+        return null;
+    }
+
+    private static Bundle toBundle(Map<String, String> data) {
+        Bundle b = new Bundle();
+        for (Map.Entry<String, String> e : data.entrySet())
+            b.putString(e.getKey(), e.getValue());
+        return b;
+    }
+
+    private static Map<String, String> fromBundle(Bundle b) {
+        Map<String, String> out = new HashMap<>();
+        if (b == null)
+            return out;
+        for (String key : b.keySet()) {
+            String v = b.getString(key);
+            if (v != null)
+                out.put(key, v);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,124 @@
+package com.needyou.app;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+import androidx.core.app.NotificationCompat;
+
+import java.util.Map;
+
+/**
+ * NotificationDispatcher
+ *
+ * The one place that creates the NeedYou notification channel and posts
+ * system notifications. Used by MainActivity (foreground, via
+ * NeedYouBridge.showNotification) and by MyFirebaseMessagingService, which
+ * runs in the lightweight ":push" process — so this class must not touch
+ * anything that only exists in the main app process.
+ */
+public final class NotificationDispatcher {
+
+    public static final String CHANNEL_ID = "needyou_notifications";
+    private static final String CHANNEL_NAME = "NeedYou Notifications";
+    private static final int BANNER_ID_BASE = 1_000_000;
+    private static final int BANNER_ID_RANGE = 100_000_000;
+
+    private NotificationDispatcher() {
+    }
+
+    /** Creates the notification channel on Android 8+ (safe to call multiple times). */
+    public static void ensureChannel(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+            if (nm != null && nm.getNotificationChannel(CHANNEL_ID) == null) {
+                NotificationChannel channel = new NotificationChannel(
+                        CHANNEL_ID, CHANNEL_NAME, NotificationManager.IMPORTANCE_HIGH);
+                channel.setDescription("Job and application alerts from NeedYou");
+                channel.enableVibration(true);
+                nm.createNotificationChannel(channel);
+            }
+        }
+    }
+
+    /**
+     * Posts a banner that re-opens MainActivity, carrying jobId /
+     * notificationType as deep-link extras when present.
+     */
+    public static void post(Context context, int notificationId, String title, String body,
+            String jobId, String notificationType) {
+        post(context, notificationId, title, body, jobId, notificationType, null);
+    }
+
+    /**
+     * As above, plus the action buttons NotificationActions offers for the
+     * push {@code data} (hire/decline, inline reply, mark as read).
+     */
+    public static void post(Context context, int notificationId, String title, String body,
+            String jobId, String notificationType, Map<String, String> data) {
+        NotificationCompat.Builder builder = builder(context, notificationId, title, body, jobId, notificationType);
+        if (data != null)
+            NotificationActions.addTo(builder, context, notificationId, title, body, data);
+        notify(context, notificationId, builder);
+    }
+
+    /** The standard NeedYou banner, without actions. */
+    static NotificationCompat.Builder builder(Context context, int notificationId, String title, String body,
+            String jobId, String notificationType) {
+        ensureChannel(context);
+
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+        if (jobId != null && !jobId.isEmpty()) {
+            intent.putExtra("jobId", jobId);
+        }
+        if (notificationType != null && !notificationType.isEmpty()) {
+            intent.putExtra("notificationType", notificationType);
+        }
+
+        int piFlags = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+                : PendingIntent.FLAG_UPDATE_CURRENT;
+
+        PendingIntent pendingIntent = PendingIntent.getActivity(context, notificationId, intent, piFlags);
+
+        String safeTitle = title != null ? title : "NeedYou";
+        String safeBody = body != null ? body : "";
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_stat_notification)
+                .setColor(0xFF1E5EFF)
+                .setContentTitle(safeTitle)
+                .setContentText(safeBody)
+                .setStyle(new NotificationCompat.BigTextStyle().bigText(safeBody))
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setAutoCancel(true)
+                // Updates of a banner already showing (redelivery, action progress) stay silent
+                .setOnlyAlertOnce(true)
+                .setContentIntent(pendingIntent);
+    }
+
+    /**
+     * Banner id for a push carrying a Firestore notification id: the same id
+     * every time, so a redelivered push replaces its banner instead of adding
+     * a second one. Kept above the counter ids (1000+, 2000+) and small
+     * enough for NotificationActions' per-button request codes.
+     */
+    static int bannerId(String notificationId) {
+        return BANNER_ID_BASE + (notificationId.hashCode() & 0x7fffffff) % BANNER_ID_RANGE;
+    }
+
+    static void notify(Context context, int notificationId, NotificationCompat.Builder builder) {
+        NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (nm != null)
+            nm.notify(notificationId, builder.build());
+    }
+
+    static void cancel(Context context, int notificationId) {
+        NotificationManager nm = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (nm != null)
+            nm.cancel(notificationId);
+    }
+}
@@ -0,0 +1,235 @@
+package com.needyou.app;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * NotificationMirror
+ *
+ * Local SQLite copy of the signed-in user's Firestore "notifications"
+ * collection. The page forwards its listener's docChanges via
+ * NeedYouBridge.syncNotifications(), and MyFirebaseMessagingService inserts
+ * a row as soon as a push arrives, so the unread count and the first page are
+ * available natively at launch without holding the whole history in the
+ * WebView heap.
+ *
+ * Pages are keyset-paged on (createdAt DESC, id DESC): the cursor is the
+ * createdAt + id of the last row of the previous page.
+ */
+public class NotificationMirror extends SQLiteOpenHelper {
+
+    private static final String TAG = "NeedYouNotifMirror";
+    private static final String DB_NAME = "notification_mirror.db";
+    private static final int DB_VERSION = 1;
+    private static final String TABLE = "notifications";
+
+    /** Largest page the bridge will return in one call. */
+    static final int MAX_PAGE = 100;
+
+    private static NotificationMirror instance;
+
+    private NotificationMirror(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+    }
+
+    public static synchronized NotificationMirror get(Context context) {
+        if (instance == null)
+            instance = new NotificationMirror(context);
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "id TEXT PRIMARY KEY,"
+                + "user_id TEXT NOT NULL,"
+                + "created_at INTEGER NOT NULL,"
+                + "read INTEGER NOT NULL DEFAULT 0,"
+                + "doc TEXT NOT NULL)");
+        db.execSQL("CREATE INDEX idx_notif_user_time ON " + TABLE + " (user_id, created_at DESC, id DESC)");
+        db.execSQL("CREATE INDEX idx_notif_user_unread ON " + TABLE + " (user_id, read)");
+        db.execSQL("CREATE TABLE sync_state (user_id TEXT PRIMARY KEY, seeded INTEGER NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        db.execSQL("DROP TABLE IF EXISTS sync_state");
+        onCreate(db);
+    }
+
+    // ─── Writes ───────────────────────────────────────────────────────────────
+
+    /**
+     * Applies a batch of listener changes:
+     * [{"op":"upsert","doc":{...}} | {"op":"remove","id":"..."}].
+     * {@code seeded} marks that the page has mirrored the full history once.
+     */
+    public void applyChanges(String userId, String changesJson, boolean seeded) {
+        if (userId == null || userId.isEmpty() || changesJson == null)
+            return;
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            JSONArray changes = new JSONArray(changesJson);
+            for (int i = 0; i < changes.length(); i++) {
+                JSONObject change = changes.getJSONObject(i);
+                if ("remove".equals(change.optString("op"))) {
+                    db.delete(TABLE, "id = ? AND user_id = ?",
+                            new String[] { change.optString("id"), userId });
+                } else {
+                    upsert(db, userId, change.getJSONObject("doc"));
+                }
+            }
+            if (seeded) {
+                ContentValues cv = new ContentValues();
+                cv.put("user_id", userId);
+                cv.put("seeded", 1);
+                db.insertWithOnConflict("sync_state", null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            db.setTransactionSuccessful();
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Bad notification changes JSON").err(e).log();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Inserts a notification document (must contain "id") unless a row with
+     * the same id already exists — the listener's copy is always authoritative.
+     */
+    public void insertIfAbsent(String userId, JSONObject doc) {
+        try {
+            getWritableDatabase().insertWithOnConflict(TABLE, null, toValues(userId, doc),
+                    SQLiteDatabase.CONFLICT_IGNORE);
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Bad notification doc").err(e).log();
+        }
+    }
+
+    private static void upsert(SQLiteDatabase db, String userId, JSONObject doc) throws JSONException {
+        db.insertWithOnConflict(TABLE, null, toValues(userId, doc), SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private static ContentValues toValues(String userId, JSONObject doc) throws JSONException {
+        ContentValues cv = new ContentValues();
+        cv.put("id", doc.getString("id"));
+        cv.put("user_id", userId);
+        cv.put("created_at", doc.optLong("createdAt", System.currentTimeMillis()));
+        cv.put("read", doc.optBoolean("read", false) ? 1 : 0);
+        cv.put("doc", doc.toString());
+        return cv;
+    }
+
+    /** Marks the given ids read, or every notification of the user when ids is null. */
+    public void markRead(String userId, String[] ids) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            String where = "user_id = ? AND read = 0";
+            String[] args = new String[] { userId };
+            if (ids != null) {
+                for (String id : ids) {
+                    Cursor c = db.query(TABLE, new String[] { "doc" }, where + " AND id = ?",
+                            new String[] { userId, id }, null, null, null);
+                    try {
+                        if (c.moveToFirst())
+                            upsert(db, userId, new JSONObject(c.getString(0)).put("read", true));
+                    } finally {
+                        c.close();
+                    }
+                }
+            } else {
+                Cursor c = db.query(TABLE, new String[] { "doc" }, where, args, null, null, null);
+                try {
+                    while (c.moveToNext())
+                        upsert(db, userId, new JSONObject(c.getString(0)).put("read", true));
+                } finally {
+                    c.close();
+                }
+            }
+            db.setTransactionSuccessful();
+        } catch (JSONException e) {
+            AppLog.e(TAG, "markRead failed").err(e).log();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Drops everything mirrored for other users (called on sign-in as a new user). */
+    public void retainOnly(String userId) {
+        SQLiteDatabase db = getWritableDatabase();
+        db.delete(TABLE, "user_id != ?", new String[] { userId });
+        db.delete("sync_state", "user_id != ?", new String[] { userId });
+    }
+
+    // ─── Queries ──────────────────────────────────────────────────────────────
+
+    public boolean isSeeded(String userId) {
+        return DatabaseUtils.longForQuery(getReadableDatabase(),
+                "SELECT COUNT(*) FROM sync_state WHERE user_id = ? AND seeded = 1",
+                new String[] { userId }) > 0;
+    }
+
+    public int unreadCount(String userId) {
+        return (int) DatabaseUtils.longForQuery(getReadableDatabase(),
+                "SELECT COUNT(*) FROM " + TABLE + " WHERE user_id = ? AND read = 0",
+                new String[] { userId });
+    }
+
+    /**
+     * Returns {"items":[...], "nextCursor":{"createdAt":..,"id":".."} | null}.
+     * Pass cursorCreatedAt <= 0 for the first page.
+     */
+    public String page(String userId, long cursorCreatedAt, String cursorId, int limit) {
+        int n = Math.max(1, Math.min(limit, MAX_PAGE));
+        String where;
+        String[] args;
+        if (cursorCreatedAt > 0 && cursorId != null) {
+            where = "user_id = ? AND (created_at < ? OR (created_at = ? AND id < ?))";
+            String ts = Long.toString(cursorCreatedAt);
+            args = new String[] { userId, ts, ts, cursorId };
+        } else {
+            where = "user_id = ?";
+            args = new String[] { userId };
+        }
+
+        JSONArray items = new JSONArray();
+        JSONObject next = null;
+        Cursor c = getReadableDatabase().query(TABLE, new String[] { "id", "created_at", "doc" },
+                where, args, null, null, "created_at DESC, id DESC", Integer.toString(n + 1));
+        try {
+            int row = 0;
+            while (c.moveToNext()) {
+                if (row == n) {
+                    // One extra row tells us whether another page exists
+                    c.moveToPrevious();
+                    next = new JSONObject()
+                            .put("createdAt", c.getLong(1))
+                            .put("id", c.getString(0));
+                    break;
+                }
+                items.put(new JSONObject(c.getString(2)));
+                row++;
+            }
+            return new JSONObject()
+                    .put("items", items)
+                    .put("nextCursor", next != null ? next : JSONObject.NULL)
+                    .toString();
+        } catch (JSONException e) {
+            AppLog.e(TAG, "Page build failed").err(e).log();
+            return "{\"items\":[],\"nextCursor\":null}";
+        } finally {
+            c.close();
+        }
+    }
+}
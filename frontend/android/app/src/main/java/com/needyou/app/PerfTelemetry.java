@@ -0,0 +1,325 @@
+package com.needyou.app;
+
+import android.app.Activity;
+import android.content.Context;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * PerfTelemetry
+ *
+ * Always-on runtime telemetry for MainActivity: frame durations of the
+ * activity window, per-NeedYouBridge-method call latency, launch-to-first-page
+ * time per launch mode and periodic process memory snapshots (heap every
+ * 10 s, PSS every 5 min). Everything is recorded into fixed-bucket histograms whose
+ * record() path is a bucket search plus atomic increments — no allocation,
+ * no locks.
+ *
+ * Read from JS with NeedYouBridge.getPerfTelemetry(); dumped to a JSON file
+ * for bug reports with NeedYouBridge.exportPerfTelemetry().
+ */
+public class PerfTelemetry {
+
+    private static final String TAG = "NeedYouPerf";
+    private static final long MEMORY_SAMPLE_MS = 10_000;
+    /**
+     * Debug.getPss() walks /proc/self/smaps (tens of ms on a big heap), so it
+     * is sampled far less often than the heap counters.
+     */
+    private static final long PSS_SAMPLE_MS = 5 * 60_000;
+
+    /** Latency buckets, microseconds. */
+    static final long[] LATENCY_BOUNDS_US = {
+            50, 100, 250, 500, 1_000, 2_000, 4_000, 8_000, 16_700, 33_300,
+            66_700, 133_000, 250_000, 500_000, 1_000_000, 5_000_000 };
+
+    /** Memory buckets, megabytes. */
+    static final long[] MEMORY_BOUNDS_MB = { 16, 32, 48, 64, 96, 128, 192, 256, 384, 512, 768, 1024 };
+
+    // ─── Histogram ────────────────────────────────────────────────────────────
+
+    /**
+     * Fixed-bucket histogram. Bucket i counts values <= bounds[i]; the last
+     * bucket counts everything larger than the final bound.
+     */
+    public static final class Histogram {
+        private final long[] bounds;
+        private final AtomicLongArray counts;
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        Histogram(long[] bounds) {
+            this.bounds = bounds;
+            this.counts = new AtomicLongArray(bounds.length + 1);
+        }
+
+        public void record(long value) {
+            int lo = 0, hi = bounds.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (value <= bounds[mid])
+                    hi = mid;
+                else
+                    lo = mid + 1;
+            }
+            counts.incrementAndGet(lo);
+            total.incrementAndGet();
+            sum.addAndGet(value);
+            long m;
+            while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+                // retry until we either lose to a larger value or win the CAS
+            }
+        }
+
+        public long count() {
+            return total.get();
+        }
+
+        /** Upper bound of the bucket containing the p-th percentile (0..100). */
+        public long percentile(double p) {
+            long n = total.get();
+            if (n == 0)
+                return 0;
+            long rank = (long) Math.ceil(n * p / 100.0);
+            long seen = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                seen += counts.get(i);
+                if (seen >= rank)
+                    return i < bounds.length ? bounds[i] : max.get();
+            }
+            return max.get();
+        }
+
+        JSONObject toJson() throws JSONException {
+            long n = total.get();
+            JSONObject o = new JSONObject()
+                    .put("count", n)
+                    .put("mean", n == 0 ? 0 : sum.get() / n)
+                    .put("max", max.get())
+                    .put("p50", percentile(50))
+                    .put("p90", percentile(90))
+                    .put("p99", percentile(99));
+            org.json.JSONArray b = new org.json.JSONArray();
+            for (int i = 0; i < counts.length(); i++) {
+                b.put(new JSONObject()
+                        .put("le", i < bounds.length ? bounds[i] : -1)
+                        .put("n", counts.get(i)));
+            }
+            return o.put("buckets", b);
+        }
+    }
+
+    // ─── Singleton ────────────────────────────────────────────────────────────
+
+    private static PerfTelemetry instance;
+
+    private final Context appContext;
+    private final long startedAt = System.currentTimeMillis();
+
+    final Histogram frameUs = new Histogram(LATENCY_BOUNDS_US);
+    final AtomicLong jankFrames = new AtomicLong();
+    final AtomicLong frozenFrames = new AtomicLong();
+    final Histogram javaHeapMb = new Histogram(MEMORY_BOUNDS_MB);
+    final Histogram nativeHeapMb = new Histogram(MEMORY_BOUNDS_MB);
+    final Histogram pssMb = new Histogram(MEMORY_BOUNDS_MB);
+    private final Map<String, Histogram> bridgeUs = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> launchUs = new ConcurrentHashMap<>();
+    private volatile String lastGcCount = "";
+    /** SystemClock.elapsedRealtime() of the last PSS sample; telemetry thread only. */
+    private long lastPssAt = Long.MIN_VALUE / 2;
+
+    private HandlerThread thread;
+    private Handler handler;
+    private Window.OnFrameMetricsAvailableListener frameListener;
+
+    private PerfTelemetry(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    public static synchronized PerfTelemetry get(Context context) {
+        if (instance == null)
+            instance = new PerfTelemetry(context);
+        return instance;
+    }
+
+    // ─── Lifecycle ────────────────────────────────────────────────────────────
+
+    /** Starts the telemetry thread and periodic memory sampling. Idempotent. */
+    public synchronized void start() {
+        if (thread != null)
+            return;
+        thread = new HandlerThread("NeedYouPerf");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                sampleMemory();
+                handler.postDelayed(this, MEMORY_SAMPLE_MS);
+            }
+        });
+    }
+
+    /** Records frame durations of the activity's window until detachFrom(). */
+    public synchronized void attachTo(Activity activity) {
+        start();
+        if (frameListener != null)
+            return;
+        frameListener = (window, metrics, dropped) -> {
+            long us = metrics.getMetric(FrameMetrics.TOTAL_DURATION) / 1_000;
+            frameUs.record(us);
+            if (us > 16_700)
+                jankFrames.incrementAndGet();
+            if (us > 700_000)
+                frozenFrames.incrementAndGet();
+        };
+        activity.getWindow().addOnFrameMetricsAvailableListener(frameListener, handler);
+    }
+
+    public synchronized void detachFrom(Activity activity) {
+        if (frameListener == null)
+            return;
+        try {
+            activity.getWindow().removeOnFrameMetricsAvailableListener(frameListener);
+        } catch (IllegalArgumentException ignored) {
+            // Window already torn down
+        }
+        frameListener = null;
+    }
+
+    // ─── Recording ────────────────────────────────────────────────────────────
+
+    /** Runs a bridge method body on the calling thread and records its latency. */
+    public <T> T timed(String method, Supplier<T> body) {
+        long t0 = System.nanoTime();
+        try {
+            return body.get();
+        } finally {
+            bridgeHistogram(method).record((System.nanoTime() - t0) / 1_000);
+        }
+    }
+
+    /** {@link #timed} for bridge methods without a result. */
+    public void timedRun(String method, Runnable body) {
+        long t0 = System.nanoTime();
+        try {
+            body.run();
+        } finally {
+            bridgeHistogram(method).record((System.nanoTime() - t0) / 1_000);
+        }
+    }
+
+    /**
+     * Wraps a runOnUiThread body so the recorded latency covers the hop to the
+     * main thread plus the UI work itself.
+     */
+    public Runnable timedUi(String method, Runnable body) {
+        final long t0 = System.nanoTime();
+        final Histogram h = bridgeHistogram(method);
+        return () -> {
+            try {
+                body.run();
+            } finally {
+                h.record((System.nanoTime() - t0) / 1_000);
+            }
+        };
+    }
+
+    /**
+     * Records the time from MainActivity.onCreate ({@code startNanos}) to the
+     * first app page loaded, keyed by how the launch went ("splash", "resume",
+     * "restore").
+     */
+    public void recordLaunch(String mode, long startNanos) {
+        launchUs.computeIfAbsent(mode, k -> new Histogram(LATENCY_BOUNDS_US))
+                .record((System.nanoTime() - startNanos) / 1_000);
+    }
+
+    private Histogram bridgeHistogram(String method) {
+        Histogram h = bridgeUs.get(method);
+        if (h == null)
+            h = bridgeUs.computeIfAbsent(method, k -> new Histogram(LATENCY_BOUNDS_US));
+        return h;
+    }
+
+    private void sampleMemory() {
+        Runtime rt = Runtime.getRuntime();
+        javaHeapMb.record((rt.totalMemory() - rt.freeMemory()) >> 20);
+        nativeHeapMb.record(Debug.getNativeHeapAllocatedSize() >> 20);
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastPssAt >= PSS_SAMPLE_MS) {
+            lastPssAt = now;
+            pssMb.record(Debug.getPss() >> 10);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            String gc = Debug.getRuntimeStat("art.gc.gc-count");
+            if (gc != null)
+                lastGcCount = gc;
+        }
+    }
+
+    // ─── Reporting ────────────────────────────────────────────────────────────
+
+    public String toJson() {
+        try {
+            JSONObject bridge = new JSONObject();
+            for (Map.Entry<String, Histogram> e : bridgeUs.entrySet())
+                bridge.put(e.getKey(), e.getValue().toJson());
+            JSONObject launch = new JSONObject();
+            for (Map.Entry<String, Histogram> e : launchUs.entrySet())
+                launch.put(e.getKey(), e.getValue().toJson());
+            return new JSONObject()
+                    .put("startedAt", startedAt)
+                    .put("uptimeMs", SystemClock.elapsedRealtime())
+                    .put("device", Build.MANUFACTURER + " " + Build.MODEL + " / API " + Build.VERSION.SDK_INT)
+                    .put("frameUs", frameUs.toJson())
+                    .put("jankFrames", jankFrames.get())
+                    .put("frozenFrames", frozenFrames.get())
+                    .put("bridgeUs", bridge)
+                    .put("launchUs", launch)
+                    .put("javaHeapMb", javaHeapMb.toJson())
+                    .put("nativeHeapMb", nativeHeapMb.toJson())
+                    .put("pssMb", pssMb.toJson())
+                    .put("gcCount", lastGcCount)
+                    .toString();
+        } catch (JSONException e) {
+            return "{}";
+        }
+    }
+
+    /** Writes the current snapshot to files/telemetry/perf-<ts>.json and returns its path, or "". */
+    public String exportToFile() {
+        File dir = new File(appContext.getExternalFilesDir(null) != null
+                ? appContext.getExternalFilesDir(null)
+                : appContext.getFilesDir(), "telemetry");
+        if (!dir.exists() && !dir.mkdirs())
+            return "";
+        File out = new File(dir, "perf-" + System.currentTimeMillis() + ".json");
+        try (FileOutputStream fos = new FileOutputStream(out)) {
+            fos.write(toJson().getBytes(StandardCharsets.UTF_8));
+            return out.getAbsolutePath();
+        } catch (IOException e) {
+            AppLog.e(TAG, "Telemetry export failed").err(e).log();
+            return "";
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.needyou.app;
+
+import android.content.Context;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.UnaryOperator;
+
+/**
+ * ProcessSafeStore
+ *
+ * Tiny string key/value store shared between the main app process and the
+ * ":push" process that runs MyFirebaseMessagingService. SharedPreferences
+ * caches in memory per process and is not safe across processes, so values
+ * both sides need (FCM token, signed-in user id, push timing) live here.
+ *
+ * Every access takes an exclusive file lock and reads the file fresh; writes
+ * go through a temp file + rename. File locks are held per JVM, not per
+ * thread — a second lock() in the same process throws
+ * OverlappingFileLockException — so callers in one process are serialised
+ * on {@link #IN_PROCESS} before the file lock is taken. Values are small and accessed rarely, so
+ * this costs well under a millisecond.
+ */
+public final class ProcessSafeStore {
+
+    private static final String TAG = "NeedYouStore";
+    private static final String FILE_NAME = "shared_state.json";
+
+    public static final String KEY_FCM_TOKEN = "fcmToken";
+    public static final String KEY_NOTIF_USER_ID = "notifUserId";
+    /** "pid,conversationId" of the chat open in the resumed main process; absent otherwise. */
+    public static final String KEY_FOREGROUND_CONVERSATION = "foregroundConversation";
+
+    /** Serialises this process's callers; the file lock only excludes the other process. */
+    private static final Object IN_PROCESS = new Object();
+
+    private ProcessSafeStore() {
+    }
+
+    public static String get(Context context, String key, String fallback) {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        synchronized (IN_PROCESS) {
+            try (RandomAccessFile lockFile = new RandomAccessFile(lockFile(context), "rw");
+                    FileLock ignored = lockFile.getChannel().lock()) {
+                return read(file).optString(key, fallback);
+            } catch (IOException | OverlappingFileLockException e) {
+                AppLog.e(TAG, "Read failed").kv("key", key).err(e).log();
+                return fallback;
+            }
+        }
+    }
+
+    public static void put(Context context, String key, String value) {
+        update(context, key, current -> value);
+    }
+
+    /**
+     * Replaces the value of {@code key} with {@code fn(current)} under a single
+     * lock, so read-modify-write updates from both processes are never lost.
+     * Returns the new value (null removes the key). {@code fn} must not use
+     * the store itself.
+     */
+    public static String update(Context context, String key, UnaryOperator<String> fn) {
+        File file = new File(context.getFilesDir(), FILE_NAME);
+        synchronized (IN_PROCESS) {
+            try (RandomAccessFile lockFile = new RandomAccessFile(lockFile(context), "rw");
+                    FileLock ignored = lockFile.getChannel().lock()) {
+                JSONObject state = read(file);
+                String value = fn.apply(state.has(key) ? state.optString(key) : null);
+                if (value == null)
+                    state.remove(key);
+                else
+                    state.put(key, value);
+                File tmp = new File(context.getFilesDir(), FILE_NAME + ".tmp");
+                try (FileOutputStream out = new FileOutputStream(tmp)) {
+                    out.write(state.toString().getBytes(StandardCharsets.UTF_8));
+                    out.getFD().sync();
+                }
+                if (!tmp.renameTo(file))
+                    throw new IOException("rename failed");
+                return value;
+            } catch (IOException | JSONException | OverlappingFileLockException e) {
+                AppLog.e(TAG, "Write failed").kv("key", key).err(e).log();
+                return null;
+            }
+        }
+    }
+
+    private static File lockFile(Context context) {
+        return new File(context.getFilesDir(), FILE_NAME + ".lock");
+    }
+
+    private static JSONObject read(File file) {
+        if (!file.isFile())
+            return new JSONObject();
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] buf = new byte[(int) file.length()];
+            int off = 0, n;
+            while (off < buf.length && (n = in.read(buf, off, buf.length - off)) > 0)
+                off += n;
+            return new JSONObject(new String(buf, 0, off, StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            return new JSONObject();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.needyou.app;
+
+import android.content.BroadcastReceiver;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ReceiverBudget
+ *
+ * goAsync() with a deadline. A receiver's PendingResult must be finished
+ * within about 10 s or the system treats the broadcast as an ANR; network
+ * work with its own retries and timeouts can easily run past that. The
+ * finisher returned here may be called any number of times from any thread
+ * and finishes the broadcast at most once — when the work is done or when
+ * the budget runs out, whichever comes first. Work still running at the
+ * deadline carries on for as long as the process lives.
+ */
+final class ReceiverBudget {
+
+    /** Default budget, kept well under the 10 s broadcast timeout. */
+    static final long DEFAULT_MS = 8_000;
+
+    private static Handler timer;
+
+    private ReceiverBudget() {
+    }
+
+    /** Finisher for {@code result} that also fires by itself after {@code budgetMs}. */
+    static Runnable finishWithin(BroadcastReceiver.PendingResult result, long budgetMs, String tag) {
+        AtomicBoolean finished = new AtomicBoolean();
+        Runnable finish = () -> {
+            if (finished.compareAndSet(false, true))
+                result.finish();
+        };
+        timer().postDelayed(() -> {
+            if (!finished.get())
+                AppLog.w(tag, "Receiver budget used up").kv("ms", budgetMs).log();
+            finish.run();
+        }, budgetMs);
+        return finish;
+    }
+
+    private static synchronized Handler timer() {
+        if (timer == null)
+            timer = new Handler(Looper.getMainLooper());
+        return timer;
+    }
+}
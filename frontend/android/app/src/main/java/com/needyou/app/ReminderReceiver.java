@@ -0,0 +1,36 @@
+package com.needyou.app;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * ReminderReceiver
+ *
+ * Fires ReminderScheduler alarms, and re-registers all persisted reminders
+ * after a reboot or app update (AlarmManager forgets alarms on both).
+ */
+public class ReminderReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        // Prefs and AlarmManager work stays off the main thread; goAsync()
+        // keeps the process alive until it is done
+        PendingResult result = goAsync();
+        AppExecutors.get().io().execute(() -> {
+            try {
+                if (ReminderScheduler.ACTION_FIRE.equals(action)) {
+                    String id = intent.getStringExtra(ReminderScheduler.EXTRA_ID);
+                    if (id != null)
+                        ReminderScheduler.get(context).fire(id);
+                } else if (Intent.ACTION_BOOT_COMPLETED.equals(action)
+                        || Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
+                    ReminderScheduler.get(context).rescheduleAll();
+                }
+            } finally {
+                result.finish();
+            }
+        });
+    }
+}
@@ -0,0 +1,197 @@
+package com.needyou.app;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Build;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ReminderScheduler
+ *
+ * Local, time-based reminders (meeting-code expiry, start-code expiry, bills
+ * awaiting review, ...) that fire without the page being open and without a
+ * server push. Reminders are persisted in SharedPreferences "NeedYouReminders"
+ * (id → JSON) and registered with AlarmManager; ReminderReceiver posts them
+ * through NotificationDispatcher and re-registers everything after a reboot
+ * or app update, since alarms do not survive either. Reminders belong to
+ * the signed-in user; sign-out drops them all ({@link #cancelAll()}).
+ *
+ * "exact" reminders use setExactAndAllowWhileIdle when the app may schedule
+ * exact alarms; everything else (and exact reminders on Android 12+ without
+ * the permission) gets an inexact window of {@link #WINDOW_MS}.
+ */
+public class ReminderScheduler {
+
+    private static final String TAG = "NeedYouReminders";
+    private static final String PREFS = "NeedYouReminders";
+
+    /** Allowed delivery delay for inexact reminders. */
+    static final long WINDOW_MS = 10 * 60 * 1000;
+
+    /** Reminders more than this far in the past are dropped instead of fired late. */
+    static final long STALE_MS = 60 * 60 * 1000;
+
+    private static final int REMINDER_ID_BASE = 200_000_000;
+
+    static final String ACTION_FIRE = "com.needyou.app.REMINDER_FIRE";
+    static final String EXTRA_ID = "reminderId";
+
+    private static ReminderScheduler instance;
+
+    private final Context appContext;
+    private final SharedPreferences prefs;
+
+    private ReminderScheduler(Context context) {
+        this.appContext = context.getApplicationContext();
+        this.prefs = appContext.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+    }
+
+    public static synchronized ReminderScheduler get(Context context) {
+        if (instance == null)
+            instance = new ReminderScheduler(context);
+        return instance;
+    }
+
+    // ─── Public API ───────────────────────────────────────────────────────────
+
+    /**
+     * Persists and registers a reminder, replacing any reminder with the same
+     * id. Expects {"id","at","title","body"} plus optional "jobId",
+     * "notificationType" and "exact". Returns false for malformed input or a
+     * time already in the past.
+     */
+    public synchronized boolean schedule(JSONObject reminder) {
+        String id = reminder.optString("id", "");
+        long at = reminder.optLong("at", 0);
+        if (id.isEmpty() || at <= System.currentTimeMillis() || reminder.optString("title", "").isEmpty())
+            return false;
+        prefs.edit().putString(id, reminder.toString()).apply();
+        register(id, at, reminder.optBoolean("exact", false));
+        return true;
+    }
+
+    public synchronized void cancel(String id) {
+        if (id == null || !prefs.contains(id))
+            return;
+        prefs.edit().remove(id).apply();
+        AlarmManager am = (AlarmManager) appContext.getSystemService(Context.ALARM_SERVICE);
+        if (am != null)
+            am.cancel(pendingIntent(id));
+    }
+
+    /** Cancels every pending reminder (sign-out). */
+    public synchronized void cancelAll() {
+        AlarmManager am = (AlarmManager) appContext.getSystemService(Context.ALARM_SERVICE);
+        if (am != null) {
+            for (String id : prefs.getAll().keySet())
+                am.cancel(pendingIntent(id));
+        }
+        prefs.edit().clear().apply();
+    }
+
+    /** All pending reminders, soonest first, as a JSON array string. */
+    public synchronized String listJson() {
+        List<JSONObject> sorted = new ArrayList<>();
+        for (Object raw : prefs.getAll().values()) {
+            JSONObject r = parse(raw);
+            if (r != null)
+                sorted.add(r);
+        }
+        sorted.sort((a, b) -> Long.compare(a.optLong("at"), b.optLong("at")));
+        return new JSONArray(sorted).toString();
+    }
+
+    // ─── Receiver callbacks ───────────────────────────────────────────────────
+
+    /** Alarm fired: post the notification and forget the reminder. */
+    synchronized void fire(String id) {
+        JSONObject r = parse(prefs.getString(id, null));
+        prefs.edit().remove(id).apply();
+        if (r == null)
+            return;
+        if (System.currentTimeMillis() - r.optLong("at") > STALE_MS) {
+            AppLog.d(TAG, "Dropping stale reminder").kv("id", id).log();
+            return;
+        }
+        NotificationDispatcher.post(appContext, notificationId(id),
+                r.optString("title"), r.optString("body"),
+                r.optString("jobId", null), r.optString("notificationType", null));
+    }
+
+    /**
+     * Re-registers every persisted reminder (after boot / app update). Ones
+     * whose time passed while the device was off fire now, unless stale.
+     */
+    synchronized void rescheduleAll() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, ?> e : prefs.getAll().entrySet()) {
+            JSONObject r = parse(e.getValue());
+            if (r == null) {
+                prefs.edit().remove(e.getKey()).apply();
+                continue;
+            }
+            long at = r.optLong("at");
+            if (at <= now)
+                fire(e.getKey());
+            else
+                register(e.getKey(), at, r.optBoolean("exact", false));
+        }
+    }
+
+    // ─── Helpers ──────────────────────────────────────────────────────────────
+
+    private void register(String id, long at, boolean exact) {
+        AlarmManager am = (AlarmManager) appContext.getSystemService(Context.ALARM_SERVICE);
+        if (am == null)
+            return;
+        PendingIntent pi = pendingIntent(id);
+        boolean canExact = Build.VERSION.SDK_INT < Build.VERSION_CODES.S || am.canScheduleExactAlarms();
+        if (exact && canExact) {
+            am.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, at, pi);
+        } else {
+            am.setWindow(AlarmManager.RTC_WAKEUP, at, WINDOW_MS, pi);
+        }
+    }
+
+    private PendingIntent pendingIntent(String id) {
+        // The data URI keeps PendingIntents of different reminders distinct
+        Intent intent = new Intent(appContext, ReminderReceiver.class)
+                .setAction(ACTION_FIRE)
+                .setData(Uri.parse("needyou-reminder:" + Uri.encode(id)))
+                .putExtra(EXTRA_ID, id);
+        int flags = Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                ? PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+                : PendingIntent.FLAG_UPDATE_CURRENT;
+        return PendingIntent.getBroadcast(appContext, notificationId(id), intent, flags);
+    }
+
+    /**
+     * Stable per reminder id, in [200,000,000, 208,388,608): clear of the
+     * bridge (1000+), push (2000+) and NotificationDispatcher banner
+     * (1,000,000 – 101,000,000) ids.
+     */
+    private static int notificationId(String id) {
+        return REMINDER_ID_BASE + (id.hashCode() & 0x7fffff);
+    }
+
+    private static JSONObject parse(Object raw) {
+        if (!(raw instanceof String))
+            return null;
+        try {
+            return new JSONObject((String) raw);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.needyou.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+/**
+ * RingLog
+ *
+ * Structured log records kept in a fixed-size ring — first in memory, then in
+ * a memory-mapped file once {@link #attach} is called — so the most recent
+ * history survives process death and can be exported for field debugging.
+ *
+ * A record is one text line: {@code <epochMs> <level> <tag>: <msg> key=value ...}.
+ * Callers build it through an {@link Entry}:
+ * <pre>
+ * AppLog.d(TAG, "Token refreshed").kv("token", token).log();
+ * </pre>
+ * Below the active level {@link #at} returns the shared {@link Entry#NOOP},
+ * whose methods do nothing, so a filtered call costs a compare and a few
+ * empty calls — no string building, no allocation. Enabled records are
+ * encoded straight into a per-thread byte buffer and copied into the ring
+ * under a short lock, also without allocating. Values of the keys in
+ * {@link #REDACTED_KEYS} (tokens, message bodies, URLs such as upi://
+ * payment links) never reach the ring or logcat; only their length and hash
+ * are written, enough to tell whether a token changed.
+ *
+ * Don't log from inside the argument list of an entry being built: both
+ * share the thread's buffer.
+ *
+ * Pure Java so the format, redaction and wrap-around can be unit tested.
+ */
+public final class RingLog {
+
+    // Same values as android.util.Log
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    private static final byte[] LEVEL_CHARS = { '?', '?', 'V', 'D', 'I', 'W', 'E', 'A' };
+
+    // Header: magic, total size, write offset, wrapped flag
+    static final int MAGIC = 0x4E594C47; // "NYLG"
+    static final int HEADER = 16;
+    private static final int OFF_SIZE = 4;
+    private static final int OFF_POS = 8;
+    private static final int OFF_WRAPPED = 12;
+
+    /** Longest record; longer ones are cut off. */
+    static final int MAX_RECORD = 1024;
+    /** Longest tag, message or value within a record. */
+    static final int MAX_VALUE = 256;
+
+    /** Keys whose values are replaced by {@code <redacted len=N #hash>}. */
+    static final String[] REDACTED_KEYS = { "token", "idToken", "customToken", "body", "text", "message", "url" };
+
+    /** Receives enabled records at or above its level, e.g. to forward them to logcat. */
+    public interface Mirror {
+        /**
+         * {@code buf[off, off + len)} is the UTF-8 record from the message on,
+         * without newline; {@code error} is the entry's {@link Entry#err}, if any.
+         */
+        void println(int level, String tag, byte[] buf, int off, int len, Throwable error);
+    }
+
+    private ByteBuffer ring;
+    private int size;
+    private int pos;
+    private boolean wrapped;
+
+    private volatile int minLevel = DEBUG;
+    private volatile Mirror mirror;
+    private volatile int mirrorLevel = Integer.MAX_VALUE;
+
+    private final ThreadLocal<Entry> entries = new ThreadLocal<Entry>() {
+        @Override
+        protected Entry initialValue() {
+            return new Entry(RingLog.this);
+        }
+    };
+
+    /** An in-memory ring of {@code size} bytes, header included. */
+    public RingLog(int size) {
+        this.ring = ByteBuffer.allocate(size);
+        this.size = size;
+        format();
+    }
+
+    /** A ring in {@code file}, resuming the records already there. */
+    public static RingLog open(File file, int size) throws IOException {
+        RingLog log = new RingLog(HEADER + 1);
+        log.attach(file, size);
+        return log;
+    }
+
+    // ─── Configuration ────────────────────────────────────────────────────────
+
+    public void setLevel(int level) {
+        minLevel = level;
+    }
+
+    public int getLevel() {
+        return minLevel;
+    }
+
+    public boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    /** Forwards records at or above {@code level} to {@code mirror}, if any. */
+    public void setMirror(Mirror mirror, int level) {
+        this.mirror = mirror;
+        this.mirrorLevel = level;
+    }
+
+    /**
+     * Moves the ring into a memory-mapped {@code file} of {@code size} bytes.
+     * Records already in the file are kept if it was written by a ring of the
+     * same size; records logged so far in memory are appended after them.
+     */
+    public synchronized void attach(File file, int size) throws IOException {
+        byte[] early = snapshot();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            boolean resume = raf.length() == size;
+            if (!resume)
+                raf.setLength(size);
+            ByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+            // The mapping stays valid after the channel is closed
+            ring = mapped;
+            this.size = size;
+            int savedPos = mapped.getInt(OFF_POS);
+            if (resume && mapped.getInt(0) == MAGIC && mapped.getInt(OFF_SIZE) == size
+                    && savedPos >= HEADER && savedPos < size) {
+                pos = savedPos;
+                wrapped = mapped.get(OFF_WRAPPED) != 0;
+            } else {
+                format();
+            }
+        }
+        if (early.length > 0)
+            write(early, 0, early.length);
+    }
+
+    private void format() {
+        ring.putInt(0, MAGIC);
+        ring.putInt(OFF_SIZE, size);
+        pos = HEADER;
+        wrapped = false;
+        ring.putInt(OFF_POS, pos);
+        ring.put(OFF_WRAPPED, (byte) 0);
+    }
+
+    // ─── Writing ──────────────────────────────────────────────────────────────
+
+    /** Starts a record, or returns {@link Entry#NOOP} below the active level. */
+    public Entry at(int level, String tag, String msg) {
+        if (level < minLevel)
+            return Entry.NOOP;
+        return entries.get().start(level, tag, msg, System.currentTimeMillis());
+    }
+
+    void commit(Entry e) {
+        e.buf[e.len] = '\n';
+        write(e.buf, 0, e.len + 1);
+        Mirror m = mirror;
+        if (m != null && e.level >= mirrorLevel)
+            m.println(e.level, e.tag, e.buf, e.msgStart, e.len - e.msgStart, e.error);
+        e.error = null;
+    }
+
+    private synchronized void write(byte[] bytes, int off, int len) {
+        int data = size - HEADER;
+        if (len > data) { // only the tail fits
+            off += len - data;
+            len = data;
+        }
+        int first = Math.min(len, size - pos);
+        ring.position(pos);
+        ring.put(bytes, off, first);
+        pos += first;
+        if (pos == size || first < len) {
+            wrapped = true;
+            ring.position(HEADER);
+            ring.put(bytes, off + first, len - first);
+            pos = HEADER + len - first;
+        }
+        ring.putInt(OFF_POS, pos);
+        ring.put(OFF_WRAPPED, (byte) (wrapped ? 1 : 0));
+    }
+
+    // ─── Reading ──────────────────────────────────────────────────────────────
+
+    /** The records in this ring, oldest first, as UTF-8 text. */
+    public synchronized byte[] snapshot() {
+        byte[] all = new byte[size];
+        ByteBuffer view = ring.duplicate();
+        view.position(0);
+        view.get(all);
+        return ordered(all);
+    }
+
+    /** The records in a ring file written by another process; empty if unreadable. */
+    public static byte[] read(File file) throws IOException {
+        return ordered(Files.readAllBytes(file.toPath()));
+    }
+
+    private static byte[] ordered(byte[] all) {
+        ByteBuffer b = ByteBuffer.wrap(all);
+        if (all.length <= HEADER || b.getInt(0) != MAGIC || b.getInt(OFF_SIZE) != all.length)
+            return new byte[0];
+        int pos = b.getInt(OFF_POS);
+        if (pos < HEADER || pos >= all.length)
+            return new byte[0];
+        if (b.get(OFF_WRAPPED) == 0) {
+            byte[] out = new byte[pos - HEADER];
+            System.arraycopy(all, HEADER, out, 0, out.length);
+            return out;
+        }
+        // Oldest bytes start at pos; the record cut by the wrap is dropped
+        int tail = all.length - pos;
+        byte[] out = new byte[all.length - HEADER];
+        System.arraycopy(all, pos, out, 0, tail);
+        System.arraycopy(all, HEADER, out, tail, pos - HEADER);
+        int skip = 0;
+        while (skip < out.length && out[skip] != '\n')
+            skip++;
+        if (skip >= out.length)
+            return new byte[0];
+        byte[] trimmed = new byte[out.length - skip - 1];
+        System.arraycopy(out, skip + 1, trimmed, 0, trimmed.length);
+        return trimmed;
+    }
+
+    static boolean isRedacted(String key) {
+        for (String k : REDACTED_KEYS) {
+            if (k.equals(key))
+                return true;
+        }
+        return false;
+    }
+
+    // ─── Entry ────────────────────────────────────────────────────────────────
+
+    /**
+     * One record being built. Every method returns the entry so calls chain;
+     * nothing is written until {@link #log()}.
+     */
+    public static final class Entry {
+
+        /** Returned below the active level; ignores everything. */
+        public static final Entry NOOP = new Entry(null);
+
+        private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+        private final RingLog owner;
+        private final byte[] buf;
+        private int len;
+        private int msgStart;
+        private int level;
+        private String tag;
+        private Throwable error;
+
+        Entry(RingLog owner) {
+            this.owner = owner;
+            this.buf = owner != null ? new byte[MAX_RECORD] : null;
+        }
+
+        Entry start(int level, String tag, String msg, long now) {
+            this.level = level;
+            this.tag = tag;
+            this.error = null;
+            len = 0;
+            appendLong(now);
+            append(' ');
+            append(LEVEL_CHARS[Math.max(0, Math.min(level, LEVEL_CHARS.length - 1))]);
+            append(' ');
+            appendString(tag, MAX_VALUE);
+            append(':');
+            append(' ');
+            msgStart = len;
+            appendString(msg, MAX_VALUE);
+            return this;
+        }
+
+        public Entry kv(String key, String value) {
+            if (owner == null)
+                return this;
+            appendKey(key);
+            if (value == null) {
+                appendString("null", 4);
+            } else if (isRedacted(key)) {
+                appendString("<redacted len=", MAX_VALUE);
+                appendLong(value.length());
+                append(' ');
+                append('#');
+                appendHex(value.hashCode());
+                append('>');
+            } else {
+                appendString(value, MAX_VALUE);
+            }
+            return this;
+        }
+
+        public Entry kv(String key, long value) {
+            if (owner == null)
+                return this;
+            appendKey(key);
+            appendLong(value);
+            return this;
+        }
+
+        public Entry kv(String key, boolean value) {
+            if (owner == null)
+                return this;
+            appendKey(key);
+            appendString(value ? "true" : "false", 5);
+            return this;
+        }
+
+        /** Exception class and message; the stack trace goes to the mirror only. */
+        public Entry err(Throwable t) {
+            if (owner == null || t == null)
+                return this;
+            error = t;
+            appendKey("err");
+            appendString(t.getClass().getName(), MAX_VALUE);
+            String m = t.getMessage();
+            if (m != null) {
+                append(':');
+                append(' ');
+                appendString(m, MAX_VALUE);
+            }
+            return this;
+        }
+
+        public void log() {
+            if (owner != null)
+                owner.commit(this);
+        }
+
+        // ─── Encoding (no allocation) ─────────────────────────────────────────
+
+        private void appendKey(String key) {
+            append(' ');
+            appendString(key, MAX_VALUE);
+            append('=');
+        }
+
+        private void append(int b) {
+            if (len < MAX_RECORD - 1) // keep room for the newline
+                buf[len++] = (byte) b;
+        }
+
+        private void appendLong(long v) {
+            if (v < 0) {
+                append('-');
+                if (v == Long.MIN_VALUE) {
+                    appendString("9223372036854775808", 19);
+                    return;
+                }
+                v = -v;
+            }
+            long div = 1;
+            while (div <= v / 10)
+                div *= 10;
+            for (; div > 0; div /= 10)
+                append((int) ('0' + (v / div) % 10));
+        }
+
+        private void appendHex(int v) {
+            for (int shift = 28; shift >= 0; shift -= 4)
+                append(HEX[(v >>> shift) & 0xF]);
+        }
+
+        /** UTF-8 encodes up to {@code max} bytes of {@code s}; line breaks become spaces. */
+        private void appendString(String s, int max) {
+            if (s == null) {
+                appendString("null", 4);
+                return;
+            }
+            int limit = Math.min(MAX_RECORD - 1, len + max);
+            for (int i = 0, n = s.length(); i < n; i++) {
+                char c = s.charAt(i);
+                if (c < 0x80) {
+                    if (len + 1 > limit)
+                        return;
+                    buf[len++] = (byte) (c == '\n' || c == '\r' ? ' ' : c);
+                } else if (c < 0x800) {
+                    if (len + 2 > limit)
+                        return;
+                    buf[len++] = (byte) (0xC0 | (c >> 6));
+                    buf[len++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    if (len + 4 > limit)
+                        return;
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    buf[len++] = (byte) (0xF0 | (cp >> 18));
+                    buf[len++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buf[len++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buf[len++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) { // unpaired
+                    if (len + 1 > limit)
+                        return;
+                    buf[len++] = '?';
+                } else {
+                    if (len + 3 > limit)
+                        return;
+                    buf[len++] = (byte) (0xE0 | (c >> 12));
+                    buf[len++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buf[len++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.needyou.app;
+
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * TaskScope
+ *
+ * Background and main-thread work owned by one component (an Activity, a
+ * Service, a goAsync() receiver). {@link #cancel()} — called from the owner's
+ * onDestroy — interrupts running tasks, drops queued ones and turns pending
+ * main-thread callbacks into no-ops, so nothing touches a destroyed Activity.
+ *
+ * Exceptions thrown by a task go to the thread's uncaught-exception handler,
+ * exactly as they would from a plain Thread.
+ */
+public class TaskScope {
+
+    private final AppExecutors executors;
+    private final Set<Future<?>> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    TaskScope(AppExecutors executors) {
+        this.executors = executors;
+    }
+
+    public Future<?> io(Runnable task) {
+        return submit(executors.io(), task);
+    }
+
+    public Future<?> compute(Runnable task) {
+        return submit(executors.compute(), task);
+    }
+
+    /** Posts view work to the main thread; skipped if the scope is cancelled first. */
+    public void main(Runnable task) {
+        if (cancelled)
+            return;
+        executors.main().execute(() -> {
+            if (!cancelled)
+                task.run();
+        });
+    }
+
+    /** Runs {@code work} on the IO pool and hands its result to {@code onMain} on the main thread. */
+    public <T> Future<?> ioThenMain(Supplier<T> work, Consumer<T> onMain) {
+        return io(() -> {
+            T value = work.get();
+            main(() -> onMain.accept(value));
+        });
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Future<?> f : running)
+            f.cancel(true);
+        running.clear();
+    }
+
+    private Future<?> submit(Executor pool, Runnable task) {
+        FutureTask<Void> future = new FutureTask<Void>(task, null) {
+            @Override
+            protected void done() {
+                running.remove(this);
+                if (isCancelled())
+                    return;
+                try {
+                    get();
+                } catch (ExecutionException e) {
+                    Thread t = Thread.currentThread();
+                    Thread.UncaughtExceptionHandler h = t.getUncaughtExceptionHandler();
+                    if (h != null)
+                        h.uncaughtException(t, e.getCause());
+                } catch (InterruptedException | CancellationException ignored) {
+                    // Cancelled with the scope
+                }
+            }
+        };
+        if (cancelled) {
+            future.cancel(false);
+            return future;
+        }
+        running.add(future);
+        pool.execute(future);
+        if (cancelled)
+            future.cancel(true); // cancel() ran between the check and add()
+        return future;
+    }
+}
@@ -0,0 +1,349 @@
+package com.needyou.app;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.OpenableColumns;
+import android.util.LruCache;
+import android.util.Size;
+import android.webkit.WebResourceResponse;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ThumbnailStore
+ *
+ * Generates small JPEG previews for media picked through the WebView file
+ * chooser so the page never has to decode a full-size photo or load a whole
+ * video just to show a preview.
+ *
+ * Thumbnails are produced on the shared compute pool, kept in a memory LRU
+ * and on disk in MediaStagingArea's processed/thumbs (so they count against
+ * the staging quota), keyed by a hash of the content URI.
+ * The page loads them as ordinary images from
+ * {@code https://appassets.androidplatform.net/needyou-thumb/<key>.jpg}; the
+ * main WebViewClient answers those requests via {@link #intercept(Uri)}.
+ */
+public class ThumbnailStore {
+
+    private static final String TAG = "NeedYouThumb";
+    public static final String HOST = "appassets.androidplatform.net";
+    public static final String PATH_PREFIX = "/needyou-thumb/";
+
+    /**
+     * Longest edge of a generated thumbnail, in pixels: large enough to stand
+     * in for the photo in MediaPreviewModal's full-screen preview.
+     */
+    static final int MAX_EDGE = 720;
+    private static final int JPEG_QUALITY = 75;
+    private static final int MAX_DISK_FILES = 300;
+
+    private static ThumbnailStore instance;
+
+    private final Context appContext;
+    private File dir; // resolved on first disk access, off the main thread
+    private final LruCache<String, byte[]> memory = new LruCache<String, byte[]>(4 * 1024 * 1024) {
+        @Override
+        protected int sizeOf(String key, byte[] value) {
+            return value.length;
+        }
+    };
+    private final Map<String, Future<byte[]>> inFlight = new HashMap<>();
+
+    // Metadata for the most recent file-chooser result, read by the page.
+    private volatile String lastPickedJson = "[]";
+
+    private ThumbnailStore(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    public static synchronized ThumbnailStore get(Context context) {
+        if (instance == null)
+            instance = new ThumbnailStore(context);
+        return instance;
+    }
+
+    // ─── Public API ───────────────────────────────────────────────────────────
+
+    /** Local URL the page can put in an img src / video poster for {@code uri}. */
+    public static String urlFor(Uri uri) {
+        return "https://" + HOST + PATH_PREFIX + keyFor(uri.toString()) + ".jpg";
+    }
+
+    /**
+     * Starts thumbnail generation for every picked URI and records
+     * [{"name","size","mimeType","thumbUrl"}] for NeedYouBridge.getPickedMediaThumbnails().
+     */
+    public void onMediaPicked(Uri[] uris) {
+        if (uris == null) {
+            lastPickedJson = "[]";
+            return;
+        }
+        JSONArray arr = new JSONArray();
+        for (Uri uri : uris) {
+            if (uri == null)
+                continue;
+            request(uri);
+            try {
+                arr.put(describe(uri));
+            } catch (JSONException e) {
+                AppLog.e(TAG, "Thumbnail metadata error").err(e).log();
+            }
+        }
+        lastPickedJson = arr.toString();
+    }
+
+    public String getLastPickedJson() {
+        return lastPickedJson;
+    }
+
+    /** Queues generation for {@code uri} unless it is cached or already running. */
+    public Future<byte[]> request(Uri uri) {
+        final String key = keyFor(uri.toString());
+        synchronized (inFlight) {
+            Future<byte[]> f = inFlight.get(key);
+            if (f != null)
+                return f;
+            f = AppExecutors.get().compute().submit(() -> {
+                try {
+                    return load(key, uri);
+                } finally {
+                    synchronized (inFlight) {
+                        inFlight.remove(key);
+                    }
+                }
+            });
+            inFlight.put(key, f);
+            return f;
+        }
+    }
+
+    /**
+     * Serves a thumbnail request from the WebView. Runs on the WebView's IO
+     * thread, so waiting briefly for an in-flight generation is fine.
+     * Returns null for URLs this store does not own.
+     */
+    public WebResourceResponse intercept(Uri url) {
+        if (url == null || !HOST.equals(url.getHost()) || url.getPath() == null
+                || !url.getPath().startsWith(PATH_PREFIX))
+            return null;
+        String name = url.getLastPathSegment();
+        String key = name != null && name.endsWith(".jpg") ? name.substring(0, name.length() - 4) : name;
+
+        byte[] bytes = fromCache(key);
+        if (bytes == null) {
+            Future<byte[]> f;
+            synchronized (inFlight) {
+                f = inFlight.get(key);
+            }
+            if (f != null) {
+                try {
+                    bytes = f.get(5, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    AppLog.w(TAG, "Thumbnail wait failed").kv("key", key).log();
+                }
+            }
+        }
+        if (bytes == null)
+            return new WebResourceResponse("image/jpeg", null, 404, "Not Found",
+                    Collections.singletonMap("Access-Control-Allow-Origin", "*"), null);
+
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Access-Control-Allow-Origin", "*");
+        headers.put("Cache-Control", "max-age=86400");
+        return new WebResourceResponse("image/jpeg", null, 200, "OK", headers,
+                new ByteArrayInputStream(bytes));
+    }
+
+    // ─── Generation ───────────────────────────────────────────────────────────
+
+    private byte[] load(String key, Uri uri) {
+        byte[] cached = fromCache(key);
+        if (cached != null)
+            return cached;
+
+        String mime = appContext.getContentResolver().getType(uri);
+        Bitmap bmp = mime != null && mime.startsWith("video/") ? videoFrame(uri) : imageThumb(uri);
+        if (bmp == null)
+            return null;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bmp.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        bmp.recycle();
+        byte[] bytes = out.toByteArray();
+
+        memory.put(key, bytes);
+        writeDisk(key, bytes);
+        return bytes;
+    }
+
+    private Bitmap imageThumb(Uri uri) {
+        ContentResolver cr = appContext.getContentResolver();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            try {
+                return cr.loadThumbnail(uri, new Size(MAX_EDGE, MAX_EDGE), null);
+            } catch (IOException | RuntimeException ignored) {
+                // Fall back to manual downsampling below
+            }
+        }
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = cr.openInputStream(uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight);
+        opts.inPreferredConfig = Bitmap.Config.RGB_565;
+        try (InputStream in = cr.openInputStream(uri)) {
+            return scaleDown(BitmapFactory.decodeStream(in, null, opts));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private Bitmap videoFrame(Uri uri) {
+        MediaMetadataRetriever mmr = new MediaMetadataRetriever();
+        try {
+            mmr.setDataSource(appContext, uri);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+                return mmr.getScaledFrameAtTime(0, MediaMetadataRetriever.OPTION_CLOSEST_SYNC,
+                        MAX_EDGE, MAX_EDGE);
+            }
+            return scaleDown(mmr.getFrameAtTime(0, MediaMetadataRetriever.OPTION_CLOSEST_SYNC));
+        } catch (RuntimeException e) {
+            AppLog.w(TAG, "Video frame extraction failed").err(e).log();
+            return null;
+        } finally {
+            try {
+                mmr.release();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    static int sampleSize(int width, int height) {
+        int sample = 1;
+        while (width / (sample * 2) >= MAX_EDGE && height / (sample * 2) >= MAX_EDGE)
+            sample *= 2;
+        return sample;
+    }
+
+    private static Bitmap scaleDown(Bitmap src) {
+        if (src == null)
+            return null;
+        int w = src.getWidth(), h = src.getHeight();
+        int longest = Math.max(w, h);
+        if (longest <= MAX_EDGE)
+            return src;
+        float f = (float) MAX_EDGE / longest;
+        Bitmap scaled = Bitmap.createScaledBitmap(src, Math.round(w * f), Math.round(h * f), true);
+        if (scaled != src)
+            src.recycle();
+        return scaled;
+    }
+
+    // ─── Cache ────────────────────────────────────────────────────────────────
+
+    private synchronized File dir() {
+        if (dir == null)
+            dir = MediaStagingArea.get(appContext).processedDir("thumbs");
+        return dir;
+    }
+
+    private byte[] fromCache(String key) {
+        byte[] bytes = memory.get(key);
+        if (bytes != null)
+            return bytes;
+        File f = new File(dir(), key + ".jpg");
+        if (!f.exists())
+            return null;
+        try (InputStream in = new FileInputStream(f)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) f.length());
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) > 0)
+                out.write(buf, 0, n);
+            bytes = out.toByteArray();
+            memory.put(key, bytes);
+            f.setLastModified(System.currentTimeMillis());
+            return bytes;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void writeDisk(String key, byte[] bytes) {
+        File dir = dir();
+        if (!dir.exists() && !dir.mkdirs())
+            return;
+        try (FileOutputStream out = new FileOutputStream(new File(dir, key + ".jpg"))) {
+            out.write(bytes);
+        } catch (IOException e) {
+            AppLog.w(TAG, "Thumbnail disk write failed").err(e).log();
+            return;
+        }
+        File[] files = dir.listFiles();
+        if (files != null && files.length > MAX_DISK_FILES) {
+            java.util.Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+            for (int i = 0; i < files.length - MAX_DISK_FILES; i++)
+                files[i].delete();
+        }
+        MediaStagingArea.get(appContext).onProcessedWritten();
+    }
+
+    private JSONObject describe(Uri uri) throws JSONException {
+        String name = null;
+        long size = -1;
+        try (Cursor c = appContext.getContentResolver().query(uri,
+                new String[] { OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE }, null, null, null)) {
+            if (c != null && c.moveToFirst()) {
+                name = c.getString(0);
+                size = c.isNull(1) ? -1 : c.getLong(1);
+            }
+        } catch (RuntimeException ignored) {
+        }
+        String mime = appContext.getContentResolver().getType(uri);
+        return new JSONObject()
+                .put("name", name != null ? name : uri.getLastPathSegment())
+                .put("size", size)
+                .put("mimeType", mime != null ? mime : "")
+                .put("thumbUrl", urlFor(uri));
+    }
+
+    static String keyFor(String uri) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest(uri.getBytes()))
+                sb.append(String.format(Locale.US, "%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(uri.hashCode());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.needyou.app;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TileGrid
+ *
+ * Tiling math for TiledImageView. At a given display scale the image is
+ * decoded at a power-of-two subsample, cut into tiles of {@link #TILE_PX}
+ * decoded pixels; only the tiles intersecting the viewport are needed.
+ * Every size here is in full-resolution image pixels unless noted.
+ *
+ * Pure Java so the math can be unit tested.
+ */
+public final class TileGrid {
+
+    /** Edge of a decoded tile, in bitmap pixels (so a tile covers TILE_PX * sample image pixels). */
+    public static final int TILE_PX = 512;
+
+    /** One tile of the grid for a given subsample. */
+    public static final class Tile {
+        public final int sample;
+        public final int col;
+        public final int row;
+        public final int left;
+        public final int top;
+        public final int right;
+        public final int bottom;
+
+        Tile(int sample, int col, int row, int left, int top, int right, int bottom) {
+            this.sample = sample;
+            this.col = col;
+            this.row = row;
+            this.left = left;
+            this.top = top;
+            this.right = right;
+            this.bottom = bottom;
+        }
+
+        /** Cache key; unique per (sample, col, row). */
+        public long key() {
+            return ((long) Integer.numberOfTrailingZeros(sample) << 48) | ((long) col << 24) | row;
+        }
+
+        /** True when the decoded tile is a full TILE_PX square (not clipped by an image edge). */
+        public boolean isFull() {
+            return (right - left) / sample == TILE_PX && (bottom - top) / sample == TILE_PX;
+        }
+    }
+
+    public final int imageWidth;
+    public final int imageHeight;
+
+    public TileGrid(int imageWidth, int imageHeight) {
+        this.imageWidth = imageWidth;
+        this.imageHeight = imageHeight;
+    }
+
+    /**
+     * Largest power-of-two subsample that still gives at least one decoded
+     * pixel per screen pixel at {@code scale} (screen px per image px).
+     */
+    public static int sampleSizeFor(float scale) {
+        int sample = 1;
+        while (scale > 0 && sample * 2 * scale <= 1f)
+            sample *= 2;
+        return sample;
+    }
+
+    /**
+     * Subsample for the low-res base layer: the smallest power of two at
+     * which the whole image fits in a {@code maxWidth} x {@code maxHeight} box.
+     */
+    public static int baseSampleSize(int imageWidth, int imageHeight, int maxWidth, int maxHeight) {
+        int sample = 1;
+        while (imageWidth / sample > maxWidth || imageHeight / sample > maxHeight)
+            sample *= 2;
+        return sample;
+    }
+
+    /**
+     * Tiles at {@code sample} that intersect the viewport
+     * [left, right) x [top, bottom), clipped to the image.
+     */
+    public List<Tile> visibleTiles(int sample, float left, float top, float right, float bottom) {
+        List<Tile> out = new ArrayList<>();
+        int extent = TILE_PX * sample;
+        float l = Math.max(0, left), t = Math.max(0, top);
+        float r = Math.min(imageWidth, right), b = Math.min(imageHeight, bottom);
+        if (r <= l || b <= t)
+            return out;
+        int firstCol = (int) (l / extent), lastCol = (int) ((r - 1) / extent);
+        int firstRow = (int) (t / extent), lastRow = (int) ((b - 1) / extent);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int tl = col * extent, tt = row * extent;
+                out.add(new Tile(sample, col, row, tl, tt,
+                        Math.min(imageWidth, tl + extent), Math.min(imageHeight, tt + extent)));
+            }
+        }
+        return out;
+    }
+}
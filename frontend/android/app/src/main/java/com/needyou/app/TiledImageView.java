@@ -0,0 +1,404 @@
+package com.needyou.app;
+
+import android.animation.ValueAnimator;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Build;
+import android.util.LruCache;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * TiledImageView
+ *
+ * Pinch-zoom image view whose memory use does not depend on image size. A
+ * low-res base layer (the whole image subsampled to fit the screen) is always
+ * drawn; when zoomed past it, only the tiles covering the viewport are
+ * region-decoded at the subsample matching the current zoom (see TileGrid)
+ * and drawn on top. Tiles live in a byte-bounded LRU; evicted full-size tiles
+ * are recycled into later decodes through inBitmap.
+ *
+ * Decodes run one at a time on a serial lane of the compute pool, and a
+ * queued tile that has scrolled out of view or belongs to another zoom level
+ * is skipped when its turn comes.
+ */
+public class TiledImageView extends View {
+
+    private static final String TAG = "NeedYouViewer";
+
+    /** Zooming in goes up to this multiple of the fit-to-screen scale. */
+    private static final float MAX_ZOOM_OVER_FIT = 5f;
+    private static final int MAX_REUSABLE = 4;
+
+    public interface Listener {
+        void onLoaded(boolean ok);
+
+        /** Horizontal fling while zoomed out: +1 = next image, -1 = previous. */
+        void onSwipe(int direction);
+    }
+
+    private final Executor decodeLane = AppExecutors.serial(AppExecutors.get().compute());
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect src = new Rect();
+    private final RectF dst = new RectF();
+    private final LruCache<Long, Bitmap> tiles;
+    private final Set<Long> pending = Collections.synchronizedSet(new HashSet<>());
+    private final ArrayDeque<Bitmap> reusable = new ArrayDeque<>();
+    private final ScaleGestureDetector scaleDetector;
+    private final GestureDetector gestureDetector;
+
+    private Listener listener;
+
+    // Main thread only
+    private BitmapRegionDecoder decoder;
+    private TileGrid grid;
+    private Bitmap base;
+    private int baseSample = 1;
+    private float scale = 1f, minScale = 1f, maxScale = 1f;
+    private float transX, transY;
+    private ValueAnimator zoomAnimator;
+
+    // Bumped whenever the image changes; stale decodes are dropped
+    private volatile int generation;
+    // What the last frame needed, read by the decode lane
+    private volatile int wantedSample;
+    private volatile float vpLeft, vpTop, vpRight, vpBottom;
+
+    public TiledImageView(Context context) {
+        super(context);
+        int budget = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, 24L * 1024 * 1024);
+        tiles = new LruCache<Long, Bitmap>(budget) {
+            @Override
+            protected int sizeOf(Long key, Bitmap value) {
+                return value.getAllocationByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Long key, Bitmap oldValue, Bitmap newValue) {
+                if (oldValue != newValue)
+                    recycleOrReuse(oldValue);
+            }
+        };
+        scaleDetector = new ScaleGestureDetector(context, new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScale(ScaleGestureDetector d) {
+                zoomTo(scale * d.getScaleFactor(), d.getFocusX(), d.getFocusY());
+                return true;
+            }
+        });
+        gestureDetector = new GestureDetector(context, new GestureDetector.SimpleOnGestureListener() {
+            @Override
+            public boolean onDown(MotionEvent e) {
+                if (zoomAnimator != null)
+                    zoomAnimator.cancel();
+                return true;
+            }
+
+            @Override
+            public boolean onScroll(MotionEvent e1, MotionEvent e2, float dx, float dy) {
+                transX -= dx;
+                transY -= dy;
+                clampTranslation();
+                invalidate();
+                return true;
+            }
+
+            @Override
+            public boolean onDoubleTap(MotionEvent e) {
+                float target = isZoomedOut() ? Math.min(maxScale, minScale * 2.5f) : minScale;
+                animateZoom(target, e.getX(), e.getY());
+                return true;
+            }
+
+            @Override
+            public boolean onFling(MotionEvent e1, MotionEvent e2, float vx, float vy) {
+                if (listener != null && isZoomedOut() && !scaleDetector.isInProgress()
+                        && Math.abs(vx) > 1000 && Math.abs(vx) > 2 * Math.abs(vy)) {
+                    listener.onSwipe(vx < 0 ? 1 : -1);
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    // ─── Loading ──────────────────────────────────────────────────────────────
+
+    /** Shows {@code file}; decoding happens off the main thread. */
+    public void setImage(File file) {
+        int gen = ++generation;
+        clearImage();
+        int maxW = getWidth() > 0 ? getWidth() : getResources().getDisplayMetrics().widthPixels;
+        int maxH = getHeight() > 0 ? getHeight() : getResources().getDisplayMetrics().heightPixels;
+        AppExecutors.get().io().execute(() -> {
+            BitmapRegionDecoder d = null;
+            Bitmap b = null;
+            int w = 0, h = 0, sample = 1;
+            try {
+                d = newDecoder(file);
+                w = d.getWidth();
+                h = d.getHeight();
+                sample = TileGrid.baseSampleSize(w, h, maxW, maxH);
+                b = d.decodeRegion(new Rect(0, 0, w, h), options(sample, null));
+            } catch (IOException | RuntimeException e) {
+                // Not region-decodable (e.g. GIF): show a subsampled base layer only
+                if (d != null)
+                    d.recycle();
+                d = null;
+                BitmapFactory.Options bounds = new BitmapFactory.Options();
+                bounds.inJustDecodeBounds = true;
+                BitmapFactory.decodeFile(file.getPath(), bounds);
+                w = bounds.outWidth;
+                h = bounds.outHeight;
+                if (w > 0 && h > 0) {
+                    sample = TileGrid.baseSampleSize(w, h, maxW, maxH);
+                    b = BitmapFactory.decodeFile(file.getPath(), options(sample, null));
+                }
+            }
+            BitmapRegionDecoder fd = d;
+            Bitmap fb = b;
+            int fw = w, fh = h, fs = sample;
+            post(() -> {
+                if (gen != generation) {
+                    if (fd != null)
+                        fd.recycle();
+                    if (fb != null)
+                        fb.recycle();
+                    return;
+                }
+                if (fb == null) {
+                    if (fd != null)
+                        fd.recycle();
+                    AppLog.w(TAG, "Could not decode").kv("file", file.getName()).log();
+                    if (listener != null)
+                        listener.onLoaded(false);
+                    return;
+                }
+                decoder = fd;
+                base = fb;
+                baseSample = fs;
+                grid = new TileGrid(fw, fh);
+                fitToView();
+                invalidate();
+                if (listener != null)
+                    listener.onLoaded(true);
+            });
+        });
+    }
+
+    /** Frees every bitmap and the decoder. Call from the Activity's onDestroy. */
+    public void release() {
+        generation++;
+        clearImage();
+        synchronized (reusable) {
+            for (Bitmap b : reusable)
+                b.recycle();
+            reusable.clear();
+        }
+    }
+
+    private void clearImage() {
+        tiles.evictAll();
+        pending.clear();
+        if (base != null) {
+            base.recycle();
+            base = null;
+        }
+        BitmapRegionDecoder d = decoder;
+        decoder = null;
+        grid = null;
+        // Recycled on the lane so it never races a decode in progress
+        if (d != null)
+            decodeLane.execute(d::recycle);
+        invalidate();
+    }
+
+    @SuppressWarnings("deprecation") // newInstance(String, boolean) is the pre-S form
+    private static BitmapRegionDecoder newDecoder(File file) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S)
+            return BitmapRegionDecoder.newInstance(file.getPath());
+        return BitmapRegionDecoder.newInstance(file.getPath(), false);
+    }
+
+    private static BitmapFactory.Options options(int sample, Bitmap inBitmap) {
+        BitmapFactory.Options o = new BitmapFactory.Options();
+        o.inSampleSize = sample;
+        // Photos and scans need no alpha: half the bytes of ARGB_8888
+        o.inPreferredConfig = Bitmap.Config.RGB_565;
+        // Mutable so an evicted tile can be decoded into again
+        o.inMutable = true;
+        o.inBitmap = inBitmap;
+        return o;
+    }
+
+    // ─── Drawing ──────────────────────────────────────────────────────────────
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (base == null || grid == null)
+            return;
+        canvas.save();
+        canvas.translate(transX, transY);
+        canvas.scale(scale, scale);
+        dst.set(0, 0, grid.imageWidth, grid.imageHeight);
+        canvas.drawBitmap(base, null, dst, paint);
+
+        int sample = TileGrid.sampleSizeFor(scale);
+        if (decoder != null && sample < baseSample) {
+            float l = -transX / scale, t = -transY / scale;
+            vpLeft = l;
+            vpTop = t;
+            vpRight = l + getWidth() / scale;
+            vpBottom = t + getHeight() / scale;
+            wantedSample = sample;
+            for (TileGrid.Tile tile : grid.visibleTiles(sample, vpLeft, vpTop, vpRight, vpBottom)) {
+                Bitmap bmp = tiles.get(tile.key());
+                if (bmp == null) {
+                    requestTile(tile);
+                    continue;
+                }
+                src.set(0, 0,
+                        Math.min(bmp.getWidth(), (tile.right - tile.left + sample - 1) / sample),
+                        Math.min(bmp.getHeight(), (tile.bottom - tile.top + sample - 1) / sample));
+                dst.set(tile.left, tile.top, tile.right, tile.bottom);
+                canvas.drawBitmap(bmp, src, dst, paint);
+            }
+        } else {
+            wantedSample = 0;
+        }
+        canvas.restore();
+    }
+
+    private void requestTile(TileGrid.Tile tile) {
+        long key = tile.key();
+        if (!pending.add(key))
+            return;
+        int gen = generation;
+        BitmapRegionDecoder d = decoder;
+        decodeLane.execute(() -> {
+            Bitmap bmp = null;
+            if (gen == generation && stillWanted(tile)) {
+                Bitmap reuse = tile.isFull() ? takeReusable() : null;
+                try {
+                    bmp = d.decodeRegion(new Rect(tile.left, tile.top, tile.right, tile.bottom),
+                            options(tile.sample, reuse));
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    AppLog.w(TAG, "Tile decode failed").err(e).log();
+                }
+            }
+            Bitmap result = bmp;
+            post(() -> {
+                pending.remove(key);
+                if (result == null)
+                    return;
+                if (gen != generation) {
+                    result.recycle();
+                    return;
+                }
+                tiles.put(key, result);
+                invalidate();
+            });
+        });
+    }
+
+    private boolean stillWanted(TileGrid.Tile tile) {
+        return tile.sample == wantedSample
+                && tile.right > vpLeft && tile.left < vpRight
+                && tile.bottom > vpTop && tile.top < vpBottom;
+    }
+
+    private Bitmap takeReusable() {
+        synchronized (reusable) {
+            return reusable.poll();
+        }
+    }
+
+    private void recycleOrReuse(Bitmap b) {
+        boolean full = b.getWidth() == TileGrid.TILE_PX && b.getHeight() == TileGrid.TILE_PX && b.isMutable();
+        synchronized (reusable) {
+            if (full && reusable.size() < MAX_REUSABLE) {
+                reusable.add(b);
+                return;
+            }
+        }
+        b.recycle();
+    }
+
+    // ─── Zoom / pan ───────────────────────────────────────────────────────────
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        scaleDetector.onTouchEvent(event);
+        gestureDetector.onTouchEvent(event);
+        return true;
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (grid != null)
+            fitToView();
+    }
+
+    private boolean isZoomedOut() {
+        return scale <= minScale * 1.05f;
+    }
+
+    private void fitToView() {
+        if (getWidth() == 0 || getHeight() == 0)
+            return;
+        minScale = Math.min((float) getWidth() / grid.imageWidth, (float) getHeight() / grid.imageHeight);
+        maxScale = Math.max(minScale * MAX_ZOOM_OVER_FIT, 2f);
+        scale = minScale;
+        clampTranslation();
+    }
+
+    private void zoomTo(float target, float focusX, float focusY) {
+        if (grid == null)
+            return;
+        float next = Math.max(minScale, Math.min(maxScale, target));
+        transX = focusX - (focusX - transX) * (next / scale);
+        transY = focusY - (focusY - transY) * (next / scale);
+        scale = next;
+        clampTranslation();
+        invalidate();
+    }
+
+    private void animateZoom(float target, float focusX, float focusY) {
+        if (zoomAnimator != null)
+            zoomAnimator.cancel();
+        zoomAnimator = ValueAnimator.ofFloat(scale, target).setDuration(200);
+        zoomAnimator.addUpdateListener(a -> zoomTo((float) a.getAnimatedValue(), focusX, focusY));
+        zoomAnimator.start();
+    }
+
+    /** Centres the image when it is smaller than the view, otherwise keeps the view covered. */
+    private void clampTranslation() {
+        if (grid == null)
+            return;
+        float w = grid.imageWidth * scale, h = grid.imageHeight * scale;
+        transX = w <= getWidth() ? (getWidth() - w) / 2 : Math.max(getWidth() - w, Math.min(0, transX));
+        transY = h <= getHeight() ? (getHeight() - h) / 2 : Math.max(getHeight() - h, Math.min(0, transY));
+    }
+}
@@ -0,0 +1,171 @@
+package com.needyou.app;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.net.Uri;
+import android.os.Build;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * UpiAppCache
+ *
+ * Enumerates the apps that can handle upi:// payment links ONCE, on a
+ * background thread, and keeps the result in memory. The list is refreshed
+ * whenever a package is installed, removed or replaced.
+ *
+ * The Razorpay checkout reads it via NeedYouBridge.getInstalledUpiApps() so it
+ * only offers apps that are actually on the device, and the WebViewClient in
+ * MainActivity uses isInstalled() to skip the PackageManager lookup when an
+ * intent:// URL targets one of these apps.
+ */
+public class UpiAppCache {
+
+    private static final String TAG = "NeedYouUPI";
+
+    /** A single installed UPI handler. */
+    public static final class UpiApp {
+        public final String packageName;
+        public final String label;
+
+        UpiApp(String packageName, String label) {
+            this.packageName = packageName;
+            this.label = label;
+        }
+    }
+
+    private static UpiAppCache instance;
+
+    private final Context appContext;
+    private final Executor executor = AppExecutors.serial(AppExecutors.get().io());
+
+    // Replaced wholesale on refresh — readers never see a half-built list.
+    private volatile List<UpiApp> apps = Collections.emptyList();
+    private volatile boolean ready = false;
+    private BroadcastReceiver packageReceiver;
+
+    private UpiAppCache(Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    public static synchronized UpiAppCache get(Context context) {
+        if (instance == null)
+            instance = new UpiAppCache(context);
+        return instance;
+    }
+
+    /**
+     * Kicks off the first enumeration and starts listening for package changes.
+     * Safe to call more than once — only the first call registers the receiver.
+     */
+    public synchronized void start() {
+        if (packageReceiver != null)
+            return;
+
+        packageReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                refresh();
+            }
+        };
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addDataScheme("package");
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            appContext.registerReceiver(packageReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+        } else {
+            appContext.registerReceiver(packageReceiver, filter);
+        }
+
+        refresh();
+    }
+
+    /** Re-enumerates UPI handlers on a background thread. */
+    public void refresh() {
+        executor.execute(() -> {
+            List<UpiApp> found = queryUpiApps();
+            apps = found;
+            ready = true;
+            AppLog.d(TAG, "UPI apps cached").kv("count", found.size()).log();
+        });
+    }
+
+    /** True once the first enumeration has finished. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<UpiApp> getApps() {
+        return apps;
+    }
+
+    /** True if {@code packageName} is a cached UPI handler. */
+    public boolean isInstalled(String packageName) {
+        if (packageName == null)
+            return false;
+        for (UpiApp app : apps) {
+            if (app.packageName.equals(packageName))
+                return true;
+        }
+        return false;
+    }
+
+    /** Serialises the cache as [{"packageName":"...","label":"..."}]. */
+    public String toJson() {
+        JSONArray arr = new JSONArray();
+        try {
+            for (UpiApp app : apps) {
+                arr.put(new JSONObject()
+                        .put("packageName", app.packageName)
+                        .put("label", app.label));
+            }
+        } catch (JSONException e) {
+            AppLog.e(TAG, "UPI app JSON error").err(e).log();
+        }
+        return arr.toString();
+    }
+
+    private List<UpiApp> queryUpiApps() {
+        PackageManager pm = appContext.getPackageManager();
+        Intent probe = new Intent(Intent.ACTION_VIEW, Uri.parse("upi://pay"));
+        List<ResolveInfo> infos;
+        try {
+            infos = pm.queryIntentActivities(probe, 0);
+        } catch (Exception e) {
+            AppLog.e(TAG, "UPI app query failed").err(e).log();
+            return apps;
+        }
+
+        List<UpiApp> result = new ArrayList<>();
+        for (ResolveInfo info : infos) {
+            if (info.activityInfo == null)
+                continue;
+            String pkg = info.activityInfo.packageName;
+            boolean seen = false;
+            for (UpiApp app : result) {
+                if (app.packageName.equals(pkg)) {
+                    seen = true;
+                    break;
+                }
+            }
+            if (seen)
+                continue;
+            CharSequence label = info.loadLabel(pm);
+            result.add(new UpiApp(pkg, label != null ? label.toString() : pkg));
+        }
+        return Collections.unmodifiableList(result);
+    }
+}
@@ -0,0 +1,91 @@
+package com.needyou.app;
+
+import java.util.Arrays;
+
+/**
+ * WaveformPeaks
+ *
+ * Streaming peak reduction for voice-note waveforms. Decoded PCM is fed in
+ * chunks of any size; every {@link #BLOCK} samples collapse to one peak
+ * (max |sample|), so memory grows by one float per block however long the
+ * recording is. {@link #toBuckets(int)} then max-pools the blocks into a
+ * fixed number of bars scaled to 0..255.
+ *
+ * Pure Java so the reduction can be unit tested.
+ */
+public final class WaveformPeaks {
+
+    /** Samples (all channels interleaved) folded into one block peak. */
+    static final int BLOCK = 1024;
+
+    /** Peaks below this fraction of full scale count as silence when normalising. */
+    static final float NOISE_FLOOR = 0.02f;
+
+    private float[] blocks = new float[256];
+    private int blockCount;
+    private float current;
+    private int inCurrent;
+
+    /** Adds 16-bit PCM samples. */
+    public void add(short[] samples, int offset, int length) {
+        for (int i = offset; i < offset + length; i++)
+            sample(Math.abs(samples[i] / 32768f));
+    }
+
+    /** Adds float PCM samples in [-1, 1]. */
+    public void add(float[] samples, int offset, int length) {
+        for (int i = offset; i < offset + length; i++)
+            sample(Math.min(1f, Math.abs(samples[i])));
+    }
+
+    private void sample(float magnitude) {
+        if (magnitude > current)
+            current = magnitude;
+        if (++inCurrent == BLOCK)
+            closeBlock();
+    }
+
+    private void closeBlock() {
+        if (blockCount == blocks.length)
+            blocks = Arrays.copyOf(blocks, blockCount * 2);
+        blocks[blockCount++] = current;
+        current = 0;
+        inCurrent = 0;
+    }
+
+    /** Number of complete or partial blocks seen so far. */
+    public int blockCount() {
+        return blockCount + (inCurrent > 0 ? 1 : 0);
+    }
+
+    /**
+     * Max-pools the blocks into {@code buckets} bars, scaled so the loudest
+     * bar is 255. Returns all zeros for silence or empty input; when there
+     * are fewer blocks than buckets, blocks are stretched across bars.
+     */
+    public int[] toBuckets(int buckets) {
+        if (inCurrent > 0)
+            closeBlock();
+        int[] out = new int[buckets];
+        if (blockCount == 0 || buckets <= 0)
+            return out;
+        float[] pooled = new float[buckets];
+        float max = 0;
+        for (int b = 0; b < buckets; b++) {
+            int from = (int) ((long) b * blockCount / buckets);
+            int to = (int) ((long) (b + 1) * blockCount / buckets);
+            if (to <= from)
+                to = from + 1;
+            float peak = 0;
+            for (int i = from; i < to && i < blockCount; i++)
+                peak = Math.max(peak, blocks[i]);
+            pooled[b] = peak;
+            max = Math.max(max, peak);
+        }
+        if (max < NOISE_FLOOR)
+            return out;
+        for (int b = 0; b < buckets; b++)
+            out[b] = Math.round(pooled[b] / max * 255f);
+        return out;
+    }
+}
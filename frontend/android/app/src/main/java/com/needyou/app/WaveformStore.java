@@ -0,0 +1,303 @@
+package com.needyou.app;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.media.AudioFormat;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+
+import org.json.JSONArray;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * WaveformStore
+ *
+ * Waveform bars for chat voice notes, so the page can draw them without
+ * fetching and decoding the audio in the WebView.
+ *
+ * Each recording is decoded once (MediaExtractor streaming the URL into a
+ * MediaCodec decoder) on a serial lane of the IO pool, reduced to a fixed
+ * number of 0..255 peaks by {@link WaveformPeaks}, and stored as a
+ * one-byte-per-bar blob keyed by "<buckets>:<url>". Entries are evicted
+ * least-recently-used beyond {@link #MAX_ENTRIES}; voice notes never change,
+ * so there is no TTL. A URL that failed to decode is not tried again for
+ * {@link #FAILED_RETRY_MS}, so a dead link is not refetched on every render.
+ */
+public class WaveformStore extends SQLiteOpenHelper {
+
+    private static final String TAG = "NeedYouWaveform";
+    private static final String DB_NAME = "waveforms.db";
+    private static final int DB_VERSION = 1;
+    private static final String TABLE = "waveform";
+
+    static final int MIN_BUCKETS = 16;
+    static final int MAX_BUCKETS = 256;
+    static final int DEFAULT_BUCKETS = 64;
+
+    /** Max rows kept; the least recently used beyond this are evicted. */
+    static final int MAX_ENTRIES = 1_000;
+
+    private static final long DEQUEUE_TIMEOUT_US = 10_000;
+
+    /** Give up on a decode (including a stalled stream) after this long. */
+    private static final long DECODE_TIMEOUT_MS = 60_000;
+
+    /** How long a failed decode is remembered before the URL may be tried again. */
+    static final long FAILED_RETRY_MS = 10 * 60_000;
+    /** Failed keys remembered at most; the oldest are forgotten first. */
+    private static final int MAX_FAILED = 200;
+
+    private static WaveformStore instance;
+
+    // One decode at a time, on IO: most of a decode is MediaExtractor blocking
+    // on the network, which must not hold a compute thread.
+    private final Executor lane = AppExecutors.serial(AppExecutors.get().io());
+    private final Set<String> inFlight = Collections.synchronizedSet(new HashSet<>());
+    /** key → time of its last failed decode, oldest first. */
+    private final Map<String, Long> failedAt = new LinkedHashMap<String, Long>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_FAILED;
+        }
+    };
+
+    private WaveformStore(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+    }
+
+    public static synchronized WaveformStore get(Context context) {
+        if (instance == null)
+            instance = new WaveformStore(context);
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "key TEXT PRIMARY KEY,"
+                + "peaks BLOB NOT NULL,"
+                + "used_at INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_waveform_used ON " + TABLE + " (used_at)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        onCreate(db);
+    }
+
+    static int clampBuckets(int buckets) {
+        if (buckets <= 0)
+            return DEFAULT_BUCKETS;
+        return Math.max(MIN_BUCKETS, Math.min(MAX_BUCKETS, buckets));
+    }
+
+    static String key(String url, int buckets) {
+        return buckets + ":" + url;
+    }
+
+    static JSONArray toJson(int[] peaks) {
+        JSONArray arr = new JSONArray();
+        for (int p : peaks)
+            arr.put(p);
+        return arr;
+    }
+
+    // ─── Public API ───────────────────────────────────────────────────────────
+
+    /** Cached peaks (0..255 per bar) for {@code url}, or null on a miss. */
+    public int[] getCached(String url, int buckets) {
+        String key = key(url, clampBuckets(buckets));
+        SQLiteDatabase db = getWritableDatabase();
+        byte[] blob = null;
+        try (Cursor c = db.query(TABLE, new String[] { "peaks" }, "key = ?",
+                new String[] { key }, null, null, null)) {
+            if (c.moveToFirst())
+                blob = c.getBlob(0);
+        }
+        if (blob == null)
+            return null;
+        ContentValues cv = new ContentValues();
+        cv.put("used_at", System.currentTimeMillis());
+        db.update(TABLE, cv, "key = ?", new String[] { key });
+        int[] peaks = new int[blob.length];
+        for (int i = 0; i < blob.length; i++)
+            peaks[i] = blob[i] & 0xFF;
+        return peaks;
+    }
+
+    /**
+     * Decodes {@code url} in the background unless it is cached or already
+     * being decoded, or failed within the last {@link #FAILED_RETRY_MS};
+     * {@code onReady} receives the peaks on the decode thread. Failures are
+     * logged and not reported.
+     */
+    public void request(String url, int buckets, Consumer<int[]> onReady) {
+        int n = clampBuckets(buckets);
+        String key = key(url, n);
+        if (failedRecently(key) || !inFlight.add(key))
+            return;
+        lane.execute(() -> {
+            try {
+                int[] peaks = getCached(url, n);
+                if (peaks == null) {
+                    peaks = decode(url, n);
+                    store(key, peaks);
+                }
+                onReady.accept(peaks);
+            } catch (IOException | RuntimeException e) {
+                AppLog.w(TAG, "Waveform decode failed").err(e).log();
+                synchronized (failedAt) {
+                    failedAt.remove(key); // re-insert as newest
+                    failedAt.put(key, System.currentTimeMillis());
+                }
+            } finally {
+                inFlight.remove(key);
+            }
+        });
+    }
+
+    private boolean failedRecently(String key) {
+        synchronized (failedAt) {
+            Long at = failedAt.get(key);
+            if (at == null)
+                return false;
+            if (System.currentTimeMillis() - at < FAILED_RETRY_MS)
+                return true;
+            failedAt.remove(key);
+            return false;
+        }
+    }
+
+    // ─── Decoding ─────────────────────────────────────────────────────────────
+
+    private static int[] decode(String url, int buckets) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+        try {
+            extractor.setDataSource(url, Collections.emptyMap());
+            MediaFormat format = null;
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat f = extractor.getTrackFormat(i);
+                String mime = f.getString(MediaFormat.KEY_MIME);
+                if (mime != null && mime.startsWith("audio/")) {
+                    extractor.selectTrack(i);
+                    format = f;
+                    break;
+                }
+            }
+            if (format == null)
+                throw new IOException("No audio track");
+
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+
+            WaveformPeaks peaks = new WaveformPeaks();
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            boolean floatPcm = false;
+            boolean inputDone = false;
+            short[] shorts = new short[0];
+            float[] floats = new float[0];
+            long deadline = System.currentTimeMillis() + DECODE_TIMEOUT_MS;
+
+            while (true) {
+                if (System.currentTimeMillis() > deadline)
+                    throw new IOException("Decode timed out");
+                if (!inputDone) {
+                    int in = codec.dequeueInputBuffer(DEQUEUE_TIMEOUT_US);
+                    if (in >= 0) {
+                        ByteBuffer buf = codec.getInputBuffer(in);
+                        int size = buf != null ? extractor.readSampleData(buf, 0) : -1;
+                        if (size < 0) {
+                            codec.queueInputBuffer(in, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            codec.queueInputBuffer(in, 0, size, extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+                int out = codec.dequeueOutputBuffer(info, DEQUEUE_TIMEOUT_US);
+                if (out == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    MediaFormat outFormat = codec.getOutputFormat();
+                    floatPcm = outFormat.containsKey(MediaFormat.KEY_PCM_ENCODING)
+                            && outFormat.getInteger(MediaFormat.KEY_PCM_ENCODING) == AudioFormat.ENCODING_PCM_FLOAT;
+                } else if (out >= 0) {
+                    ByteBuffer buf = codec.getOutputBuffer(out);
+                    if (buf != null && info.size > 0) {
+                        buf.position(info.offset).limit(info.offset + info.size);
+                        ByteBuffer pcm = buf.slice().order(ByteOrder.nativeOrder());
+                        if (floatPcm) {
+                            FloatBuffer fb = pcm.asFloatBuffer();
+                            if (floats.length < fb.remaining())
+                                floats = new float[fb.remaining()];
+                            int len = fb.remaining();
+                            fb.get(floats, 0, len);
+                            peaks.add(floats, 0, len);
+                        } else {
+                            ShortBuffer sb = pcm.asShortBuffer();
+                            if (shorts.length < sb.remaining())
+                                shorts = new short[sb.remaining()];
+                            int len = sb.remaining();
+                            sb.get(shorts, 0, len);
+                            peaks.add(shorts, 0, len);
+                        }
+                    }
+                    codec.releaseOutputBuffer(out, false);
+                    if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0)
+                        break;
+                }
+            }
+            return peaks.toBuckets(buckets);
+        } finally {
+            if (codec != null) {
+                try {
+                    codec.stop();
+                } catch (IllegalStateException ignored) {
+                    // Never started
+                }
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+
+    // ─── Storage ──────────────────────────────────────────────────────────────
+
+    private void store(String key, int[] peaks) {
+        byte[] blob = new byte[peaks.length];
+        for (int i = 0; i < peaks.length; i++)
+            blob[i] = (byte) peaks[i];
+        ContentValues cv = new ContentValues();
+        cv.put("key", key);
+        cv.put("peaks", blob);
+        cv.put("used_at", System.currentTimeMillis());
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.insertWithOnConflict(TABLE, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+            db.execSQL("DELETE FROM " + TABLE + " WHERE key IN (SELECT key FROM " + TABLE
+                    + " ORDER BY used_at DESC LIMIT -1 OFFSET " + MAX_ENTRIES + ")");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.needyou.app;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * WidgetSnapshot
+ *
+ * What the home-screen widget (NeedYouWidget) shows: the latest status of
+ * the user's current job, and how many nearby jobs appeared since the user
+ * last looked at the home feed. Persisted as JSON in ProcessSafeStore so the
+ * ":push" process can update it from data pushes and the main process from
+ * the page and from background refreshes, without either running the
+ * WebView.
+ *
+ * Pure Java so the update rules can be unit tested.
+ */
+public final class WidgetSnapshot {
+
+    /** Push types that describe progress on a job the user is part of. */
+    private static final String[] JOB_STATUS_TYPES = {
+            "job_hired", "job_update", "new_application", "budget_accepted",
+            "counter_offer_received", "applicant_counter_offer" };
+
+    // Current job card; jobId == null means none
+    public String jobId;
+    public String jobTitle;
+    public String jobStatus;
+    /** Notification type of the last status, used to deep-link into the right screen. */
+    public String jobType;
+    public long jobUpdatedAt;
+
+    // Nearby card
+    public int nearbyCount;
+    public String nearbyJobId;
+    public String nearbyTitle;
+    /** When the user last saw the home feed; nearby jobs are counted from here. */
+    public long nearbySeenAt;
+
+    public long refreshedAt;
+
+    // ─── Updates ──────────────────────────────────────────────────────────────
+
+    /**
+     * Applies a data push. Returns true if the widget needs re-rendering.
+     * {@code title} is the notification title, which for status pushes reads
+     * as the status ("🔑 Enter Your Start Code", "💰 Payment Received!").
+     */
+    public boolean applyPush(String type, String jobId, String jobTitle, String title, long now) {
+        if (type == null || jobId == null || jobId.isEmpty())
+            return false;
+        if ("new_job_nearby".equals(type)) {
+            nearbyCount++;
+            nearbyJobId = jobId;
+            nearbyTitle = notEmpty(jobTitle) ? jobTitle : nearbyTitle;
+            return true;
+        }
+        if (!isJobStatusType(type))
+            return false;
+        if (!jobId.equals(this.jobId))
+            this.jobTitle = null; // a different job: the old title no longer applies
+        this.jobId = jobId;
+        if (notEmpty(jobTitle))
+            this.jobTitle = jobTitle;
+        this.jobStatus = notEmpty(title) ? title : this.jobStatus;
+        this.jobType = type;
+        this.jobUpdatedAt = now;
+        return true;
+    }
+
+    /** The user opened the home feed: nearby jobs so far are seen. */
+    public boolean markNearbySeen(long now) {
+        boolean changed = nearbyCount != 0;
+        nearbyCount = 0;
+        nearbySeenAt = now;
+        return changed;
+    }
+
+    /** Sets or clears the current job from the page or a background refresh. */
+    public void setJob(String jobId, String jobTitle, String status, String type, long now) {
+        if (jobId == null || jobId.isEmpty()) {
+            this.jobId = null;
+            this.jobTitle = null;
+            this.jobStatus = null;
+            this.jobType = null;
+        } else {
+            this.jobId = jobId;
+            this.jobTitle = jobTitle;
+            this.jobStatus = status;
+            this.jobType = type;
+        }
+        this.jobUpdatedAt = now;
+    }
+
+    /** Status line for a job_applications.startJobStatus, as the worker sees it. */
+    public static String statusLabel(String startJobStatus) {
+        if (startJobStatus == null || startJobStatus.isEmpty())
+            return "Hired — start when you're ready";
+        switch (startJobStatus) {
+            case "requested":
+                return "Start requested";
+            case "code_pending":
+                return "Enter your start code";
+            case "active":
+                return "On the way";
+            case "arrived":
+                return "Arrived";
+            case "meeting_requested":
+            case "meeting_code_pending":
+                return "Confirming meeting";
+            case "working":
+                return "Working";
+            case "bill_submitted":
+                return "Bill submitted";
+            case "bill_accepted":
+                return "Bill accepted — awaiting payment";
+            case "completed":
+                return "Completed";
+            default:
+                return startJobStatus;
+        }
+    }
+
+    // ─── Deep links ───────────────────────────────────────────────────────────
+
+    /** {"type","jobId"} extras for tapping the job card, or null without a job. */
+    public String[] jobDeepLink() {
+        return jobId == null ? null : new String[] { jobType != null ? jobType : "job_hired", jobId };
+    }
+
+    /** Extras for tapping the nearby card (home feed). */
+    public String[] nearbyDeepLink() {
+        return nearbyJobId == null ? null : new String[] { "new_job_nearby", nearbyJobId };
+    }
+
+    // ─── JSON ─────────────────────────────────────────────────────────────────
+
+    public JSONObject toJson() throws JSONException {
+        return new JSONObject()
+                .put("jobId", jobId)
+                .put("jobTitle", jobTitle)
+                .put("jobStatus", jobStatus)
+                .put("jobType", jobType)
+                .put("jobUpdatedAt", jobUpdatedAt)
+                .put("nearbyCount", nearbyCount)
+                .put("nearbyJobId", nearbyJobId)
+                .put("nearbyTitle", nearbyTitle)
+                .put("nearbySeenAt", nearbySeenAt)
+                .put("refreshedAt", refreshedAt);
+    }
+
+    public static WidgetSnapshot fromJson(String json) {
+        WidgetSnapshot s = new WidgetSnapshot();
+        if (json == null || json.isEmpty())
+            return s;
+        try {
+            JSONObject o = new JSONObject(json);
+            s.jobId = optString(o, "jobId");
+            s.jobTitle = optString(o, "jobTitle");
+            s.jobStatus = optString(o, "jobStatus");
+            s.jobType = optString(o, "jobType");
+            s.jobUpdatedAt = o.optLong("jobUpdatedAt");
+            s.nearbyCount = o.optInt("nearbyCount");
+            s.nearbyJobId = optString(o, "nearbyJobId");
+            s.nearbyTitle = optString(o, "nearbyTitle");
+            s.nearbySeenAt = o.optLong("nearbySeenAt");
+            s.refreshedAt = o.optLong("refreshedAt");
+        } catch (JSONException e) {
+            return new WidgetSnapshot();
+        }
+        return s;
+    }
+
+    private static String optString(JSONObject o, String key) {
+        return o.isNull(key) ? null : o.optString(key, null);
+    }
+
+    private static boolean isJobStatusType(String type) {
+        for (String t : JOB_STATUS_TYPES) {
+            if (t.equals(type))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean notEmpty(String s) {
+        return s != null && !s.isEmpty();
+    }
+}
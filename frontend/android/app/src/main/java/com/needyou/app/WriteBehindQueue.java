@@ -0,0 +1,267 @@
+package com.needyou.app;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * WriteBehindQueue
+ *
+ * Bookkeeping for FirestoreWriteQueue: pending field updates per document,
+ * coalesced so a field written several times before a flush is committed
+ * once with its last value. Batches taken for commit stay "in flight" until
+ * acknowledged; a batch that failed transiently is merged back under any
+ * newer values queued meanwhile, one the server refused is dropped. Survives process death via {@link #toJson()} /
+ * {@link #fromJson(JSONObject)}.
+ *
+ * Values are what org.json yields (String, Number, Boolean, null, Map,
+ * List). Not thread-safe; FirestoreWriteQueue drives it from one lane.
+ * Pure Java so the coalescing rules can be unit tested.
+ */
+public final class WriteBehindQueue {
+
+    /** A set of documents taken for one commit. */
+    public static final class Batch {
+        public final Map<String, Map<String, Object>> updates;
+
+        Batch(Map<String, Map<String, Object>> updates) {
+            this.updates = updates;
+        }
+
+        public int documents() {
+            return updates.size();
+        }
+
+        public int fields() {
+            int n = 0;
+            for (Map<String, Object> f : updates.values())
+                n += f.size();
+            return n;
+        }
+    }
+
+    // Insertion-ordered so the oldest documents are committed first.
+    private final Map<String, Map<String, Object>> pending = new LinkedHashMap<>();
+    private final List<Batch> inFlight = new ArrayList<>();
+
+    long updatesEnqueued;
+    long fieldsEnqueued;
+    long fieldsCoalesced;
+    long documentsCommitted;
+    long fieldsCommitted;
+    long batchesCommitted;
+    long batchesFailed;
+    long documentsDropped;
+
+    /** Queues {@code fields} for the document at {@code path}; later values replace earlier ones. */
+    public void enqueue(String path, Map<String, Object> fields) {
+        if (fields.isEmpty())
+            return;
+        Map<String, Object> doc = pending.get(path);
+        if (doc == null) {
+            doc = new LinkedHashMap<>();
+            pending.put(path, doc);
+        }
+        for (Map.Entry<String, Object> e : fields.entrySet()) {
+            if (doc.containsKey(e.getKey()))
+                fieldsCoalesced++;
+            doc.put(e.getKey(), e.getValue());
+        }
+        updatesEnqueued++;
+        fieldsEnqueued += fields.size();
+    }
+
+    /** Takes up to {@code maxDocuments} pending documents for a commit, or null if none. */
+    public Batch take(int maxDocuments) {
+        if (pending.isEmpty())
+            return null;
+        Map<String, Map<String, Object>> updates = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, Map<String, Object>>> it = pending.entrySet().iterator();
+        while (it.hasNext() && updates.size() < maxDocuments) {
+            Map.Entry<String, Map<String, Object>> e = it.next();
+            updates.put(e.getKey(), e.getValue());
+            it.remove();
+        }
+        Batch batch = new Batch(updates);
+        inFlight.add(batch);
+        return batch;
+    }
+
+    /** The batch was committed. */
+    public void ack(Batch batch) {
+        if (!inFlight.remove(batch))
+            return;
+        batchesCommitted++;
+        documentsCommitted += batch.documents();
+        fieldsCommitted += batch.fields();
+    }
+
+    /** The batch failed: its fields go back to pending unless a newer value was queued. */
+    public void requeue(Batch batch) {
+        if (!inFlight.remove(batch))
+            return;
+        batchesFailed++;
+        Map<String, Map<String, Object>> merged = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Object>> e : batch.updates.entrySet()) {
+            Map<String, Object> doc = new LinkedHashMap<>(e.getValue());
+            Map<String, Object> newer = pending.remove(e.getKey());
+            if (newer != null)
+                doc.putAll(newer);
+            merged.put(e.getKey(), doc);
+        }
+        // Failed documents are older than anything still pending: put them first.
+        merged.putAll(pending);
+        pending.clear();
+        pending.putAll(merged);
+    }
+
+    /** The server refused the batch for good (e.g. a deleted document): its fields are discarded. */
+    public void drop(Batch batch) {
+        if (!inFlight.remove(batch))
+            return;
+        batchesFailed++;
+        documentsDropped += batch.documents();
+    }
+
+    /** Discards everything not yet committed (sign-out); in-flight batches are forgotten. */
+    public void discard() {
+        documentsDropped += depth();
+        pending.clear();
+        inFlight.clear();
+    }
+
+    /** Documents waiting to be committed, including those in flight. */
+    public int depth() {
+        int n = pending.size();
+        for (Batch b : inFlight)
+            n += b.documents();
+        return n;
+    }
+
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    public boolean hasInFlight() {
+        return !inFlight.isEmpty();
+    }
+
+    // ─── Persistence ──────────────────────────────────────────────────────────
+
+    /**
+     * Everything not yet acknowledged, as {"docs":{path:{field:value}},
+     * "stats":{...}}. In-flight fields are included, overlaid by newer
+     * pending values, so a commit interrupted by process death is retried.
+     */
+    public JSONObject toJson() throws JSONException {
+        Map<String, Map<String, Object>> all = new LinkedHashMap<>();
+        for (Batch b : inFlight) {
+            for (Map.Entry<String, Map<String, Object>> e : b.updates.entrySet())
+                all.computeIfAbsent(e.getKey(), k -> new LinkedHashMap<>()).putAll(e.getValue());
+        }
+        for (Map.Entry<String, Map<String, Object>> e : pending.entrySet())
+            all.computeIfAbsent(e.getKey(), k -> new LinkedHashMap<>()).putAll(e.getValue());
+
+        JSONObject docs = new JSONObject();
+        for (Map.Entry<String, Map<String, Object>> e : all.entrySet())
+            docs.put(e.getKey(), toJsonValue(e.getValue()));
+        return new JSONObject().put("docs", docs).put("stats", stats());
+    }
+
+    /** Lifetime counters plus the current depth. */
+    public JSONObject stats() throws JSONException {
+        return new JSONObject()
+                .put("depth", depth())
+                .put("updatesEnqueued", updatesEnqueued)
+                .put("fieldsEnqueued", fieldsEnqueued)
+                .put("fieldsCoalesced", fieldsCoalesced)
+                .put("documentsCommitted", documentsCommitted)
+                .put("fieldsCommitted", fieldsCommitted)
+                .put("batchesCommitted", batchesCommitted)
+                .put("batchesFailed", batchesFailed)
+                .put("documentsDropped", documentsDropped);
+    }
+
+    public static WriteBehindQueue fromJson(JSONObject json) {
+        WriteBehindQueue q = new WriteBehindQueue();
+        JSONObject docs = json.optJSONObject("docs");
+        if (docs != null) {
+            Iterator<String> keys = docs.keys();
+            while (keys.hasNext()) {
+                String path = keys.next();
+                JSONObject fields = docs.optJSONObject(path);
+                if (fields != null && fields.length() > 0)
+                    q.pending.put(path, fromJsonObject(fields));
+            }
+        }
+        JSONObject stats = json.optJSONObject("stats");
+        if (stats != null) {
+            q.updatesEnqueued = stats.optLong("updatesEnqueued");
+            q.fieldsEnqueued = stats.optLong("fieldsEnqueued");
+            q.fieldsCoalesced = stats.optLong("fieldsCoalesced");
+            q.documentsCommitted = stats.optLong("documentsCommitted");
+            q.fieldsCommitted = stats.optLong("fieldsCommitted");
+            q.batchesCommitted = stats.optLong("batchesCommitted");
+            q.batchesFailed = stats.optLong("batchesFailed");
+            q.documentsDropped = stats.optLong("documentsDropped");
+        }
+        return q;
+    }
+
+    /** Converts a JSON object from the page into field values (JSON null → null). */
+    public static Map<String, Object> fromJsonObject(JSONObject o) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        Iterator<String> keys = o.keys();
+        while (keys.hasNext()) {
+            String k = keys.next();
+            out.put(k, fromJsonValue(o.opt(k)));
+        }
+        return out;
+    }
+
+    private static Object fromJsonValue(Object v) {
+        if (v == null || v == JSONObject.NULL)
+            return null;
+        if (v instanceof JSONObject)
+            return fromJsonObject((JSONObject) v);
+        if (v instanceof JSONArray) {
+            JSONArray a = (JSONArray) v;
+            List<Object> list = new ArrayList<>(a.length());
+            for (int i = 0; i < a.length(); i++)
+                list.add(fromJsonValue(a.opt(i)));
+            return list;
+        }
+        if (v instanceof Number && !(v instanceof Integer || v instanceof Long || v instanceof Double)) {
+            // Some org.json builds yield BigDecimal/BigInteger, which Firestore rejects
+            Number n = (Number) v;
+            double d = n.doubleValue();
+            return d == Math.rint(d) && Math.abs(d) < 9.007199254740992E15 ? (Object) n.longValue() : (Object) d;
+        }
+        return v;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object toJsonValue(Object v) throws JSONException {
+        if (v == null)
+            return JSONObject.NULL;
+        if (v instanceof Map) {
+            JSONObject o = new JSONObject();
+            for (Map.Entry<String, Object> e : ((Map<String, Object>) v).entrySet())
+                o.put(e.getKey(), toJsonValue(e.getValue()));
+            return o;
+        }
+        if (v instanceof List) {
+            JSONArray a = new JSONArray();
+            for (Object item : (List<Object>) v)
+                a.put(toJsonValue(item));
+            return a;
+        }
+        return v;
+    }
+}
@@ -0,0 +1,81 @@
+package com.needyou.app;
+
+/**
+ * YuvScaler
+ *
+ * NV21 → ARGB conversion fused with rotation and nearest-neighbour
+ * downscaling: only the output pixels are ever converted, so a 1280×720
+ * camera frame scaled to 320 px wide costs ~1/16 of a full conversion and
+ * allocates only the small output array. Pure Java (BT.601 coefficients).
+ */
+public final class YuvScaler {
+
+    private YuvScaler() {
+    }
+
+    /**
+     * Output {width, height} for a frame made upright by {@code rotation}
+     * degrees and scaled to at most {@code targetWidth} wide (never upscaled).
+     */
+    public static int[] outputSize(int width, int height, int rotation, int targetWidth) {
+        boolean swap = rotation == 90 || rotation == 270;
+        int uprightW = swap ? height : width;
+        int uprightH = swap ? width : height;
+        int outW = Math.min(targetWidth, uprightW);
+        int outH = Math.max(1, Math.round(uprightH * (outW / (float) uprightW)));
+        return new int[] { outW, outH };
+    }
+
+    /**
+     * Converts an NV21 frame to ARGB_8888 pixels of outW × outH, rotating it
+     * clockwise by {@code rotation} (0/90/180/270) on the way.
+     */
+    public static int[] nv21ToArgb(byte[] nv21, int width, int height, int rotation, int outW, int outH) {
+        boolean swap = rotation == 90 || rotation == 270;
+        int uprightW = swap ? height : width;
+        int uprightH = swap ? width : height;
+        int frameSize = width * height;
+        int[] out = new int[outW * outH];
+        int i = 0;
+        for (int oy = 0; oy < outH; oy++) {
+            int uy = (int) ((long) oy * uprightH / outH);
+            for (int ox = 0; ox < outW; ox++) {
+                int ux = (int) ((long) ox * uprightW / outW);
+                int sx, sy;
+                switch (rotation) {
+                    case 90:
+                        sx = uy;
+                        sy = height - 1 - ux;
+                        break;
+                    case 180:
+                        sx = width - 1 - ux;
+                        sy = height - 1 - uy;
+                        break;
+                    case 270:
+                        sx = width - 1 - uy;
+                        sy = ux;
+                        break;
+                    default:
+                        sx = ux;
+                        sy = uy;
+                }
+                int y = (nv21[sy * width + sx] & 0xff) - 16;
+                int uvIndex = frameSize + (sy >> 1) * width + (sx & ~1);
+                int v = (nv21[uvIndex] & 0xff) - 128;
+                int u = (nv21[uvIndex + 1] & 0xff) - 128;
+                if (y < 0)
+                    y = 0;
+                int y1192 = 1192 * y;
+                int r = clamp(y1192 + 1634 * v);
+                int g = clamp(y1192 - 833 * v - 400 * u);
+                int b = clamp(y1192 + 2066 * u);
+                out[i++] = 0xff000000 | ((r << 6) & 0xff0000) | ((g >> 2) & 0xff00) | ((b >> 10) & 0xff);
+            }
+        }
+        return out;
+    }
+
+    private static int clamp(int c) {
+        return c < 0 ? 0 : Math.min(c, 262143);
+    }
+}
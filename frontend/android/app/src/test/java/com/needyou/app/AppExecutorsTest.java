@@ -0,0 +1,97 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exercises AppExecutors and TaskScope with a queued stand-in for the main
+ * thread, drained explicitly by the test.
+ */
+public class AppExecutorsTest {
+
+    /** Collects main-thread posts; {@link #drain()} runs them like a looper would. */
+    private static final class FakeMain implements Executor {
+        final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void execute(Runnable command) {
+            queue.add(command);
+        }
+
+        void drain() {
+            Runnable r;
+            while ((r = queue.poll()) != null)
+                r.run();
+        }
+    }
+
+    @Test
+    public void serialLaneKeepsOrderOnAParallelPool() throws Exception {
+        AppExecutors executors = new AppExecutors(new FakeMain());
+        Executor lane = AppExecutors.serial(executors.io());
+        List<Integer> seen = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(50);
+        for (int i = 0; i < 50; i++) {
+            int n = i;
+            lane.execute(() -> {
+                seen.add(n);
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 50; i++)
+            assertEquals(i, (int) seen.get(i));
+    }
+
+    @Test
+    public void ioThenMainDeliversResultOnMain() throws Exception {
+        FakeMain main = new FakeMain();
+        TaskScope scope = new AppExecutors(main).newScope();
+        List<String> results = new CopyOnWriteArrayList<>();
+
+        scope.ioThenMain(() -> Thread.currentThread().getName(), results::add).get(5, TimeUnit.SECONDS);
+        assertTrue("nothing runs until the main queue is drained", results.isEmpty());
+        main.drain();
+        assertEquals(1, results.size());
+        assertTrue(results.get(0), results.get(0).startsWith("NeedYouIO-"));
+    }
+
+    @Test
+    public void cancelInterruptsWorkAndDropsMainCallbacks() throws Exception {
+        FakeMain main = new FakeMain();
+        TaskScope scope = new AppExecutors(main).newScope();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        List<String> ran = new CopyOnWriteArrayList<>();
+
+        Future<?> blocked = scope.io(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+        scope.main(() -> ran.add("posted before cancel"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        scope.cancel();
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(blocked.isCancelled());
+
+        scope.main(() -> ran.add("posted after cancel"));
+        Future<?> late = scope.compute(() -> ran.add("late work"));
+        main.drain();
+        assertTrue(late.isCancelled());
+        assertTrue(ran.isEmpty());
+    }
+}
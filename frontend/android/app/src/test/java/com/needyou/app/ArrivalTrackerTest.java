@@ -0,0 +1,117 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drives ArrivalTracker with a fake location provider replaying a route.
+ */
+public class ArrivalTrackerTest {
+
+    // Job site: Connaught Place, New Delhi
+    private static final double SITE_LAT = 28.6315;
+    private static final double SITE_LNG = 77.2167;
+
+    // ~111 m per 0.001° of latitude
+    private static final double DEG_PER_100M = 0.0009;
+
+    /** Replays a fixed list of fixes into the tracker, like a mocked provider. */
+    private static final class FakeLocationSource {
+        private final double[][] fixes;
+
+        FakeLocationSource(double[][] fixes) {
+            this.fixes = fixes;
+        }
+
+        void start(ArrivalTracker tracker) {
+            for (double[] f : fixes)
+                tracker.onFix(f[0], f[1], (float) f[2]);
+        }
+    }
+
+    private final List<String> events = new ArrayList<>();
+    private ArrivalTracker tracker;
+
+    @Before
+    public void setUp() {
+        tracker = new ArrivalTracker(new ArrivalTracker.Listener() {
+            @Override
+            public void onEnter(ArrivalTracker.Fence fence) {
+                events.add("enter:" + fence.id);
+            }
+
+            @Override
+            public void onExit(ArrivalTracker.Fence fence) {
+                events.add("exit:" + fence.id);
+            }
+        });
+        tracker.add(new ArrivalTracker.Fence("app1", SITE_LAT, SITE_LNG, 200, "{}"));
+    }
+
+    private static double[] north(double metres, double accuracy) {
+        return new double[] { SITE_LAT + metres / 100 * DEG_PER_100M, SITE_LNG, accuracy };
+    }
+
+    @Test
+    public void entersOnceWhenApproaching() {
+        new FakeLocationSource(new double[][] {
+                north(2000, 20), north(800, 20), north(300, 20), north(150, 20), north(50, 10), north(10, 5)
+        }).start(tracker);
+
+        assertEquals(List.of("enter:app1"), events);
+        assertTrue(tracker.get("app1").isInside());
+    }
+
+    @Test
+    public void ignoresInaccurateFixes() {
+        // Network fix with 500 m accuracy lands inside the fence — not trusted
+        new FakeLocationSource(new double[][] { north(100, 500) }).start(tracker);
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void boundaryJitterDoesNotFlap() {
+        new FakeLocationSource(new double[][] {
+                north(190, 10), north(210, 10), north(195, 10), north(240, 10), north(180, 10)
+        }).start(tracker);
+        assertEquals(List.of("enter:app1"), events);
+    }
+
+    @Test
+    public void exitsBeyondHysteresis() {
+        new FakeLocationSource(new double[][] { north(100, 10), north(400, 10), north(100, 10) }).start(tracker);
+        assertEquals(List.of("enter:app1", "exit:app1", "enter:app1"), events);
+    }
+
+    @Test
+    public void platformTransitionsShareState() {
+        tracker.onTransition("app1", true);
+        // A later GPS fix inside the fence must not report a second arrival
+        tracker.onFix(SITE_LAT, SITE_LNG, 5);
+        tracker.onTransition("app1", true);
+        tracker.onTransition("unknown", true);
+        assertEquals(List.of("enter:app1"), events);
+    }
+
+    @Test
+    public void resetFenceEntersAgain() {
+        tracker.onTransition("app1", true);
+        tracker.reset("app1");
+        assertFalse(tracker.get("app1").isInside());
+        // Still on site: the next fix reports the arrival again, with no exit in between
+        tracker.onFix(SITE_LAT, SITE_LNG, 5);
+        assertEquals(List.of("enter:app1", "enter:app1"), events);
+    }
+
+    @Test
+    public void removedFenceStopsFiring() {
+        tracker.remove("app1");
+        new FakeLocationSource(new double[][] { north(10, 5) }).start(tracker);
+        assertTrue(events.isEmpty());
+    }
+}
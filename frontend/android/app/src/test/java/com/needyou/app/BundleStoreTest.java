@@ -0,0 +1,248 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BundleStore against a local HTTP server serving two bundle versions.
+ */
+public class BundleStoreTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private HttpServer server;
+    private String baseUrl;
+    // path → body for the version currently being served
+    private final Map<String, byte[]> served = new ConcurrentHashMap<>();
+    private volatile String manifest = "";
+    private final AtomicInteger fileRequests = new AtomicInteger();
+
+    @Before
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = null;
+            if (path.equals("/bundle/manifest.json")) {
+                body = manifest.getBytes(StandardCharsets.UTF_8);
+            } else if (path.startsWith("/bundle/files/")) {
+                fileRequests.incrementAndGet();
+                body = served.get(path.substring("/bundle/files/".length()));
+            }
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/bundle";
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private void serve(String version, Map<String, String> files) throws Exception {
+        served.clear();
+        JSONObject hashes = new JSONObject();
+        for (Map.Entry<String, String> e : files.entrySet()) {
+            byte[] body = e.getValue().getBytes(StandardCharsets.UTF_8);
+            served.put(e.getKey(), body);
+            hashes.put(e.getKey(), sha256(body));
+        }
+        manifest = new JSONObject().put("version", version).put("files", hashes).toString();
+    }
+
+    private static String sha256(byte[] data) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(data))
+            sb.append(String.format(Locale.US, "%02x", b));
+        return sb.toString();
+    }
+
+    private static Map<String, String> v1() {
+        Map<String, String> m = new HashMap<>();
+        m.put("index.html", "<html>v1</html>");
+        m.put("dashboard.html", "<html>dashboard v1</html>");
+        m.put("_next/static/chunks/app.js", "console.log('shared chunk')");
+        return m;
+    }
+
+    private static Map<String, String> v2() {
+        Map<String, String> m = v1();
+        m.put("dashboard.html", "<html>dashboard v2</html>");
+        return m;
+    }
+
+    private static String read(File f) throws Exception {
+        return new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void stagesThenActivatesOnNextLaunch() throws Exception {
+        serve("1", v1());
+        BundleStore store = new BundleStore(tmp.getRoot(), baseUrl);
+
+        assertTrue(store.checkForUpdate());
+        assertEquals("", store.getActiveVersion());
+        assertEquals("1", store.getPendingVersion());
+
+        store.onLaunch();
+        assertEquals("1", store.getActiveVersion());
+        assertTrue(store.isBootPending());
+        assertEquals("<html>dashboard v1</html>", read(store.resolve("/dashboard")));
+        assertEquals("<html>v1</html>", read(store.resolve("/")));
+
+        store.markBootAttempted();
+
+        store.markBootSuccessful();
+        assertFalse(store.isBootPending());
+        assertFalse("same version is not re-staged", store.checkForUpdate());
+    }
+
+    @Test
+    public void downloadsOnlyChangedFiles() throws Exception {
+        serve("1", v1());
+        BundleStore store = new BundleStore(tmp.getRoot(), baseUrl);
+        store.checkForUpdate();
+        store.onLaunch();
+        store.markBootAttempted();
+        store.markBootSuccessful();
+        assertEquals(3, fileRequests.get());
+
+        fileRequests.set(0);
+        serve("2", v2());
+        assertTrue(store.checkForUpdate());
+        assertEquals("only dashboard.html changed", 1, fileRequests.get());
+
+        store.onLaunch();
+        assertEquals("2", store.getActiveVersion());
+        assertEquals("<html>dashboard v2</html>", read(store.resolve("/dashboard")));
+        assertEquals("console.log('shared chunk')", read(store.resolve("/_next/static/chunks/app.js")));
+    }
+
+    @Test
+    public void rollsBackWhenBootIsNotConfirmed() throws Exception {
+        serve("1", v1());
+        BundleStore store = new BundleStore(tmp.getRoot(), baseUrl);
+        store.checkForUpdate();
+        store.onLaunch();
+        store.markBootAttempted();
+        store.markBootSuccessful();
+
+        serve("2", v2());
+        store.checkForUpdate();
+        store.onLaunch();
+        assertEquals("2", store.getActiveVersion());
+        store.markBootAttempted();
+
+        // Process dies before the page confirms — reopen from disk and relaunch
+        BundleStore reopened = new BundleStore(tmp.getRoot(), baseUrl);
+        reopened.onLaunch();
+        assertEquals("1", reopened.getActiveVersion());
+        assertFalse(reopened.isBootPending());
+        assertEquals("<html>dashboard v1</html>", read(reopened.resolve("/dashboard")));
+    }
+
+    @Test
+    public void rolledBackVersionIsNotStagedAgain() throws Exception {
+        serve("1", v1());
+        BundleStore store = new BundleStore(tmp.getRoot(), baseUrl);
+        store.checkForUpdate();
+        store.onLaunch();
+        store.markBootAttempted();
+        store.markBootSuccessful();
+
+        serve("2", v2());
+        store.checkForUpdate();
+        store.onLaunch();
+        store.markBootAttempted();
+
+        BundleStore reopened = new BundleStore(tmp.getRoot(), baseUrl);
+        reopened.onLaunch();
+        assertEquals("1", reopened.getActiveVersion());
+        fileRequests.set(0);
+        assertFalse("a rolled-back version is refused", reopened.checkForUpdate());
+        assertEquals(0, fileRequests.get());
+        assertEquals("", reopened.getPendingVersion());
+        assertTrue(new BundleStore(tmp.getRoot(), baseUrl).getFailedVersions().contains("2"));
+
+        serve("3", v2());
+        assertTrue(reopened.checkForUpdate());
+    }
+
+    @Test
+    public void offlineLaunchDoesNotRollBack() throws Exception {
+        serve("1", v1());
+        BundleStore store = new BundleStore(tmp.getRoot(), baseUrl);
+        store.checkForUpdate();
+        store.onLaunch();
+        store.markBootAttempted();
+        store.markBootSuccessful();
+
+        serve("2", v2());
+        store.checkForUpdate();
+        store.onLaunch();
+        assertEquals("2", store.getActiveVersion());
+
+        // Started offline: the bundle never served a page and nothing confirmed
+        BundleStore offline = new BundleStore(tmp.getRoot(), baseUrl);
+        offline.onLaunch();
+        assertEquals("2", offline.getActiveVersion());
+        assertTrue(offline.isBootPending());
+        // A page served from the network confirming does not confirm the bundle
+        offline.markBootSuccessful();
+        assertTrue(offline.isBootPending());
+
+        offline.markBootAttempted();
+        offline.markBootSuccessful();
+        BundleStore next = new BundleStore(tmp.getRoot(), baseUrl);
+        next.onLaunch();
+        assertEquals("2", next.getActiveVersion());
+        assertTrue(next.getFailedVersions().isEmpty());
+    }
+
+    @Test
+    public void rejectsCorruptDownload() throws Exception {
+        serve("1", v1());
+        served.put("index.html", "tampered".getBytes(StandardCharsets.UTF_8));
+        BundleStore store = new BundleStore(tmp.getRoot(), baseUrl);
+        try {
+            store.checkForUpdate();
+            fail("hash mismatch must abort the update");
+        } catch (java.io.IOException expected) {
+            // expected
+        }
+        assertEquals("", store.getPendingVersion());
+        store.onLaunch();
+        assertEquals("", store.getActiveVersion());
+        assertNull(store.resolve("/"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * EtaEstimator on synthetic trips: a worker driving north towards the job
+ * site at a steady speed, with GPS noise, stops and gaps.
+ */
+public class EtaEstimatorTest {
+
+    private static final double DEST_LAT = 28.6315;
+    private static final double DEST_LNG = 77.2167;
+    private static final double M_PER_DEG_LAT = 111_320;
+    private static final long T0 = 1_700_000_000_000L;
+
+    /** Latitude {@code metres} south of the job site. */
+    private static double southOf(double metres) {
+        return DEST_LAT - metres / M_PER_DEG_LAT;
+    }
+
+    @Test
+    public void steadyDriveConvergesOnSpeedAndEta() {
+        Random rnd = new Random(7);
+        EtaEstimator eta = new EtaEstimator(DEST_LAT, DEST_LNG);
+        double start = 8_000, speed = 10; // 36 km/h
+        long t = T0;
+        for (int i = 0; i <= 60; i++, t += 5_000) { // 5 minutes, a fix every 5 s
+            double d = start - speed * i * 5 + rnd.nextGaussian() * 15;
+            eta.update(southOf(d), DEST_LNG + rnd.nextGaussian() * 15 / 97_700, 20, t);
+        }
+        assertEquals(speed, eta.speedMps(), 2.5);
+        assertEquals(speed, eta.cruiseMps(), 1.5);
+        double remaining = start - speed * 300;
+        double expectedS = remaining * EtaEstimator.DETOUR / speed;
+        double actualS = (eta.etaAt() - (t - 5_000)) / 1000.0;
+        assertEquals(expectedS, actualS, expectedS * 0.2);
+    }
+
+    @Test
+    public void steadyPacePublishesRarely() {
+        EtaEstimator eta = new EtaEstimator(DEST_LAT, DEST_LNG);
+        int published = 0;
+        long t = T0;
+        for (int i = 0; i < 120; i++, t += 5_000) { // 10 minutes at 8 m/s
+            if (eta.update(southOf(6_000 - 8 * i * 5), DEST_LNG, 15, t) != 0)
+                published++;
+        }
+        assertTrue("published " + published + " of 120 fixes", published > 0 && published <= 8);
+    }
+
+    @Test
+    public void stopPushesEtaBackWithoutLoweringCruise() {
+        EtaEstimator eta = new EtaEstimator(DEST_LAT, DEST_LNG);
+        long t = T0;
+        double d = 5_000;
+        for (int i = 0; i < 36; i++, t += 5_000, d -= 50) // 3 minutes at 10 m/s
+            eta.update(southOf(d), DEST_LNG, 10, t);
+        long before = eta.etaAt();
+        double cruise = eta.cruiseMps();
+        for (int i = 0; i < 24; i++, t += 5_000) // 2-minute stop
+            eta.update(southOf(d), DEST_LNG, 10, t);
+        assertEquals(cruise, eta.cruiseMps(), 1.0);
+        long slip = eta.etaAt() - before;
+        assertTrue("slip " + slip, slip > 90_000 && slip < 150_000);
+    }
+
+    @Test
+    public void jitterWhileStandingStillIsNotMoving() {
+        Random rnd = new Random(3);
+        EtaEstimator eta = new EtaEstimator(DEST_LAT, DEST_LNG);
+        long t = T0;
+        for (int i = 0; i < 60; i++, t += 5_000)
+            eta.update(southOf(3_000 + rnd.nextGaussian() * 25), DEST_LNG + rnd.nextGaussian() * 25 / 97_700, 30, t);
+        assertEquals(EtaEstimator.DEFAULT_CRUISE_MPS, eta.cruiseMps(), 1e-9);
+    }
+
+    @Test
+    public void nearTheSiteMeansArrivingNow() {
+        EtaEstimator eta = new EtaEstimator(DEST_LAT, DEST_LNG);
+        assertEquals(T0, eta.update(southOf(100), DEST_LNG, 10, T0));
+    }
+
+    @Test
+    public void staleFixesAreIgnoredAndLongGapsRestart() {
+        EtaEstimator eta = new EtaEstimator(DEST_LAT, DEST_LNG);
+        assertNotEquals(0, eta.update(southOf(4_000), DEST_LNG, 10, T0));
+        assertEquals(0, eta.update(southOf(1_000), DEST_LNG, 10, T0 - 1_000));
+        assertEquals(southOf(4_000), eta.latitude(), 1e-9);
+
+        long later = T0 + EtaEstimator.RESET_GAP_MS + 1;
+        eta.update(southOf(1_000), DEST_LNG, 10, later);
+        assertEquals("a restart takes the new fix as is", southOf(1_000), eta.latitude(), 1e-9);
+        assertEquals(0, eta.speedMps(), 1e-9);
+    }
+}
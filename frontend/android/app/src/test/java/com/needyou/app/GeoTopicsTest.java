@@ -0,0 +1,178 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * GeoTopics against an in-memory stand-in for FirebaseMessaging: coverage of
+ * the alert radius, hysteresis at cell edges, subscription diffs and retries.
+ */
+public class GeoTopicsTest {
+
+    /** Central Delhi, well inside cell "ttnf". */
+    private static final double LAT = 28.6315;
+    private static final double LNG = 77.2167;
+    private static final double M_PER_DEG_LAT = 111_320;
+
+    /**
+     * Carries out plans as JobAlertTopics does, subscribes before unsubscribes.
+     * Records calls in order; topics listed in {@code failing} fail until removed.
+     */
+    private static final class FakeMessaging {
+        final Set<String> topics = new HashSet<>();
+        final List<String> calls = new ArrayList<>();
+        final Set<String> failing = new HashSet<>();
+
+        boolean fix(GeoTopics geo, double lat, double lng) {
+            return run(geo, geo.follow(lat, lng));
+        }
+
+        boolean clear(GeoTopics geo) {
+            return run(geo, geo.clear());
+        }
+
+        private boolean run(GeoTopics geo, GeoTopics.Plan plan) {
+            List<String> subscribed = new ArrayList<>();
+            for (String t : plan.subscribe) {
+                calls.add("+" + t);
+                if (!failing.contains(t) && topics.add(t))
+                    subscribed.add(t);
+            }
+            List<String> unsubscribed = new ArrayList<>();
+            for (String t : plan.unsubscribe) {
+                calls.add("-" + t);
+                if (!failing.contains(t) && topics.remove(t))
+                    unsubscribed.add(t);
+            }
+            return geo.applied(subscribed, unsubscribed);
+        }
+    }
+
+    @Test
+    public void boundsContainTheirPoint() {
+        String hash = Geohash.encode(LAT, LNG, GeoTopics.PRECISION);
+        double[] b = Geohash.bounds(hash);
+        assertTrue(LAT >= b[0] && LAT < b[1] && LNG >= b[2] && LNG < b[3]);
+        assertEquals(hash, Geohash.encode((b[0] + b[1]) / 2, (b[2] + b[3]) / 2, hash.length()));
+        assertEquals(180.0 / 1024, b[1] - b[0], 1e-12); // 10 lat bits at precision 4
+        assertNull(Geohash.bounds("tta!"));
+    }
+
+    @Test
+    public void firstFixSubscribesEveryCellInRange() {
+        FakeMessaging fcm = new FakeMessaging();
+        GeoTopics topics = new GeoTopics(null, Collections.emptyList());
+        assertTrue(fcm.fix(topics, LAT, LNG));
+        assertEquals(Geohash.encode(LAT, LNG, GeoTopics.PRECISION), topics.center());
+        assertEquals(new HashSet<>(topics.subscribed()), fcm.topics);
+        assertTrue("" + fcm.topics.size(), fcm.topics.size() >= 9 && fcm.topics.size() <= 25);
+        for (String t : fcm.topics)
+            assertTrue(t, t.matches("jobs_[0-9b-hjkmnp-z]{4}"));
+    }
+
+    @Test
+    public void anyJobWithinRadiusIsOnASubscribedTopic() {
+        Random rnd = new Random(11);
+        String center = Geohash.encode(LAT, LNG, GeoTopics.PRECISION);
+        Set<String> subscribed = GeoTopics.topicsAround(center);
+        double[] b = Geohash.bounds(center);
+        double mLat = (b[1] - b[0]) * GeoTopics.HYSTERESIS, mLng = (b[3] - b[2]) * GeoTopics.HYSTERESIS;
+        for (int i = 0; i < 20_000; i++) {
+            // Anywhere the device can be without moving the centre cell...
+            double lat = b[0] - mLat + rnd.nextDouble() * (b[1] - b[0] + 2 * mLat);
+            double lng = b[2] - mLng + rnd.nextDouble() * (b[3] - b[2] + 2 * mLng);
+            assertEquals(center, GeoTopics.centerFor(lat, lng, center));
+            // ...and a job up to the alert radius away in any direction
+            double d = rnd.nextDouble() * GeoTopics.RADIUS_KM * 1000;
+            double bearing = rnd.nextDouble() * 2 * Math.PI;
+            double jobLat = lat + d * Math.cos(bearing) / M_PER_DEG_LAT;
+            double jobLng = lng + d * Math.sin(bearing) / (M_PER_DEG_LAT * Math.cos(Math.toRadians(lat)));
+            String topic = GeoTopics.topic(Geohash.encode(jobLat, jobLng, GeoTopics.PRECISION));
+            assertTrue(topic + " for a job " + Math.round(d) + " m away", subscribed.contains(topic));
+        }
+    }
+
+    @Test
+    public void jitterAcrossACellEdgeDoesNotResubscribe() {
+        FakeMessaging fcm = new FakeMessaging();
+        GeoTopics topics = new GeoTopics(null, Collections.emptyList());
+        double[] b = Geohash.bounds(Geohash.encode(LAT, LNG, GeoTopics.PRECISION));
+        double north = b[1];
+        fcm.fix(topics, north - 0.001, LNG);
+        int calls = fcm.calls.size();
+        double margin = (b[1] - b[0]) * GeoTopics.HYSTERESIS;
+        for (int i = 0; i < 50; i++) // back and forth over the northern edge
+            assertFalse(fcm.fix(topics, north + (i % 2 == 0 ? 0.9 : -0.5) * margin, LNG));
+        assertEquals(calls, fcm.calls.size());
+    }
+
+    @Test
+    public void movingOneCellSwapsARowSubscribingFirst() {
+        FakeMessaging fcm = new FakeMessaging();
+        GeoTopics topics = new GeoTopics(null, Collections.emptyList());
+        fcm.fix(topics, LAT, LNG);
+        Set<String> before = new HashSet<>(fcm.topics);
+        double[] b = Geohash.bounds(topics.center());
+        fcm.calls.clear();
+
+        assertTrue(fcm.fix(topics, b[1] + (b[1] - b[0]) * 0.5, LNG)); // middle of the cell to the north
+        assertNotEquals(Geohash.encode(LAT, LNG, GeoTopics.PRECISION), topics.center());
+        Set<String> added = new HashSet<>(fcm.topics);
+        added.removeAll(before);
+        Set<String> dropped = new HashSet<>(before);
+        dropped.removeAll(fcm.topics);
+        assertFalse(added.isEmpty());
+        assertEquals(added.size(), dropped.size());
+        assertTrue(added.size() < before.size() / 2);
+        assertEquals(added.size() + dropped.size(), fcm.calls.size());
+        for (int i = 0; i < added.size(); i++)
+            assertTrue(fcm.calls.get(i), fcm.calls.get(i).startsWith("+"));
+    }
+
+    @Test
+    public void failedCallsAreRetriedOnTheNextFix() {
+        FakeMessaging fcm = new FakeMessaging();
+        String own = GeoTopics.topic(Geohash.encode(LAT, LNG, GeoTopics.PRECISION));
+        fcm.failing.add(own);
+        GeoTopics topics = new GeoTopics(null, Collections.emptyList());
+        fcm.fix(topics, LAT, LNG);
+        assertFalse(topics.subscribed().contains(own));
+
+        fcm.failing.clear();
+        assertTrue(fcm.fix(topics, LAT, LNG));
+        assertTrue(topics.subscribed().contains(own));
+        assertFalse(fcm.fix(topics, LAT, LNG));
+    }
+
+    @Test
+    public void restoredStateOnlyDiffs() {
+        FakeMessaging first = new FakeMessaging();
+        GeoTopics before = new GeoTopics(null, Collections.emptyList());
+        first.fix(before, LAT, LNG);
+
+        FakeMessaging fcm = new FakeMessaging();
+        fcm.topics.addAll(first.topics);
+        GeoTopics restored = new GeoTopics(before.center(), before.subscribed());
+        assertFalse(fcm.fix(restored, LAT + 0.01, LNG + 0.01));
+        assertTrue(fcm.calls.isEmpty());
+
+        assertTrue(fcm.clear(restored));
+        assertTrue(fcm.topics.isEmpty());
+        assertTrue(restored.subscribed().isEmpty());
+        assertNull(restored.center());
+    }
+
+    @Test
+    public void alertsBeyondTheRadiusAreNotNearby() {
+        assertTrue(GeoTopics.isNearby(LAT + 15_000 / M_PER_DEG_LAT, LNG, LAT, LNG));
+        assertFalse(GeoTopics.isNearby(LAT + 25_000 / M_PER_DEG_LAT, LNG, LAT, LNG));
+    }
+}
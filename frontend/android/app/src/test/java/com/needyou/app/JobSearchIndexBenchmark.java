@@ -0,0 +1,104 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Typeahead latency over 50k synthetic jobs: every prefix of a set of
+ * realistic queries, with and without a distance origin. Prints p50/p95/max
+ * and fails if p95 exceeds {@link #BUDGET_MS}.
+ *
+ * Wall-clock timings depend on the machine, so this is not part of the
+ * default unit-test run; run it with {@code ./gradlew test -Dbenchmarks}.
+ */
+public class JobSearchIndexBenchmark {
+
+    private static final int JOBS = 50_000;
+    private static final double BUDGET_MS = 10;
+
+    private static final String[] CATEGORIES = { "Plumbing", "Electrical", "Painting", "Carpentry",
+            "Cleaning", "Delivery", "Moving", "Gardening", "Tutoring", "Cooking", "Repair", "Other" };
+    private static final String[] WORDS = ("need urgent help fix repair install replace kitchen bathroom sink tap "
+            + "leak pipe fan light wiring switch wall paint room house flat office shop wardrobe door window "
+            + "bed sofa table chair clean deep sofa carpet garden lawn plants shift move boxes truck parcel "
+            + "deliver tuition maths english cook dinner party tomorrow today weekend evening morning two three "
+            + "bhk apartment building society near metro market quick experienced worker person daily hours").split(" ");
+    private static final String[][] PLACES = {
+            { "Connaught Place New Delhi Delhi", "28.6315", "77.2167" },
+            { "Andheri Mumbai Maharashtra", "19.1136", "72.8697" },
+            { "Koramangala Bengaluru Karnataka", "12.9352", "77.6245" },
+            { "Salt Lake Kolkata West Bengal", "22.5867", "88.4171" },
+            { "Hinjewadi Pune Maharashtra", "18.5912", "73.7389" },
+    };
+    private static final String[] QUERIES = { "plumber kitchen sink", "electrician fan", "paint two rooms",
+            "deep clean bhk", "move boxes truck", "tuition maths", "repair door", "urgent help today",
+            "wardrobe carpentry", "garden plants weekend" };
+
+    @Test
+    public void typeaheadOn50kJobsStaysUnderBudget() {
+        Random rnd = new Random(42);
+        JobSearchIndex index = new JobSearchIndex();
+        long buildStart = System.nanoTime();
+        for (int i = 0; i < JOBS; i++) {
+            StringBuilder caption = new StringBuilder();
+            int len = 8 + rnd.nextInt(25);
+            for (int w = 0; w < len; w++)
+                caption.append(WORDS[rnd.nextInt(WORDS.length)]).append(w % 7 == 6 ? ". " : " ");
+            if (rnd.nextInt(4) == 0)
+                caption.append("plumber ");
+            if (rnd.nextInt(5) == 0)
+                caption.append("electrician ");
+            caption.append("ref").append(i); // unique-ish tokens, like names and numbers
+            String[] place = PLACES[rnd.nextInt(PLACES.length)];
+            index.put(new JobSearchIndex.Job("job" + i, caption.toString(),
+                    CATEGORIES[rnd.nextInt(CATEGORIES.length)], place[0],
+                    Double.parseDouble(place[1]) + (rnd.nextDouble() - 0.5) * 0.3,
+                    Double.parseDouble(place[2]) + (rnd.nextDouble() - 0.5) * 0.3));
+        }
+        double buildMs = (System.nanoTime() - buildStart) / 1e6;
+
+        // Warm-up (JIT)
+        for (int r = 0; r < 3; r++)
+            runAllPrefixes(index, null);
+
+        int perRound = 0;
+        for (String q : QUERIES)
+            perRound += q.length();
+        double[] samples = new double[perRound * 2];
+        int[] next = { 0 };
+        runAllPrefixes(index, (ms) -> samples[next[0]++] = ms);
+        Arrays.sort(samples, 0, next[0]);
+        double p50 = samples[next[0] / 2];
+        double p95 = samples[(int) (next[0] * 0.95)];
+        double max = samples[next[0] - 1];
+        System.out.printf("JobSearchIndex: %d jobs, %d terms, built in %.0f ms; typeahead over %d queries: "
+                + "p50 %.3f ms, p95 %.3f ms, max %.3f ms%n", index.size(), index.termCount(), buildMs,
+                next[0], p50, p95, max);
+        assertTrue("p95 " + p95 + " ms over budget", p95 < BUDGET_MS);
+    }
+
+    private interface Sink {
+        void accept(double ms);
+    }
+
+    private static void runAllPrefixes(JobSearchIndex index, Sink sink) {
+        for (String q : QUERIES) {
+            for (int end = 1; end <= q.length(); end++) {
+                String prefix = q.substring(0, end);
+                for (int origin = 0; origin < 2; origin++) {
+                    long t0 = System.nanoTime();
+                    if (origin == 0)
+                        index.search(prefix, Double.NaN, Double.NaN, 50);
+                    else
+                        index.search(prefix, 28.6315, 77.2167, 50);
+                    if (sink != null)
+                        sink.accept((System.nanoTime() - t0) / 1e6);
+                }
+            }
+        }
+    }
+}
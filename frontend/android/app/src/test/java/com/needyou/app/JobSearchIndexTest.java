@@ -0,0 +1,123 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Matching and ranking rules of the on-device job search index.
+ */
+public class JobSearchIndexTest {
+
+    // Connaught Place, New Delhi
+    private static final double CP_LAT = 28.6315;
+    private static final double CP_LNG = 77.2167;
+
+    private JobSearchIndex index;
+
+    private static List<String> ids(List<JobSearchIndex.Hit> hits) {
+        List<String> out = new ArrayList<>();
+        for (JobSearchIndex.Hit h : hits)
+            out.add(h.id);
+        return out;
+    }
+
+    @Before
+    public void setUp() {
+        index = new JobSearchIndex();
+        index.put(new JobSearchIndex.Job("j1", "Need a plumber to fix kitchen sink leak", "Plumbing",
+                "Karol Bagh New Delhi Delhi", 28.6519, 77.1909));
+        index.put(new JobSearchIndex.Job("j2", "Bathroom tap replacement, plumbing work", "Plumbing",
+                "Saket New Delhi Delhi", 28.5245, 77.2066));
+        index.put(new JobSearchIndex.Job("j3", "Paint two rooms before Diwali", "Painting",
+                "Connaught Place New Delhi Delhi", 28.6315, 77.2167));
+        index.put(new JobSearchIndex.Job("j4", "Electrician for fan installation", "Electrical",
+                "Andheri Mumbai Maharashtra", 19.1136, 72.8697));
+        index.put(new JobSearchIndex.Job("j5", "Café counter needs a plumber urgently", "Plumbing",
+                "Connaught Place New Delhi Delhi", 28.6320, 77.2170));
+    }
+
+    @Test
+    public void tokenizerFoldsCaseAccentsAndPunctuation() {
+        assertEquals(Arrays.asList("cafe", "counter", "2", "bhk"),
+                JobSearchIndex.tokenize("Café COUNTER, 2-BHK!"));
+        assertEquals(Arrays.asList("प्लंबर", "चाहिए"), JobSearchIndex.tokenize("प्लंबर चाहिए"));
+    }
+
+    @Test
+    public void lastWordIsMatchedAsPrefix() {
+        assertEquals(3, index.search("plum", Double.NaN, Double.NaN, 10).size());
+        assertEquals(Arrays.asList("j4"), ids(index.search("elec", Double.NaN, Double.NaN, 10)));
+        // a finished word (trailing space) must match exactly
+        assertTrue(index.search("plum ", Double.NaN, Double.NaN, 10).isEmpty());
+    }
+
+    @Test
+    public void allWordsMustMatch() {
+        assertEquals(Arrays.asList("j1"), ids(index.search("plumber kitchen", Double.NaN, Double.NaN, 10)));
+        assertEquals(Arrays.asList("j4"), ids(index.search("mumbai fa", Double.NaN, Double.NaN, 10)));
+        assertTrue(index.search("plumber mumbai", Double.NaN, Double.NaN, 10).isEmpty());
+        assertTrue(index.search("carpenter", Double.NaN, Double.NaN, 10).isEmpty());
+    }
+
+    @Test
+    public void categoryOutranksCaptionOutranksPlace() {
+        index.put(new JobSearchIndex.Job("c1", "General help", "Delivery", "Pune", 18.5, 73.8));
+        index.put(new JobSearchIndex.Job("c2", "Delivery of parcels", "Other", "Pune", 18.5, 73.8));
+        index.put(new JobSearchIndex.Job("c3", "General help", "Other", "Delivery Road Pune", 18.5, 73.8));
+        assertEquals(Arrays.asList("c1", "c2", "c3"), ids(index.search("delivery", Double.NaN, Double.NaN, 10)));
+    }
+
+    @Test
+    public void distanceReordersEqualTextMatches() {
+        List<JobSearchIndex.Hit> hits = index.search("plumber", CP_LAT, CP_LNG, 10);
+        assertEquals(Arrays.asList("j5", "j1"), ids(hits));
+        assertTrue(hits.get(0).distanceKm < 0.1);
+        assertTrue(hits.get(1).distanceKm > 3 && hits.get(1).distanceKm < 5);
+        assertTrue(Double.isNaN(index.search("plumber", Double.NaN, Double.NaN, 1).get(0).distanceKm));
+    }
+
+    @Test
+    public void jobWithoutCoordinatesRanksAsMidDistance() {
+        index.put(new JobSearchIndex.Job("nowhere", "Need a plumber", "Plumbing", "", Double.NaN, Double.NaN));
+        index.put(new JobSearchIndex.Job("far", "Need a plumber", "Plumbing", "Andheri Mumbai", 19.1136, 72.8697));
+        List<String> ranked = ids(index.search("plumber", CP_LAT, CP_LNG, 10));
+        assertEquals(Arrays.asList("j5", "j1", "nowhere", "far"), ranked);
+    }
+
+    @Test
+    public void limitKeepsTheBest() {
+        List<JobSearchIndex.Hit> hits = index.search("delhi", CP_LAT, CP_LNG, 2);
+        assertEquals(2, hits.size());
+        assertTrue(hits.get(0).score >= hits.get(1).score);
+        assertTrue(ids(hits).contains("j3"));
+    }
+
+    @Test
+    public void updatesAreIncremental() {
+        index.put(new JobSearchIndex.Job("j3", "Carpenter for wardrobe", "Carpentry",
+                "Connaught Place New Delhi Delhi", 28.6315, 77.2167));
+        assertTrue(index.search("paint", Double.NaN, Double.NaN, 10).isEmpty());
+        assertEquals(Arrays.asList("j3"), ids(index.search("wardr", Double.NaN, Double.NaN, 10)));
+        index.remove("j1");
+        assertEquals(Arrays.asList("j5"), ids(index.search("plumber", Double.NaN, Double.NaN, 10)));
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    public void churnCompactsDeadSlots() {
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 1000; i++)
+                index.put(new JobSearchIndex.Job("x" + i, "round " + round + " job", "Other", "Pune", 18.5, 73.8));
+        }
+        assertEquals(1005, index.size());
+        assertEquals(1000, index.search("round", Double.NaN, Double.NaN, 5000).size());
+        assertEquals(1000, index.search("4", Double.NaN, Double.NaN, 5000).size());
+        assertTrue(index.search("3", Double.NaN, Double.NaN, 5000).isEmpty());
+    }
+}
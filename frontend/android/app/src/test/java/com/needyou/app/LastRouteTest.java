@@ -0,0 +1,62 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Resume rule used by MainActivity on relaunch.
+ */
+public class LastRouteTest {
+
+    private static final String HOST = "need-you.xyz";
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long MIN = 60 * 1000;
+
+    private static LastRoute route(String path, long ageMs) {
+        return new LastRoute("https://" + HOST + path, NOW - ageMs);
+    }
+
+    @Test
+    public void recentAppRouteResumes() {
+        assertTrue(route("/dashboard/chat?jobId=abc", 5 * MIN).isResumable(NOW, LastRoute.DEFAULT_WINDOW_MS, HOST));
+        assertTrue(route("/dashboard", 0).isResumable(NOW, LastRoute.DEFAULT_WINDOW_MS, HOST));
+    }
+
+    @Test
+    public void windowIsRespected() {
+        LastRoute r = route("/dashboard/chat", 31 * MIN);
+        assertFalse(r.isResumable(NOW, LastRoute.DEFAULT_WINDOW_MS, HOST));
+        assertTrue(r.isResumable(NOW, 60 * MIN, HOST));
+        assertFalse("0 disables resuming", route("/dashboard", 0).isResumable(NOW, 0, HOST));
+    }
+
+    @Test
+    public void clockSetBackwardsDoesNotResume() {
+        assertFalse(route("/dashboard", -5 * MIN).isResumable(NOW, LastRoute.DEFAULT_WINDOW_MS, HOST));
+    }
+
+    @Test
+    public void flowsThatMustRestartDoNotResume() {
+        for (String path : new String[] { "/", "/signin", "/signup?ref=x", "/onboarding/location",
+                "/verify-email", "/verify-kyc", "/api/jobs" }) {
+            assertFalse(path, LastRoute.isResumableUrl("https://" + HOST + path, HOST));
+        }
+    }
+
+    @Test
+    public void foreignOrMalformedUrlsDoNotResume() {
+        assertFalse(LastRoute.isResumableUrl("https://evil.example/dashboard", HOST));
+        assertFalse(LastRoute.isResumableUrl("http://" + HOST + "/dashboard", HOST));
+        assertFalse(LastRoute.isResumableUrl("file:///android_asset/offline.html", HOST));
+        assertFalse(LastRoute.isResumableUrl("https://" + HOST + "/dash board", HOST));
+        assertFalse(LastRoute.isResumableUrl(null, HOST));
+    }
+
+    @Test
+    public void windowIsClamped() {
+        assertEquals(0, LastRoute.clampWindow(-1));
+        assertEquals(LastRoute.MAX_WINDOW_MS, LastRoute.clampWindow(Long.MAX_VALUE));
+        assertEquals(10 * MIN, LastRoute.clampWindow(10 * MIN));
+    }
+}
@@ -0,0 +1,211 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Runs LivenessPipeline end to end with a synthetic 30 fps NV21 source, an
+ * ImageIO JPEG encoder and an in-memory uploader.
+ */
+public class LivenessPipelineTest {
+
+    private static final long FRAME_NANOS = 33_333_333L; // 30 fps
+
+    /** Emits {@code frames} synthetic frames on its own thread, like a camera callback. */
+    private static final class SyntheticFrameSource implements LivenessPipeline.FrameSource {
+        final int width, height, frames, rotation;
+        final AtomicInteger built = new AtomicInteger();
+        volatile boolean stopped;
+        Thread thread;
+
+        SyntheticFrameSource(int width, int height, int frames, int rotation) {
+            this.width = width;
+            this.height = height;
+            this.frames = frames;
+            this.rotation = rotation;
+        }
+
+        @Override
+        public void start(LivenessPipeline.FrameSink sink) {
+            thread = new Thread(() -> {
+                for (int i = 0; i < frames && !stopped; i++) {
+                    long ts = i * FRAME_NANOS;
+                    if (sink.wants(ts)) {
+                        built.incrementAndGet();
+                        sink.onFrame(new LivenessPipeline.Frame(width, height, greyFrame(width, height), ts, rotation));
+                    }
+                    // Runs ~30x faster than a real camera, but never back-to-back
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            thread.start();
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+        }
+    }
+
+    private static byte[] greyFrame(int w, int h) {
+        byte[] nv21 = new byte[w * h * 3 / 2];
+        java.util.Arrays.fill(nv21, 0, w * h, (byte) 128);
+        java.util.Arrays.fill(nv21, w * h, nv21.length, (byte) 128);
+        return nv21;
+    }
+
+    private static final LivenessPipeline.JpegEncoder IMAGEIO = (argb, w, h, quality) -> {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        img.setRGB(0, 0, w, h, argb, 0, w);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "jpg", out);
+        return out.toByteArray();
+    };
+
+    private static final class Recorder implements LivenessPipeline.Listener {
+        final List<String> results = new CopyOnWriteArrayList<>();
+        final List<String> errors = new CopyOnWriteArrayList<>();
+        final AtomicInteger finishedCalls = new AtomicInteger();
+
+        @Override
+        public void onBatchResult(int batchIndex, String responseJson) {
+            results.add(batchIndex + ":" + responseJson);
+        }
+
+        @Override
+        public void onError(String message) {
+            errors.add(message);
+        }
+
+        @Override
+        public void onFinished(int framesSampled, int framesSkipped) {
+            finishedCalls.incrementAndGet();
+        }
+    }
+
+    @Test
+    public void samplesAtFixedRateAndUploadsFullBatches() throws Exception {
+        List<List<byte[]>> uploads = new CopyOnWriteArrayList<>();
+        List<String> sizes = new CopyOnWriteArrayList<>();
+        Recorder listener = new Recorder();
+        // 4 fps from a 30 fps source, 3 frames per batch, 2 batches
+        SyntheticFrameSource source = new SyntheticFrameSource(640, 480, 600, 270);
+        LivenessPipeline pipeline = new LivenessPipeline(new LivenessPipeline.Config(4, 240, 70, 3, 2),
+                source, (argb, w, h, quality) -> {
+                    sizes.add(w + "x" + h);
+                    return new byte[] { 1 };
+                }, jpegs -> {
+                    uploads.add(jpegs);
+                    return "{\"live\":true}";
+                }, listener);
+
+        pipeline.start();
+        assertTrue(pipeline.awaitFinished(10, TimeUnit.SECONDS));
+        source.thread.join(5_000);
+
+        assertEquals(2, uploads.size());
+        for (List<byte[]> batch : uploads)
+            assertEquals(3, batch.size());
+        assertEquals(List.of("0:{\"live\":true}", "1:{\"live\":true}"), listener.results);
+        assertTrue(listener.errors.isEmpty());
+        assertEquals(1, listener.finishedCalls.get());
+        assertTrue("source stopped after the last batch", source.stopped);
+        // Only sampled frames were ever built: 6 samples, one every ~8 source frames
+        assertEquals(6, source.built.get());
+        // Frames are made upright (640×480 rotated 270° → portrait) and scaled to 240 wide
+        assertEquals("240x320", sizes.get(0));
+    }
+
+    @Test
+    public void encodesRealJpegs() throws Exception {
+        List<List<byte[]>> uploads = new CopyOnWriteArrayList<>();
+        SyntheticFrameSource source = new SyntheticFrameSource(640, 480, 30, 90);
+        LivenessPipeline pipeline = new LivenessPipeline(new LivenessPipeline.Config(4, 240, 70, 1, 1),
+                source, IMAGEIO, jpegs -> {
+                    uploads.add(jpegs);
+                    return "{}";
+                }, new Recorder());
+
+        pipeline.start();
+        assertTrue(pipeline.awaitFinished(10, TimeUnit.SECONDS));
+        BufferedImage jpeg = ImageIO.read(new ByteArrayInputStream(uploads.get(0).get(0)));
+        assertEquals(240, jpeg.getWidth());
+        assertEquals(320, jpeg.getHeight());
+    }
+
+    @Test
+    public void stopBeforeFullBatchUploadsNothing() throws Exception {
+        List<List<byte[]>> uploads = new CopyOnWriteArrayList<>();
+        Recorder listener = new Recorder();
+        SyntheticFrameSource source = new SyntheticFrameSource(320, 240, 5, 0);
+        LivenessPipeline pipeline = new LivenessPipeline(new LivenessPipeline.Config(15, 160, 70, 10, 1),
+                source, IMAGEIO, jpegs -> {
+                    uploads.add(jpegs);
+                    return "{}";
+                }, listener);
+
+        pipeline.start();
+        source.thread.join(5_000);
+        pipeline.stop();
+        assertTrue(pipeline.awaitFinished(5, TimeUnit.SECONDS));
+        assertTrue(uploads.isEmpty());
+        assertEquals(1, listener.finishedCalls.get());
+    }
+
+    @Test
+    public void uploadFailureIsReported() throws Exception {
+        Recorder listener = new Recorder();
+        SyntheticFrameSource source = new SyntheticFrameSource(320, 240, 60, 0);
+        LivenessPipeline pipeline = new LivenessPipeline(new LivenessPipeline.Config(10, 160, 70, 1, 1),
+                source, IMAGEIO, jpegs -> {
+                    throw new IOException("HTTP 502");
+                }, listener);
+
+        pipeline.start();
+        assertTrue(pipeline.awaitFinished(5, TimeUnit.SECONDS));
+        assertEquals(List.of("Upload failed: HTTP 502"), listener.errors);
+        assertEquals(1, listener.finishedCalls.get());
+    }
+
+    @Test
+    public void yuvScalerConvertsAndRotates() {
+        // 4×2 frame: left half black (Y=16), right half white (Y=235), neutral chroma
+        int w = 4, h = 2;
+        byte[] nv21 = new byte[w * h * 3 / 2];
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++)
+                nv21[y * w + x] = (byte) (x < 2 ? 16 : 235);
+        java.util.Arrays.fill(nv21, w * h, nv21.length, (byte) 128);
+
+        int[] same = YuvScaler.nv21ToArgb(nv21, w, h, 0, 4, 2);
+        assertEquals(0xff000000, same[0]);
+        assertWhite(same[3]);
+
+        // Rotated 90° clockwise: 2×4, the white (right) half ends up at the bottom
+        assertArrayEquals(new int[] { 2, 4 }, YuvScaler.outputSize(w, h, 90, 100));
+        int[] rotated = YuvScaler.nv21ToArgb(nv21, w, h, 90, 2, 4);
+        assertEquals(0xff000000, rotated[0]);
+        assertWhite(rotated[2 * 3 + 1]);
+    }
+
+    private static void assertWhite(int argb) {
+        for (int shift = 0; shift <= 16; shift += 8)
+            assertTrue(Integer.toHexString(argb), ((argb >> shift) & 0xff) >= 250);
+    }
+}
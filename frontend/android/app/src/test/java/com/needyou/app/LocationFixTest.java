@@ -0,0 +1,59 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Fix selection rule used by LastLocationCache.
+ */
+public class LocationFixTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long MIN = 60 * 1000;
+
+    private static LocationFix fix(float accuracy, long ageMs, String source) {
+        return new LocationFix(28.6315, 77.2167, accuracy, NOW - ageMs, source);
+    }
+
+    @Test
+    public void anythingBeatsNothing() {
+        assertTrue(LocationFix.isBetter(fix(5000, 60 * MIN, "stored"), null));
+        assertFalse(LocationFix.isBetter(null, fix(20, 0, "gps")));
+    }
+
+    @Test
+    public void muchNewerWinsEvenIfLessAccurate() {
+        LocationFix stored = fix(10, 60 * MIN, "stored");
+        LocationFix network = fix(800, 0, "network");
+        assertTrue(LocationFix.isBetter(network, stored));
+        assertFalse(LocationFix.isBetter(stored, network));
+    }
+
+    @Test
+    public void similarAgeMoreAccurateWins() {
+        LocationFix gps = fix(12, MIN, "gps");
+        LocationFix network = fix(300, 0, "network");
+        assertFalse(LocationFix.isBetter(network, gps));
+        assertTrue(LocationFix.isBetter(gps, network));
+    }
+
+    @Test
+    public void newerSameProviderSlightlyWorseIsTaken() {
+        LocationFix older = fix(20, MIN, "fused");
+        assertTrue(LocationFix.isBetter(fix(150, 0, "fused"), older));
+        assertFalse(LocationFix.isBetter(fix(150, 0, "network"), older));
+        assertFalse(LocationFix.isBetter(fix(400, 0, "fused"), older));
+    }
+
+    @Test
+    public void identicalFixIsNotAnImprovement() {
+        assertFalse(LocationFix.isBetter(fix(20, 0, "fused"), fix(20, 0, "fused")));
+    }
+
+    @Test
+    public void ageIsNeverNegative() {
+        assertEquals(0, fix(20, -5000, "gps").ageMs(NOW));
+        assertEquals(3 * MIN, fix(20, 3 * MIN, "gps").ageMs(NOW));
+    }
+}
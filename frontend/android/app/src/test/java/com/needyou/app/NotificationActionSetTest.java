@@ -0,0 +1,70 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Action buttons chosen by NotificationActionSet for each push shape.
+ */
+public class NotificationActionSetTest {
+
+    private static Map<String, String> push(String... kv) {
+        Map<String, String> m = new HashMap<>();
+        for (int i = 0; i < kv.length; i += 2)
+            m.put(kv[i], kv[i + 1]);
+        return m;
+    }
+
+    @Test
+    public void newApplicationGetsHireDeclineAndMarkRead() {
+        Map<String, String> data = push("notificationType", "new_application", "jobId", "j1",
+                "applicationId", "a1", "notificationId", "n1");
+        assertEquals(Arrays.asList(NotificationActionSet.ACCEPT, NotificationActionSet.REJECT,
+                NotificationActionSet.MARK_READ), NotificationActionSet.forPush(data));
+    }
+
+    @Test
+    public void newApplicationWithoutIdsOnlyMarksRead() {
+        Map<String, String> data = push("notificationType", "new_application", "jobId", "j1", "notificationId", "n1");
+        assertEquals(Collections.singletonList(NotificationActionSet.MARK_READ), NotificationActionSet.forPush(data));
+    }
+
+    @Test
+    public void chatMessageGetsReply() {
+        Map<String, String> data = push("notificationType", "chat_message", "conversationId", "j1_u1_u2");
+        assertEquals(Collections.singletonList(NotificationActionSet.REPLY), NotificationActionSet.forPush(data));
+        assertTrue(NotificationActionSet.forPush(push("notificationType", "chat_message")).isEmpty());
+    }
+
+    @Test
+    public void cloudFunctionKeysAreRecognised() {
+        Map<String, String> data = push("type", "new_application", "notifId", "n9", "jobId", "j1", "applicationId", "a1");
+        assertEquals("new_application", NotificationActionSet.type(data));
+        assertEquals("n9", NotificationActionSet.notificationId(data));
+        assertEquals(3, NotificationActionSet.forPush(data).size());
+    }
+
+    @Test
+    public void otherPushesOnlyMarkReadWhenTheyHaveAnId() {
+        assertEquals(Collections.singletonList(NotificationActionSet.MARK_READ),
+                NotificationActionSet.forPush(push("notificationType", "job_hired", "notificationId", "n1")));
+        assertTrue(NotificationActionSet.forPush(push("notificationType", "new_job_nearby", "notificationId", "")).isEmpty());
+        assertTrue(NotificationActionSet.forPush(null).isEmpty());
+    }
+
+    @Test
+    public void retriesFitInTheReceiverBudget() {
+        assertEquals(0, NotificationActionSet.RETRY_DELAYS_MS[0]);
+        // ReceiverBudget.DEFAULT_MS finishes the broadcast at 8 s
+        assertTrue(NotificationActionSet.ACTION_BUDGET_MS < 8_000);
+        // at least a retry after the first attempt fits in the budget
+        assertTrue(NotificationActionSet.ATTEMPT_TIMEOUT_MS * 2 + NotificationActionSet.RETRY_DELAYS_MS[1]
+                <= NotificationActionSet.ACTION_BUDGET_MS);
+    }
+}
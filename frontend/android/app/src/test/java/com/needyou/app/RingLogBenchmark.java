@@ -0,0 +1,57 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Per-call cost of RingLog against what every old {@code Log.d(TAG, "..." + x)}
+ * paid before logcat was even reached: building the message string. Measures
+ * a filtered call, an enabled call written to the ring, and that string
+ * concatenation alone. Prints ns/call and fails if a filtered call is not
+ * cheaper than the concatenation it replaces.
+ *
+ * Wall-clock timings depend on the machine, so this is not part of the
+ * default unit-test run; run it with {@code ./gradlew test -Dbenchmarks}.
+ */
+public class RingLogBenchmark {
+
+    private static final int CALLS = 2_000_000;
+    private static final String TOKEN = "dQw4w9WgXcQ:APA91bHPRgkF3JUikC4ENAHEeMrd41Zxv3hVZjC9KtT8OvPVGJ-hMMoZ"
+            + "RRuCSPbVOPkzWsZ2FjE17xqLPqhfL3jAqFzSMEvGfKhNWEZbX6oLv4iTQB0g2hD1N";
+
+    private static volatile Object sink;
+
+    @Test
+    public void filteredCallsAreCheaperThanStringBuilding() {
+        RingLog log = new RingLog(512 * 1024);
+        log.setLevel(RingLog.INFO);
+
+        double concat = 0, filtered = 0, written = 0;
+        for (int round = 0; round < 3; round++) { // the last round is measured, after JIT warm-up
+            concat = time(() -> {
+                for (int i = 0; i < CALLS; i++)
+                    sink = "Posting notification — title: " + "New message" + " | n: " + i + " | token: " + TOKEN;
+            });
+            filtered = time(() -> {
+                for (int i = 0; i < CALLS; i++)
+                    log.at(RingLog.DEBUG, "NeedYouFCM", "Posting notification").kv("title", "New message")
+                            .kv("n", i).kv("token", TOKEN).log();
+            });
+            written = time(() -> {
+                for (int i = 0; i < CALLS; i++)
+                    log.at(RingLog.INFO, "NeedYouFCM", "Posting notification").kv("title", "New message")
+                            .kv("n", i).kv("token", TOKEN).log();
+            });
+        }
+        System.out.printf("RingLog: filtered %.1f ns/call, written %.1f ns/call; "
+                + "string concat of the old Log.d message alone %.1f ns/call%n", filtered, written, concat);
+        assertTrue("filtered " + filtered + " ns vs concat " + concat + " ns", filtered < concat);
+    }
+
+    private static double time(Runnable r) {
+        long t0 = System.nanoTime();
+        r.run();
+        return (System.nanoTime() - t0) / (double) CALLS;
+    }
+}
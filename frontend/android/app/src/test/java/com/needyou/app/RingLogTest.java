@@ -0,0 +1,145 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RingLog record format, redaction, wrap-around, persistence and the
+ * no-allocation guarantee.
+ */
+public class RingLogTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private static String text(RingLog log) {
+        return new String(log.snapshot(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void recordsAreStructuredLines() {
+        RingLog log = new RingLog(4096);
+        log.at(RingLog.INFO, "NeedYouFCM", "Posting notification").kv("type", "job_hired").kv("count", 3)
+                .kv("first", true).log();
+        String out = text(log);
+        assertTrue(out, out.matches("\\d+ I NeedYouFCM: Posting notification type=job_hired count=3 first=true\n"));
+    }
+
+    @Test
+    public void belowLevelNothingIsWritten() {
+        RingLog log = new RingLog(4096);
+        log.setLevel(RingLog.INFO);
+        assertSame(RingLog.Entry.NOOP, log.at(RingLog.DEBUG, "T", "hidden"));
+        log.at(RingLog.DEBUG, "T", "hidden").kv("k", "v").log();
+        assertEquals("", text(log));
+        assertFalse(log.isLoggable(RingLog.DEBUG));
+        assertTrue(log.isLoggable(RingLog.WARN));
+    }
+
+    @Test
+    public void tokensAndBodiesAreRedacted() {
+        RingLog log = new RingLog(4096);
+        String token = "dQw4w9WgXcQ:APA91bH-secret-fcm-token";
+        log.at(RingLog.DEBUG, "T", "Token refreshed").kv("token", token).kv("body", "Meet at 5, gate code 4417")
+                .kv("title", "New message").log();
+        String out = text(log);
+        assertFalse(out, out.contains("secret"));
+        assertFalse(out, out.contains("4417"));
+        assertTrue(out, out.contains("token=<redacted len=" + token.length() + " #"
+                + String.format("%08x", token.hashCode()) + ">"));
+        assertTrue(out, out.contains("title=New message"));
+    }
+
+    @Test
+    public void mirrorGetsMessageAndError() {
+        RingLog log = new RingLog(4096);
+        String[] seen = new String[2];
+        Throwable[] error = new Throwable[1];
+        log.setMirror((level, tag, buf, off, len, e) -> {
+            seen[0] = tag;
+            seen[1] = new String(buf, off, len, StandardCharsets.UTF_8);
+            error[0] = e;
+        }, RingLog.WARN);
+        log.at(RingLog.INFO, "T", "quiet").log();
+        assertNull(seen[0]);
+        IllegalStateException boom = new IllegalStateException("boom");
+        log.at(RingLog.ERROR, "T", "Write failed").kv("key", "k1").err(boom).log();
+        assertEquals("T", seen[0]);
+        assertEquals("Write failed key=k1 err=java.lang.IllegalStateException: boom", seen[1]);
+        assertSame(boom, error[0]);
+    }
+
+    @Test
+    public void unicodeAndLineBreaksStayOnOneLine() {
+        RingLog log = new RingLog(4096);
+        log.at(RingLog.DEBUG, "T", "🎉 You're Hired!\nline two").kv("city", "Bengaluru — ಬೆಂಗಳೂರು").log();
+        String out = text(log);
+        assertTrue(out, out.endsWith("T: 🎉 You're Hired! line two city=Bengaluru — ಬೆಂಗಳೂರು\n"));
+    }
+
+    @Test
+    public void wrapKeepsNewestWholeRecords() {
+        RingLog log = new RingLog(RingLog.HEADER + 200);
+        for (int i = 0; i < 50; i++)
+            log.at(RingLog.DEBUG, "T", "record").kv("n", i).log();
+        String out = text(log);
+        String[] lines = out.split("\n");
+        assertTrue(out.endsWith("n=49\n"));
+        for (String line : lines)
+            assertTrue(line, line.matches("\\d+ D T: record n=\\d+"));
+        int first = Integer.parseInt(lines[0].substring(lines[0].lastIndexOf('=') + 1));
+        assertEquals(49 - lines.length + 1, first); // consecutive up to the newest
+    }
+
+    @Test
+    public void fileRingSurvivesReopenAndKeepsEarlyRecords() throws Exception {
+        File f = new File(tmp.getRoot(), "main.ring");
+        RingLog log = new RingLog(1024);
+        log.at(RingLog.INFO, "T", "before attach").log();
+        log.attach(f, 8192);
+        log.at(RingLog.INFO, "T", "after attach").log();
+
+        RingLog reopened = RingLog.open(f, 8192);
+        reopened.at(RingLog.INFO, "T", "next process").log();
+        String out = new String(RingLog.read(f), StandardCharsets.UTF_8);
+        assertTrue(out, out.matches("(?s)\\d+ I T: before attach\n\\d+ I T: after attach\n\\d+ I T: next process\n"));
+
+        // A different size starts over
+        RingLog resized = RingLog.open(f, 4096);
+        assertEquals("", new String(resized.snapshot(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void loggingDoesNotAllocate() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+
+        RingLog log = new RingLog(64 * 1024);
+        log.setLevel(RingLog.INFO);
+        String token = "dQw4w9WgXcQ:APA91bH-secret-fcm-token";
+        for (int i = 0; i < 20_000; i++) // warm up (JIT, thread-local entry)
+            write(log, token, i);
+
+        long tid = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < 10_000; i++)
+            write(log, token, i);
+        long allocated = threads.getThreadAllocatedBytes(tid) - before;
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+    }
+
+    private static void write(RingLog log, String token, int i) {
+        log.at(RingLog.DEBUG, "T", "filtered").kv("token", token).kv("n", i).log();
+        log.at(RingLog.INFO, "T", "written").kv("token", token).kv("title", "New message").kv("n", i).log();
+    }
+}
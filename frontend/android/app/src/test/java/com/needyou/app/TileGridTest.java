@@ -0,0 +1,91 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tiling math behind TiledImageView.
+ */
+public class TileGridTest {
+
+    // A 48 MP phone photo
+    private static final int W = 8000;
+    private static final int H = 6000;
+
+    @Test
+    public void sampleSizeKeepsAtLeastOneDecodedPixelPerScreenPixel() {
+        assertEquals(1, TileGrid.sampleSizeFor(1f));
+        assertEquals(1, TileGrid.sampleSizeFor(3f));
+        assertEquals(1, TileGrid.sampleSizeFor(0.6f));
+        assertEquals(2, TileGrid.sampleSizeFor(0.5f));
+        assertEquals(2, TileGrid.sampleSizeFor(0.3f));
+        assertEquals(4, TileGrid.sampleSizeFor(0.25f));
+        assertEquals(4, TileGrid.sampleSizeFor(0.135f)); // 8000 px wide on a 1080 px screen: 2000 decoded px
+    }
+
+    @Test
+    public void baseSampleFitsTheBox() {
+        assertEquals(8, TileGrid.baseSampleSize(W, H, 1080, 2400));
+        assertEquals(1, TileGrid.baseSampleSize(800, 600, 1080, 2400));
+        assertEquals(4, TileGrid.baseSampleSize(2000, 9000, 1080, 2400));
+    }
+
+    @Test
+    public void fullyZoomedOutCoversWholeImage() {
+        TileGrid grid = new TileGrid(W, H);
+        List<TileGrid.Tile> tiles = grid.visibleTiles(8, 0, 0, W, H);
+        // 8000 / 4096 → 2 columns, 6000 / 4096 → 2 rows
+        assertEquals(4, tiles.size());
+        TileGrid.Tile last = tiles.get(3);
+        assertEquals(W, last.right);
+        assertEquals(H, last.bottom);
+        assertFalse(last.isFull());
+        assertTrue(tiles.get(0).isFull());
+    }
+
+    @Test
+    public void zoomedInOnlyReturnsViewportTiles() {
+        TileGrid grid = new TileGrid(W, H);
+        // 1080 x 2400 screen at 1:1 around the centre of the image
+        List<TileGrid.Tile> tiles = grid.visibleTiles(1, 3460, 1800, 4540, 4200);
+        // columns 6..8, rows 3..8
+        assertEquals(3 * 6, tiles.size());
+        for (TileGrid.Tile t : tiles) {
+            assertTrue(t.right > 3460 && t.left < 4540);
+            assertTrue(t.bottom > 1800 && t.top < 4200);
+            assertEquals(512, (t.right - t.left) / t.sample);
+        }
+    }
+
+    @Test
+    public void viewportIsClippedToImage() {
+        TileGrid grid = new TileGrid(1000, 700);
+        List<TileGrid.Tile> tiles = grid.visibleTiles(1, -300, -300, 600, 200);
+        assertEquals(2, tiles.size());
+        assertEquals(0, tiles.get(0).left);
+        assertEquals(0, tiles.get(0).top);
+        assertEquals(1000, tiles.get(1).right);
+        assertFalse(tiles.get(1).isFull());
+
+        assertTrue(grid.visibleTiles(1, 1200, 0, 2000, 500).isEmpty());
+    }
+
+    @Test
+    public void keysAreUniqueAcrossSamples() {
+        TileGrid grid = new TileGrid(W, H);
+        Set<Long> keys = new HashSet<>();
+        int count = 0;
+        for (int sample = 1; sample <= 16; sample *= 2) {
+            for (TileGrid.Tile t : grid.visibleTiles(sample, 0, 0, W, H)) {
+                keys.add(t.key());
+                count++;
+            }
+        }
+        assertEquals(count, keys.size());
+    }
+}
@@ -0,0 +1,79 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Streaming peak reduction behind WaveformStore.
+ */
+public class WaveformPeaksTest {
+
+    private static short[] tone(int samples, short amplitude) {
+        short[] out = new short[samples];
+        for (int i = 0; i < samples; i++)
+            out[i] = (short) (i % 2 == 0 ? amplitude : -amplitude);
+        return out;
+    }
+
+    @Test
+    public void emptyAndSilentInputGiveFlatBars() {
+        assertArrayEquals(new int[8], new WaveformPeaks().toBuckets(8));
+        WaveformPeaks silent = new WaveformPeaks();
+        silent.add(tone(10 * WaveformPeaks.BLOCK, (short) 100), 0, 10 * WaveformPeaks.BLOCK);
+        assertArrayEquals(new int[8], silent.toBuckets(8));
+    }
+
+    @Test
+    public void loudestBarIsFullScale() {
+        WaveformPeaks peaks = new WaveformPeaks();
+        int block = WaveformPeaks.BLOCK;
+        // quiet first half, loud second half
+        peaks.add(tone(32 * block, (short) 8000), 0, 32 * block);
+        peaks.add(tone(32 * block, (short) 16000), 0, 32 * block);
+        int[] bars = peaks.toBuckets(4);
+        assertEquals(4, bars.length);
+        assertEquals(128, bars[0]);
+        assertEquals(128, bars[1]);
+        assertEquals(255, bars[2]);
+        assertEquals(255, bars[3]);
+    }
+
+    @Test
+    public void chunkBoundariesDoNotMatter() {
+        short[] pcm = new short[20 * WaveformPeaks.BLOCK + 123];
+        for (int i = 0; i < pcm.length; i++)
+            pcm[i] = (short) ((i * 7919) % 30000 - 15000);
+        WaveformPeaks whole = new WaveformPeaks();
+        whole.add(pcm, 0, pcm.length);
+        WaveformPeaks chunked = new WaveformPeaks();
+        for (int off = 0; off < pcm.length; off += 777)
+            chunked.add(pcm, off, Math.min(777, pcm.length - off));
+        assertEquals(whole.blockCount(), chunked.blockCount());
+        assertArrayEquals(whole.toBuckets(64), chunked.toBuckets(64));
+    }
+
+    @Test
+    public void shortClipIsStretchedAcrossBars() {
+        WaveformPeaks peaks = new WaveformPeaks();
+        float[] pcm = new float[2 * WaveformPeaks.BLOCK];
+        pcm[10] = 0.5f;
+        pcm[WaveformPeaks.BLOCK + 10] = -1f;
+        peaks.add(pcm, 0, pcm.length);
+        int[] bars = peaks.toBuckets(4);
+        assertArrayEquals(new int[] { 128, 128, 255, 255 }, bars);
+    }
+
+    @Test
+    public void longRecordingKeepsOneFloatPerBlock() {
+        WaveformPeaks peaks = new WaveformPeaks();
+        short[] chunk = tone(4096, (short) 12000);
+        // ~10 minutes of 48 kHz mono
+        int chunks = 48_000 * 600 / chunk.length;
+        for (int i = 0; i < chunks; i++)
+            peaks.add(chunk, 0, chunk.length);
+        assertEquals(chunks * chunk.length / WaveformPeaks.BLOCK, peaks.blockCount());
+        for (int bar : peaks.toBuckets(128))
+            assertEquals(255, bar);
+    }
+}
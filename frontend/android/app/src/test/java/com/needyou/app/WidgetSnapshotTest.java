@@ -0,0 +1,98 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * How pushes, the page and refreshes change what the home-screen widget shows.
+ */
+public class WidgetSnapshotTest {
+
+    @Test
+    public void nearbyPushesCountUntilSeen() {
+        WidgetSnapshot s = new WidgetSnapshot();
+        assertTrue(s.applyPush("new_job_nearby", "j1", "Fix sink", "📍 New Job Near You!", 10));
+        assertTrue(s.applyPush("new_job_nearby", "j2", null, "📍 New Job Near You!", 20));
+        assertEquals(2, s.nearbyCount);
+        assertEquals("j2", s.nearbyJobId);
+        assertEquals("Fix sink", s.nearbyTitle);
+        assertNull(s.jobId);
+
+        assertTrue(s.markNearbySeen(30));
+        assertEquals(0, s.nearbyCount);
+        assertEquals(30, s.nearbySeenAt);
+        assertFalse(s.markNearbySeen(40));
+    }
+
+    @Test
+    public void statusPushesUpdateTheJobCard() {
+        WidgetSnapshot s = new WidgetSnapshot();
+        assertTrue(s.applyPush("job_hired", "j1", "Paint fence", "🎉 You're Hired!", 10));
+        assertEquals("j1", s.jobId);
+        assertEquals("Paint fence", s.jobTitle);
+        assertEquals("🎉 You're Hired!", s.jobStatus);
+
+        s.applyPush("job_update", "j1", null, "💰 Payment Received!", 20);
+        assertEquals("Paint fence", s.jobTitle);
+        assertEquals("💰 Payment Received!", s.jobStatus);
+        assertEquals(20, s.jobUpdatedAt);
+
+        s.applyPush("new_application", "j2", null, "New applicant", 30);
+        assertEquals("j2", s.jobId);
+        assertNull("title of the previous job must not carry over", s.jobTitle);
+    }
+
+    @Test
+    public void unrelatedPushesAreIgnored() {
+        WidgetSnapshot s = new WidgetSnapshot();
+        assertFalse(s.applyPush("chat_message", "j1", null, "Asha", 10));
+        assertFalse(s.applyPush("job_hired", "", null, "Hired", 10));
+        assertFalse(s.applyPush(null, "j1", null, "Hired", 10));
+        assertNull(s.jobId);
+        assertEquals(0, s.nearbyCount);
+    }
+
+    @Test
+    public void deepLinksFollowTheCards() {
+        WidgetSnapshot s = new WidgetSnapshot();
+        assertNull(s.jobDeepLink());
+        assertNull(s.nearbyDeepLink());
+        s.applyPush("budget_accepted", "j1", null, "Budget accepted", 10);
+        s.applyPush("new_job_nearby", "j9", null, "Nearby", 10);
+        assertArrayEquals(new String[] { "budget_accepted", "j1" }, s.jobDeepLink());
+        assertArrayEquals(new String[] { "new_job_nearby", "j9" }, s.nearbyDeepLink());
+
+        s.setJob(null, null, null, null, 20);
+        assertNull(s.jobDeepLink());
+    }
+
+    @Test
+    public void statusLabels() {
+        assertEquals("Enter your start code", WidgetSnapshot.statusLabel("code_pending"));
+        assertEquals("Confirming meeting", WidgetSnapshot.statusLabel("meeting_code_pending"));
+        assertEquals("Hired — start when you're ready", WidgetSnapshot.statusLabel(null));
+        assertEquals("something_new", WidgetSnapshot.statusLabel("something_new"));
+    }
+
+    @Test
+    public void jsonRoundTrip() throws Exception {
+        WidgetSnapshot s = new WidgetSnapshot();
+        s.setJob("j1", "Paint fence", "Working", "job_hired", 10);
+        s.applyPush("new_job_nearby", "j2", "Fix sink", "Nearby", 20);
+        s.refreshedAt = 30;
+
+        WidgetSnapshot r = WidgetSnapshot.fromJson(s.toJson().toString());
+        assertEquals("j1", r.jobId);
+        assertEquals("Paint fence", r.jobTitle);
+        assertEquals("Working", r.jobStatus);
+        assertEquals("job_hired", r.jobType);
+        assertEquals(1, r.nearbyCount);
+        assertEquals("Fix sink", r.nearbyTitle);
+        assertEquals(30, r.refreshedAt);
+
+        assertNull(WidgetSnapshot.fromJson("").jobId);
+        assertNull(WidgetSnapshot.fromJson("not json").jobId);
+        assertNull(WidgetSnapshot.fromJson(new WidgetSnapshot().toJson().toString()).nearbyTitle);
+    }
+}
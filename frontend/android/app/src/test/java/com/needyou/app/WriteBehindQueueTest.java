@@ -0,0 +1,154 @@
+package com.needyou.app;
+
+import static org.junit.Assert.*;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Coalescing, batching and persistence rules of the write-behind queue.
+ */
+public class WriteBehindQueueTest {
+
+    private static final String APP = "job_applications/app1";
+
+    private static Map<String, Object> fields(Object... kv) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        for (int i = 0; i < kv.length; i += 2)
+            m.put((String) kv[i], kv[i + 1]);
+        return m;
+    }
+
+    @Test
+    public void trackingBurstCoalescesToOneDocumentWrite() {
+        WriteBehindQueue q = new WriteBehindQueue();
+        for (int i = 0; i < 10; i++)
+            q.enqueue(APP, fields("workerLat", 28.6 + i * 0.001, "workerLng", 77.2, "trackingActive", true));
+        assertEquals(1, q.depth());
+        assertEquals(30, q.fieldsEnqueued);
+        assertEquals(27, q.fieldsCoalesced);
+
+        WriteBehindQueue.Batch b = q.take(100);
+        assertEquals(1, b.documents());
+        assertEquals(3, b.fields());
+        assertEquals(28.6 + 9 * 0.001, (double) b.updates.get(APP).get("workerLat"), 1e-9);
+        q.ack(b);
+        assertEquals(0, q.depth());
+        assertEquals(1, q.batchesCommitted);
+        assertEquals(3, q.fieldsCommitted);
+    }
+
+    @Test
+    public void lastWriteWinsPerFieldAndOtherFieldsAreKept() {
+        WriteBehindQueue q = new WriteBehindQueue();
+        q.enqueue(APP, fields("startJobStatus", "requested", "startJobRequestedAt", 1L));
+        q.enqueue(APP, fields("startJobStatus", null, "startJobCode", null));
+        Map<String, Object> doc = q.take(100).updates.get(APP);
+        assertEquals(3, doc.size());
+        assertTrue(doc.containsKey("startJobStatus"));
+        assertNull(doc.get("startJobStatus"));
+        assertEquals(1L, doc.get("startJobRequestedAt"));
+    }
+
+    @Test
+    public void batchesRespectDocumentLimitInArrivalOrder() {
+        WriteBehindQueue q = new WriteBehindQueue();
+        for (int i = 0; i < 5; i++)
+            q.enqueue("job_applications/a" + i, fields("n", i));
+        WriteBehindQueue.Batch first = q.take(2);
+        assertArrayEquals(new Object[] { "job_applications/a0", "job_applications/a1" },
+                first.updates.keySet().toArray());
+        assertEquals(5, q.depth());
+        q.ack(first);
+        assertEquals(3, q.depth());
+        assertEquals(3, q.take(10).documents());
+        assertNull(q.take(10));
+    }
+
+    @Test
+    public void failedBatchIsMergedUnderNewerWrites() {
+        WriteBehindQueue q = new WriteBehindQueue();
+        q.enqueue(APP, fields("workerLat", 1.0, "trackingActive", true));
+        q.enqueue("jobs/j1", fields("budget", 500));
+        WriteBehindQueue.Batch b = q.take(1);
+        // newer write while the commit is in flight
+        q.enqueue(APP, fields("workerLat", 2.0));
+        q.requeue(b);
+
+        assertEquals(1, q.batchesFailed);
+        assertEquals(2, q.depth());
+        WriteBehindQueue.Batch retry = q.take(1);
+        // the failed document goes first and keeps the newer value
+        Map<String, Object> doc = retry.updates.get(APP);
+        assertNotNull(doc);
+        assertEquals(2.0, doc.get("workerLat"));
+        assertEquals(true, doc.get("trackingActive"));
+    }
+
+    @Test
+    public void refusedBatchIsDroppedAndTheRestStays() {
+        WriteBehindQueue q = new WriteBehindQueue();
+        q.enqueue("job_applications/deleted", fields("workerLat", 1.0));
+        q.enqueue(APP, fields("workerLat", 2.0));
+        WriteBehindQueue.Batch b = q.take(1);
+        q.drop(b);
+        assertEquals(1, q.batchesFailed);
+        assertEquals(1, q.documentsDropped);
+        assertEquals(1, q.depth());
+        assertTrue(q.take(100).updates.containsKey(APP));
+        // late callbacks for a dropped batch change nothing
+        q.requeue(b);
+        q.ack(b);
+        assertEquals(1, q.batchesFailed);
+        assertEquals(0, q.batchesCommitted);
+    }
+
+    @Test
+    public void discardForgetsPendingAndInFlight() {
+        WriteBehindQueue q = new WriteBehindQueue();
+        q.enqueue(APP, fields("workerLat", 1.0));
+        q.enqueue("jobs/j1", fields("budget", 500));
+        WriteBehindQueue.Batch b = q.take(1);
+        q.discard();
+        assertEquals(0, q.depth());
+        assertEquals(2, q.documentsDropped);
+        assertFalse(q.hasPending());
+        q.requeue(b); // the commit sent before sign-out fails afterwards
+        assertEquals(0, q.depth());
+    }
+
+    @Test
+    public void roundTripKeepsUnacknowledgedWritesAndStats() throws Exception {
+        WriteBehindQueue q = new WriteBehindQueue();
+        q.enqueue(APP, fields("workerLat", 1.5, "trackingActive", true));
+        q.enqueue("jobs/j1", fields("bill", fields("total", 900, "items", java.util.Arrays.asList("a", "b")),
+                "billRejectedAt", null));
+        q.take(1); // in flight when the process dies
+        q.enqueue(APP, fields("workerLat", 2.5));
+
+        WriteBehindQueue restored = WriteBehindQueue.fromJson(new JSONObject(q.toJson().toString()));
+        assertEquals(2, restored.depth());
+        assertEquals(3, restored.updatesEnqueued);
+        WriteBehindQueue.Batch all = restored.take(10);
+        assertEquals(2.5, (double) all.updates.get(APP).get("workerLat"), 0);
+        assertEquals(true, all.updates.get(APP).get("trackingActive"));
+        Map<String, Object> job = all.updates.get("jobs/j1");
+        assertTrue(job.containsKey("billRejectedAt"));
+        assertNull(job.get("billRejectedAt"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> bill = (Map<String, Object>) job.get("bill");
+        assertEquals(900, bill.get("total"));
+        assertEquals(java.util.Arrays.asList("a", "b"), bill.get("items"));
+    }
+
+    @Test
+    public void fromJsonObjectMapsJsonNull() throws Exception {
+        Map<String, Object> m = WriteBehindQueue.fromJsonObject(new JSONObject("{\"a\":null,\"b\":\"x\"}"));
+        assertTrue(m.containsKey("a"));
+        assertNull(m.get("a"));
+        assertEquals("x", m.get("b"));
+    }
+}
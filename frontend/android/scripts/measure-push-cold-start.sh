@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+# Measures what a push costs when the app is not running: time from the first
+# app process starting to the banner being posted, and the PSS of every app
+# process right after. Uses only system logs (am_proc_start and
+# notification_enqueue in the events buffer) and dumpsys meminfo, so the same
+# numbers come out of builds with and without the ":push" process.
+#
+# Usage: scripts/measure-push-cold-start.sh [runs]
+# Install the build, sign in once, put the app in the background, then send a
+# push to that account each time the script asks for one.
+set -euo pipefail
+
+PKG=com.needyou.app
+RUNS=${1:-5}
+
+for run in $(seq 1 "$RUNS"); do
+    # am kill only kills background processes and leaves the package
+    # startable by FCM (force-stop would block delivery)
+    adb shell am kill "$PKG"
+    sleep 2
+    if adb shell pidof "$PKG" "$PKG:push" >/dev/null; then
+        echo "App process still alive — send the app to the background first" >&2
+        exit 1
+    fi
+    adb logcat -b events -c
+    echo "Run $run/$RUNS: send a push now"
+
+    posted=""
+    for _ in $(seq 1 120); do
+        posted=$(adb logcat -b events -v epoch -d -s notification_enqueue | grep -m1 ",$PKG," || true)
+        [ -n "$posted" ] && break
+        sleep 1
+    done
+    if [ -z "$posted" ]; then
+        echo "No banner within 120 s" >&2
+        exit 1
+    fi
+    sleep 3 # let the processes settle before reading memory
+
+    started=$(adb logcat -b events -v epoch -d -s am_proc_start | grep ",$PKG" | head -1)
+    procs=$(adb logcat -b events -v epoch -d -s am_proc_start | grep -o "$PKG[^,]*" | sort -u | tr '\n' ' ')
+    ms=$(awk -v a="$(echo "$started" | awk '{print $1}')" -v b="$(echo "$posted" | awk '{print $1}')" \
+        'BEGIN { printf "%d", (b - a) * 1000 }')
+    pss=""
+    for p in $procs; do
+        kb=$(adb shell dumpsys meminfo "$p" | awk '/TOTAL PSS:/ { print $3; exit } /^ *TOTAL / { print $2; exit }')
+        pss="$pss $p=${kb:-?}KB"
+    done
+    echo "run=$run start_to_banner_ms=$ms processes=[${procs% }] pss:$pss"
+done
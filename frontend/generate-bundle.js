@@ -0,0 +1,66 @@
+// Builds the OTA web bundle the Android app updates itself from (see
+// android/.../BundleStore.java): public/bundle/manifest.json plus every file
+// under public/bundle/files/<path>, deployed with the site so it is served at
+// https://need-you.xyz/bundle.
+//
+// Run after `next build` (npm run build:bundle does both). The bundle holds
+// the content-hashed chunks from .next/static (served at /_next/static/...)
+// and every prerendered page from .next/server/app; dynamic pages and /api
+// are not in it and keep coming from the network.
+const crypto = require('crypto');
+const path = require('path');
+const fs = require('fs');
+
+const NEXT_DIR = path.join(__dirname, '.next');
+const OUT_DIR = path.join(__dirname, 'public', 'bundle');
+
+function walk(dir, out = []) {
+    if (!fs.existsSync(dir)) return out;
+    for (const entry of fs.readdirSync(dir, { withFileTypes: true })) {
+        const full = path.join(dir, entry.name);
+        if (entry.isDirectory()) walk(full, out);
+        else out.push(full);
+    }
+    return out;
+}
+
+function sha256(file) {
+    return crypto.createHash('sha256').update(fs.readFileSync(file)).digest('hex');
+}
+
+function generate() {
+    const buildIdFile = path.join(NEXT_DIR, 'BUILD_ID');
+    if (!fs.existsSync(buildIdFile)) throw new Error('No .next/BUILD_ID — run `next build` first');
+    const pkg = require('./package.json');
+    // BundleStore only accepts [A-Za-z0-9._-]
+    const version = `${pkg.version}-${fs.readFileSync(buildIdFile, 'utf8').trim()}`.replace(/[^A-Za-z0-9._-]/g, '_');
+
+    // bundle path → source file
+    const sources = {};
+    const staticDir = path.join(NEXT_DIR, 'static');
+    for (const file of walk(staticDir)) {
+        sources[`_next/static/${path.relative(staticDir, file).split(path.sep).join('/')}`] = file;
+    }
+    const pagesDir = path.join(NEXT_DIR, 'server', 'app');
+    for (const file of walk(pagesDir)) {
+        if (!file.endsWith('.html')) continue;
+        const rel = path.relative(pagesDir, file).split(path.sep).join('/');
+        if (rel.startsWith('_') || rel.startsWith('api/')) continue; // _not-found, _global-error, routes
+        sources[rel] = file;
+    }
+
+    fs.rmSync(OUT_DIR, { recursive: true, force: true });
+    const files = {};
+    for (const [rel, file] of Object.entries(sources)) {
+        const dest = path.join(OUT_DIR, 'files', ...rel.split('/'));
+        fs.mkdirSync(path.dirname(dest), { recursive: true });
+        fs.copyFileSync(file, dest);
+        files[rel] = sha256(file);
+    }
+    // Written last: a half-copied bundle never has a manifest
+    fs.writeFileSync(path.join(OUT_DIR, 'manifest.json'), JSON.stringify({ version, files }));
+
+    console.log(`✅ bundle ${version}: ${Object.keys(files).length} files → public/bundle`);
+}
+
+generate();
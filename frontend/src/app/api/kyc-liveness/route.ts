@@ -5,55 +5,81 @@ const SUREPASS_API_TOKEN = process.env.SUREPASS_API_TOKEN!
 const LIVENESS_URL = 'https://kyc-api.surepass.io/api/v1/face/face-liveness'
 const MIN_CONFIDENCE = 40   // minimum confidence score to accept as live
 
-export async function POST(req: NextRequest) {
-    try {
-        const { imageData } = await req.json()
-        if (!imageData) return NextResponse.json({ error: 'No image provided.' }, { status: 400 })
+// Native capture (Android LivenessPipeline) sends a small batch of
+// downscaled frames. They are checked one at a time and the first live frame
+// decides, so a good capture costs a single Surepass call; otherwise the
+// best score is reported.
+const MAX_BATCH = 5
+
+type LivenessResult = { ok: boolean; live: boolean; confidence: number; message?: string }
+
+async function checkFrame(imageData: string): Promise<LivenessResult> {
+    // Strip data URL prefix (data:image/jpeg;base64,...) to get raw base64
+    const base64 = imageData.replace(/^data:image\/\w+;base64,/, '')
+    const imageBuffer = Buffer.from(base64, 'base64')
+
+    // Build multipart/form-data — Surepass expects a file upload
+    const formData = new FormData()
+    const blob = new Blob([imageBuffer], { type: 'image/jpeg' })
+    formData.append('file', blob, 'liveness.jpg')
 
-        // Strip data URL prefix (data:image/jpeg;base64,...) to get raw base64
-        const base64 = imageData.replace(/^data:image\/\w+;base64,/, '')
-        const imageBuffer = Buffer.from(base64, 'base64')
+    console.log('🎭 Calling Surepass Face Liveness API...')
 
-        // Build multipart/form-data — Surepass expects a file upload
-        const formData = new FormData()
-        const blob = new Blob([imageBuffer], { type: 'image/jpeg' })
-        formData.append('file', blob, 'liveness.jpg')
+    const res = await fetch(LIVENESS_URL, {
+        method: 'POST',
+        headers: {
+            'Authorization': `Bearer ${SUREPASS_API_TOKEN}`,
+            // Do NOT set Content-Type — fetch sets it with boundary automatically for FormData
+        },
+        body: formData,
+    })
 
-        console.log('🎭 Calling Surepass Face Liveness API...')
+    const data = await res.json()
+    console.log('🎭 Surepass Liveness response:', JSON.stringify(data))
 
-        const res = await fetch(LIVENESS_URL, {
-            method: 'POST',
-            headers: {
-                'Authorization': `Bearer ${SUREPASS_API_TOKEN}`,
-                // Do NOT set Content-Type — fetch sets it with boundary automatically for FormData
-            },
-            body: formData,
-        })
+    if (!res.ok || !data.success) {
+        return { ok: false, live: false, confidence: 0, message: data.message || 'Liveness check failed.' }
+    }
+    return { ok: true, live: data?.data?.live ?? false, confidence: data?.data?.confidence ?? 0 }
+}
 
-        const data = await res.json()
-        console.log('🎭 Surepass Liveness response:', JSON.stringify(data))
+export async function POST(req: NextRequest) {
+    try {
+        const { imageData, images } = await req.json()
+        const frames: string[] = Array.isArray(images) ? images.slice(0, MAX_BATCH) : imageData ? [imageData] : []
+        if (frames.length === 0) return NextResponse.json({ error: 'No image provided.' }, { status: 400 })
 
-        if (!res.ok || !data.success) {
+        const results: LivenessResult[] = []
+        for (const frame of frames) {
+            const r = await checkFrame(frame)
+            results.push(r)
+            if (r.ok && r.live && r.confidence >= MIN_CONFIDENCE) break
+        }
+        const checked = results.filter(r => r.ok)
+        if (checked.length === 0) {
             return NextResponse.json({
-                error: data.message || 'Liveness check failed.',
+                error: results[0].message || 'Liveness check failed.',
                 live: false
             }, { status: 502 })
         }
 
-        const live: boolean = data?.data?.live ?? false
-        const confidence: number = data?.data?.confidence ?? 0
+        // Live frames first, then highest confidence
+        const best = [...checked].sort((a, b) => Number(b.live) - Number(a.live) || b.confidence - a.confidence)[0]
+        const live = best.live
+        const confidence = best.confidence
 
-        console.log(`🎭 Liveness result: live=${live}, confidence=${confidence}`)
+        console.log(`🎭 Liveness result: live=${live}, confidence=${confidence} (${checked.length}/${frames.length} frames)`)
 
         if (!live || confidence < MIN_CONFIDENCE) {
             return NextResponse.json({
                 live: false,
                 confidence,
+                frames: checked.length,
                 error: `Not a real face detected (score: ${confidence}/100). Please ensure good lighting and use your actual face.`
             })
         }
 
-        return NextResponse.json({ live: true, confidence })
+        return NextResponse.json({ live: true, confidence, frames: checked.length })
 
     } catch (err: any) {
         console.error('❌ Liveness API error:', err)
@@ -0,0 +1,30 @@
+import { NextRequest, NextResponse } from 'next/server'
+import { getAdminAuth } from '@/lib/firebaseAdmin'
+
+// Mints a Firebase custom token for the caller so the Android app's native
+// Firebase SDK can hold its own session for the same user (see
+// lib/nativeSession.ts). The caller proves who they are with their current
+// web ID token; revoked sessions are rejected.
+export async function POST(request: NextRequest) {
+    try {
+        const header = request.headers.get('authorization') || ''
+        const idToken = header.startsWith('Bearer ') ? header.slice(7) : ''
+        if (!idToken) {
+            return NextResponse.json({ error: 'Missing ID token' }, { status: 401 })
+        }
+
+        const adminAuth = getAdminAuth()
+        let uid: string
+        try {
+            uid = (await adminAuth.verifyIdToken(idToken, true)).uid
+        } catch {
+            return NextResponse.json({ error: 'Invalid ID token' }, { status: 401 })
+        }
+
+        const customToken = await adminAuth.createCustomToken(uid, { nativeSession: true })
+        return NextResponse.json({ customToken, uid })
+    } catch (error: any) {
+        console.error('❌ Native session error:', error)
+        return NextResponse.json({ error: error.message || 'Failed to create native session' }, { status: 500 })
+    }
+}
@@ -4,7 +4,7 @@ import admin from '@/lib/firebaseAdmin'
 
 export async function POST(request: NextRequest) {
     try {
-        const { userId, title, body, data } = await request.json()
+        const { userId, title, body, data, dataOnly } = await request.json()
 
         if (!userId || !title || !body) {
             return NextResponse.json({ error: 'Missing required fields: userId, title, body' }, { status: 400 })
@@ -26,10 +26,12 @@ export async function POST(request: NextRequest) {
             // 200 — not an error, user just hasn't granted notifications
         }
 
-        // Build FCM message
+        // Build FCM message. dataOnly skips the notification block, so the system
+        // never auto-posts it and MyFirebaseMessagingService always builds the
+        // banner (with its action buttons), even when the app is closed.
         const message: admin.messaging.Message = {
             token: fcmToken,
-            notification: { title, body },
+            ...(dataOnly ? {} : { notification: { title, body } }),
             data: {
                 ...(data || {}),
                 // Ensure all values are strings (FCM requirement)
@@ -38,12 +40,14 @@ export async function POST(request: NextRequest) {
             },
             android: {
                 priority: 'high',
-                notification: {
-                    channelId: 'needyou_notifications',
-                    sound: 'default',
-                    priority: 'high',
-                    defaultSound: true,
-                },
+                ...(dataOnly ? {} : {
+                    notification: {
+                        channelId: 'needyou_notifications',
+                        sound: 'default',
+                        priority: 'high',
+                        defaultSound: true,
+                    },
+                }),
             },
         }
 
@@ -2,7 +2,7 @@
 
 import { useState, useEffect } from 'react'
 import { useAuth } from '@/context/AuthContext'
-import { subscribeToNotifications, markNotificationAsRead, markAllNotificationsAsRead } from '@/lib/notifications'
+import { subscribeToNotifications, markNotificationAsRead, markAllNotificationsAsRead, loadOlderNotifications, getNativeUnreadCount, NOTIFICATION_PAGE_SIZE } from '@/lib/notifications'
 import { Notification } from '@/lib/auth'
 import { Bell, CheckCircle, Check } from 'lucide-react'
 import { useTheme } from 'next-themes'
@@ -13,6 +13,9 @@ export default function NotificationsPage() {
     const { theme, systemTheme } = useTheme()
     const router = useRouter()
     const [notifications, setNotifications] = useState<Notification[]>([])
+    // Pages older than the live listener window (served by the native mirror)
+    const [older, setOlder] = useState<Notification[]>([])
+    const [hasMore, setHasMore] = useState(true)
     const [loading, setLoading] = useState(true)
     const [mounted, setMounted] = useState(false)
 
@@ -74,7 +77,17 @@ export default function NotificationsPage() {
 
     if (!mounted) return null
 
-    const unreadCount = notifications.filter(n => !n.read).length
+    const allNotifications = older.length > 0 ? [...notifications, ...older] : notifications
+    const unreadCount = (user?.uid ? getNativeUnreadCount(user.uid) : null)
+        ?? allNotifications.filter(n => !n.read).length
+
+    const handleLoadOlder = async () => {
+        const last = allNotifications[allNotifications.length - 1]
+        if (!user?.uid || !last) return
+        const page = await loadOlderNotifications(user.uid, last)
+        if (page.length < NOTIFICATION_PAGE_SIZE) setHasMore(false)
+        setOlder(prev => [...prev, ...page])
+    }
 
     const handleMarkAllRead = async () => {
         if (!user?.uid) return
@@ -117,7 +130,7 @@ export default function NotificationsPage() {
                     </div>
                 ) : (
                     <div className="space-y-3">
-                        {notifications.map(notification => (
+                        {allNotifications.map(notification => (
                             <button
                                 key={notification.id}
                                 onClick={() => handleNotificationClick(notification)}
@@ -159,6 +172,14 @@ export default function NotificationsPage() {
                                 </div>
                             </button>
                         ))}
+                        {hasMore && allNotifications.length >= NOTIFICATION_PAGE_SIZE && (
+                            <button
+                                onClick={handleLoadOlder}
+                                className="w-full py-3 text-sm font-medium text-blue-600 hover:underline"
+                            >
+                                Load older notifications
+                            </button>
+                        )}
                     </div>
                 )}
             </div>
@@ -17,6 +17,9 @@ import { doc, getDoc } from 'firebase/firestore'
 import { getUniqueCategories } from '@/lib/gemini'
 import { subscribeToNotifications, markNotificationAsRead, markAllNotificationsAsRead } from '@/lib/notifications'
 import { useModalHistory } from '@/hooks/useModalHistory'
+import { getNativeLastKnownLocation, isUsableNativeFix, onNativeLocationUpdate, type NativeLocationFix } from '@/lib/location'
+import { syncNativeJobIndex, searchNativeJobs } from '@/lib/nativeJobSearch'
+import { markWidgetNearbySeen, setWidgetJob } from '@/lib/nativeWidget'
 import ChatModal from '@/components/ChatModal'
 
 export default function DashboardPage() {
@@ -33,6 +36,7 @@ export default function DashboardPage() {
     const [jobs, setJobs] = useState<Job[]>([])
     const [loadingJobs, setLoadingJobs] = useState(false)
     const [locationChecked, setLocationChecked] = useState(false) // blocks job fetch until we know location status
+    const [deviceFix, setDeviceFix] = useState<NativeLocationFix | null>(null) // Android last-known fix, refined in background
 
     // Filter states
     const [distanceFilter, setDistanceFilter] = useState<string>('all')
@@ -107,11 +111,18 @@ export default function DashboardPage() {
     // Case 1 — app was killed/backgrounded: read from NeedYouBridge SharedPreferences on mount
     // Case 2 — app was already running: listen for CustomEvent dispatched by onNewIntent
     useEffect(() => {
+        // Same routing as tapping the notification in the bell
         const applyDeepLink = (type: string, jobId: string) => {
             if (type === 'job_hired' && jobId) {
                 setActiveTab('jobs')
                 setMyJobsSubTab('applied')
                 setPendingOpenJobId(jobId)
+            } else if ((type === 'new_application' || type === 'applicant_counter_offer' ||
+                type === 'budget_accepted' || type === 'job_update') && jobId) {
+                setNotificationJobId(jobId)
+                setActiveTab('jobs')
+            } else if (type === 'counter_offer_received' || type === 'new_job_nearby') {
+                setActiveTab('home')
             }
         }
 
@@ -296,6 +307,7 @@ export default function DashboardPage() {
         try {
             const allJobs = await getJobs()
             setJobs(allJobs)
+            syncNativeJobIndex(allJobs)
 
             // Categories are derived later in the filter effect (after city/distance filter)
             // so we don't show categories for jobs outside the user's area.
@@ -328,10 +340,23 @@ export default function DashboardPage() {
         if (activeTab !== 'jobs' || myJobsSubTab !== 'applied') return
         setLoadingApplied(true)
         getUserAppliedJobs(user.uid)
-            .then(setAppliedJobs)
+            .then(applied => {
+                setAppliedJobs(applied)
+                // Home-screen widget: the hired job still in progress, if any
+                const current = applied.find(j =>
+                    j.application.status === 'hired' && j.application.startJobStatus !== 'completed')
+                setWidgetJob(current
+                    ? { id: current.id, title: current.caption, startJobStatus: current.application.startJobStatus }
+                    : null)
+            })
             .finally(() => setLoadingApplied(false))
     }, [user?.uid, activeTab, myJobsSubTab])
 
+    // Home feed on screen: clear the widget's "new jobs nearby" count
+    useEffect(() => {
+        if (activeTab === 'home') markWidgetNearbySeen()
+    }, [activeTab])
+
     // Apply filters whenever jobs, search, or distance filter changes
     useEffect(() => {
         let result = [...jobs]
@@ -343,14 +368,58 @@ export default function DashboardPage() {
             )
         }
 
-        // Apply search filter
+        // Apply search filter — Android: ranked on-device index; otherwise substring match
         if (searchQuery.trim()) {
-            const query = searchQuery.toLowerCase()
-            result = result.filter(job =>
-                job.caption.toLowerCase().includes(query) ||
-                job.location.city.toLowerCase().includes(query) ||
-                job.location.state.toLowerCase().includes(query)
-            )
+            const origin = isUsableNativeFix(deviceFix)
+                ? { lat: deviceFix.lat, lng: deviceFix.lng }
+                : userLocation?.latitude != null && userLocation?.longitude != null
+                    ? { lat: userLocation.latitude, lng: userLocation.longitude }
+                    : null
+            const hits = searchNativeJobs(searchQuery, origin)
+            if (hits) {
+                const rank = new Map(hits.map((h, i) => [h.id, i]))
+                result = result
+                    .filter(job => rank.has(job.id))
+                    .sort((a, b) => rank.get(a.id)! - rank.get(b.id)!)
+            } else {
+                const query = searchQuery.toLowerCase()
+                result = result.filter(job =>
+                    job.caption.toLowerCase().includes(query) ||
+                    job.location.city.toLowerCase().includes(query) ||
+                    job.location.state.toLowerCase().includes(query)
+                )
+            }
+        }
+
+        const applyDistance = (userLat: number, userLon: number) => {
+            if (distanceFilter === '2km') {
+                result = filterJobsByDistance(result, userLat, userLon, 2)
+            } else if (distanceFilter === '5km') {
+                result = filterJobsByDistance(result, userLat, userLon, 5)
+            } else if (distanceFilter === 'custom' && customDistance) {
+                const distance = parseFloat(customDistance)
+                if (!isNaN(distance) && distance > 0) {
+                    result = filterJobsByDistance(result, userLat, userLon, distance)
+                }
+            }
+            result = addDistanceToJobs(result, userLat, userLon)
+
+            // Update category pills — exclude completed jobs from category list
+            setCategories(getUniqueCategories(result.filter((j: any) => j.status !== 'completed' && (j.status as string) !== 'filled')))
+
+            // Apply category filter
+            if (selectedCategory !== 'All') {
+                result = result.filter(job => job.category === selectedCategory)
+            }
+            setFilteredJobs(result)
+        }
+
+        // Distance filter — Android: rank from the device's last-known fix right
+        // away (re-run when the background refresh lands); no recent, accurate
+        // fix → profile location
+        if (userLocation && distanceFilter !== 'all' && isUsableNativeFix(deviceFix)) {
+            applyDistance(deviceFix.lat, deviceFix.lng)
+            return
         }
 
         // Distance filter (async path)
@@ -361,29 +430,7 @@ export default function DashboardPage() {
                     if (userDoc.exists()) {
                         const userData = userDoc.data()
                         if (userData.location?.latitude && userData.location?.longitude) {
-                            const userLat = userData.location.latitude
-                            const userLon = userData.location.longitude
-
-                            if (distanceFilter === '2km') {
-                                result = filterJobsByDistance(result, userLat, userLon, 2)
-                            } else if (distanceFilter === '5km') {
-                                result = filterJobsByDistance(result, userLat, userLon, 5)
-                            } else if (distanceFilter === 'custom' && customDistance) {
-                                const distance = parseFloat(customDistance)
-                                if (!isNaN(distance) && distance > 0) {
-                                    result = filterJobsByDistance(result, userLat, userLon, distance)
-                                }
-                            }
-                            result = addDistanceToJobs(result, userLat, userLon)
-
-                            // Update category pills — exclude completed jobs from category list
-                            setCategories(getUniqueCategories(result.filter((j: any) => j.status !== 'completed' && (j.status as string) !== 'filled')))
-
-                            // Apply category filter
-                            if (selectedCategory !== 'All') {
-                                result = result.filter(job => job.category === selectedCategory)
-                            }
-                            setFilteredJobs(result)
+                            applyDistance(userData.location.latitude, userData.location.longitude)
                         }
                     }
                 }).catch((error: any) => {
@@ -403,7 +450,14 @@ export default function DashboardPage() {
         }
 
         setFilteredJobs(result)
-    }, [jobs, searchQuery, distanceFilter, customDistance, userLocation, user, selectedCategory])
+    }, [jobs, searchQuery, distanceFilter, customDistance, userLocation, user, selectedCategory, deviceFix])
+
+    // Android: last-known device fix now, refined when the native refresh improves it
+    useEffect(() => {
+        const fix = getNativeLastKnownLocation()
+        if (fix) setDeviceFix(fix)
+        return onNativeLocationUpdate(setDeviceFix)
+    }, [])
 
 
     // Reset pagination when filters change
@@ -6,6 +6,7 @@ import { motion, AnimatePresence } from 'framer-motion'
 import { Camera, ShieldCheck, CheckCircle, AlertCircle, Loader2, RefreshCw, ArrowRight } from 'lucide-react'
 import { useAuth } from '@/context/AuthContext'
 import { getUserKycStatus, updateKycStatus } from '@/lib/auth'
+import { hasNativeLiveness, runNativeLivenessCheck } from '@/lib/nativeLiveness'
 import Link from 'next/link'
 import Image from 'next/image'
 import {
@@ -18,7 +19,7 @@ import {
 } from './challenges'
 
 type Phase = 'liveness' | 'digilocker' | 'complete'
-type LivenessState = 'idle' | 'loading' | 'ready' | 'challenge' | 'passed' | 'failed'
+type LivenessState = 'idle' | 'loading' | 'ready' | 'challenge' | 'checking' | 'passed' | 'failed'
 type ActiveChallenge = ChallengeSpec & { seed?: string }
 
 declare global {
@@ -588,13 +589,30 @@ function VerifyKycContent() {
                 videoBlob = new Blob(videoChunksRef.current, { type: 'video/webm' })
             mediaRecorderRef.current = null
         }
-        stopAll(); setLivenessState('passed')
+        stopAll()
+
+        // Android: once the challenges release the camera, the native capture
+        // (camera frames → /api/kyc-liveness) must also pass before the step is saved
+        let serverScore: { livenessConfidence: number; livenessServerLive: boolean } | undefined
+        if (hasNativeLiveness()) {
+            setLivenessState('checking')
+            const result = await runNativeLivenessCheck()
+            if (!result?.live) {
+                setLivenessState('failed')
+                setError(result
+                    ? `Not a real face detected (score: ${result.confidence}/100). Please try again in good lighting.`
+                    : 'Could not complete the camera check. Please try again.')
+                return
+            }
+            serverScore = { livenessConfidence: result.confidence, livenessServerLive: true }
+        }
+        setLivenessState('passed')
 
         try {
             // ⚡ Mark liveness verified immediately — do NOT wait for video upload.
             // On slow connections the upload can take 5-15 s, blocking DigiLocker.
             // Video is uploaded in the background and the URL is patched in once done.
-            await updateKycStatus(user.uid, 'liveness')
+            await updateKycStatus(user.uid, 'liveness', serverScore)
             setSuccess('✅ Liveness verified!')
             setTimeout(() => { setSuccess(''); setPhase('digilocker') }, 1200)
 
@@ -828,6 +846,7 @@ function VerifyKycContent() {
                                         {livenessState === 'loading' && 'Loading AI models...'}
                                         {livenessState === 'ready' && 'Camera ready...'}
                                         {livenessState === 'challenge' && cLabel}
+                                        {livenessState === 'checking' && 'Confirming with a final camera check...'}
                                         {livenessState === 'passed' && '✅ Liveness verified!'}
                                         {livenessState === 'failed' && 'Verification failed'}
                                     </p>
@@ -891,6 +910,13 @@ function VerifyKycContent() {
                                     </div>
                                 )}
 
+                                {livenessState === 'checking' && (
+                                    <div className="p-5 bg-gray-50 dark:bg-gray-800 rounded-xl text-center">
+                                        <Loader2 className="w-8 h-8 animate-spin text-blue-600 mx-auto mb-2" />
+                                        <p className="text-sm text-gray-600 dark:text-gray-400">Keep your face in front of the camera...</p>
+                                    </div>
+                                )}
+
                                 {livenessState === 'idle' && (
                                     <div className="space-y-3">
                                         <div className="bg-blue-50 dark:bg-blue-900/20 border border-blue-200 dark:border-blue-800 rounded-xl p-3">
@@ -9,9 +9,12 @@ import { Message, subscribeToMessages, sendMessage, markMessagesAsRead, createOr
 import Image from 'next/image'
 import ImageViewerModal from './ImageViewerModal'
 import MediaPreviewModal, { MediaItem } from './MediaPreviewModal'
-import { getRotationCorrectedVideoUrl } from '@/lib/cloudinary'
+import { getRotationCorrectedVideoUrl, getVideoThumbnailUrl } from '@/lib/cloudinary'
+import { getNativeThumbnails } from '@/lib/nativeThumbnails'
 import VideoViewerModal from './VideoViewerModal'
 import { useModalHistory } from '@/hooks/useModalHistory'
+import { setNativeOpenConversation } from '@/lib/nativeChat'
+import VoiceWaveform from './VoiceWaveform'
 
 interface ChatModalProps {
     jobId: string
@@ -54,7 +57,7 @@ export default function ChatModal({
     const [messageCurrentTimes, setMessageCurrentTimes] = useState<Record<string, number>>({})
     const [selectedMedia, setSelectedMedia] = useState<MediaItem[]>([])
     const [showMediaPreview, setShowMediaPreview] = useState(false)
-    const [selectedVideo, setSelectedVideo] = useState<string | null>(null)
+    const [selectedVideo, setSelectedVideo] = useState<{ url: string; poster?: string } | null>(null)
     const [showAttachmentMenu, setShowAttachmentMenu] = useState(false)
     const [micPermError, setMicPermError] = useState(false) // true when mic is denied — shows inline retry
     const messagesEndRef = useRef<HTMLDivElement>(null)
@@ -129,6 +132,13 @@ export default function ChatModal({
         return () => unsubscribe()
     }, [conversationId, user])
 
+    // Android: no banners for this conversation while it is on screen
+    useEffect(() => {
+        if (!conversationId) return
+        setNativeOpenConversation(conversationId)
+        return () => setNativeOpenConversation(null)
+    }, [conversationId])
+
     // Auto-scroll to bottom (debounced for performance)
     useEffect(() => {
         const timer = setTimeout(() => {
@@ -193,10 +203,12 @@ export default function ChatModal({
         const limitedFiles = files.slice(0, 10)
 
         // Create media items for preview
-        const mediaItems: MediaItem[] = limitedFiles.map(file => ({
+        const thumbs = getNativeThumbnails(limitedFiles)
+        const mediaItems: MediaItem[] = limitedFiles.map((file, i) => ({
             file,
             type: file.type.startsWith('image') ? 'image' : 'video',
-            url: URL.createObjectURL(file)
+            url: URL.createObjectURL(file),
+            thumbUrl: thumbs[i]
         }))
 
         setSelectedMedia(mediaItems)
@@ -610,6 +622,11 @@ export default function ChatModal({
                                             const videoSrc = isCloudinary && publicId
                                                 ? getRotationCorrectedVideoUrl(publicId)
                                                 : message.mediaUrl
+                                            // Cloudinary renders a small first-frame still, so the
+                                            // bubble need not fetch the video to show a preview
+                                            const posterSrc = isCloudinary && publicId
+                                                ? getVideoThumbnailUrl(publicId)
+                                                : undefined
 
                                             // Debug logging
                                             console.log('Video Debug:', {
@@ -623,12 +640,13 @@ export default function ChatModal({
                                                 <>
                                                     <div
                                                         className="relative cursor-pointer group"
-                                                        onClick={() => setSelectedVideo(videoSrc)}
+                                                        onClick={() => setSelectedVideo({ url: videoSrc, poster: posterSrc })}
                                                     >
                                                         <video
                                                             src={videoSrc}
+                                                            poster={posterSrc}
                                                             className="w-full max-h-64 rounded-lg"
-                                                            preload="metadata"
+                                                            preload={posterSrc ? 'none' : 'metadata'}
                                                             playsInline
                                                         />
                                                         <div className="absolute inset-0 flex items-center justify-center bg-black/20 group-hover:bg-black/30 transition-colors rounded-lg">
@@ -666,17 +684,25 @@ export default function ChatModal({
                                                         </p>
                                                     </div>
                                                 </div>
-                                                <input
-                                                    type="range"
-                                                    min="0"
-                                                    max={messageAudioRefs.current[message.id]?.duration || 100}
-                                                    value={messageCurrentTimes[message.id] || 0}
-                                                    onChange={(e) => handleMessageSeek(message.id, parseFloat(e.target.value))}
-                                                    className="w-full h-1 bg-gray-300 dark:bg-gray-600 rounded-lg appearance-none cursor-pointer"
-                                                    style={{
-                                                        background: `linear-gradient(to right, ${isOwn ? '#60a5fa' : '#3b82f6'} 0%, ${isOwn ? '#60a5fa' : '#3b82f6'} ${((messageCurrentTimes[message.id] || 0) / (messageAudioRefs.current[message.id]?.duration || 100)) * 100}%, ${isDark ? '#4b5563' : '#d1d5db'} ${((messageCurrentTimes[message.id] || 0) / (messageAudioRefs.current[message.id]?.duration || 100)) * 100}%, ${isDark ? '#4b5563' : '#d1d5db'} 100%)`
-                                                    }}
-                                                />
+                                                <VoiceWaveform
+                                                    url={message.mediaUrl}
+                                                    progress={(messageCurrentTimes[message.id] || 0) / (messageAudioRefs.current[message.id]?.duration || 100)}
+                                                    playedColor={isOwn ? '#60a5fa' : '#3b82f6'}
+                                                    restColor={isDark ? '#4b5563' : '#d1d5db'}
+                                                    onSeek={(fraction) => handleMessageSeek(message.id, fraction * (messageAudioRefs.current[message.id]?.duration || 0))}
+                                                >
+                                                    <input
+                                                        type="range"
+                                                        min="0"
+                                                        max={messageAudioRefs.current[message.id]?.duration || 100}
+                                                        value={messageCurrentTimes[message.id] || 0}
+                                                        onChange={(e) => handleMessageSeek(message.id, parseFloat(e.target.value))}
+                                                        className="w-full h-1 bg-gray-300 dark:bg-gray-600 rounded-lg appearance-none cursor-pointer"
+                                                        style={{
+                                                            background: `linear-gradient(to right, ${isOwn ? '#60a5fa' : '#3b82f6'} 0%, ${isOwn ? '#60a5fa' : '#3b82f6'} ${((messageCurrentTimes[message.id] || 0) / (messageAudioRefs.current[message.id]?.duration || 100)) * 100}%, ${isDark ? '#4b5563' : '#d1d5db'} ${((messageCurrentTimes[message.id] || 0) / (messageAudioRefs.current[message.id]?.duration || 100)) * 100}%, ${isDark ? '#4b5563' : '#d1d5db'} 100%)`
+                                                        }}
+                                                    />
+                                                </VoiceWaveform>
                                             </div>
                                         )}
 
@@ -1011,7 +1037,8 @@ export default function ChatModal({
             {/* Video Viewer Modal */}
             {selectedVideo && (
                 <VideoViewerModal
-                    videoUrl={selectedVideo}
+                    videoUrl={selectedVideo.url}
+                    posterUrl={selectedVideo.poster}
                     onClose={() => setSelectedVideo(null)}
                 />
             )}
@@ -6,6 +6,7 @@ import { X, ChevronLeft, ChevronRight, ZoomIn, ZoomOut, Maximize2 } from 'lucide
 import Image from 'next/image'
 import { useTheme } from 'next-themes'
 import { useModalHistory } from '@/hooks/useModalHistory'
+import { openNativeImageViewer } from '@/lib/nativeImageViewer'
 
 interface ImageViewerModalProps {
     media: Array<{
@@ -38,6 +39,11 @@ export default function ImageViewerModal({ media, initialIndex = 0, onClose }: I
     const ZOOM_STEP = 0.25
 
     useEffect(() => {
+        // Android: hand images to the native tiled viewer and close this one
+        if (openNativeImageViewer(media, initialIndex)) {
+            onClose()
+            return
+        }
         setMounted(true)
 
         // Prevent default touch behaviors on the entire document when modal is open
@@ -14,6 +14,7 @@ import { useModalHistory } from '@/hooks/useModalHistory'
 import { pushChatState } from '@/lib/chatNavigation'
 import { acceptStartRequest } from '@/lib/startJob'
 import { acceptMeetingRequest, rejectBill, acceptBillForPayment, completePayment, failPayment } from '@/lib/jobBilling'
+import { syncPosterBillReminders } from '@/lib/nativeReminders'
 import LiveTrackingMap from './LiveTrackingMap'
 import JobBillModal from './JobBillModal'
 
@@ -86,6 +87,7 @@ export default function JobApplicationsModal({ jobId, jobTitle, jobBudget, jobPo
         const unsub = onSnapshot(q, (snap) => {
             const apps = snap.docs.map(d => ({ id: d.id, ...d.data() }))
             setApplications(apps)
+            syncPosterBillReminders(apps, jobTitle)
             setLoading(false)
             // Fetch aadhaarName + photoURL for each unique applicant in parallel
             const uniqueUserIds = [...new Set(apps.map((a: any) => a.userId).filter(Boolean))];
@@ -247,6 +249,41 @@ export default function JobApplicationsModal({ jobId, jobTitle, jobBudget, jobPo
                 }
             }
 
+            // Installed UPI apps cached natively by UpiAppCache (APK only).
+            // When available, the UPI block lists only those apps so the user
+            // never taps one that would fall through to the Play Store.
+            const RAZORPAY_UPI_APPS: Record<string, string> = {
+                'com.google.android.apps.nbu.paisa.user': 'google_pay',
+                'com.phonepe.app': 'phonepe',
+                'net.one97.paytm': 'paytm',
+                'in.org.npci.upiapp': 'bhim',
+                'in.amazon.mShop.android.shopping': 'amazon',
+                'com.dreamplug.androidapp': 'cred',
+            }
+            let upiConfig: any = undefined
+            try {
+                const raw: string = (window as any).NeedYouBridge?.getInstalledUpiApps?.() || ''
+                if (raw) {
+                    const apps = (JSON.parse(raw) as { packageName: string }[])
+                        .map(a => RAZORPAY_UPI_APPS[a.packageName])
+                        .filter(Boolean)
+                    if (apps.length > 0) {
+                        upiConfig = {
+                            display: {
+                                blocks: {
+                                    upi: {
+                                        name: 'Pay using UPI',
+                                        instruments: [{ method: 'upi', flows: ['intent'], apps }],
+                                    },
+                                },
+                                sequence: ['block.upi'],
+                                preferences: { show_default_blocks: true },
+                            },
+                        }
+                    }
+                }
+            } catch { /* fall back to Razorpay's default app list */ }
+
             // Open Razorpay — it handles UPI intent natively on mobile
             new (window as any).Razorpay({
                 key: process.env.NEXT_PUBLIC_RAZORPAY_KEY_ID,
@@ -264,6 +301,7 @@ export default function JobApplicationsModal({ jobId, jobTitle, jobBudget, jobPo
                 // of trying the collect (VPA) flow. The WebViewClient in
                 // MainActivity.java intercepts those links and opens the UPI app.
                 webview_intent: true,
+                ...(upiConfig ? { config: upiConfig } : {}),
             }).open()
 
         } catch (err: any) {
@@ -798,6 +836,7 @@ export default function JobApplicationsModal({ jobId, jobTitle, jobBudget, jobPo
                                                                                         <LiveTrackingMap
                                                                                             workerLat={app.workerLat ?? null} workerLng={app.workerLng ?? null}
                                                                                             locationUpdatedAt={app.locationUpdatedAt ?? null}
+                                                                                            etaAt={app.startJobStatus === 'active' ? app.workerEtaAt ?? null : null}
                                                                                             destinationLat={jobDestination?.lat ?? null} destinationLng={jobDestination?.lng ?? null}
                                                                                             role="client" height={220} isDark={isDark}
                                                                                         />
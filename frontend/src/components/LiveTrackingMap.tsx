@@ -2,11 +2,14 @@
 
 import { useEffect, useRef, useState } from 'react'
 import { MapPin, RefreshCw } from 'lucide-react'
+import { calculateDistance } from '@/lib/distance'
 
 interface LiveTrackingMapProps {
     workerLat: number | null
     workerLng: number | null
     locationUpdatedAt?: number | null
+    /** Arrival estimate from the worker's device (workerEtaAt, ms since epoch) */
+    etaAt?: number | null
     /** Destination = job location (client's address). Pass to draw the route. */
     destinationLat?: number | null
     destinationLng?: number | null
@@ -18,6 +21,10 @@ interface LiveTrackingMapProps {
 
 let scriptPromise: Promise<void> | null = null
 
+// With a device ETA the route is only re-requested once the worker is this far
+// from where it was last drawn from, instead of on every location update.
+const ROUTE_REFRESH_KM = 0.5
+
 function loadGoogleMaps(): Promise<void> {
     if (typeof window === 'undefined') return Promise.resolve()
     if ((window as any).google?.maps) return Promise.resolve()
@@ -70,6 +77,7 @@ export default function LiveTrackingMap({
     workerLat,
     workerLng,
     locationUpdatedAt,
+    etaAt,
     destinationLat,
     destinationLng,
     role,
@@ -83,9 +91,11 @@ export default function LiveTrackingMap({
     const directionsRendererRef = useRef<any>(null)
     const polylineRef = useRef<any>(null)
     const boundsInitialisedRef = useRef(false)  // fitBounds only once — never on live location updates
+    const routedOriginRef = useRef<{ lat: number; lng: number } | null>(null)
     const [ready, setReady] = useState(false)
     const [loadError, setLoadError] = useState<string | null>(null)
     const [secAgo, setSecAgo] = useState<number | null>(null)
+    const [etaMin, setEtaMin] = useState<number | null>(null)
     const [routeInfo, setRouteInfo] = useState<{ distKm: string; durationMin: string } | null>(null)
 
     // Load Maps script once
@@ -159,6 +169,9 @@ export default function LiveTrackingMap({
         const gm = (window as any).google.maps
         const origin = { lat: workerLat, lng: workerLng }
         const destination = { lat: destinationLat, lng: destinationLng }
+        const routed = routedOriginRef.current
+        if (etaAt != null && routed && calculateDistance(routed.lat, routed.lng, origin.lat, origin.lng) < ROUTE_REFRESH_KM) return
+        routedOriginRef.current = origin
 
         // Try the Directions API (requires Directions API enabled on the key)
         const svc = new gm.DirectionsService()
@@ -236,7 +249,16 @@ export default function LiveTrackingMap({
                 }
             }
         )
-    }, [ready, workerLat, workerLng, destinationLat, destinationLng])
+    }, [ready, workerLat, workerLng, destinationLat, destinationLng, etaAt])
+
+    // Minutes to the device ETA, ticking down between updates
+    useEffect(() => {
+        if (etaAt == null) { setEtaMin(null); return }
+        const update = () => setEtaMin(Math.max(0, Math.ceil((etaAt - Date.now()) / 60000)))
+        update()
+        const t = setInterval(update, 15000)
+        return () => clearInterval(t)
+    }, [etaAt])
 
     // "X sec ago" countdown
     useEffect(() => {
@@ -274,10 +296,13 @@ export default function LiveTrackingMap({
             />
 
             {/* Route info badge */}
-            {routeInfo && (
+            {(routeInfo || etaMin !== null) && (
                 <div className="absolute top-2 left-1/2 -translate-x-1/2 flex items-center gap-2 px-3 py-1.5 rounded-full text-xs font-semibold shadow-lg"
                     style={{ background: 'rgba(59,130,246,0.92)', color: '#fff' }}>
-                    🚗 {routeInfo.distKm} · {routeInfo.durationMin}
+                    🚗 {[
+                        routeInfo?.distKm,
+                        etaMin === null ? routeInfo?.durationMin : etaMin === 0 ? 'Arriving' : `ETA ${etaMin} min`,
+                    ].filter(Boolean).join(' · ')}
                 </div>
             )}
 
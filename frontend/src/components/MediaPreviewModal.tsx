@@ -11,6 +11,7 @@ export interface MediaItem {
     file: File
     type: 'image' | 'video'
     url: string
+    thumbUrl?: string // small native preview (APK only) — see lib/nativeThumbnails
     caption?: string
     annotations?: string // merged image with drawings
     canvasOnly?: string // just the canvas drawings layer
@@ -40,6 +41,9 @@ export default function MediaPreviewModal({ media: initialMedia, onClose, onSend
     const [isMouseDown, setIsMouseDown] = useState(false)
     const [lastPos, setLastPos] = useState<{ x: number; y: number } | null>(null)
     const [drawingHistory, setDrawingHistory] = useState<string[]>([])
+    // Bumped when the preview <img> finishes loading, so drawing setup can
+    // wait for the full-size image that replaces the thumbnail
+    const [imageLoads, setImageLoads] = useState(0)
 
     const currentTheme = theme === 'system' ? systemTheme : theme
     const isDark = currentTheme === 'dark'
@@ -68,6 +72,7 @@ export default function MediaPreviewModal({ media: initialMedia, onClose, onSend
         if (drawingMode && canvasRef.current && imageRef.current) {
             const canvas = canvasRef.current
             const img = imageRef.current
+            if (!img.complete || img.naturalWidth === 0 || img.getAttribute('src') !== media[currentIndex].url) return
             canvas.width = img.naturalWidth
             canvas.height = img.naturalHeight
 
@@ -86,7 +91,7 @@ export default function MediaPreviewModal({ media: initialMedia, onClose, onSend
                 }
             }
         }
-    }, [drawingMode, currentIndex])
+    }, [drawingMode, currentIndex, imageLoads])
 
     const getCanvasCoordinates = (e: React.MouseEvent | React.TouchEvent) => {
         const canvas = canvasRef.current
@@ -279,9 +284,12 @@ export default function MediaPreviewModal({ media: initialMedia, onClose, onSend
             <div className="flex-1 relative flex items-center justify-center overflow-hidden">
                 {currentMedia.type === 'image' ? (
                     <div className="relative max-w-full max-h-full">
+                        {/* The native thumbnail (APK) stands in for the photo until the
+                            user draws; only drawing needs the full-size decode */}
                         <img
                             ref={imageRef}
-                            src={drawingMode ? currentMedia.url : (currentMedia.annotations || currentMedia.url)}
+                            src={drawingMode ? currentMedia.url : (currentMedia.annotations || currentMedia.thumbUrl || currentMedia.url)}
+                            onLoad={() => setImageLoads(n => n + 1)}
                             alt="Preview"
                             className="max-w-full max-h-[70vh] object-contain"
                         />
@@ -308,10 +316,11 @@ export default function MediaPreviewModal({ media: initialMedia, onClose, onSend
                     <div className="w-full h-full flex items-center justify-center">
                         <video
                             src={currentMedia.url}
+                            poster={currentMedia.thumbUrl}
                             controls
                             disablePictureInPicture
                             playsInline
-                            preload="metadata"
+                            preload={currentMedia.thumbUrl ? 'none' : 'metadata'}
                             className="w-full h-full"
                             style={{
                                 maxHeight: '80vh',
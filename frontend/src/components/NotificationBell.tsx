@@ -2,7 +2,7 @@
 
 import { useState, useEffect, useRef } from 'react'
 import { Bell } from 'lucide-react'
-import { getUserNotifications, markNotificationAsRead, markAllNotificationsAsRead, subscribeToNotifications } from '@/lib/notifications'
+import { getUserNotifications, markNotificationAsRead, markAllNotificationsAsRead, subscribeToNotifications, getNativeUnreadCount } from '@/lib/notifications'
 import { useAuth } from '@/context/AuthContext'
 import { Notification } from '@/lib/auth'
 import { useTheme } from 'next-themes'
@@ -50,7 +50,9 @@ export default function NotificationBell({ onNotificationClick }: NotificationBe
         return () => document.removeEventListener('mousedown', handleClickOutside)
     }, [])
 
-    const unreadCount = notifications.filter(n => !n.read).length
+    // The native mirror counts the whole history; the list only holds the newest page
+    const nativeUnread = user?.uid ? getNativeUnreadCount(user.uid) : null
+    const unreadCount = nativeUnread ?? notifications.filter(n => !n.read).length
 
     const handleNotificationClick = async (notification: Notification) => {
         // Mark as read
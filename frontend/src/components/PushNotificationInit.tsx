@@ -25,6 +25,8 @@ export default function PushNotificationInit() {
             } catch { /* browser, ignore */ }
         }
         setup();
+        // App shell mounted — keep the active OTA web bundle (APK only)
+        try { (window as any).NeedYouBridge?.bundleBootOk?.(); } catch { /* not in native context */ }
     }, []);
 
     // Register FCM once we know the userId (avoids the timing bug where user is null on mount)
@@ -7,10 +7,11 @@ import { useTheme } from 'next-themes'
 
 interface VideoViewerModalProps {
     videoUrl: string
+    posterUrl?: string // generated still (Cloudinary frame or native thumbnail)
     onClose: () => void
 }
 
-export default function VideoViewerModal({ videoUrl, onClose }: VideoViewerModalProps) {
+export default function VideoViewerModal({ videoUrl, posterUrl, onClose }: VideoViewerModalProps) {
     const { theme, systemTheme } = useTheme()
     const [mounted, setMounted] = useState(false)
 
@@ -51,6 +52,7 @@ export default function VideoViewerModal({ videoUrl, onClose }: VideoViewerModal
             >
                 <video
                     src={videoUrl}
+                    poster={posterUrl}
                     controls
                     autoPlay
                     playsInline
@@ -13,11 +13,12 @@ import { requestStartJob, verifyStartCode } from '@/lib/startJob'
 import { useModalHistory } from '@/hooks/useModalHistory'
 import { pushChatState } from '@/lib/chatNavigation'
 import { getCompressedImageUrl } from '@/lib/cloudinary'
-import { updateWorkerLocation } from '@/lib/liveTracking'
+import { updateWorkerLocation, nativeEtaSample } from '@/lib/liveTracking'
 import LiveTrackingMap from './LiveTrackingMap'
 import { motion, AnimatePresence } from 'framer-motion'
 import { calcDistance, notifyArrival, requestMeeting, verifyMeetingCode as verifyMeetingOtp, submitBill } from '@/lib/jobBilling'
 import JobBillModal, { type BillItem } from './JobBillModal'
+import { syncWorkerCodeReminders } from '@/lib/nativeReminders'
 import UserProfileSheet from './UserProfileSheet'
 
 interface ViewMyApplicationModalProps {
@@ -75,6 +76,8 @@ export default function ViewMyApplicationModal({
     const [jobDestination, setJobDestination] = useState<{ lat: number; lng: number } | null>(null)
     const jobDestinationRef = useRef<{ lat: number; lng: number } | null>(null)
     const arrivalNotifiedRef = useRef(false)
+    // True while a native geofence (Android) is watching the job site
+    const nativeFenceRef = useRef(false)
     // Meeting OTP state (in-person meeting confirmation after arrival)
     const [meetingEnteredCode, setMeetingEnteredCode] = useState('')
     const [meetingCodeSubmitting, setMeetingCodeSubmitting] = useState(false)
@@ -105,7 +108,9 @@ export default function ViewMyApplicationModal({
         const unsub = onSnapshot(q, (snap) => {
             if (snap.empty) { setApplication(null); setLoading(false); return }
             const d = snap.docs[0]
-            setApplication({ id: d.id, ...d.data() })
+            const app = { id: d.id, ...d.data() }
+            setApplication(app)
+            syncWorkerCodeReminders(app, jobTitle)
             setLoading(false)
         }, (err) => {
             console.error('Application listener error:', err)
@@ -145,6 +150,32 @@ export default function ViewMyApplicationModal({
     // Keep jobDestinationRef in sync for the watchPosition closure
     useEffect(() => { jobDestinationRef.current = jobDestination }, [jobDestination])
 
+    // ── Native arrival geofence (Android) ──
+    // Play Services watches the job site at low power and reports arrival to
+    // Firestore itself, even with the screen off. The watchPosition check
+    // below only runs when no native fence could be registered.
+    useEffect(() => {
+        const bridge = (window as any).NeedYouBridge
+        if (!bridge?.registerArrivalGeofence || !application?.id) return
+        const appId: string = application.id
+        if (application.startJobStatus === 'active' && !application.arrivalDetected && jobDestination) {
+            nativeFenceRef.current = !!bridge.registerArrivalGeofence(JSON.stringify({
+                appId,
+                jobId,
+                clientId: jobPosterId,
+                jobTitle,
+                workerName: application.userName || 'The worker',
+                lat: jobDestination.lat,
+                lng: jobDestination.lng,
+                radius: 500,
+            }))
+        } else if (nativeFenceRef.current) {
+            bridge.unregisterArrivalGeofence?.(appId)
+            nativeFenceRef.current = false
+        }
+        // eslint-disable-next-line react-hooks/exhaustive-deps
+    }, [application?.id, application?.startJobStatus, application?.arrivalDetected, jobDestination])
+
     // ── Worker GPS watchPosition — runs for all active tracking phases ──
     const TRACKING_PHASES = ['active', 'arrived', 'meeting_requested', 'meeting_code_pending', 'working']
     useEffect(() => {
@@ -154,20 +185,29 @@ export default function ViewMyApplicationModal({
         if (!navigator.geolocation) { setGpsError('Geolocation not supported.'); return }
 
         let lastPush = 0
+        let pendingEtaAt: number | null = null
         watchIdRef.current = navigator.geolocation.watchPosition(
             (pos) => {
                 setGpsError(null)
                 const loc = { lat: pos.coords.latitude, lng: pos.coords.longitude, updatedAt: Date.now() }
                 setWorkerLocation(loc)
+                // On the way: every fix feeds the native ETA estimator; a changed
+                // ETA goes out with the next location write, never on its own
+                if (status === 'active' && application?.id && jobDestinationRef.current) {
+                    const etaAt = nativeEtaSample(application.id, loc.lat, loc.lng, pos.coords.accuracy,
+                        pos.timestamp, jobDestinationRef.current)
+                    if (etaAt != null) pendingEtaAt = etaAt
+                }
                 if (Date.now() - lastPush > 5000 && application?.id) {
                     lastPush = Date.now()
-                    updateWorkerLocation(application.id, loc.lat, loc.lng).catch(console.error)
+                    updateWorkerLocation(application.id, loc.lat, loc.lng, pendingEtaAt).catch(console.error)
+                    pendingEtaAt = null
                 }
                 // ── Auto-detect arrival within 500m ──
                 // GPS error on mobile is typically 50-150 m per device, so two phones
                 // at the same spot can read 100-300 m apart. 500 m is generous but
                 // still meaningful (won't trigger from a different neighbourhood).
-                if (status === 'active' && !application?.arrivalDetected && !arrivalNotifiedRef.current && jobDestinationRef.current) {
+                if (status === 'active' && !nativeFenceRef.current && !application?.arrivalDetected && !arrivalNotifiedRef.current && jobDestinationRef.current) {
                     const dist = calcDistance(loc.lat, loc.lng, jobDestinationRef.current.lat, jobDestinationRef.current.lng)
                     if (dist <= 500) {
                         arrivalNotifiedRef.current = true
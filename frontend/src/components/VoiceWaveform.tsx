@@ -0,0 +1,41 @@
+'use client'
+
+import type { ReactNode } from 'react'
+import { useNativeWaveform } from '@/lib/nativeWaveform'
+
+interface VoiceWaveformProps {
+    url: string
+    progress: number            // 0..1 of playback
+    playedColor: string
+    restColor: string
+    onSeek: (fraction: number) => void
+    children?: ReactNode        // shown until (or unless) native peaks are available
+}
+
+// Bar waveform for a chat voice note, from peaks computed natively.
+// Tapping a bar seeks there. Falls back to `children` (e.g. a range input).
+export default function VoiceWaveform({ url, progress, playedColor, restColor, onSeek, children }: VoiceWaveformProps) {
+    const peaks = useNativeWaveform(url)
+    if (!peaks || peaks.length === 0) return <>{children}</>
+
+    return (
+        <div
+            className="flex items-center gap-[2px] h-7 w-full cursor-pointer"
+            onClick={(e) => {
+                const rect = e.currentTarget.getBoundingClientRect()
+                onSeek(Math.min(1, Math.max(0, (e.clientX - rect.left) / rect.width)))
+            }}
+        >
+            {peaks.map((p, i) => (
+                <div
+                    key={i}
+                    className="flex-1 rounded-full"
+                    style={{
+                        height: `${Math.max(8, (p / 255) * 100)}%`,
+                        background: (i + 0.5) / peaks.length <= progress ? playedColor : restColor,
+                    }}
+                />
+            ))}
+        </div>
+    )
+}
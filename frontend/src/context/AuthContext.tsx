@@ -7,6 +7,7 @@ import {
   signOut as firebaseSignOut
 } from 'firebase/auth'
 import { auth } from '@/lib/firebase'
+import { syncNativeSession } from '@/lib/nativeSession'
 
 interface AuthContextType {
   user: User | null
@@ -36,6 +37,8 @@ export function AuthProvider({ children }: { children: ReactNode }) {
     const unsubscribe = onAuthStateChanged(auth, (user) => {
       setUser(user)
       setLoading(false)
+      // Android: keep the native Firebase session on the same user
+      void syncNativeSession(user)
     })
 
     return unsubscribe
@@ -384,6 +384,10 @@ export const updateKycStatus = async (
       if (data?.livenessVideoUrl) {
         updateData['kycData.livenessVideoUrl'] = data.livenessVideoUrl
       }
+      if (data?.livenessConfidence !== undefined) {
+        updateData['kycData.livenessConfidence'] = data.livenessConfidence
+        updateData['kycData.livenessServerLive'] = !!data.livenessServerLive
+      }
 
     } else if (step === 'aadhaar') {
       updateData.aadhaarVerified = true
@@ -1476,6 +1480,10 @@ export const sendMessage = async (
           updatedAt: Date.now(),
           [`unreadCount.${receiverId}`]: (conversation.unreadCount[receiverId] || 0) + 1
         })
+
+        // Push with an inline Reply action (handled natively on Android)
+        const { notifyChatMessage } = await import('./notifications')
+        notifyChatMessage(receiverId, senderName, text, conversationId, conversation.jobId)
       }
     }
 
@@ -1,5 +1,7 @@
 // Cloudinary upload utilities for client-side uploads
 
+import { sha256Hex } from './sha256'
+
 export interface CloudinaryUploadResponse {
     public_id: string
     secure_url: string
@@ -11,6 +13,20 @@ export interface CloudinaryUploadResponse {
     bytes: number
 }
 
+/**
+ * SHA-256 of a file as lowercase hex, or null when the native upload index
+ * (NeedYouBridge, APK only) is unavailable. Videos are read a slice at a
+ * time rather than into one buffer (see sha256Hex).
+ */
+async function hashForUploadIndex(file: File): Promise<string | null> {
+    if (typeof window === 'undefined' || !(window as any).NeedYouBridge?.lookupUpload) return null
+    try {
+        return await sha256Hex(file)
+    } catch {
+        return null
+    }
+}
+
 /**
  * Upload a file to Cloudinary using unsigned upload
  * @param file - The file to upload (image or video)
@@ -26,6 +42,15 @@ export async function uploadToCloudinary(
         throw new Error('Cloudinary configuration missing. Please check environment variables.')
     }
 
+    // Identical content already uploaded from this device → reuse that result
+    const hash = await hashForUploadIndex(file)
+    if (hash) {
+        try {
+            const cached: string = (window as any).NeedYouBridge.lookupUpload(hash) || ''
+            if (cached) return JSON.parse(cached) as CloudinaryUploadResponse
+        } catch { /* fall through to a normal upload */ }
+    }
+
     const formData = new FormData()
     formData.append('file', file)
     formData.append('upload_preset', uploadPreset)
@@ -47,7 +72,7 @@ export async function uploadToCloudinary(
 
         const data = await response.json()
 
-        return {
+        const result: CloudinaryUploadResponse = {
             public_id: data.public_id,
             secure_url: data.secure_url,
             resource_type: data.resource_type,
@@ -57,6 +82,11 @@ export async function uploadToCloudinary(
             duration: data.duration,
             bytes: data.bytes,
         }
+        if (hash) {
+            // Indexes the result and lets the native side delete the staged capture file
+            try { (window as any).NeedYouBridge.recordUpload?.(hash, JSON.stringify(result)) } catch { }
+        }
+        return result
     } catch (error: any) {
         console.error('Cloudinary upload error:', error)
         throw new Error(error.message || 'Failed to upload file')
@@ -1,31 +1,64 @@
-import { doc, onSnapshot, updateDoc } from 'firebase/firestore'
+import { doc, onSnapshot } from 'firebase/firestore'
 import { db } from './firebase'
+import { queuedUpdate } from './nativeWrites'
 
 export interface WorkerLocation {
     lat: number
     lng: number
     updatedAt: number
+    /** Estimated arrival at the job site (ms since epoch), from the worker's device */
+    etaAt?: number | null
 }
 
-/** Worker calls this to push their current GPS position to Firestore */
+/**
+ * Worker calls this to push their current GPS position to Firestore.
+ * `etaAt`, when given, is written in the same update as workerEtaAt.
+ */
 export async function updateWorkerLocation(
     applicationId: string,
     lat: number,
-    lng: number
+    lng: number,
+    etaAt?: number | null
 ): Promise<void> {
     if (!db) throw new Error('DB not initialised')
-    await updateDoc(doc(db, 'job_applications', applicationId), {
+    await queuedUpdate('job_applications', applicationId, {
         workerLat: lat,
         workerLng: lng,
         locationUpdatedAt: Date.now(),
         trackingActive: true,
+        ...(etaAt != null ? { workerEtaAt: etaAt } : {}),
     })
 }
 
+/**
+ * Android: feeds a fix to the native ETA estimator (Kalman-smoothed position
+ * and speed → arrival time at the job site). Returns the arrival time only
+ * when it changed meaningfully, so it rides along with the next location
+ * write; null otherwise and on the web.
+ */
+export function nativeEtaSample(
+    applicationId: string,
+    lat: number,
+    lng: number,
+    accuracy: number | null,
+    time: number,
+    destination: { lat: number; lng: number }
+): number | null {
+    const bridge = typeof window === 'undefined' ? undefined : (window as any).NeedYouBridge
+    if (!bridge?.etaSample) return null
+    try {
+        const etaAt = Number(bridge.etaSample(applicationId, lat, lng, accuracy ?? 0, time,
+            destination.lat, destination.lng))
+        return etaAt > 0 ? etaAt : null
+    } catch {
+        return null
+    }
+}
+
 /** Stop tracking (call when job ends or component unmounts) */
 export async function stopTracking(applicationId: string): Promise<void> {
     if (!db) return
-    await updateDoc(doc(db, 'job_applications', applicationId), {
+    await queuedUpdate('job_applications', applicationId, {
         trackingActive: false,
     })
 }
@@ -43,7 +76,7 @@ export function subscribeToWorkerLocation(
         if (!snap.exists()) return
         const d = snap.data()
         if (d.workerLat != null && d.workerLng != null) {
-            callback({ lat: d.workerLat, lng: d.workerLng, updatedAt: d.locationUpdatedAt ?? 0 })
+            callback({ lat: d.workerLat, lng: d.workerLng, updatedAt: d.locationUpdatedAt ?? 0, etaAt: d.workerEtaAt ?? null })
         }
     })
 }
@@ -9,8 +9,73 @@ export interface LocationData {
     area?: string  // Area/sublocality/neighborhood
 }
 
+// On Android, LastLocationCache serves the best fix already on the device
+// (fused/platform last-known or the one persisted from the previous launch)
+// instantly, and refreshes it with one low-power update in the background.
+export interface NativeLocationFix {
+    lat: number
+    lng: number
+    accuracy: number | null  // metres; null when the provider gave none
+    time: number             // ms since epoch
+    ageMs: number
+    source: string
+}
+
+// Returns the native last-known fix, or null (web build, no permission, no fix yet).
+export const getNativeLastKnownLocation = (): NativeLocationFix | null => {
+    if (typeof window === 'undefined') return null
+    try {
+        const raw: string = (window as any).NeedYouBridge?.getLastKnownLocation?.() || ''
+        return raw ? (JSON.parse(raw) as NativeLocationFix) : null
+    } catch {
+        return null
+    }
+}
+
+// Calls `onFix` when the background refresh improves on the last-known fix.
+export const onNativeLocationUpdate = (onFix: (fix: NativeLocationFix) => void): (() => void) => {
+    if (typeof window === 'undefined') return () => {}
+    const handler = (e: Event) => {
+        const fix = (e as CustomEvent).detail as NativeLocationFix | undefined
+        if (fix) onFix(fix)
+    }
+    window.addEventListener('needyou_location', handler)
+    return () => window.removeEventListener('needyou_location', handler)
+}
+
+// A cached fix good enough to skip waiting for GPS in detectUserLocation.
+const FAST_PATH_MAX_AGE_MS = 5 * 60 * 1000
+const FAST_PATH_MAX_ACCURACY_M = 500
+
+// True if `fix` is recent and accurate enough to stand in for the user's
+// position. A fix kept in page state keeps ageing, so its timestamp counts too.
+export const isUsableNativeFix = (fix: NativeLocationFix | null | undefined): fix is NativeLocationFix =>
+    !!fix &&
+    Math.max(fix.ageMs, Date.now() - fix.time) <= FAST_PATH_MAX_AGE_MS &&
+    fix.accuracy !== null && fix.accuracy <= FAST_PATH_MAX_ACCURACY_M
+
+const toGeolocationPosition = (fix: NativeLocationFix): GeolocationPosition => ({
+    coords: {
+        latitude: fix.lat,
+        longitude: fix.lng,
+        accuracy: fix.accuracy ?? FAST_PATH_MAX_ACCURACY_M,
+        altitude: null,
+        altitudeAccuracy: null,
+        heading: null,
+        speed: null,
+    } as GeolocationCoordinates,
+    timestamp: fix.time,
+} as GeolocationPosition)
+
 // Detect user's current location using browser geolocation
 export const detectUserLocation = (): Promise<GeolocationPosition> => {
+    // Android: a recent, reasonably accurate native fix answers immediately
+    const cached = getNativeLastKnownLocation()
+    if (isUsableNativeFix(cached)) {
+        console.log('✅ Location detected (native last-known):', cached)
+        return Promise.resolve(toGeolocationPosition(cached))
+    }
+
     return new Promise((resolve, reject) => {
         if (!navigator.geolocation) {
             reject(new Error('Geolocation is not supported by your browser'))
@@ -86,12 +151,37 @@ export const detectUserLocation = (): Promise<GeolocationPosition> => {
 
 
 
+// On Android, geocoding results are cached natively (GeocodeCache): reverse
+// lookups per geohash cell, forward lookups per normalised address. Checked
+// before every Maps API call; the web build always goes to the network.
+// Precision 6 ≈ 1.2 × 0.6 km cells — well inside one area/sublocality.
+const REVERSE_GEOCODE_PRECISION = 6
+
+const geocodeBridge = (): any =>
+    typeof window === 'undefined' ? undefined : (window as any).NeedYouBridge
+
+function readNativeCache<T>(read: (bridge: any) => string | undefined): T | null {
+    try {
+        const raw = read(geocodeBridge())
+        return raw ? (JSON.parse(raw) as T) : null
+    } catch {
+        return null
+    }
+}
+
 // Reverse geocode coordinates to get address using Google Maps Geocoding API
 export const reverseGeocode = async (
     lat: number,
     lng: number,
     apiKey: string
 ): Promise<LocationData> => {
+    const cached = readNativeCache<LocationData>(b =>
+        b?.getCachedReverseGeocode?.(lat, lng, REVERSE_GEOCODE_PRECISION))
+    if (cached) {
+        console.log('✅ Location found (cached):', cached)
+        return { ...cached, latitude: lat, longitude: lng }
+    }
+
     try {
         console.log('🗺️ Reverse geocoding:', lat, lng)
 
@@ -142,7 +232,7 @@ export const reverseGeocode = async (
 
         console.log('✅ Location found:', { area, city, state, country })
 
-        return {
+        const result: LocationData = {
             latitude: lat,
             longitude: lng,
             area: area || undefined,
@@ -150,6 +240,10 @@ export const reverseGeocode = async (
             state: state || 'Unknown',
             country: country || 'Unknown'
         }
+        try {
+            geocodeBridge()?.putReverseGeocode?.(lat, lng, REVERSE_GEOCODE_PRECISION, JSON.stringify(result))
+        } catch { }
+        return result
     } catch (error: any) {
         console.error('❌ Reverse Geocoding Error:', error)
         throw new Error(error.message || 'Failed to get location details')
@@ -162,6 +256,12 @@ export const geocodeAddress = async (
     address: string,
     apiKey: string
 ): Promise<{ lat: number; lng: number }> => {
+    const cached = readNativeCache<{ lat: number; lng: number }>(b => b?.getCachedGeocode?.(address))
+    if (cached) {
+        console.log('✅ Coordinates found (cached):', cached)
+        return cached
+    }
+
     try {
         console.log('🗺️ Geocoding address:', address)
 
@@ -183,10 +283,14 @@ export const geocodeAddress = async (
 
         console.log('✅ Coordinates found:', location)
 
-        return {
+        const result = {
             lat: location.lat,
             lng: location.lng
         }
+        try {
+            geocodeBridge()?.putGeocode?.(address, JSON.stringify(result))
+        } catch { }
+        return result
     } catch (error: any) {
         console.error('❌ Geocoding Error:', error)
         throw new Error(error.message || 'Failed to geocode address')
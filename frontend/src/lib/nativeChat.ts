@@ -0,0 +1,16 @@
+// Open-chat hint (Android).
+// Chat pushes are data-only, so the native ":push" process posts their
+// banners even while the app is in front. The page tells it which
+// conversation is on screen; while the app is resumed, pushes for that
+// conversation post no banner.
+
+function bridge(): any {
+    return typeof window === 'undefined' ? undefined : (window as any).NeedYouBridge
+}
+
+/** `conversationId` is on screen; null when the chat closes. */
+export function setNativeOpenConversation(conversationId: string | null): void {
+    try {
+        bridge()?.setOpenConversation?.(conversationId ?? '')
+    } catch (_) { /* banners keep showing */ }
+}
@@ -0,0 +1,32 @@
+// Native tiled image viewer (Android).
+// NeedYouBridge.openImageViewer shows job photos and KYC scans full screen,
+// decoding only the visible region at the current zoom, so large images never
+// go through the WebView at full resolution.
+
+interface ViewerMedia {
+    type: 'image' | 'video'
+    url: string
+}
+
+/** The native viewer only loads http(s) URLs and drops any others from the list. */
+const isViewable = (m: ViewerMedia) => m.type === 'image' && /^https?:\/\//i.test(m.url)
+
+/**
+ * Opens the native viewer on the images in `media`, starting at `index`
+ * (an index into `media`). Returns false when the native viewer is not
+ * available or the item at `index` is not an http(s) image (e.g. a local
+ * blob: preview); the caller should then show its web viewer.
+ */
+export function openNativeImageViewer(media: ViewerMedia[], index: number): boolean {
+    if (typeof window === 'undefined') return false
+    const bridge = (window as any).NeedYouBridge
+    if (!bridge?.openImageViewer || !media[index] || !isViewable(media[index])) return false
+    // Filter first, so the start index points into the list the viewer gets
+    const images = media.filter(isViewable)
+    const start = images.indexOf(media[index])
+    try {
+        return !!bridge.openImageViewer(JSON.stringify({ urls: images.map(m => m.url), index: start }))
+    } catch {
+        return false
+    }
+}
@@ -0,0 +1,78 @@
+// On-device job search (Android).
+// JobSearch keeps an inverted index of the jobs the page has loaded;
+// typeahead queries are answered natively (prefix match on the word being
+// typed, ranked by relevance and distance) instead of substring-scanning
+// every job in JS on each keystroke.
+
+interface IndexableJob {
+    id: string
+    caption: string
+    category?: string
+    updatedAt?: number
+    location?: { latitude?: number; longitude?: number; city?: string; state?: string; area?: string }
+}
+
+export interface NativeJobHit {
+    id: string
+    score: number
+    distanceKm?: number
+}
+
+function bridge(): any {
+    return typeof window === 'undefined' ? undefined : (window as any).NeedYouBridge
+}
+
+// id → updatedAt of what the native index holds, so only changes are sent.
+const indexed = new Map<string, number>()
+
+/** Brings the native index in line with `jobs`, sending only what changed. */
+export function syncNativeJobIndex(jobs: IndexableJob[]): void {
+    const b = bridge()
+    if (!b?.indexJobs) return
+    const changed = jobs.filter(j => indexed.get(j.id) !== (j.updatedAt ?? 0))
+    const keep = new Set(jobs.map(j => j.id))
+    const gone = [...indexed.keys()].filter(id => !keep.has(id))
+    try {
+        if (changed.length) {
+            b.indexJobs(JSON.stringify(changed.map(j => ({
+                id: j.id,
+                caption: j.caption,
+                category: j.category ?? '',
+                area: j.location?.area ?? '',
+                city: j.location?.city ?? '',
+                state: j.location?.state ?? '',
+                lat: j.location?.latitude ?? null,
+                lng: j.location?.longitude ?? null,
+            }))))
+            changed.forEach(j => indexed.set(j.id, j.updatedAt ?? 0))
+        }
+        if (gone.length) {
+            b.removeJobs?.(JSON.stringify(gone))
+            gone.forEach(id => indexed.delete(id))
+        }
+    } catch (err) {
+        console.warn('Native job index sync failed:', err)
+    }
+}
+
+/**
+ * Ranked hits for `query` — an empty array when nothing matches — or null
+ * when native search is unavailable, nothing has been indexed yet, or the
+ * last sync is still being indexed (the caller then filters in JS). Without a `limit` every matching job is
+ * returned, so callers filtering their list by the hits lose none.
+ */
+export function searchNativeJobs(
+    query: string,
+    origin?: { lat: number; lng: number } | null,
+    limit = indexed.size,
+): NativeJobHit[] | null {
+    const b = bridge()
+    if (!b?.searchJobs || indexed.size === 0) return null
+    try {
+        const raw: string | undefined = b.searchJobs(query, origin?.lat ?? NaN, origin?.lng ?? NaN, limit)
+        // "" while the native side is still applying the last sync
+        return typeof raw === 'string' && raw ? (JSON.parse(raw) as NativeJobHit[]) : null
+    } catch {
+        return null
+    }
+}
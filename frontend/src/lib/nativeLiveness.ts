@@ -0,0 +1,61 @@
+// Server-side liveness check from native camera frames (Android).
+// NeedYouBridge.startNativeLiveness samples the front camera at a fixed rate,
+// converts frames to small JPEGs off the main thread and posts them in a batch
+// to /api/kyc-liveness — no full-resolution canvas grabs in the WebView.
+
+export interface NativeLivenessResult {
+    live: boolean
+    confidence: number
+}
+
+export interface NativeLivenessOptions {
+    fps?: number
+    width?: number
+    quality?: number
+    batchSize?: number
+    maxBatches?: number
+}
+
+/** True in the Android app, where the native capture is the server-checked liveness path. */
+export function hasNativeLiveness(): boolean {
+    return typeof window !== 'undefined' && !!(window as any).NeedYouBridge?.startNativeLiveness
+}
+
+/**
+ * Runs one native capture and resolves with the endpoint's verdict, or null
+ * when unavailable (web build, no camera permission, upload error, timeout).
+ * The page's own getUserMedia stream must be stopped first.
+ */
+export function runNativeLivenessCheck(
+    options: NativeLivenessOptions = { fps: 4, width: 320, batchSize: 3, maxBatches: 1 },
+    timeoutMs = 20000,
+): Promise<NativeLivenessResult | null> {
+    const bridge = typeof window === 'undefined' ? undefined : (window as any).NeedYouBridge
+    if (!bridge?.startNativeLiveness) return Promise.resolve(null)
+
+    return new Promise(resolve => {
+        let result: NativeLivenessResult | null = null
+        const done = () => {
+            window.removeEventListener('needyou_liveness', onEvent)
+            clearTimeout(timer)
+            resolve(result)
+        }
+        const onEvent = (e: Event) => {
+            const detail = (e as CustomEvent).detail
+            if (detail?.type === 'batch' && typeof detail.result?.live === 'boolean') {
+                result = { live: detail.result.live, confidence: detail.result.confidence ?? 0 }
+            } else if (detail?.type === 'finished') {
+                done()
+            }
+        }
+        const timer = setTimeout(() => {
+            try { bridge.stopNativeLiveness?.() } catch { }
+            done()
+        }, timeoutMs)
+
+        window.addEventListener('needyou_liveness', onEvent)
+        let started = false
+        try { started = !!bridge.startNativeLiveness(JSON.stringify(options)) } catch { }
+        if (!started) done()
+    })
+}
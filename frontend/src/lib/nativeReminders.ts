@@ -0,0 +1,87 @@
+// Local reminders scheduled on the device (Android ReminderScheduler).
+// They fire from AlarmManager even when the app is closed, offline or the
+// phone has rebooted, so time-based prompts no longer need a server push.
+// No-ops on the web build.
+
+export interface NativeReminder {
+    /** Stable id — scheduling the same id again replaces the reminder. */
+    id: string
+    /** Epoch ms. */
+    at: number
+    title: string
+    body: string
+    jobId?: string
+    notificationType?: string
+    /** Fire at `at` precisely (short-lived codes) instead of within a ~10 min window. */
+    exact?: boolean
+}
+
+function bridge(): any {
+    return typeof window === 'undefined' ? undefined : (window as any).NeedYouBridge
+}
+
+export function scheduleNativeReminder(reminder: NativeReminder): boolean {
+    try {
+        return !!bridge()?.scheduleReminder?.(JSON.stringify(reminder))
+    } catch {
+        return false
+    }
+}
+
+export function cancelNativeReminder(id: string): void {
+    try { bridge()?.cancelReminder?.(id) } catch { }
+}
+
+const MEETING_WARN_MS = 60 * 1000
+const BILL_REVIEW_DELAY_MS = 2 * 60 * 60 * 1000
+
+/**
+ * Worker side: warn shortly before the start / meeting code the poster
+ * generated expires. Call whenever the application doc changes.
+ */
+export function syncWorkerCodeReminders(app: any, jobTitle: string): void {
+    if (!app?.id) return
+    const sync = (id: string, active: boolean, expiry: number | undefined, title: string) => {
+        if (active && expiry && expiry - MEETING_WARN_MS > Date.now()) {
+            scheduleNativeReminder({
+                id,
+                at: expiry - MEETING_WARN_MS,
+                title,
+                body: `Your code for "${jobTitle}" expires in 1 minute. Open the app to enter it.`,
+                jobId: app.jobId,
+                notificationType: 'job_update',
+                exact: true,
+            })
+        } else {
+            cancelNativeReminder(id)
+        }
+    }
+    sync(`start-code-${app.id}`, app.startJobStatus === 'code_pending', app.startJobCodeExpiry, '⏳ Start code expiring')
+    sync(`meeting-code-${app.id}`, app.startJobStatus === 'meeting_code_pending', app.meetingCodeExpiry, '⏳ Meeting code expiring')
+}
+
+/**
+ * Poster side: nudge if a submitted bill is still waiting for review/payment
+ * a while after the worker sent it. Call whenever the applications change.
+ */
+export function syncPosterBillReminders(apps: any[], jobTitle: string): void {
+    for (const app of apps) {
+        if (!app?.id) continue
+        const id = `bill-review-${app.id}`
+        const createdAt: number | undefined = app.bill?.createdAt
+        if (app.startJobStatus === 'bill_submitted' && app.billStatus === 'pending_review' && createdAt) {
+            // One nudge per bill: once its time has passed, leave it alone
+            if (createdAt + BILL_REVIEW_DELAY_MS <= Date.now()) continue
+            scheduleNativeReminder({
+                id,
+                at: createdAt + BILL_REVIEW_DELAY_MS,
+                title: '🧾 Bill awaiting review',
+                body: `A bill for "${jobTitle}" is waiting for your review.`,
+                jobId: app.jobId,
+                notificationType: 'job_update',
+            })
+        } else {
+            cancelNativeReminder(id)
+        }
+    }
+}
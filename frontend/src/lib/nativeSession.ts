@@ -0,0 +1,32 @@
+// Hands the signed-in web user to the Android app's native Firebase SDK,
+// which keeps its own session (separate from the Web SDK's IndexedDB) and
+// refreshes ID tokens itself — so native code can talk to Firestore as the
+// user without waking the WebView. No-op on the web build.
+
+import type { User } from 'firebase/auth'
+
+function bridge(): any {
+    return typeof window === 'undefined' ? undefined : (window as any).NeedYouBridge
+}
+
+export async function syncNativeSession(user: User | null): Promise<void> {
+    const b = bridge()
+    if (!b?.startNativeSession) return
+    try {
+        if (!user) {
+            b.endNativeSession?.()
+            return
+        }
+        if (!b.needsNativeSession?.(user.uid)) return
+        const idToken = await user.getIdToken()
+        const res = await fetch('/api/native-session', {
+            method: 'POST',
+            headers: { Authorization: `Bearer ${idToken}` },
+        })
+        if (!res.ok) return
+        const { customToken } = await res.json()
+        if (customToken) b.startNativeSession(customToken, user.uid)
+    } catch (err) {
+        console.warn('Native session handover failed:', err)
+    }
+}
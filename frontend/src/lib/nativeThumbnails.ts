@@ -0,0 +1,30 @@
+// Native thumbnails for media picked through the Android file chooser.
+// MainActivity generates a small JPEG per picked URI (ThumbnailStore) and
+// serves it from a local URL, so previews never decode the original file.
+
+interface PickedThumbnail {
+    name: string
+    size: number
+    mimeType: string
+    thumbUrl: string
+}
+
+/**
+ * Returns a native thumbnail URL for each file (same order), or undefined
+ * where none is available (web build, or file not from the last pick).
+ * Files are matched to the native pick result by name + size.
+ */
+export function getNativeThumbnails(files: File[]): (string | undefined)[] {
+    if (typeof window === 'undefined') return files.map(() => undefined)
+    let picked: PickedThumbnail[] = []
+    try {
+        const raw: string = (window as any).NeedYouBridge?.getPickedMediaThumbnails?.() || ''
+        if (raw) picked = JSON.parse(raw)
+    } catch {
+        return files.map(() => undefined)
+    }
+    return files.map(file => {
+        const match = picked.find(p => p.name === file.name && (p.size < 0 || p.size === file.size))
+        return match?.thumbUrl
+    })
+}
@@ -0,0 +1,69 @@
+// Voice-note waveforms computed natively (Android).
+// NeedYouBridge.getVoiceWaveform decodes the recording once on a background
+// pool and caches a fixed number of peak heights (0..255) per URL, so chat
+// bubbles can draw a waveform without fetching and decoding the audio here.
+
+import { useEffect, useState } from 'react'
+
+export const WAVEFORM_BUCKETS = 64
+
+// Peaks already received this session, by URL — avoids a bridge call per render.
+const peaksByUrl = new Map<string, number[]>()
+const waiters = new Map<string, Set<(peaks: number[]) => void>>()
+let listening = false
+
+function listen() {
+    if (listening || typeof window === 'undefined') return
+    listening = true
+    window.addEventListener('needyou_waveform', (e: Event) => {
+        const detail = (e as CustomEvent).detail as { url: string; buckets: number; peaks: number[] } | undefined
+        if (!detail || detail.buckets !== WAVEFORM_BUCKETS) return
+        peaksByUrl.set(detail.url, detail.peaks)
+        waiters.get(detail.url)?.forEach(cb => cb(detail.peaks))
+        waiters.delete(detail.url)
+    })
+}
+
+/**
+ * Returns the cached peaks for `url`, or null. On a native miss the decode is
+ * started and `onReady` is called once it finishes. Always null on the web build.
+ */
+export function getNativeWaveform(url: string, onReady?: (peaks: number[]) => void): number[] | null {
+    const known = peaksByUrl.get(url)
+    if (known) return known
+    if (typeof window === 'undefined') return null
+    const bridge = (window as any).NeedYouBridge
+    if (!bridge?.getVoiceWaveform) return null
+    listen()
+    if (onReady) {
+        const set = waiters.get(url) ?? new Set()
+        set.add(onReady)
+        waiters.set(url, set)
+    }
+    try {
+        const raw: string = bridge.getVoiceWaveform(url, WAVEFORM_BUCKETS) || ''
+        if (!raw) return null
+        const peaks = JSON.parse(raw) as number[]
+        peaksByUrl.set(url, peaks)
+        if (onReady) waiters.get(url)?.delete(onReady)
+        return peaks
+    } catch {
+        return null
+    }
+}
+
+/** Peaks for `url` once available (native only); null until then. */
+export function useNativeWaveform(url: string | undefined): number[] | null {
+    const [peaks, setPeaks] = useState<number[] | null>(null)
+    useEffect(() => {
+        if (!url) return
+        let active = true
+        const onReady = (p: number[]) => { if (active) setPeaks(p) }
+        setPeaks(getNativeWaveform(url, onReady))
+        return () => {
+            active = false
+            waiters.get(url)?.delete(onReady)
+        }
+    }, [url])
+    return peaks
+}
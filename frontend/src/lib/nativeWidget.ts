@@ -0,0 +1,32 @@
+// Home-screen widget (Android).
+// NeedYouWidget renders from a native snapshot that pushes keep current; the
+// page tells it what only the page knows: that the home feed has been seen
+// (resets the nearby count) and the worker's current hired job.
+
+interface WidgetJob {
+    id: string
+    title: string
+    startJobStatus?: string
+}
+
+function bridge(): any {
+    return typeof window === 'undefined' ? undefined : (window as any).NeedYouBridge
+}
+
+function send(update: Record<string, unknown>): void {
+    const b = bridge()
+    if (!b?.updateWidget) return
+    try {
+        b.updateWidget(JSON.stringify(update))
+    } catch (_) { /* widget keeps its last snapshot */ }
+}
+
+/** The home feed is on screen: nearby jobs so far count as seen. */
+export function markWidgetNearbySeen(): void {
+    send({ nearbySeen: true })
+}
+
+/** Shows `job` on the widget's job card, or clears it with null. */
+export function setWidgetJob(job: WidgetJob | null): void {
+    send({ job })
+}
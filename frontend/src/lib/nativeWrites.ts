@@ -0,0 +1,70 @@
+// Write-behind Firestore updates (Android).
+// NeedYouBridge.enqueueWrite hands a field update to FirestoreWriteQueue and
+// returns at once; rapid updates to the same document and field coalesce
+// (last write wins) and are committed in batches through the native session,
+// surviving process death and flaky networks. Falls back to updateDoc on the
+// web build or when the native session is not signed in as the web user.
+//
+// Only for plain values (no increment()/serverTimestamp()), only for fields
+// the page does not read back from the server right after writing, and never
+// for fields that are also written directly: a queued write can land after a
+// later updateDoc and undo it. Status transitions (startJobStatus,
+// billStatus, paymentStatus) therefore always go through updateDoc.
+
+import { doc, updateDoc } from 'firebase/firestore'
+import { auth, db } from './firebase'
+
+export interface WriteQueueStats {
+    depth: number
+    updatesEnqueued: number
+    fieldsEnqueued: number
+    fieldsCoalesced: number
+    documentsCommitted: number
+    fieldsCommitted: number
+    batchesCommitted: number
+    batchesFailed: number
+    documentsDropped: number
+}
+
+function bridge(): any {
+    return typeof window === 'undefined' ? undefined : (window as any).NeedYouBridge
+}
+
+/**
+ * updateDoc(doc(db, collection, id), fields), queued natively when possible.
+ * Fire-and-forget: when queued, the promise resolves as soon as the update is
+ * handed to the native queue, before it is committed, and a later commit
+ * failure is not reported. Only the direct-write fallback resolves on commit.
+ */
+export async function queuedUpdate(
+    collectionName: string,
+    id: string,
+    fields: Record<string, string | number | boolean | null | object>,
+): Promise<void> {
+    const b = bridge()
+    const uid = auth?.currentUser?.uid
+    if (b?.enqueueWrite && uid && !b.needsNativeSession?.(uid)) {
+        try {
+            if (b.enqueueWrite(`${collectionName}/${id}`, JSON.stringify(fields))) return
+        } catch {
+            // fall through to a direct write
+        }
+    }
+    if (!db) throw new Error('DB not initialised')
+    await updateDoc(doc(db, collectionName, id), fields)
+}
+
+/** Commits anything queued now rather than after the coalescing window. */
+export function flushQueuedWrites(): void {
+    bridge()?.flushWrites?.()
+}
+
+/** Native write-queue counters, or null on the web build. */
+export function getWriteQueueStats(): WriteQueueStats | null {
+    try {
+        const raw: string = bridge()?.getWriteQueueStats?.() || ''
+        return raw ? (JSON.parse(raw) as WriteQueueStats) : null
+    } catch {
+        return null
+    }
+}
@@ -1,4 +1,4 @@
-import { collection, addDoc, query, where, orderBy, getDocs, doc, updateDoc, onSnapshot } from 'firebase/firestore'
+import { collection, addDoc, query, where, orderBy, limit, getDocs, getDoc, doc, updateDoc, onSnapshot } from 'firebase/firestore'
 import { db } from './firebase'
 import { Notification } from './auth'
 
@@ -16,12 +16,13 @@ const sendPushNotification = (
     userId: string,
     title: string,
     body: string,
-    data?: Record<string, string>
+    data?: Record<string, string>,
+    dataOnly = false
 ) => {
     fetch('/api/send-notification', {
         method: 'POST',
         headers: { 'Content-Type': 'application/json' },
-        body: JSON.stringify({ userId, title, body, data }),
+        body: JSON.stringify({ userId, title, body, data, dataOnly }),
     })
         .then(res => res.json())
         .then(json => {
@@ -37,7 +38,7 @@ export const createNotification = async (
 ): Promise<void> => {
     try {
         const dbInstance = ensureDbInitialized()
-        await addDoc(collection(dbInstance, 'notifications'), {
+        const ref = await addDoc(collection(dbInstance, 'notifications'), {
             ...notification,
             createdAt: Date.now(),
             read: false
@@ -51,7 +52,12 @@ export const createNotification = async (
             notification.message,
             {
                 ...(notification.jobId ? { jobId: notification.jobId } : {}),
+                ...(notification.applicationId ? { applicationId: notification.applicationId } : {}),
+                // Lets the home-screen widget name the job without reading Firestore
+                ...(notification.jobTitle ? { jobTitle: notification.jobTitle.substring(0, 80) } : {}),
                 notificationType: notification.type,
+                // Lets MyFirebaseMessagingService insert the row into the native mirror
+                notificationId: ref.id,
             }
         )
     } catch (error: any) {
@@ -60,6 +66,25 @@ export const createNotification = async (
     }
 }
 
+// Push for a new chat message. Not stored in the notifications collection (the
+// bell lists job events only). Data-only, so MyFirebaseMessagingService posts it
+// with an inline Reply action even when the app is closed.
+export const notifyChatMessage = (
+    receiverId: string,
+    senderName: string,
+    text: string,
+    conversationId: string,
+    jobId?: string
+) => {
+    sendPushNotification(
+        receiverId,
+        senderName,
+        text.substring(0, 200),
+        { notificationType: 'chat_message', conversationId, jobId: jobId ?? '' },
+        true
+    )
+}
+
 // Get user notifications
 export const getUserNotifications = async (
     userId: string
@@ -84,6 +109,56 @@ export const getUserNotifications = async (
     }
 }
 
+// ─── Native notifications mirror (APK only) ──────────────────────────────────
+// MainActivity keeps a SQLite copy of the user's notifications. Once it has
+// mirrored the full history, the listener below only watches the newest
+// NOTIFICATION_PAGE_SIZE docs and older pages are served natively.
+
+export const NOTIFICATION_PAGE_SIZE = 50
+
+const nativeBridge = (): any =>
+    typeof window !== 'undefined' && (window as any).NeedYouBridge?.syncNotifications
+        ? (window as any).NeedYouBridge
+        : null
+
+// User whose notifications the native mirror currently follows
+let mirrorUserId: string | null = null
+
+const readNativePage = (userId: string, cursor?: Notification): Notification[] | null => {
+    const bridge = nativeBridge()
+    if (!bridge) return null
+    try {
+        const raw: string = bridge.getNotificationsPage(
+            userId, cursor?.createdAt ?? 0, cursor?.id ?? '', NOTIFICATION_PAGE_SIZE)
+        return (JSON.parse(raw).items || []) as Notification[]
+    } catch {
+        return null
+    }
+}
+
+// Unread count from the native mirror, or null on web / before the mirror exists
+export const getNativeUnreadCount = (userId: string): number | null => {
+    const bridge = nativeBridge()
+    if (!bridge) return null
+    try {
+        return bridge.isNotificationMirrorSeeded(userId) ? bridge.getNotificationUnreadCount(userId) : null
+    } catch {
+        return null
+    }
+}
+
+// Next (older) page after `last` — native mirror first, Firestore otherwise
+export const loadOlderNotifications = async (
+    userId: string,
+    last: Notification
+): Promise<Notification[]> => {
+    const nativePage = readNativePage(userId, last)
+    if (nativePage) return nativePage
+    const all = await getUserNotifications(userId)
+    const idx = all.findIndex(n => n.id === last.id)
+    return idx >= 0 ? all.slice(idx + 1, idx + 1 + NOTIFICATION_PAGE_SIZE) : []
+}
+
 // Real-time listener for user notifications
 export const subscribeToNotifications = (
     userId: string,
@@ -92,6 +167,59 @@ export const subscribeToNotifications = (
     try {
         const dbInstance = ensureDbInitialized()
         const notificationsRef = collection(dbInstance, 'notifications')
+
+        const bridge = nativeBridge()
+        if (bridge) {
+            let seeded = false
+            try { seeded = !!bridge.isNotificationMirrorSeeded(userId) } catch { }
+            mirrorUserId = userId
+
+            // Render instantly from the mirror while the listener connects
+            if (seeded) {
+                const cached = readNativePage(userId)
+                if (cached) callback(cached)
+            }
+
+            // Full history once to seed the mirror, then only the newest page
+            const q = seeded
+                ? query(notificationsRef, where('userId', '==', userId), orderBy('createdAt', 'desc'), limit(NOTIFICATION_PAGE_SIZE))
+                : query(notificationsRef, where('userId', '==', userId), orderBy('createdAt', 'desc'))
+
+            const sync = (changes: object[], fullHistory: boolean) => {
+                try {
+                    bridge.syncNotifications(userId, JSON.stringify(changes), fullHistory)
+                } catch (e) {
+                    console.error('❌ Native notification sync error:', e)
+                }
+            }
+
+            return onSnapshot(q, (snapshot) => {
+                const all = snapshot.docChanges()
+                const changes = all
+                    // With limit(), docs sliding out of the window arrive as 'removed'
+                    .filter(c => !(seeded && c.type === 'removed'))
+                    .map(c => c.type === 'removed'
+                        ? { op: 'remove', id: c.doc.id }
+                        : { op: 'upsert', doc: { id: c.doc.id, ...c.doc.data() } })
+                sync(changes, !seeded)
+                const page = readNativePage(userId)
+                callback(page ?? snapshot.docs.map(d => ({ id: d.id, ...d.data() } as Notification)))
+
+                // ...so only drop the ones that were really deleted
+                if (seeded) {
+                    for (const c of all) {
+                        if (c.type !== 'removed') continue
+                        getDoc(c.doc.ref).then(d => {
+                            if (d.exists()) return
+                            sync([{ op: 'remove', id: c.doc.id }], false)
+                            const updated = readNativePage(userId)
+                            if (updated) callback(updated)
+                        }).catch(() => { })
+                    }
+                }
+            })
+        }
+
         const q = query(
             notificationsRef,
             where('userId', '==', userId),
@@ -119,6 +247,10 @@ export const markNotificationAsRead = async (
     notificationId: string
 ): Promise<void> => {
     try {
+        // Keeps the native unread count right, also for docs outside the listener window
+        if (mirrorUserId) {
+            try { nativeBridge()?.markNotificationsReadLocal(mirrorUserId, JSON.stringify([notificationId])) } catch { }
+        }
         const dbInstance = ensureDbInitialized()
         const notificationRef = doc(dbInstance, 'notifications', notificationId)
         await updateDoc(notificationRef, {
@@ -142,6 +274,9 @@ export const markAllNotificationsAsRead = async (
             where('read', '==', false)
         )
 
+        // Older docs outside the listener window only exist in the native mirror
+        try { nativeBridge()?.markNotificationsReadLocal(userId, '') } catch { }
+
         const snapshot = await getDocs(q)
         const updatePromises = snapshot.docs.map(doc =>
             updateDoc(doc.ref, { read: true })
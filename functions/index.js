@@ -3,6 +3,7 @@
  *
  * 1. sendFCMOnNotification      — sends FCM push when a notification doc is created
  * 2. notifyNearbyUsersOnNewJob  — fires on new job, notifies users within 20 km
+ *                                 (one area-topic push, per-user pushes only as fallback)
  *
  * Deploy: cd functions && firebase deploy --only functions
  */
@@ -26,6 +27,29 @@ function haversineKm(lat1, lon1, lat2, lon2) {
     return R * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
 }
 
+// ─── Helper: geohash cell (matches the app's Geohash.encode) ─────────────────
+const GEOHASH_BASE32 = '0123456789bcdefghjkmnpqrstuvwxyz';
+function geohash(lat, lon, precision) {
+    let latLo = -90, latHi = 90, lonLo = -180, lonHi = 180;
+    let out = '', ch = 0, bit = 0, evenBit = true;
+    while (out.length < precision) {
+        if (evenBit) {
+            const mid = (lonLo + lonHi) / 2;
+            if (lon >= mid) { ch = (ch << 1) | 1; lonLo = mid; } else { ch <<= 1; lonHi = mid; }
+        } else {
+            const mid = (latLo + latHi) / 2;
+            if (lat >= mid) { ch = (ch << 1) | 1; latLo = mid; } else { ch <<= 1; latHi = mid; }
+        }
+        evenBit = !evenBit;
+        if (++bit === 5) {
+            out += GEOHASH_BASE32[ch];
+            bit = 0;
+            ch = 0;
+        }
+    }
+    return out;
+}
+
 // ─── 1. FCM sender — triggered by new notification docs ─────────────────────
 exports.sendFCMOnNotification = functions.firestore
     .document('notifications/{notifId}')
@@ -35,6 +59,8 @@ exports.sendFCMOnNotification = functions.firestore
 
         const { userId, title, message } = notification;
         if (!userId || !title) return;
+        // Already announced to the user's device by an area topic send
+        if (notification.pushedViaTopic) return;
 
         try {
             const userDoc = await admin.firestore().collection('users').doc(userId).get();
@@ -63,6 +89,10 @@ exports.sendFCMOnNotification = functions.firestore
                     notifId: context.params.notifId,
                     ...(notification.jobId ? { jobId: String(notification.jobId) } : {}),
                     ...(notification.type ? { type: String(notification.type) } : {}),
+                    // Lets the Hire / Decline notification buttons act without opening the app
+                    ...(notification.applicationId ? { applicationId: String(notification.applicationId) } : {}),
+                    // Lets the home-screen widget name the job without reading Firestore
+                    ...(notification.jobTitle ? { jobTitle: String(notification.jobTitle).substring(0, 80) } : {}),
                 },
                 android: {
                     // HIGH priority wakes the device even in Doze/deep sleep
@@ -82,6 +112,10 @@ exports.sendFCMOnNotification = functions.firestore
 
 // ─── 2. Nearby job notifier — triggered when a new job doc is created ────────
 const NEARBY_RADIUS_KM = 20;
+// Devices subscribe to 'jobs_<cell>' for every cell within the radius of
+// where they are (JobAlertTopics in the Android app), so one send to the job's
+// own cell reaches all of them; the app drops alerts beyond the radius.
+const AREA_TOPIC_PRECISION = 4;
 
 exports.notifyNearbyUsersOnNewJob = functions.firestore
     .document('jobs/{jobId}')
@@ -110,12 +144,39 @@ exports.notifyNearbyUsersOnNewJob = functions.firestore
             ? `A new ${categoryLabel} job is available near you: "${shortCaption}"`
             : `A new job is available near your location: "${shortCaption}"`;
 
+        const areaTopic = 'jobs_' + geohash(jobLat, jobLon, AREA_TOPIC_PRECISION);
+        let topicSent = false;
+        try {
+            await admin.messaging().send({
+                topic: areaTopic,
+                data: {
+                    title,
+                    body: message,
+                    jobId,
+                    type: 'new_job_nearby',
+                    jobTitle: String(caption).substring(0, 80),
+                    jobLat: String(jobLat),
+                    jobLng: String(jobLon),
+                    ...(posterId ? { posterId: String(posterId) } : {}),
+                },
+                android: {
+                    priority: 'high',
+                    ttl: 60 * 60 * 24,
+                },
+            });
+            topicSent = true;
+            console.log(`[NearbyNotify] ✅ Area push sent to ${areaTopic} for job ${jobId}`);
+        } catch (error) {
+            console.error('[NearbyNotify] ❌ Area push failed, falling back to per-user pushes:', error);
+        }
+
         try {
             const usersSnapshot = await admin.firestore().collection('users').get();
 
             const db = admin.firestore();
             const batch = db.batch();
             let notifCount = 0;
+            let topicCount = 0;
 
             usersSnapshot.forEach(userDoc => {
                 const userData = userDoc.data();
@@ -133,7 +194,16 @@ exports.notifyNearbyUsersOnNewJob = functions.firestore
                 const dist = haversineKm(jobLat, jobLon, userLat, userLon);
                 if (dist > NEARBY_RADIUS_KM) return;
 
-                // Each notification doc triggers sendFCMOnNotification automatically
+                // The user's device got the area push if it is on the job's topic
+                // and still holds the token saved for the user
+                const pushedViaTopic = topicSent
+                    && Array.isArray(userData.areaTopics)
+                    && userData.areaTopics.includes(areaTopic)
+                    && !!userData.fcmToken
+                    && userData.areaTopicsToken === userData.fcmToken;
+
+                // Each notification doc triggers sendFCMOnNotification automatically,
+                // which skips the push when pushedViaTopic is set
                 const notifRef = db.collection('notifications').doc();
                 batch.set(notifRef, {
                     userId: uid,
@@ -146,12 +216,14 @@ exports.notifyNearbyUsersOnNewJob = functions.firestore
                     distanceKm: Math.round(dist * 10) / 10,
                     createdAt: Date.now(),
                     read: false,
+                    ...(pushedViaTopic ? { pushedViaTopic: true } : {}),
                 });
                 notifCount++;
+                if (pushedViaTopic) topicCount++;
             });
 
             await batch.commit();
-            console.log(`[NearbyNotify] ✅ Notified ${notifCount} user(s) within ${NEARBY_RADIUS_KM}km for job ${jobId}`);
+            console.log(`[NearbyNotify] ✅ Notified ${notifCount} user(s) within ${NEARBY_RADIUS_KM}km for job ${jobId} (${topicCount} via ${areaTopic})`);
 
         } catch (error) {
             console.error('[NearbyNotify] ❌ Error notifying nearby users:', error);